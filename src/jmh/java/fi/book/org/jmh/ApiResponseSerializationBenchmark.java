@@ -0,0 +1,114 @@
+package fi.book.org.jmh;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import fi.book.org.api.ApiResponse;
+import fi.book.org.api.ApiResponseJsonEncoder;
+import fi.book.org.api.ApiResponsePage;
+import fi.book.org.dto.BookDto;
+import fi.book.org.dto.InventoryDto;
+import fi.book.org.dto.InventoryGlobalDto;
+
+/**
+ * Reflection-based Jackson encoder vs. Blackbird accessors plus direct {@link DataBuffer} writing, for each
+ * response envelope the API returns. Run with {@code ./gradlew jmh}; the gc profiler reports
+ * {@code gc.alloc.rate.norm} as bytes allocated per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"book", "inventory", "total", "page"})
+    public String payload;
+
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    private Jackson2JsonEncoder reflectionEncoder;
+    private Jackson2JsonEncoder fastPathEncoder;
+    private Object value;
+    private ResolvableType valueType;
+
+    @Setup
+    public void setUp() {
+        reflectionEncoder = new Jackson2JsonEncoder(objectMapper());
+        fastPathEncoder = new ApiResponseJsonEncoder(objectMapper().registerModule(new BlackbirdModule()));
+        value = switch (payload) {
+            case "book" -> ApiResponse.ok(book(0));
+            case "inventory" -> ApiResponse.ok(InventoryDto.builder()
+                    .id(UUID.randomUUID()).copies(12).bookstoreId(1001L).version(3L).build());
+            case "total" -> ApiResponse.ok(InventoryGlobalDto.builder().total_copies(12345L).build());
+            case "page" -> ApiResponsePage.okWithPagination(
+                    IntStream.range(0, 20).mapToObj(ApiResponseSerializationBenchmark::book).toList(), 20, 1, 0, 20);
+            default -> throw new IllegalArgumentException(payload);
+        };
+        valueType = ResolvableType.forInstance(value);
+    }
+
+    @Benchmark
+    public int reflection() {
+        return encode(reflectionEncoder);
+    }
+
+    @Benchmark
+    public int fastPath() {
+        return encode(fastPathEncoder);
+    }
+
+    private int encode(Jackson2JsonEncoder encoder) {
+        DataBuffer buffer = encoder.encodeValue(value, bufferFactory, valueType, MediaType.APPLICATION_JSON, null);
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    // Mirrors the spring.jackson.* settings in application.properties
+    private static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .serializationInclusion(JsonInclude.Include.NON_EMPTY)
+                .build();
+    }
+
+    private static BookDto book(int index) {
+        return BookDto.builder()
+                .id(UUID.randomUUID())
+                .title("Title" + index)
+                .author("Author" + index)
+                .price(BigDecimal.valueOf(29.99))
+                .bookstore_id(1001L)
+                .version(1L)
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package fi.book.org.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import fi.book.org.dto.BookDto;
+import fi.book.org.model.BookModel;
+import fi.book.org.services.BookService;
+
+/**
+ * Entity/DTO mapping done for every book read and write. The mappers touch no collaborators, so the service
+ * is built without any.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookMapperBenchmark {
+
+    private BookService bookService;
+    private BookModel bookModel;
+    private BookDto bookDto;
+
+    @Setup
+    public void setUp() {
+        bookService = new BookService(null, null, null, null, null);
+        bookModel = BookModel.builder()
+                .id(UUID.randomUUID())
+                .title("Reactive Spring")
+                .author("Josh Long")
+                .price(BigDecimal.valueOf(49.99))
+                .bookstoreId(1001L)
+                .version(1L)
+                .build();
+        bookDto = bookService.toBookDto(bookModel);
+    }
+
+    @Benchmark
+    public BookDto toBookDto() {
+        return bookService.toBookDto(bookModel);
+    }
+
+    @Benchmark
+    public BookModel toBookModel() {
+        return bookService.toBookModel(bookDto);
+    }
+}
@@ -0,0 +1,73 @@
+package fi.book.org.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import fi.book.org.config.CacheConfig;
+import fi.book.org.dto.BookDto;
+
+/**
+ * Cache lookups as configured by {@link CacheConfig}: async Caffeine, keyed the way {@code @Cacheable(key = "{#id}")}
+ * builds keys. {@code retrieve} is what reactive {@code @Cacheable} methods call, {@code get} the blocking path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheHitBenchmark {
+
+    private Cache bookCache;
+    private List<UUID> hitKey;
+    private List<UUID> missKey;
+
+    @Setup
+    public void setUp() {
+        CacheConfig cacheConfig = new CacheConfig();
+        CacheManager cacheManager = cacheConfig.cacheManager(cacheConfig.caffeineConfig());
+        bookCache = cacheManager.getCache("bookCache");
+        UUID id = UUID.randomUUID();
+        hitKey = List.of(id);
+        missKey = List.of(UUID.randomUUID());
+        bookCache.put(hitKey, BookDto.builder()
+                .id(id)
+                .title("Reactive Spring")
+                .author("Josh Long")
+                .price(BigDecimal.valueOf(49.99))
+                .bookstore_id(1001L)
+                .build());
+    }
+
+    @Benchmark
+    public Object retrieveHit() {
+        CompletableFuture<?> cached = bookCache.retrieve(List.of(hitKey.get(0)));
+        return cached == null ? null : cached.join();
+    }
+
+    @Benchmark
+    public Object retrieveMiss() {
+        return bookCache.retrieve(List.of(missKey.get(0)));
+    }
+
+    @Benchmark
+    public Cache.ValueWrapper getHit() {
+        return bookCache.get(List.of(hitKey.get(0)));
+    }
+}
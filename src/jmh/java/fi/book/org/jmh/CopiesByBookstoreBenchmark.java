@@ -0,0 +1,92 @@
+package fi.book.org.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import fi.book.org.model.BookModel;
+import fi.book.org.model.BookstoreCopies;
+import fi.book.org.repository.BookRepository;
+import fi.book.org.repository.BookstoreRepository;
+import fi.book.org.repository.InventoryMovementRepository;
+import fi.book.org.repository.InventoryRepository;
+import fi.book.org.services.InventoryService;
+import fi.book.org.writebehind.InventoryWriteBehind;
+import fi.book.org.writebehind.WriteBehindProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+/**
+ * The copies-by-author reduction (getCopiesMapByBookStoreId) without a database: repositories answer from
+ * memory, so what is measured is the id collection, the cross-store query and the merge into the map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopiesByBookstoreBenchmark {
+
+    @Param({"4", "64"})
+    public int bookstores;
+
+    private InventoryService inventoryService;
+
+    @Setup
+    public void setUp() {
+        List<BookModel> books = LongStream.range(0, 20)
+                .mapToObj(i -> BookModel.builder().id(UUID.randomUUID()).author("Author").build())
+                .toList();
+        List<BookstoreCopies> copies = LongStream.range(0, bookstores)
+                .mapToObj(id -> new BookstoreCopies(id, 42L))
+                .toList();
+
+        BookRepository bookRepository = stub(BookRepository.class, Map.of(
+                "findByAuthorContainingIgnoreCase", args -> Flux.fromIterable(books)));
+        BookstoreRepository bookstoreRepository = stub(BookstoreRepository.class, Map.of());
+        InventoryRepository inventoryRepository = stub(InventoryRepository.class, Map.of(
+                "sumCopiesByBookstore", args -> Flux.fromIterable(copies)));
+
+        // Disabled, as by default: never touches its repositories or opens a log
+        InventoryWriteBehind writeBehind = new InventoryWriteBehind(new WriteBehindProperties(), inventoryRepository,
+                bookstoreRepository, null, null, stub(ReactiveTransactionManager.class, Map.of()), new SimpleMeterRegistry());
+
+        inventoryService = new InventoryService(bookRepository, inventoryRepository, bookstoreRepository, null, null, writeBehind,
+                stub(InventoryMovementRepository.class, Map.of()), stub(TransactionalOperator.class, Map.of()));
+    }
+
+    @Benchmark
+    public Map<String, Integer> copiesByAuthor() {
+        return inventoryService.getCopiesByAuthorBookstore("Author").block();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return answer.apply(args);
+        });
+    }
+}
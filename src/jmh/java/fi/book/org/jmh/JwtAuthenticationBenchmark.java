@@ -0,0 +1,96 @@
+package fi.book.org.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.WebFilterChain;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import fi.book.org.component.JwtAuthenticationFilter;
+import fi.book.org.component.JwtUtil;
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-request JWT work: signing a token at login, and on every authenticated request pulling the token out of
+ * the header, parsing it and validating it. The filter runs through its public {@code filter} method, with the user
+ * looked up from memory and a chain that ends right away, so what is measured is the filter's own work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    // Same format as jwt.secret, not the real one
+    private static final String SECRET = "c2VjcmV0LWtleS1mb3ItYmVuY2htYXJrcy1vbmx5LTEyMzQ1Njc4OTA=";
+
+    private JwtUtil jwtUtil;
+    private UserDetails user;
+    private String token;
+    private JwtAuthenticationFilter filter;
+    private MockServerHttpRequest bearerRequest;
+    private MockServerHttpRequest anonymousRequest;
+    private final WebFilterChain chain = exchange -> Mono.empty();
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        jwtUtil = new JwtUtil();
+        set(jwtUtil, "SECRET_KEY", SECRET);
+        set(jwtUtil, "JWT_TOKEN_VALIDITY", TimeUnit.HOURS.toMillis(1));
+        user = new User("user", "password", List.of());
+        token = jwtUtil.generateToken(user);
+        bearerRequest = MockServerHttpRequest.get("/api/v1/books")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+        anonymousRequest = MockServerHttpRequest.get("/api/v1/books").build();
+        filter = new JwtAuthenticationFilter(jwtUtil, username -> Mono.just(user));
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtUtil.isTokenValid(token, user);
+    }
+
+    @Benchmark
+    public Void filterBearer() {
+        return filter.filter(MockServerWebExchange.from(bearerRequest), chain).block();
+    }
+
+    @Benchmark
+    public Void filterAnonymous() {
+        return filter.filter(MockServerWebExchange.from(anonymousRequest), chain).block();
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
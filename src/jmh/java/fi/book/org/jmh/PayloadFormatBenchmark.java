@@ -0,0 +1,118 @@
+package fi.book.org.jmh;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import fi.book.org.api.ApiCborEncoder;
+import fi.book.org.api.ApiMediaTypes;
+import fi.book.org.api.ApiResponsePage;
+import fi.book.org.api.ApiResponseProtobufEncoder;
+import fi.book.org.dto.BookDto;
+
+/**
+ * Encoding cost of a catalog page in every negotiable format. Besides ns/op and the gc profiler's bytes
+ * allocated per op, the encoded payload size of each format is printed once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    public String format;
+
+    @Param({"1", "20", "200"})
+    public int pageSize;
+
+    private HttpMessageEncoder<?> encoder;
+    private MimeType mimeType;
+    private ApiResponsePage<BookDto> page;
+    private ResolvableType pageType;
+    private int payloadBytes;
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        builder.propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .serializationInclusion(JsonInclude.Include.NON_EMPTY);
+        encoder = switch (format) {
+            case "json" -> new Jackson2JsonEncoder(builder.build());
+            case "cbor" -> new ApiCborEncoder(builder.build());
+            case "smile" -> new Jackson2SmileEncoder(builder.build());
+            case "protobuf" -> new ApiResponseProtobufEncoder();
+            default -> throw new IllegalArgumentException(format);
+        };
+        mimeType = switch (format) {
+            case "json" -> MediaType.APPLICATION_JSON;
+            case "cbor" -> MediaType.APPLICATION_CBOR;
+            case "smile" -> ApiMediaTypes.APPLICATION_SMILE;
+            default -> MediaType.APPLICATION_PROTOBUF;
+        };
+        page = ApiResponsePage.okWithPagination(
+                IntStream.range(0, pageSize).mapToObj(PayloadFormatBenchmark::book).toList(), pageSize, 1, 0, pageSize);
+        pageType = ResolvableType.forInstance(page);
+        payloadBytes = encode();
+    }
+
+    @Benchmark
+    public int encode() {
+        @SuppressWarnings("unchecked")
+        HttpMessageEncoder<Object> typed = (HttpMessageEncoder<Object>) encoder;
+        DataBuffer buffer = typed.encodeValue(page, DefaultDataBufferFactory.sharedInstance, pageType, mimeType, null);
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+
+    @TearDown(Level.Trial)
+    public void reportPayloadSize() {
+        System.out.printf("%n[payload] format=%s pageSize=%d bytes=%d%n", format, pageSize, payloadBytes);
+    }
+
+    private static BookDto book(int index) {
+        return BookDto.builder()
+                .id(UUID.randomUUID())
+                .title("Title" + index)
+                .author("Author" + index)
+                .price(BigDecimal.valueOf(29.99))
+                .bookstore_id(1001L)
+                .version(1L)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package fi.book.org.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import fi.book.org.ratelimit.EndpointClass;
+import fi.book.org.ratelimit.RateLimitProperties;
+import fi.book.org.ratelimit.RateLimiter;
+
+/**
+ * Per-request cost of the rate limiter. With {@code clients=1} all threads hit one bucket and measure CAS
+ * contention; with many clients the cache lookup dominates. Quotas are high enough that every call is admitted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final List<String> ROLES = List.of("user");
+
+    @Param({"1", "10000"})
+    public int clients;
+
+    private RateLimiter rateLimiter;
+    private String[] clientIds;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties.Quota quota = new RateLimitProperties.Quota();
+        quota.setCapacity(1_000_000);
+        quota.setRefillPerSecond(1_000_000_000);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setQuotas(Map.of("user", Map.of(EndpointClass.SEARCH, quota)));
+        rateLimiter = new RateLimiter(properties);
+        clientIds = IntStream.range(0, clients).mapToObj(i -> "client-" + i).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String client = clientIds[ThreadLocalRandom.current().nextInt(clientIds.length)];
+        return rateLimiter.tryAcquire(client, ROLES, EndpointClass.SEARCH);
+    }
+}
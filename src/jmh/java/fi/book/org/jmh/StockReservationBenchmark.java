@@ -0,0 +1,60 @@
+package fi.book.org.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import fi.book.org.reservation.StripedStock;
+
+/**
+ * Hundreds of buyers on one book, against its stock counter. {@code reserveAndRelease} takes a copy and puts it
+ * back, so the book never runs out; {@code soldOut} is every request after the last copy went. One stripe is a
+ * single compare-and-set counter, the baseline the stripes are measured against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(256)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int stripes;
+
+    private StripedStock inStock;
+    private StripedStock soldOut;
+
+    @Setup
+    public void setUp() {
+        // Enough copies that every stripe can serve its buyers without pooling
+        inStock = new StripedStock(stripes, 1_000_000);
+        soldOut = new StripedStock(stripes, 0);
+    }
+
+    @Benchmark
+    public boolean reserveAndRelease() {
+        boolean taken = inStock.tryAcquire(1);
+        if (taken) {
+            inStock.release(1);
+        }
+        return taken;
+    }
+
+    @Benchmark
+    public boolean soldOut() {
+        return soldOut.tryAcquire(1);
+    }
+}
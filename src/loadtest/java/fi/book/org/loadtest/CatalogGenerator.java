@@ -0,0 +1,238 @@
+package fi.book.org.loadtest;
+
+import org.flywaydb.core.Flyway;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Generates a synthetic catalog and bulk-loads it into the H2 database the application uses. Author popularity
+ * follows a Zipf distribution, title length in words and price are log-normal, and every book is stocked in a few
+ * stores picked with a milder Zipf skew, so large chains hold most of the inventory.
+ *
+ * <p>Rows are written to CSV first and loaded with one {@code INSERT ... SELECT FROM CSVREAD} per table, which is
+ * far faster than row-by-row inserts. Each inventory row gets its opening balance in the ledger, already folded like
+ * the migrations fold the seed data, and each book its {@code catalog_read_model} entry, so the generated catalog
+ * looks as if the application had written it. Generated bookstores get ids from {@value #BOOKSTORE_ID_OFFSET} so
+ * the seed data stays intact; a rerun replaces the previously generated catalog and everything referring to it.
+ */
+public final class CatalogGenerator {
+
+    static final long BOOKSTORE_ID_OFFSET = 100_000;
+
+    private static final List<String> FIRST_NAMES = List.of("Aino", "Eero", "Helmi", "Juhani", "Kaarina", "Lauri",
+            "Maria", "Mikael", "Olivia", "Pekka", "Riikka", "Sami", "Tuula", "Veikko", "Anna", "James", "Elena",
+            "Hiroshi", "Amara", "Lucas", "Sofia", "Omar", "Ingrid", "Mateo", "Zara", "Noah", "Leila", "Viktor",
+            "Chloe", "Arjun", "Freya", "Diego", "Nadia", "Oskar", "Yuki", "Emil", "Alma", "Felix", "Isla", "Leo");
+    private static final List<String> LAST_NAMES = List.of("Virtanen", "Korhonen", "Nieminen", "Mäkinen", "Hämäläinen",
+            "Laine", "Heikkinen", "Koskinen", "Järvinen", "Lehtonen", "Smith", "Garcia", "Tanaka", "Okafor", "Rossi",
+            "Novak", "Andersson", "Kowalski", "Dubois", "Silva", "Nguyen", "Müller", "Haddad", "Ivanova", "Kim",
+            "O'Brien", "Fernandes", "Schmidt", "Petrov", "Larsen", "Moreau", "Costa", "Yilmaz", "Singh", "Lindqvist");
+    private static final List<String> WORDS = List.of("Shadow", "River", "Winter", "Garden", "Silent", "Northern",
+            "Light", "Stone", "Memory", "House", "Forest", "Secret", "Last", "Summer", "Night", "City", "Glass",
+            "Empire", "Daughter", "War", "Island", "Fire", "Song", "Journey", "Lost", "Iron", "Kingdom", "Sea",
+            "Blood", "Star", "Letters", "Bridge", "Midnight", "Storm", "Orchard", "Harbor", "Wolf", "Crown", "Salt",
+            "Silver", "Machine", "Atlas", "Hidden", "Hollow", "Edge", "Dream", "Thousand", "Paper", "Sky", "Ember",
+            "of", "the", "and", "in", "a", "under", "beyond", "after", "before", "between");
+    private static final List<String> CITIES = List.of("Helsinki", "Espoo", "Tampere", "Vantaa", "Oulu", "Turku",
+            "Jyväskylä", "Lahti", "Kuopio", "Pori", "Stockholm", "Tallinn", "Oslo", "Copenhagen", "Berlin");
+
+    private CatalogGenerator() {
+    }
+
+    /**
+     * @param books          number of books
+     * @param bookstores     number of bookstores
+     * @param authors        distinct authors, popularity by rank
+     * @param authorExponent Zipf exponent of author popularity; around 1 matches sales data
+     * @param storesPerBook  mean number of stores stocking a book
+     */
+    record Options(int books, int bookstores, int authors, double authorExponent, double storesPerBook, long seed,
+                   String url, String user, String password, Path output) {
+
+        static Options fromSystemProperties() {
+            int books = Integer.parseInt(System.getProperty("catalog.books", "100000"));
+            return new Options(
+                    books,
+                    Integer.parseInt(System.getProperty("catalog.bookstores", "50")),
+                    Integer.parseInt(System.getProperty("catalog.authors", String.valueOf(Math.max(1, books / 20)))),
+                    Double.parseDouble(System.getProperty("catalog.author-exponent", "1.07")),
+                    Double.parseDouble(System.getProperty("catalog.stores-per-book", "3")),
+                    Long.parseLong(System.getProperty("catalog.seed", "42")),
+                    System.getProperty("catalog.url", "jdbc:h2:file:./db/recruitment_app;MODE=MYSQL"),
+                    System.getProperty("catalog.user", "recruitment_app"),
+                    System.getProperty("catalog.password", "recruitment_app"),
+                    Path.of(System.getProperty("catalog.output", "build/catalog")));
+        }
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        Options options = Options.fromSystemProperties();
+        long started = System.nanoTime();
+
+        Files.createDirectories(options.output());
+        Path bookstores = options.output().resolve("bookstores.csv");
+        Path books = options.output().resolve("books.csv");
+        Path inventory = options.output().resolve("inventory.csv");
+        Path catalog = options.output().resolve("catalog.csv");
+        long inventoryRows = writeCsv(options, bookstores, books, inventory, catalog);
+        System.out.printf("Generated %d books, %d bookstores, %d inventory rows in %d ms%n", options.books(),
+                options.bookstores(), inventoryRows, (System.nanoTime() - started) / 1_000_000);
+
+        Flyway.configure()
+                .dataSource(options.url(), options.user(), options.password())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        long loadStarted = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(options.url(), options.user(), options.password());
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            // Everything of the generated stores goes with them, rows referring to a store before the store itself
+            for (String table : List.of("stock_reservations", "inventory_movements", "inventory_snapshots",
+                    "catalog_read_model", "inventory", "books")) {
+                statement.execute("DELETE FROM " + table + " WHERE bookstore_id >= " + BOOKSTORE_ID_OFFSET);
+            }
+            statement.execute("DELETE FROM bookstore WHERE id >= " + BOOKSTORE_ID_OFFSET);
+            statement.execute("INSERT INTO bookstore (id, name, address) "
+                    + "SELECT CAST(id AS BIGINT), name, address FROM " + csvRead(bookstores));
+            statement.execute("INSERT INTO books (id, title, author, price, bookstore_id) "
+                    + "SELECT id, title, author, CAST(price AS DECIMAL(10, 2)), CAST(bookstore_id AS BIGINT) FROM " + csvRead(books));
+            // Folded up to seq 1, the opening balance, as the migration folds the seed data
+            statement.execute("INSERT INTO inventory (id, bookstore_id, copies, snapshot_seq) "
+                    + "SELECT id, CAST(bookstore_id AS BIGINT), CAST(copies AS INT), 1 FROM " + csvRead(inventory));
+            statement.execute("INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity, reference, snapshot_seq) "
+                    + "SELECT id, bookstore_id, 'ADJUSTMENT', copies, 'opening-balance', 1 FROM inventory "
+                    + "WHERE bookstore_id >= " + BOOKSTORE_ID_OFFSET);
+            statement.execute("INSERT INTO inventory_snapshots (isbn, bookstore_id, seq, balance, as_of) "
+                    + "SELECT id, bookstore_id, 1, copies, CURRENT_TIMESTAMP FROM inventory "
+                    + "WHERE bookstore_id >= " + BOOKSTORE_ID_OFFSET);
+            statement.execute("INSERT INTO catalog_read_model "
+                    + "(isbn, title, author, price, bookstore_id, book_version, copies_by_store, total_copies) "
+                    + "SELECT isbn, title, author, CAST(price AS DECIMAL(10, 2)), CAST(bookstore_id AS BIGINT), 0, "
+                    + "copies_by_store, CAST(total_copies AS INT) FROM " + csvRead(catalog));
+            connection.commit();
+            // Refresh selectivity statistics so the planner sees the new distribution
+            statement.execute("ANALYZE");
+        }
+        System.out.printf("Loaded into %s in %d ms%n", options.url(), (System.nanoTime() - loadStarted) / 1_000_000);
+    }
+
+    private static long writeCsv(Options options, Path bookstoresCsv, Path booksCsv, Path inventoryCsv, Path catalogCsv)
+            throws IOException {
+        SplittableRandom random = new SplittableRandom(options.seed());
+        ZipfDistribution authorPopularity = new ZipfDistribution(options.authors(), options.authorExponent());
+        ZipfDistribution storeSize = new ZipfDistribution(options.bookstores(), 0.8);
+        long inventoryRows = 0;
+
+        try (BufferedWriter bookstores = Files.newBufferedWriter(bookstoresCsv, StandardCharsets.UTF_8)) {
+            bookstores.write("id,name,address\n");
+            for (int store = 0; store < options.bookstores(); store++) {
+                String city = CITIES.get(store % CITIES.size());
+                bookstores.write(csv(BOOKSTORE_ID_OFFSET + store, "Bookstore " + (store + 1) + " Oy", city));
+            }
+        }
+
+        try (BufferedWriter books = Files.newBufferedWriter(booksCsv, StandardCharsets.UTF_8);
+             BufferedWriter inventory = Files.newBufferedWriter(inventoryCsv, StandardCharsets.UTF_8);
+             BufferedWriter catalog = Files.newBufferedWriter(catalogCsv, StandardCharsets.UTF_8)) {
+            books.write("id,title,author,price,bookstore_id\n");
+            inventory.write("id,bookstore_id,copies\n");
+            catalog.write("isbn,title,author,price,bookstore_id,copies_by_store,total_copies\n");
+            StringBuilder copiesByStore = new StringBuilder();
+            BitSet stocked = new BitSet(options.bookstores());
+            for (int book = 0; book < options.books(); book++) {
+                String id = new UUID(random.nextLong(), random.nextLong()).toString();
+                String author = authorName(authorPopularity.sample(random));
+                String title = title(random);
+                BigDecimal price = BigDecimal.valueOf(Math.min(500, Math.max(1, Math.exp(random.nextGaussian(3.0, 0.5)))))
+                        .setScale(2, RoundingMode.HALF_UP);
+
+                stocked.clear();
+                int stores = Math.min(options.bookstores(), 1 + poisson(random, options.storesPerBook() - 1));
+                while (stocked.cardinality() < stores) {
+                    stocked.set(storeSize.sample(random));
+                }
+                long homeStore = BOOKSTORE_ID_OFFSET + stocked.nextSetBit(0);
+                books.write(csv(id, title, author, price.toPlainString(), homeStore));
+                // The JSON CatalogService writes: bookstore ids ascending, as the BitSet yields them
+                copiesByStore.setLength(0);
+                int totalCopies = 0;
+                for (int store = stocked.nextSetBit(0); store >= 0; store = stocked.nextSetBit(store + 1)) {
+                    // Mostly a handful of copies, a long tail of well stocked titles
+                    int copies = Math.min(500, (int) Math.ceil(Math.exp(random.nextGaussian(1.5, 1.0))));
+                    inventory.write(csv(id, BOOKSTORE_ID_OFFSET + store, copies));
+                    copiesByStore.append(copiesByStore.isEmpty() ? "{" : ",")
+                            .append('"').append(BOOKSTORE_ID_OFFSET + store).append("\":").append(copies);
+                    totalCopies += copies;
+                    inventoryRows++;
+                }
+                catalog.write(csv(id, title, author, price.toPlainString(), homeStore, copiesByStore.append('}'), totalCopies));
+            }
+        }
+        return inventoryRows;
+    }
+
+    // Unique per rank; the first names x last names combinations repeat with a numeric suffix
+    private static String authorName(int rank) {
+        int combinations = FIRST_NAMES.size() * LAST_NAMES.size();
+        String name = FIRST_NAMES.get(rank % FIRST_NAMES.size()) + " " + LAST_NAMES.get((rank / FIRST_NAMES.size()) % LAST_NAMES.size());
+        return rank < combinations ? name : name + " " + (rank / combinations + 1);
+    }
+
+    // Word count is log-normal with a median of three words, like most catalog titles
+    private static String title(SplittableRandom random) {
+        int words = (int) Math.max(1, Math.min(15, Math.round(Math.exp(random.nextGaussian(Math.log(3), 0.5)))));
+        StringBuilder title = new StringBuilder();
+        for (int word = 0; word < words; word++) {
+            String next = WORDS.get(random.nextInt(WORDS.size()));
+            if (word == 0) {
+                next = next.substring(0, 1).toUpperCase(Locale.ROOT) + next.substring(1);
+            }
+            title.append(word == 0 ? "" : " ").append(next);
+        }
+        return title.length() > 128 ? title.substring(0, 128) : title.toString();
+    }
+
+    private static int poisson(SplittableRandom random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    private static String csv(Object... values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            String value = String.valueOf(values[i]);
+            line.append(i == 0 ? "" : ",").append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+        return line.append('\n').toString();
+    }
+
+    private static String csvRead(Path file) {
+        return "CSVREAD('" + file.toAbsolutePath().toString().replace("'", "''") + "', NULL, 'charset=UTF-8')";
+    }
+}
@@ -0,0 +1,96 @@
+package fi.book.org.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One histogram (microseconds, 3 significant digits) and one error counter per endpoint.
+ */
+public class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long latencyNanos, boolean success) {
+        histograms.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+        if (!success) {
+            errors.computeIfAbsent(endpoint, key -> new LongAdder()).increment();
+        }
+    }
+
+    public void printSummary(PrintStream out, double seconds) {
+        out.printf("%-18s %9s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms");
+        new TreeMap<>(histograms).forEach((endpoint, histogram) -> out.printf("%-18s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint,
+                histogram.getTotalCount(),
+                errors.getOrDefault(endpoint, new LongAdder()).sum(),
+                histogram.getTotalCount() / seconds,
+                millis(histogram, 50),
+                millis(histogram, 95),
+                millis(histogram, 99),
+                millis(histogram, 99.9)));
+    }
+
+    /**
+     * The same endpoints across runs, e.g. the reactive and blocking stacks, next to each other.
+     */
+    public static void printComparison(PrintStream out, Map<String, LatencyRecorder> runs, double seconds) {
+        out.printf("%-18s %-10s %9s %8s %9s %9s %9s%n", "endpoint", "stack", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms");
+        new TreeSet<>(runs.values().stream().flatMap(run -> run.histograms.keySet().stream()).toList()).forEach(endpoint ->
+                runs.forEach((name, run) -> {
+                    Histogram histogram = run.histograms.get(endpoint);
+                    if (histogram != null) {
+                        out.printf("%-18s %-10s %9.1f %8d %9.2f %9.2f %9.2f%n",
+                                endpoint,
+                                name,
+                                histogram.getTotalCount() / seconds,
+                                run.errors.getOrDefault(endpoint, new LongAdder()).sum(),
+                                millis(histogram, 50),
+                                millis(histogram, 99),
+                                millis(histogram, 99.9));
+                    }
+                }));
+    }
+
+    /**
+     * Writes all endpoints as tagged interval histograms into one HdrHistogram log, readable with
+     * {@code HistogramLogProcessor -tag <endpoint>} or HistogramLogAnalyzer.
+     */
+    public void writeLog(Path file, long startMillis, long endMillis) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputLogFormatVersion();
+            writer.outputStartTime(startMillis);
+            writer.setBaseTime(startMillis);
+            writer.outputLegend();
+            for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+                Histogram histogram = entry.getValue().copy();
+                histogram.setTag(entry.getKey());
+                histogram.setStartTimeStamp(startMillis);
+                histogram.setEndTimeStamp(endMillis);
+                writer.outputIntervalHistogram(histogram);
+            }
+        }
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,158 @@
+package fi.book.org.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fi.book.org.BookApplication;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Replays {@link Workload} against a running instance or an embedded one backed by an in-memory database, then
+ * prints per-endpoint throughput and latency percentiles and writes them as an HdrHistogram log. With more than
+ * one embedded stack ({@code -Ploadtest.stack=reactive,blocking}) each gets the same run on a fresh instance and
+ * the results are printed side by side.
+ *
+ * <p>In the open model latency is measured from the scheduled send time, not the actual one, so a stalled server
+ * shows up as queueing delay instead of being hidden by fewer requests (coordinated omission).
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.fromSystemProperties();
+        double seconds = options.duration().toNanos() / 1e9;
+        if (!options.target().isBlank()) {
+            run(options, "target");
+            return;
+        }
+        Map<String, LatencyRecorder> results = new LinkedHashMap<>();
+        for (String stack : options.stacks()) {
+            results.put(stack, run(options, stack));
+        }
+        if (results.size() > 1) {
+            System.out.println();
+            LatencyRecorder.printComparison(System.out, results, seconds);
+        }
+    }
+
+    /**
+     * One measured run; {@code stack} names the embedded instance's execution mode, or the target when there is one.
+     */
+    private static LatencyRecorder run(LoadTestOptions options, String stack) throws Exception {
+        ConfigurableApplicationContext embedded = options.target().isBlank() ? startEmbedded(options, stack) : null;
+        String target = embedded != null
+                ? "http://localhost:" + ((ReactiveWebServerApplicationContext) embedded).getWebServer().getPort()
+                : options.target();
+
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(options.concurrency())
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl(target)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+        try {
+            Workload workload = Workload.prepare(client, options.mix()).block(Duration.ofSeconds(30));
+            LatencyRecorder recorder = new LatencyRecorder();
+
+            long startNanos = System.nanoTime();
+            long measureFromNanos = startNanos + options.warmup().toNanos();
+            long endNanos = measureFromNanos + options.duration().toNanos();
+            long startMillis = System.currentTimeMillis() + options.warmup().toMillis();
+            System.out.printf("%s model against %s (%s): warmup %s, measuring %s%n",
+                    options.model(), target, stack, options.warmup(), options.duration());
+
+            Flux<Void> run = options.isOpenModel()
+                    ? openModel(client, workload, recorder, options, startNanos, measureFromNanos, endNanos)
+                    : closedModel(client, workload, recorder, options, measureFromNanos, endNanos);
+            run.blockLast();
+
+            double seconds = options.duration().toNanos() / 1e9;
+            recorder.printSummary(System.out, seconds);
+            Path log = options.output().resolve("loadtest-" + stack + "-" + options.model() + "-"
+                    + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".hlog");
+            recorder.writeLog(log, startMillis, startMillis + options.duration().toMillis());
+            System.out.println("Histograms written to " + log);
+            return recorder;
+        } finally {
+            connections.dispose();
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private static Flux<Void> closedModel(WebClient client, Workload workload, LatencyRecorder recorder,
+                                          LoadTestOptions options, long measureFromNanos, long endNanos) {
+        return Flux.range(0, options.concurrency())
+                .flatMap(worker -> Mono.defer(() -> execute(client, workload, recorder, System.nanoTime(), measureFromNanos))
+                        .repeat(() -> System.nanoTime() < endNanos), options.concurrency());
+    }
+
+    private static Flux<Void> openModel(WebClient client, Workload workload, LatencyRecorder recorder,
+                                        LoadTestOptions options, long startNanos, long measureFromNanos, long endNanos) {
+        long intervalNanos = 1_000_000_000L / options.rate();
+        return Flux.interval(Duration.ofNanos(intervalNanos))
+                .takeWhile(tick -> startNanos + tick * intervalNanos < endNanos)
+                // Arrivals the client cannot send yet wait here, their latency still counts from the scheduled time
+                .onBackpressureBuffer()
+                .flatMap(tick -> execute(client, workload, recorder, startNanos + tick * intervalNanos, measureFromNanos),
+                        Integer.MAX_VALUE);
+    }
+
+    private static Mono<Void> execute(WebClient client, Workload workload, LatencyRecorder recorder,
+                                      long scheduledNanos, long measureFromNanos) {
+        Workload.Operation operation = workload.next();
+        return operation.request().apply(client)
+                .onErrorReturn(false)
+                .doOnNext(success -> {
+                    if (scheduledNanos >= measureFromNanos) {
+                        recorder.record(operation.endpoint(), System.nanoTime() - scheduledNanos, success);
+                    }
+                })
+                .then();
+    }
+
+    private static ConfigurableApplicationContext startEmbedded(LoadTestOptions options, String stack) {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(BookApplication.class);
+        if ("blocking".equals(stack)) {
+            application.profiles("blocking");
+        }
+        if (!options.isFileDatabase()) {
+            // One fresh database per stack, so the second run does not start from the first one's writes
+            String database = "loadtest-" + stack;
+            application.properties(
+                    "spring.r2dbc.url=r2dbc:h2:mem:///" + database + ";DB_CLOSE_DELAY=-1;MODE=MYSQL",
+                    "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=MYSQL",
+                    "spring.flyway.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1;MODE=MYSQL");
+        }
+        return application
+                .properties(
+                        "server.port=0",
+                        // Measure the service, not the client side guards or request logging
+                        "rate-limit.enabled=false",
+                        "outbox.sinks.log.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.zalando.logbook=OFF",
+                        "logging.level.org.springframework.r2dbc=WARN",
+                        "logging.level.org.springframework.security=WARN",
+                        "logging.level.org.flywaydb=WARN")
+                .run();
+    }
+}
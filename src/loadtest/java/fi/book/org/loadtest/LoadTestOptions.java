@@ -0,0 +1,61 @@
+package fi.book.org.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of a run, read from {@code loadtest.*} system properties (the Gradle task forwards matching
+ * {@code -P} properties).
+ *
+ * @param target      base URL of a running instance, blank to start an embedded one
+ * @param database    embedded instance database: {@code mem} for a fresh seed-only one, {@code file} for the
+ *                    configured H2 file, e.g. after {@code generateCatalog}
+ * @param model       {@code closed}: {@code concurrency} clients each send the next request after the previous
+ *                    answer; {@code open}: requests arrive at {@code rate} per second regardless of answers
+ * @param concurrency closed model clients, and the HTTP connection pool size in both models
+ * @param rate        open model arrivals per second
+ * @param mix         relative weights of the read, search and write request groups
+ * @param stacks      embedded instance execution modes, run one after the other on fresh instances:
+ *                    {@code reactive} and/or {@code blocking} (the JDBC on virtual threads profile)
+ */
+public record LoadTestOptions(String target, String database, String model, int concurrency, int rate, Duration warmup,
+                              Duration duration, Map<String, Integer> mix, List<String> stacks, Path output) {
+
+    public static LoadTestOptions fromSystemProperties() {
+        return new LoadTestOptions(
+                System.getProperty("loadtest.target", ""),
+                System.getProperty("loadtest.database", "mem"),
+                System.getProperty("loadtest.model", "closed"),
+                Integer.parseInt(System.getProperty("loadtest.concurrency", "16")),
+                Integer.parseInt(System.getProperty("loadtest.rate", "200")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "10s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "60s")),
+                parseMix(System.getProperty("loadtest.mix", "read:70,search:25,write:5")),
+                Arrays.stream(System.getProperty("loadtest.stack", "reactive").split(",")).map(String::trim).toList(),
+                Path.of(System.getProperty("loadtest.output", "build/loadtest")));
+    }
+
+    public boolean isFileDatabase() {
+        return "file".equalsIgnoreCase(database);
+    }
+
+    public boolean isOpenModel() {
+        return "open".equalsIgnoreCase(model);
+    }
+
+    // "read:70,search:25,write:5"
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
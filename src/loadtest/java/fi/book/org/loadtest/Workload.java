@@ -0,0 +1,114 @@
+package fi.book.org.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Mixed read/search/write traffic over the books found in the target catalog. Reads and searches run as the
+ * seeded {@code user}, writes as {@code admin}, each with a token obtained once up front.
+ */
+public class Workload {
+
+    private static final List<Long> BOOKSTORE_IDS = List.of(1001L, 1002L);
+
+    /**
+     * @param endpoint histogram tag
+     * @param request  issues the request, completing with whether it succeeded
+     */
+    public record Operation(String endpoint, Function<WebClient, Mono<Boolean>> request) {
+    }
+
+    private record Book(String id, String title, String author) {
+    }
+
+    private final List<Book> books;
+    private final String userToken;
+    private final String adminToken;
+    private final List<String> groups = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    private Workload(List<Book> books, String userToken, String adminToken, Map<String, Integer> mix) {
+        this.books = books;
+        this.userToken = userToken;
+        this.adminToken = adminToken;
+        this.cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        for (Map.Entry<String, Integer> weight : mix.entrySet()) {
+            total += weight.getValue();
+            cumulativeWeights[groups.size()] = total;
+            groups.add(weight.getKey());
+        }
+    }
+
+    public static Mono<Workload> prepare(WebClient client, Map<String, Integer> mix) {
+        return Mono.zip(login(client, "user", "user123"), login(client, "admin", "admin123"))
+                .flatMap(tokens -> client.get()
+                        .uri("/api/v1/books?size=10000")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens.getT1())
+                        .accept(MediaType.APPLICATION_JSON)
+                        .retrieve()
+                        .bodyToMono(JsonNode.class)
+                        .map(page -> {
+                            List<Book> books = new ArrayList<>();
+                            page.path("response").forEach(book -> books.add(new Book(book.path("id").asText(),
+                                    book.path("title").asText(), book.path("author").asText())));
+                            if (books.isEmpty()) {
+                                throw new IllegalStateException("Target catalog has no books to replay against");
+                            }
+                            return new Workload(books, tokens.getT1(), tokens.getT2(), mix);
+                        }));
+    }
+
+    public Operation next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int group = 0;
+        while (pick >= cumulativeWeights[group]) {
+            group++;
+        }
+        Book book = books.get(random.nextInt(books.size()));
+        return switch (groups.get(group)) {
+            case "read" -> random.nextBoolean()
+                    ? get("book.get", "/api/v1/books/{isbn}", book.id())
+                    : get("inventory.get", "/api/v1/inventory/isbn/{isbn}/copies", book.id());
+            case "search" -> random.nextBoolean()
+                    ? get("book.search", "/api/v1/books?author={author}", book.author())
+                    : get("inventory.search", "/api/v1/inventory/title/{title}/copies", book.title());
+            case "write" -> new Operation("inventory.update", client -> client.put()
+                    .uri("/api/v1/inventory/isbn/{isbn}/copies?copies={copies}&bookstore_id={bookstoreId}",
+                            book.id(), random.nextInt(1, 100), BOOKSTORE_IDS.get(random.nextInt(BOOKSTORE_IDS.size())))
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                    .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().is2xxSuccessful())));
+            default -> throw new IllegalArgumentException("Unknown request group " + groups.get(group));
+        };
+    }
+
+    private Operation get(String endpoint, String uriTemplate, String variable) {
+        return new Operation(endpoint, client -> client.get()
+                .uri(uriTemplate, variable)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + userToken)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().is2xxSuccessful())));
+    }
+
+    private static Mono<String> login(WebClient client, String username, String password) {
+        return client.post()
+                .uri("/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("username", username, "password", password))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(body -> body.path("response").path("token").asText());
+    }
+}
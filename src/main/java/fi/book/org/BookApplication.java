@@ -2,19 +2,27 @@ package fi.book.org;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.Ordered;
 import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import fi.book.org.blockhound.BlockingCallDetector;
 
 @SpringBootApplication
 @EnableConfigurationProperties
-@EnableCaching
+@ConfigurationPropertiesScan
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1) // Outside transactions, inside MethodMetricsAspect
 @EnableR2dbcRepositories
 @EnableR2dbcAuditing
+@EnableScheduling
 public class BookApplication {
 
     public static void main(String[] args) {
+        BlockingCallDetector.installIfEnabled();
         SpringApplication.run(BookApplication.class, args);
     }
 
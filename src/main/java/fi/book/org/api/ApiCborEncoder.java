@@ -0,0 +1,17 @@
+package fi.book.org.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+
+/**
+ * CBOR encoder for the API envelopes. Spring's {@code Jackson2CborEncoder} rejects {@code Flux} bodies, this one
+ * inherits the default behaviour of collecting them into a single CBOR array.
+ */
+public class ApiCborEncoder extends AbstractJackson2Encoder {
+
+    public ApiCborEncoder(ObjectMapper cborMapper) {
+        super(cborMapper, MediaType.APPLICATION_CBOR);
+    }
+}
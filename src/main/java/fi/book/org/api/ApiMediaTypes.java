@@ -0,0 +1,19 @@
+package fi.book.org.api;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Media types the catalog and inventory endpoints can produce. JSON stays first, so it is picked whenever the
+ * client does not ask for a binary encoding.
+ */
+public final class ApiMediaTypes {
+
+    public static final String APPLICATION_CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_PROTOBUF_VALUE = MediaType.APPLICATION_PROTOBUF_VALUE;
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    private ApiMediaTypes() {
+    }
+}
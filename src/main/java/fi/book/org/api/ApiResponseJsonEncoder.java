@@ -0,0 +1,63 @@
+package fi.book.org.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * JSON encoder with a fast path for {@link ApiResponse} envelopes: the value is serialized straight into the
+ * response {@link DataBuffer} instead of an intermediate byte array that is copied afterwards. Everything else,
+ * including JSON views and non UTF-8 charsets, goes through the regular {@link Jackson2JsonEncoder}.
+ */
+public class ApiResponseJsonEncoder extends Jackson2JsonEncoder {
+
+    // Fits a single book or inventory envelope, larger pages grow the buffer
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    private final ObjectWriter writer;
+
+    public ApiResponseJsonEncoder(ObjectMapper objectMapper) {
+        super(objectMapper);
+        this.writer = objectMapper.writer();
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        if (!isFastPath(value, mimeType, hints)) {
+            return super.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(INITIAL_BUFFER_SIZE);
+        boolean release = true;
+        try (OutputStream outputStream = buffer.asOutputStream()) {
+            writer.writeValue(outputStream, value);
+            release = false;
+            return buffer;
+        } catch (IOException e) {
+            throw new EncodingException("JSON encoding error: " + e.getMessage(), e);
+        } finally {
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+
+    private boolean isFastPath(Object value, @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return value instanceof ApiResponse<?>
+                && (hints == null || !hints.containsKey(JSON_VIEW_HINT))
+                && (mimeType == null || mimeType.getCharset() == null || StandardCharsets.UTF_8.equals(mimeType.getCharset()));
+    }
+}
@@ -0,0 +1,180 @@
+package fi.book.org.api;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.codec.protobuf.ProtobufEncoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.api.proto.ApiResponseMessage;
+import fi.book.org.api.proto.BookListMessage;
+import fi.book.org.api.proto.BookMessage;
+import fi.book.org.api.proto.CopiesMessage;
+import fi.book.org.api.proto.InventoryMessage;
+import fi.book.org.api.proto.InventoryTotalMessage;
+import fi.book.org.api.proto.PageMessage;
+import fi.book.org.dto.BookDto;
+import fi.book.org.dto.InventoryDto;
+import fi.book.org.dto.InventoryGlobalDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Encodes {@link ApiResponse} envelopes as {@link ApiResponseMessage}. Mapping to the generated message happens
+ * here, framing (single message vs. varint-delimited stream) is left to Spring's {@link ProtobufEncoder}.
+ */
+public class ApiResponseProtobufEncoder implements HttpMessageEncoder<Object> {
+
+    private static final ResolvableType MESSAGE_TYPE = ResolvableType.forClass(ApiResponseMessage.class);
+    // Bodies mapped by toMessage, besides List<BookDto> and Map<?, Integer>
+    private static final List<Class<?>> MAPPED_BODIES = List.of(BookDto.class, InventoryDto.class, InventoryGlobalDto.class, UUID.class);
+
+    private final ProtobufEncoder delegate = new ProtobufEncoder();
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
+        return ApiResponse.class.isAssignableFrom(elementType.toClass())
+                && isMapped(elementType.as(ApiResponse.class).getGeneric(0))
+                && (mimeType == null || getEncodableMimeTypes().stream().anyMatch(type -> type.isCompatibleWith(mimeType)));
+    }
+
+    // False for a body type without a message, so negotiation declines protobuf instead of failing mid-response
+    private static boolean isMapped(ResolvableType body) {
+        Class<?> type = body.resolve();
+        if (type == null || type == Object.class) {
+            // Only known per response, toMessage decides
+            return true;
+        }
+        if (List.class.isAssignableFrom(type)) {
+            return isOpenOr(body.getGeneric(0), BookDto.class);
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return isOpenOr(body.getGeneric(1), Integer.class);
+        }
+        return MAPPED_BODIES.stream().anyMatch(mapped -> mapped.isAssignableFrom(type));
+    }
+
+    private static boolean isOpenOr(ResolvableType element, Class<?> mapped) {
+        Class<?> type = element.resolve();
+        return type == null || type == Object.class || mapped.isAssignableFrom(type);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        Publisher<ApiResponseMessage> messages = inputStream instanceof Mono<?> mono
+                ? mono.map(ApiResponseProtobufEncoder::toMessage)
+                : Flux.from(inputStream).map(ApiResponseProtobufEncoder::toMessage);
+        return delegate.encode(messages, bufferFactory, MESSAGE_TYPE, mimeType, hints);
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return delegate.encodeValue(toMessage(value), bufferFactory, MESSAGE_TYPE, mimeType, hints);
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return delegate.getEncodableMimeTypes();
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return delegate.getStreamingMediaTypes();
+    }
+
+    static ApiResponseMessage toMessage(Object value) {
+        ApiResponse<?> response = (ApiResponse<?>) value;
+        ApiResponseMessage.Builder message = ApiResponseMessage.newBuilder().setStatusCode(response.getStatusCode());
+        if (response.getStatusMessage() != null) {
+            message.setStatusMessage(response.getStatusMessage());
+        }
+        if (response instanceof ApiResponsePage<?> page) {
+            message.setPage(PageMessage.newBuilder()
+                    .setPageSize(page.getPageSize())
+                    .setTotalPages(page.getTotalPages())
+                    .setCurrentPage(page.getCurrentPage())
+                    .setTotalElements(page.getTotalElements()));
+        }
+
+        Object body = response.getResponse();
+        if (body == null) {
+            return message.build();
+        } else if (body instanceof BookDto book) {
+            message.setBook(toBookMessage(book));
+        } else if (body instanceof InventoryDto inventory) {
+            message.setInventory(toInventoryMessage(inventory));
+        } else if (body instanceof InventoryGlobalDto total) {
+            message.setTotal(InventoryTotalMessage.newBuilder().setTotalCopies(total.getTotal_copies()));
+        } else if (body instanceof UUID id) {
+            message.setId(id.toString());
+        } else if (body instanceof List<?> books) {
+            BookListMessage.Builder list = BookListMessage.newBuilder();
+            for (Object element : books) {
+                if (!(element instanceof BookDto book)) {
+                    throw new EncodingException("No protobuf mapping for list element " + element);
+                }
+                list.addBooks(toBookMessage(book));
+            }
+            message.setBooks(list);
+        } else if (body instanceof Map<?, ?> copies) {
+            CopiesMessage.Builder copiesMessage = CopiesMessage.newBuilder();
+            for (Map.Entry<?, ?> entry : copies.entrySet()) {
+                if (!(entry.getValue() instanceof Integer count)) {
+                    throw new EncodingException("No protobuf mapping for copies " + entry.getValue());
+                }
+                copiesMessage.putCopiesByBookstore(String.valueOf(entry.getKey()), count);
+            }
+            message.setCopies(copiesMessage);
+        } else {
+            throw new EncodingException("No protobuf mapping for response type " + body.getClass().getName());
+        }
+        return message.build();
+    }
+
+    private static BookMessage toBookMessage(BookDto book) {
+        BookMessage.Builder message = BookMessage.newBuilder().setId(book.getId().toString());
+        if (book.getTitle() != null) {
+            message.setTitle(book.getTitle());
+        }
+        if (book.getAuthor() != null) {
+            message.setAuthor(book.getAuthor());
+        }
+        if (book.getPrice() != null) {
+            message.setPrice(book.getPrice().toPlainString());
+        }
+        if (book.getBookstore_id() != null) {
+            message.setBookstoreId(book.getBookstore_id());
+        }
+        if (book.getVersion() != null) {
+            message.setVersion(book.getVersion());
+        }
+        if (book.getInventory() != null) {
+            book.getInventory().forEach(inventory -> message.addInventory(toInventoryMessage(inventory)));
+        }
+        return message.build();
+    }
+
+    private static InventoryMessage toInventoryMessage(InventoryDto inventory) {
+        InventoryMessage.Builder message = InventoryMessage.newBuilder()
+                .setId(inventory.getId().toString())
+                .setCopies(inventory.getCopies());
+        if (inventory.getBookstoreId() != null) {
+            message.setBookstoreId(inventory.getBookstoreId());
+        }
+        if (inventory.getVersion() != null) {
+            message.setVersion(inventory.getVersion());
+        }
+        return message.build();
+    }
+}
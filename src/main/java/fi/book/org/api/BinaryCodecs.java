@@ -0,0 +1,26 @@
+package fi.book.org.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+
+/**
+ * Registers the binary encodings next to the default JSON codecs. The CBOR and Smile mappers are expected to be
+ * built from the application's Jackson settings so field names and inclusion match the JSON output.
+ */
+public final class BinaryCodecs {
+
+    private BinaryCodecs() {
+    }
+
+    public static void configure(CodecConfigurer configurer, ObjectMapper cborMapper, ObjectMapper smileMapper) {
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper));
+        configurer.customCodecs().register(new ApiCborEncoder(cborMapper));
+        configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper));
+        configurer.customCodecs().register(new ApiResponseProtobufEncoder());
+    }
+}
@@ -0,0 +1,48 @@
+package fi.book.org.api;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import fi.book.org.exception.UnknownFieldException;
+
+/**
+ * Parsed {@code fields=} request parameter. Field names are the snake_case names of the JSON payload, which are
+ * also the column names, so one set drives both the SQL select list and what ends up in the response.
+ */
+public record FieldProjection(Set<String> fields) {
+
+    public static final FieldProjection ALL = new FieldProjection(Set.of());
+
+    /**
+     * @param fields   comma separated field names, blank for everything
+     * @param allowed  fields the resource exposes
+     * @param required fields that are always selected, whatever was asked for
+     */
+    public static FieldProjection parse(String fields, Set<String> allowed, Set<String> required) {
+        if (StringUtils.isBlank(fields)) {
+            return ALL;
+        }
+        Set<String> requested = Arrays.stream(fields.split(","))
+                .map(field -> field.trim().toLowerCase(Locale.ROOT))
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Set<String> unknown = requested.stream()
+                .filter(field -> !allowed.contains(field))
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (!unknown.isEmpty()) {
+            throw new UnknownFieldException(unknown, new TreeSet<>(allowed));
+        }
+        requested.addAll(required);
+        return requested.containsAll(allowed) ? ALL : new FieldProjection(Collections.unmodifiableSet(requested));
+    }
+
+    public boolean isAll() {
+        return fields.isEmpty();
+    }
+}
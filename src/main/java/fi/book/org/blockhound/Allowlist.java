@@ -0,0 +1,51 @@
+package fi.book.org.blockhound;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Known blocking calls that are tolerated while they wait for a fix. One frame pattern per line,
+ * {@code fully.qualified.Class}, {@code fully.qualified.Class#method} or a package/class prefix ending in
+ * {@code *}; {@code #} starts a comment. A violation is tolerated when any frame of its stack matches.
+ */
+record Allowlist(List<String> patterns) {
+    static final Allowlist NONE = new Allowlist(List.of());
+
+    static Allowlist load(String resource) {
+        InputStream in = Allowlist.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            return NONE;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return parse(reader.lines().toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Allowlist parse(List<String> lines) {
+        return new Allowlist(lines.stream()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toList());
+    }
+
+    boolean tolerates(StackTraceElement[] stack) {
+        return patterns.stream().anyMatch(pattern -> Arrays.stream(stack).anyMatch(frame -> matches(pattern, frame)));
+    }
+
+    private static boolean matches(String pattern, StackTraceElement frame) {
+        int separator = pattern.indexOf('#');
+        String type = separator < 0 ? pattern : pattern.substring(0, separator);
+        boolean typeMatches = type.endsWith("*")
+                ? frame.getClassName().startsWith(type.substring(0, type.length() - 1))
+                : frame.getClassName().equals(type);
+        return typeMatches && (separator < 0 || frame.getMethodName().equals(pattern.substring(separator + 1)));
+    }
+}
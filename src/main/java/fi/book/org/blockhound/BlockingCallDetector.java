@@ -0,0 +1,115 @@
+package fi.book.org.blockhound;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.blockhound.BlockHound;
+import reactor.blockhound.BlockingMethod;
+import reactor.blockhound.BlockingOperationError;
+
+/**
+ * Opt-in BlockHound installation. Detects blocking calls (I/O, sleeps, locks and the CPU-heavy calls marked
+ * below) made on non-blocking threads, i.e. the Netty event loops and Reactor's parallel scheduler.
+ *
+ * <p>{@link Mode#REPORT} logs every distinct call site once, with its stack, and lets the call through. It is
+ * what {@code -Dblockhound.enabled=true} turns on at startup. {@link Mode#RECORD} is used by the
+ * {@code blockhoundTest} suite: it also keeps the violations so the running test can be failed, and ignores the
+ * known ones listed in {@value #ALLOWLIST}.
+ *
+ * <p>Needs {@code -XX:+AllowRedefinitionToAddDeleteMethods} on JDK 13+.
+ */
+@Slf4j
+public final class BlockingCallDetector {
+    public static final String ENABLED_PROPERTY = "blockhound.enabled";
+    static final String ALLOWLIST = "blockhound-allowlist.txt";
+    private static final int CALL_SITE_FRAMES = 32;
+
+    private static final ThreadLocal<Boolean> reporting = ThreadLocal.withInitial(() -> false);
+    private static final Set<String> reported = ConcurrentHashMap.newKeySet();
+    private static final Queue<BlockingOperationError> violations = new ConcurrentLinkedQueue<>();
+    private static volatile boolean installed;
+
+    public enum Mode {
+        REPORT, RECORD
+    }
+
+    private BlockingCallDetector() {
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY) || Boolean.parseBoolean(System.getenv("BLOCKHOUND_ENABLED"));
+    }
+
+    public static void installIfEnabled() {
+        if (isEnabled()) {
+            install(Mode.REPORT);
+        }
+    }
+
+    /**
+     * Installs BlockHound once per JVM, later calls are ignored whatever their mode.
+     */
+    public static synchronized void install(Mode mode) {
+        if (installed) {
+            return;
+        }
+        Allowlist allowlist = mode == Mode.RECORD ? Allowlist.load(ALLOWLIST) : Allowlist.NONE;
+        BlockHound.install(builder -> builder
+                // Password hashing is pure CPU, BlockHound would not see it otherwise
+                .markAsBlocking(BCryptPasswordEncoder.class, "encode", "(Ljava/lang/CharSequence;)Ljava/lang/String;")
+                .markAsBlocking(BCryptPasswordEncoder.class, "matches", "(Ljava/lang/CharSequence;Ljava/lang/String;)Z")
+                .blockingMethodCallback(method -> onBlockingCall(method, mode, allowlist)));
+        installed = true;
+        log.info("BlockHound installed in {} mode", mode);
+    }
+
+    /**
+     * Violations recorded since the previous call, oldest first.
+     */
+    public static List<BlockingOperationError> drainViolations() {
+        List<BlockingOperationError> drained = new ArrayList<>();
+        BlockingOperationError violation;
+        while ((violation = violations.poll()) != null) {
+            drained.add(violation);
+        }
+        return drained;
+    }
+
+    private static void onBlockingCall(BlockingMethod method, Mode mode, Allowlist allowlist) {
+        // Logging below blocks too (file appenders), don't report that one recursively
+        if (reporting.get()) {
+            return;
+        }
+        reporting.set(true);
+        try {
+            BlockingOperationError error = new BlockingOperationError(method);
+            if (allowlist.tolerates(error.getStackTrace())) {
+                return;
+            }
+            if (mode == Mode.RECORD) {
+                violations.add(error);
+            }
+            if (reported.add(callSite(error.getStackTrace()))) {
+                log.warn("Blocking call {} on non-blocking thread {}", method, Thread.currentThread().getName(), error);
+            }
+        } finally {
+            reporting.set(false);
+        }
+    }
+
+    private static String callSite(StackTraceElement[] stack) {
+        return Arrays.stream(stack)
+                .limit(CALL_SITE_FRAMES)
+                .map(StackTraceElement::toString)
+                .collect(Collectors.joining("\n"));
+    }
+}
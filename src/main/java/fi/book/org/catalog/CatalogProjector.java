@@ -0,0 +1,64 @@
+package fi.book.org.catalog;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import fi.book.org.model.OutboxEvent;
+import fi.book.org.outbox.OutboxSink;
+import fi.book.org.services.CatalogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps {@code catalog_read_model} up to date from the relayed change events: every book or inventory event
+ * rebuilds the entry of its ISBN once per batch, however many events the batch holds for it. A failed rebuild
+ * fails the batch, which the relay then retries. {@value #LAG_METRIC} is the time from an event's commit to its
+ * entry being rebuilt.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sinks.catalog.enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogProjector implements OutboxSink {
+    static final String LAG_METRIC = "catalog.projection.lag";
+    private static final Set<String> AGGREGATE_TYPES = Set.of("book", "inventory");
+
+    private final CatalogService catalogService;
+    private final Timer lag;
+
+    public CatalogProjector(CatalogService catalogService, MeterRegistry meterRegistry) {
+        this.catalogService = catalogService;
+        this.lag = Timer.builder(LAG_METRIC)
+                .description("Time from a change event to its catalog read model update")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> publish(List<OutboxEvent> events) {
+        Set<UUID> isbns = events.stream()
+                .filter(event -> AGGREGATE_TYPES.contains(event.getAggregateType()))
+                .map(event -> UUID.fromString(event.getAggregateId()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return Flux.fromIterable(isbns)
+                .concatMap(catalogService::refresh)
+                .then(Mono.fromRunnable(() -> recordLag(events)));
+    }
+
+    private void recordLag(List<OutboxEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+        events.stream()
+                .map(OutboxEvent::getCreatedAt)
+                .filter(Objects::nonNull)
+                .forEach(createdAt -> lag.record(Duration.between(createdAt, now)));
+    }
+}
@@ -0,0 +1,22 @@
+package fi.book.org.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Blocking execution mode ({@code --spring.profiles.active=blocking}). Netty and the WebFlux filter chain stay
+ * as they are, but controller methods with a non-reactive return type, i.e. the blocking book and inventory
+ * controllers, are invoked on a new virtual thread each instead of on the event loop.
+ */
+@Configuration
+@Profile("blocking")
+public class BlockingExecutionConfig implements WebFluxConfigurer {
+
+    @Override
+    public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+        configurer.setExecutor(new VirtualThreadTaskExecutor("blocking-"));
+    }
+}
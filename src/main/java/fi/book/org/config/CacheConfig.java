@@ -14,7 +14,8 @@ public class CacheConfig {
 
     @Bean
     public Caffeine caffeineConfig() {
-        return Caffeine.newBuilder().expireAfterWrite(60, TimeUnit.MINUTES);
+        // recordStats feeds the cache.gets{result=hit|miss} meters registered by actuator
+        return Caffeine.newBuilder().expireAfterWrite(60, TimeUnit.MINUTES).recordStats();
     }
 
     @Bean
@@ -0,0 +1,26 @@
+package fi.book.org.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import fi.book.org.api.BinaryCodecs;
+
+@Configuration
+public class ContentNegotiationConfig {
+
+    // Mappers are built from Boot's builder so spring.jackson.* applies, but are not exposed as ObjectMapper beans
+    @Bean
+    @Order(1)
+    public CodecCustomizer binaryCodecsCustomizer(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder) {
+        return configurer -> BinaryCodecs.configure(configurer,
+                objectMapperBuilder.getObject().factory(new CBORFactory()).build(),
+                objectMapperBuilder.getObject().factory(new SmileFactory()).build());
+    }
+}
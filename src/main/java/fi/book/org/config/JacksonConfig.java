@@ -0,0 +1,31 @@
+package fi.book.org.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import fi.book.org.api.ApiResponseJsonEncoder;
+
+@Configuration
+@ConditionalOnProperty(name = "jackson.fast-path.enabled", havingValue = "true", matchIfMissing = true)
+public class JacksonConfig {
+
+    // Picked up by Boot's Jackson auto-configuration, replaces reflective getters with generated accessors
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // Ordered after Boot's own Jackson codec customizer (order 0), which would otherwise reset the encoder
+    @Bean
+    @Order(1)
+    public CodecCustomizer apiResponseJsonEncoderCustomizer(ObjectMapper objectMapper) {
+        return configurer -> configurer.defaultCodecs().jackson2JsonEncoder(new ApiResponseJsonEncoder(objectMapper));
+    }
+}
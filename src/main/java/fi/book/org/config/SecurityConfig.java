@@ -14,6 +14,9 @@ import org.springframework.security.web.server.context.NoOpServerSecurityContext
 
 import fi.book.org.component.JwtAuthenticationFilter;
 import fi.book.org.component.JwtUtil;
+import fi.book.org.jfr.JfrPasswordEncoder;
+import fi.book.org.ratelimit.RateLimitFilter;
+import fi.book.org.ratelimit.RateLimiter;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.info.Info;
@@ -36,15 +39,17 @@ public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
     private final ReactiveUserDetailsService userDetailsService;
+    private final RateLimiter rateLimiter;
 
-    public SecurityConfig(JwtUtil jwtUtil, ReactiveUserDetailsService userDetailsService) {
+    public SecurityConfig(JwtUtil jwtUtil, ReactiveUserDetailsService userDetailsService, RateLimiter rateLimiter) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.rateLimiter = rateLimiter;
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(); // Uses strong hashing
+        return new JfrPasswordEncoder(new BCryptPasswordEncoder()); // Uses strong hashing, shows up in JFR recordings
     }
 
     @Bean
@@ -55,19 +60,30 @@ public class SecurityConfig {
                         // Allow Swagger UI and API docs
                         .pathMatchers("/swagger-ui/**", "/v3/api-docs/**", "/swagger-ui.html", "/webjars/**").permitAll()
 
+                        // On-demand JFR recordings of live replicas
+                        .pathMatchers("/actuator/jfr", "/actuator/jfr/**").hasRole("ADMIN")
+
                         // Public access to login
                         .pathMatchers("/auth/login").permitAll()
 
                         // Only admin can register new users
                         .pathMatchers("/auth/register").hasRole("ADMIN")
 
-                        // Inventory: Only authenticated users can GET, only admin can PUT
+                        // Inventory: Only authenticated users can GET, only admin can PUT & POST movements
                         .pathMatchers(HttpMethod.GET, "/api/v1/inventory/**").authenticated()
                         .pathMatchers(HttpMethod.PUT, "/api/v1/inventory/**").hasRole("ADMIN")
+                        .pathMatchers(HttpMethod.POST, "/api/v1/inventory/**").hasRole("ADMIN")
+
+                        // Catalog read model: any authenticated user
+                        .pathMatchers(HttpMethod.GET, "/api/v1/catalog/**").authenticated()
+
+                        // Stock reservations: any authenticated user, each only sees their own
+                        .pathMatchers("/api/v1/reservations/**").authenticated()
 
                         // Book: Any authenticated user can GET & POST, only admin can PUT & DELETE
                         .pathMatchers(HttpMethod.GET, "/api/v1/books/**").authenticated()
                         .pathMatchers(HttpMethod.POST, "/api/v1/books").authenticated()
+                        .pathMatchers(HttpMethod.POST, "/api/v1/books/batch").authenticated()
                         .pathMatchers(HttpMethod.PUT, "/api/v1/books").hasRole("ADMIN")
                         .pathMatchers(HttpMethod.DELETE, "/api/v1/books/{isbn}").hasRole("ADMIN")
 
@@ -77,6 +93,7 @@ public class SecurityConfig {
                 .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)  // 🔴 Disable HTTP Basic Auth
                 .securityContextRepository(NoOpServerSecurityContextRepository.getInstance()) // Disable session storage
                 .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userDetailsService), SecurityWebFiltersOrder.AUTHENTICATION)
+                .addFilterAfter(new RateLimitFilter(rateLimiter), SecurityWebFiltersOrder.AUTHENTICATION) // Per-client quotas
                 .build();
     }
 }
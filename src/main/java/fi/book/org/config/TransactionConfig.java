@@ -0,0 +1,36 @@
+package fi.book.org.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+@Configuration
+@EnableTransactionManagement
+public class TransactionConfig {
+
+    public static final String JDBC_TRANSACTION_MANAGER = "jdbcTransactionManager";
+
+    // Declared explicitly so the JPA/JDBC transaction managers back off and @Transactional always binds to R2DBC
+    @Bean
+    @Primary
+    public ReactiveTransactionManager transactionManager(ConnectionFactory connectionFactory) {
+        return new R2dbcTransactionManager(connectionFactory);
+    }
+
+    // Blocking execution mode only, selected with @Transactional(transactionManager = JDBC_TRANSACTION_MANAGER)
+    @Bean(JDBC_TRANSACTION_MANAGER)
+    @Profile("blocking")
+    public PlatformTransactionManager jdbcTransactionManager(DataSource dataSource) {
+        return new JdbcTransactionManager(dataSource);
+    }
+}
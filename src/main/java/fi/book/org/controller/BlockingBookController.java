@@ -0,0 +1,122 @@
+package fi.book.org.controller;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import fi.book.org.api.ApiResponse;
+import fi.book.org.api.ApiResponsePage;
+import fi.book.org.api.FieldProjection;
+import fi.book.org.dto.BookBatchRequest;
+import fi.book.org.dto.BookDto;
+import fi.book.org.exception.BookCreateException;
+import fi.book.org.exception.VersionConflictException;
+import fi.book.org.services.BlockingBookService;
+import fi.book.org.services.BookService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_CBOR_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_PROTOBUF_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * {@link BookController} contract for the blocking execution mode. Plain return types make WebFlux invoke these
+ * methods on a virtual thread, see {@link fi.book.org.config.BlockingExecutionConfig}.
+ */
+@Slf4j
+@RestController
+@Profile("blocking")
+@RequiredArgsConstructor
+@RequestMapping(path = "/api/v1/books")
+@SecurityRequirement(name = "bearerAuth") // Apply JWT security
+public class BlockingBookController {
+
+    private final BlockingBookService bookService;
+
+    @GetMapping(produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ApiResponsePage<BookDto> getBooks(
+            @RequestParam(value = "author", required = false) String author,
+            @RequestParam(value = "title", required = false) String title,
+            @RequestParam(value = "bookstoreId", required = false) Long bookstoreId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(value = "fields", required = false) String fields) {
+        PageRequest pageable = PageRequest.of(page, size, Sort.unsorted());
+        FieldProjection projection = bookProjection(fields);
+        return projection.isAll()
+                ? bookService.getBooks(author, title, bookstoreId, pageable)
+                : bookService.getBooks(author, title, bookstoreId, pageable, projection);
+    }
+
+    @PostMapping
+    public ApiResponse<UUID> createBook(
+            @RequestParam UUID id,
+            @RequestParam String title,
+            @RequestParam String author,
+            @RequestParam BigDecimal price,
+            @RequestParam("bookstore_id") Long bookstoreId) {
+        BookDto bookDto = BookDto.builder()
+                .id(id)
+                .title(title)
+                .author(author)
+                .price(price)
+                .bookstore_id(bookstoreId)
+                .build();
+        return ApiResponse.ok(bookService.createBook(bookDto));
+    }
+
+    @PutMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ApiResponse<UUID> updateBook(@RequestBody @Validated BookDto bookDto) {
+        try {
+            return ApiResponse.ok(bookService.updateBook(bookDto));
+        } catch (VersionConflictException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Error updating book with ISBN {}: {}", bookDto.getId(), e.getMessage(), e);
+            throw new BookCreateException("ISBN", bookDto.getId().toString());
+        }
+    }
+
+    @PostMapping(value = "/batch",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ApiResponse<List<BookDto>> getBooksByIsbns(@RequestBody @Validated BookBatchRequest request) {
+        return ApiResponse.ok(bookService.getBooksByIsbns(request.getIsbns(), request.isIncludeInventory()));
+    }
+
+    @GetMapping(value = "/{isbn}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ApiResponse<BookDto> getBookByIsbn(
+            @PathVariable("isbn") @Validated UUID id,
+            @RequestParam(value = "fields", required = false) String fields) {
+        FieldProjection projection = bookProjection(fields);
+        return ApiResponse.ok(projection.isAll() ? bookService.getBookByIsbn(id) : bookService.getBookByIsbn(id, projection));
+    }
+
+    @DeleteMapping(value = "/{isbn}")
+    public ApiResponse<Object> deleteBookByIsbn(@PathVariable("isbn") @Validated UUID isbn) {
+        bookService.deleteBookWithIsbn(isbn);
+        return ApiResponse.ok();
+    }
+
+    private static FieldProjection bookProjection(String fields) {
+        return FieldProjection.parse(fields, BookService.BOOK_FIELDS, BookService.BOOK_REQUIRED_FIELDS);
+    }
+
+}
@@ -0,0 +1,115 @@
+package fi.book.org.controller;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.api.ApiResponse;
+import fi.book.org.api.FieldProjection;
+import fi.book.org.dto.InventoryBulkUpdateRequest;
+import fi.book.org.dto.InventoryDto;
+import fi.book.org.dto.InventoryGlobalDto;
+import fi.book.org.exception.BookstoreNotFoundException;
+import fi.book.org.exception.InventoryNotFoundException;
+import fi.book.org.exception.StockHeldException;
+import fi.book.org.exception.VersionConflictException;
+import fi.book.org.services.BlockingInventoryService;
+import fi.book.org.services.InventoryService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_CBOR_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_PROTOBUF_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * {@link InventoryController} contract for the blocking execution mode, invoked on virtual threads. The per-ISBN
+ * copies come back as a JSON/CBOR/Smile array like the reactive stream does; the protobuf encoder only knows
+ * single envelopes, so that one endpoint has no protobuf representation here.
+ */
+@Slf4j
+@RestController
+@Profile("blocking")
+@RequiredArgsConstructor
+@RequestMapping(path = "/api/v1/inventory")
+@SecurityRequirement(name = "bearerAuth") // Apply JWT security
+public class BlockingInventoryController {
+
+    private final BlockingInventoryService inventoryService;
+
+    @GetMapping(value = "/isbn/{isbn}/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public List<ApiResponse<InventoryDto>> getInventoryCopiesByIsbn(
+            @PathVariable("isbn") @Validated UUID id,
+            @RequestParam(value = "fields", required = false) String fields) {
+        FieldProjection projection = FieldProjection.parse(fields,
+                InventoryService.INVENTORY_FIELDS, InventoryService.INVENTORY_REQUIRED_FIELDS);
+        List<InventoryDto> inventories = projection.isAll()
+                ? inventoryService.getCopiesByIsbn(id)
+                : inventoryService.getCopiesByIsbn(id, projection);
+        return inventories.stream().map(ApiResponse::ok).toList();
+    }
+
+    @GetMapping(value = "/author/{author}/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ApiResponse<Map<String, Integer>> getInventoryCopiesByAuthor(
+            @PathVariable("author") String author) {
+        return ApiResponse.ok(inventoryService.getCopiesByAuthorBookstore(author));
+    }
+
+    @GetMapping(value = "/title/{title}/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ApiResponse<Map<String, Integer>> getInventoryCopiesByTitle(
+            @PathVariable("title") String title) {
+        return ApiResponse.ok(inventoryService.getCopiesByTitleBookstore(title));
+    }
+
+    @PutMapping(value = "/isbn/{isbn}/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ApiResponse<UUID> updateInventoriesCopiesByIsbn(
+            @PathVariable("isbn") @Validated UUID isbn,
+            @RequestParam(value = "copies") Integer copies,
+            @RequestParam(value = "bookstore_id") Long bookstore_id,
+            @RequestParam(value = "version", required = false) Long version) {
+        try {
+            return ApiResponse.ok(inventoryService.updateInventory(isbn, copies, bookstore_id, version));
+        } catch (BookstoreNotFoundException | InventoryNotFoundException e) {
+            return ApiResponse.error(HttpStatus.NOT_FOUND.value(), e.getMessage());
+        } catch (VersionConflictException | StockHeldException e) {
+            return ApiResponse.error(HttpStatus.CONFLICT.value(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Failed to update inventory:{}", e.getMessage());
+            return ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "An error occurred while updating inventory.");
+        }
+    }
+
+    @PutMapping(value = "/copies",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public ApiResponse<Integer> updateInventoriesCopies(@RequestBody @Validated InventoryBulkUpdateRequest request) {
+        try {
+            return ApiResponse.ok(inventoryService.updateInventories(request.getUpdates()));
+        } catch (BookstoreNotFoundException e) {
+            return ApiResponse.error(HttpStatus.NOT_FOUND.value(), e.getMessage());
+        } catch (StockHeldException e) {
+            return ApiResponse.error(HttpStatus.CONFLICT.value(), e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Failed to bulk update inventory:{}", e.getMessage());
+            return ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "An error occurred while updating inventory.");
+        }
+    }
+
+    @GetMapping(value = "/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public ApiResponse<InventoryGlobalDto> getInventoryTotalCopies() {
+        return ApiResponse.ok(inventoryService.getTotalCopies());
+    }
+}
@@ -1,5 +1,6 @@
 package fi.book.org.controller;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.validation.annotation.Validated;
@@ -14,23 +15,31 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 import fi.book.org.api.ApiResponse;
 import fi.book.org.api.ApiResponsePage;
+import fi.book.org.api.FieldProjection;
+import fi.book.org.dto.BookBatchRequest;
 import fi.book.org.dto.BookDto;
 import fi.book.org.exception.BookCreateException;
 import fi.book.org.exception.BookNotFoundException;
+import fi.book.org.exception.VersionConflictException;
 import fi.book.org.services.BookService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_CBOR_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_PROTOBUF_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_SMILE_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @Slf4j
 @RestController
+@Profile("!blocking") // Blocking execution mode serves these paths from BlockingBookController
 @RequiredArgsConstructor
 @RequestMapping(path = "/api/v1/books")
 @SecurityRequirement(name = "bearerAuth") // Apply JWT security
@@ -38,14 +47,19 @@ public class BookController {
 
     private final BookService bookService;
 
-    @GetMapping(produces = APPLICATION_JSON_VALUE)
+    @GetMapping(produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
     public Mono<ApiResponsePage<BookDto>> getBooks(
             @RequestParam(value = "author", required = false) String author,
             @RequestParam(value = "title", required = false) String title,
             @RequestParam(value = "bookstoreId", required = false) Long bookstoreId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        return bookService.getBooks(author, title, bookstoreId, PageRequest.of(page, size, Sort.unsorted()));
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(value = "fields", required = false) String fields) {
+        PageRequest pageable = PageRequest.of(page, size, Sort.unsorted());
+        FieldProjection projection = bookProjection(fields);
+        return projection.isAll()
+                ? bookService.getBooks(author, title, bookstoreId, pageable)
+                : bookService.getBooks(author, title, bookstoreId, pageable, projection);
     }
 
     @PostMapping
@@ -55,7 +69,13 @@ public class BookController {
             @RequestParam String author,
             @RequestParam BigDecimal price,
             @RequestParam("bookstore_id") Long bookstoreId) {
-        BookDto bookDto = new BookDto(id, title, author, price, bookstoreId);
+        BookDto bookDto = BookDto.builder()
+                .id(id)
+                .title(title)
+                .author(author)
+                .price(price)
+                .bookstore_id(bookstoreId)
+                .build();
         return bookService.createBook(bookDto)
                 .map(ApiResponse::ok)
                 .onErrorResume(e -> {
@@ -65,19 +85,31 @@ public class BookController {
     }
 
 
-    @PutMapping(consumes = APPLICATION_JSON_VALUE)
+    @PutMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
     public Mono<ApiResponse<UUID>> updateBook(@RequestBody @Validated BookDto bookDto) {
         return bookService.updateBook(bookDto)
                 .map(ApiResponse::ok)
-                .onErrorResume(e -> {
+                .onErrorResume(e -> !(e instanceof VersionConflictException), e -> {
                     log.error("Error updating book with ISBN {}: {}", bookDto.getId(), e.getMessage(), e);
                     return Mono.error(new BookCreateException("ISBN", bookDto.getId().toString()));
                 });
     }
 
-    @GetMapping(value = "/{isbn}", produces = APPLICATION_JSON_VALUE)
-    public Mono<ApiResponse<BookDto>> getBookByIsbn(@PathVariable("isbn") @Validated UUID id) {
-        return bookService.getBookByIsbn(id)
+    @PostMapping(value = "/batch",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public Mono<ApiResponse<List<BookDto>>> getBooksByIsbns(@RequestBody @Validated BookBatchRequest request) {
+        return bookService.getBooksByIsbns(request.getIsbns(), request.isIncludeInventory())
+                .map(ApiResponse::ok);
+    }
+
+    @GetMapping(value = "/{isbn}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
+    public Mono<ApiResponse<BookDto>> getBookByIsbn(
+            @PathVariable("isbn") @Validated UUID id,
+            @RequestParam(value = "fields", required = false) String fields) {
+        FieldProjection projection = bookProjection(fields);
+        Mono<BookDto> book = projection.isAll() ? bookService.getBookByIsbn(id) : bookService.getBookByIsbn(id, projection);
+        return book
                 .map(ApiResponse::ok)
                 .switchIfEmpty(Mono.error(new BookNotFoundException("ISBN", id.toString())));
 
@@ -91,4 +123,8 @@ public class BookController {
                         Mono.error(new BookNotFoundException("ISBN", isbn.toString())));
     }
 
-}
\ No newline at end of file
+    private static FieldProjection bookProjection(String fields) {
+        return FieldProjection.parse(fields, BookService.BOOK_FIELDS, BookService.BOOK_REQUIRED_FIELDS);
+    }
+
+}
@@ -0,0 +1,35 @@
+package fi.book.org.controller;
+
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+import fi.book.org.api.ApiResponse;
+import fi.book.org.dto.CatalogEntryDto;
+import fi.book.org.services.CatalogService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_CBOR_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(path = "/api/v1/catalog")
+@SecurityRequirement(name = "bearerAuth") // Apply JWT security
+public class CatalogController {
+
+    private final CatalogService catalogService;
+
+    @GetMapping(value = "/{isbn}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ApiResponse<CatalogEntryDto>> getCatalogEntry(@PathVariable("isbn") @Validated UUID isbn) {
+        return catalogService.getCatalogEntry(isbn)
+                .map(ApiResponse::ok);
+    }
+}
@@ -1,22 +1,37 @@
 package fi.book.org.controller;
 
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import fi.book.org.api.ApiResponse;
+import fi.book.org.api.FieldProjection;
+import fi.book.org.dto.InventoryBulkUpdateRequest;
 import fi.book.org.dto.InventoryDto;
 import fi.book.org.dto.InventoryGlobalDto;
+import fi.book.org.dto.InventoryMovementDto;
+import fi.book.org.dto.InventoryMovementRequest;
+import fi.book.org.dto.StockLevelDto;
 import fi.book.org.exception.BookstoreNotFoundException;
 import fi.book.org.exception.InventoryNotFoundException;
+import fi.book.org.exception.StockHeldException;
+import fi.book.org.exception.VersionConflictException;
+import fi.book.org.exception.WriteBufferFullException;
+import fi.book.org.services.InventoryLedgerService;
 import fi.book.org.services.InventoryService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
@@ -24,26 +39,37 @@ import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_CBOR_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_PROTOBUF_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_SMILE_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 @Slf4j
 @RestController
+@Profile("!blocking") // Blocking execution mode serves these paths from BlockingInventoryController
 @RequiredArgsConstructor
 @RequestMapping(path = "/api/v1/inventory")
 @SecurityRequirement(name = "bearerAuth") // Apply JWT security
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryLedgerService inventoryLedgerService;
 
-    @GetMapping(value = "/isbn/{isbn}/copies", produces = APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/isbn/{isbn}/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
     public Flux<ApiResponse<InventoryDto>> getInventoryCopiesByIsbn(
-            @PathVariable("isbn") @Validated UUID id) {
-        return inventoryService.getCopiesByIsbn(id)
+            @PathVariable("isbn") @Validated UUID id,
+            @RequestParam(value = "fields", required = false) String fields) {
+        FieldProjection projection = FieldProjection.parse(fields,
+                InventoryService.INVENTORY_FIELDS, InventoryService.INVENTORY_REQUIRED_FIELDS);
+        Flux<InventoryDto> inventories = projection.isAll()
+                ? inventoryService.getCopiesByIsbn(id)
+                : inventoryService.getCopiesByIsbn(id, projection);
+        return inventories
                 .map(ApiResponse::ok)
                 .switchIfEmpty(Mono.error(new InventoryNotFoundException("ISBN", id.toString())));
     }
 
-    @GetMapping(value = "/author/{author}/copies", produces = APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/author/{author}/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
     public Mono<ApiResponse<Map<String, Integer>>> getInventoryCopiesByAuthor(
             @PathVariable("author") String author) {
         return inventoryService.getCopiesByAuthorBookstore(author)
@@ -51,7 +77,7 @@ public class InventoryController {
                 .switchIfEmpty(Mono.error(new InventoryNotFoundException("Author", author)));
     }
 
-    @GetMapping(value = "/title/{title}/copies", produces = APPLICATION_JSON_VALUE)
+    @GetMapping(value = "/title/{title}/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
     public Mono<ApiResponse<Map<String, Integer>>> getInventoryCopiesByTitle(
             @PathVariable("title") String title) {
         return inventoryService.getCopiesByTitleBookstore(title)
@@ -59,18 +85,23 @@ public class InventoryController {
                 .switchIfEmpty(Mono.error(new InventoryNotFoundException("Title", title)));
     }
 
-    @PutMapping(value = "/isbn/{isbn}/copies", produces = APPLICATION_JSON_VALUE)
+    @PutMapping(value = "/isbn/{isbn}/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
     public Mono<ApiResponse<UUID>> updateInventoriesCopiesByIsbn(
             @PathVariable("isbn") @Validated UUID isbn,
             @RequestParam(value = "copies") Integer copies,
-            @RequestParam(value = "bookstore_id") Long bookstore_id) {
-        return inventoryService.updateInventory(isbn, copies, bookstore_id)
+            @RequestParam(value = "bookstore_id") Long bookstore_id,
+            @RequestParam(value = "version", required = false) Long version) {
+        return inventoryService.updateInventory(isbn, copies, bookstore_id, version)
                 .map(ApiResponse::ok)
                 .onErrorResume(e -> {
                     if (e instanceof BookstoreNotFoundException) {
                         return (Mono.just(ApiResponse.error(HttpStatus.NOT_FOUND.value(), e.getMessage())));
                     } else if (e instanceof InventoryNotFoundException) {
                         return (Mono.just(ApiResponse.error(HttpStatus.NOT_FOUND.value(), e.getMessage())));
+                    } else if (e instanceof VersionConflictException || e instanceof StockHeldException) {
+                        return (Mono.just(ApiResponse.error(HttpStatus.CONFLICT.value(), e.getMessage())));
+                    } else if (e instanceof WriteBufferFullException) {
+                        return (Mono.just(ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage())));
                     } else {
                         log.error("Failed to update inventory:{}", e.getMessage());
                         return (Mono.just(ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "An error occurred while updating inventory.")));
@@ -78,10 +109,58 @@ public class InventoryController {
                 });
     }
 
-    @GetMapping(value = "/copies", produces = APPLICATION_JSON_VALUE)
+    @PutMapping(value = "/copies",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ApiResponse<Integer>> updateInventoriesCopies(@RequestBody @Validated InventoryBulkUpdateRequest request) {
+        return inventoryService.updateInventories(request.getUpdates())
+                .map(ApiResponse::ok)
+                .onErrorResume(e -> {
+                    if (e instanceof BookstoreNotFoundException) {
+                        return (Mono.just(ApiResponse.error(HttpStatus.NOT_FOUND.value(), e.getMessage())));
+                    } else if (e instanceof StockHeldException) {
+                        return (Mono.just(ApiResponse.error(HttpStatus.CONFLICT.value(), e.getMessage())));
+                    } else {
+                        log.error("Failed to bulk update inventory:{}", e.getMessage());
+                        return (Mono.just(ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "An error occurred while updating inventory.")));
+                    }
+                });
+    }
+
+    @GetMapping(value = "/copies", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE, APPLICATION_PROTOBUF_VALUE})
     public Mono<ApiResponse<InventoryGlobalDto>> getInventoryTotalCopies() {
         return inventoryService.getTotalCopies()
                 .map(ApiResponse::ok)
                 .switchIfEmpty(Mono.error(new InventoryNotFoundException()));
     }
+
+    // Ledger: a bookstore id the rows do not know, or a sale beyond the copies on hand, fail the whole request
+    @PostMapping(value = "/isbn/{isbn}/movements",
+            consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ApiResponse<List<InventoryMovementDto>>> recordInventoryMovement(
+            @PathVariable("isbn") @Validated UUID isbn,
+            @RequestBody @Validated InventoryMovementRequest request) {
+        return inventoryLedgerService.recordMovement(isbn, request)
+                .collectList()
+                .map(ApiResponse::ok);
+    }
+
+    @GetMapping(value = "/isbn/{isbn}/movements", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Flux<ApiResponse<InventoryMovementDto>> getInventoryMovements(
+            @PathVariable("isbn") @Validated UUID isbn,
+            @RequestParam(value = "bookstore_id") Long bookstoreId,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return inventoryLedgerService.getMovements(isbn, bookstoreId, limit)
+                .map(ApiResponse::ok);
+    }
+
+    @GetMapping(value = "/isbn/{isbn}/stock", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ApiResponse<StockLevelDto>> getInventoryStock(
+            @PathVariable("isbn") @Validated UUID isbn,
+            @RequestParam(value = "bookstore_id") Long bookstoreId,
+            @RequestParam(value = "at", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return inventoryLedgerService.getStockAt(isbn, bookstoreId, at)
+                .map(ApiResponse::ok);
+    }
 }
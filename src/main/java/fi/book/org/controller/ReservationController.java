@@ -0,0 +1,59 @@
+package fi.book.org.controller;
+
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.UUID;
+
+import fi.book.org.api.ApiResponse;
+import fi.book.org.dto.ReservationDto;
+import fi.book.org.dto.ReservationRequest;
+import fi.book.org.services.StockReservationService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_CBOR_VALUE;
+import static fi.book.org.api.ApiMediaTypes.APPLICATION_SMILE_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+// Reservations are scoped to the user who made them; a sold-out book or a closed hold answer 409
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(path = "/api/v1/reservations")
+@SecurityRequirement(name = "bearerAuth") // Apply JWT security
+public class ReservationController {
+
+    private final StockReservationService reservationService;
+
+    @PostMapping(consumes = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE},
+            produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ApiResponse<ReservationDto>> reserve(@RequestBody @Validated ReservationRequest request, Principal principal) {
+        return reservationService.reserve(request, principal.getName())
+                .map(ApiResponse::ok);
+    }
+
+    @GetMapping(value = "/{id}", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ApiResponse<ReservationDto>> getReservation(@PathVariable("id") @Validated UUID id, Principal principal) {
+        return reservationService.getReservation(id, principal.getName())
+                .map(ApiResponse::ok);
+    }
+
+    @PostMapping(value = "/{id}/confirm", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ApiResponse<ReservationDto>> confirm(@PathVariable("id") @Validated UUID id, Principal principal) {
+        return reservationService.confirm(id, principal.getName())
+                .map(ApiResponse::ok);
+    }
+
+    @PostMapping(value = "/{id}/release", produces = {APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+    public Mono<ApiResponse<ReservationDto>> release(@PathVariable("id") @Validated UUID id, Principal principal) {
+        return reservationService.release(id, principal.getName())
+                .map(ApiResponse::ok);
+    }
+}
@@ -0,0 +1,41 @@
+package fi.book.org.deadline;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import fi.book.org.exception.DeadlineExceededException;
+
+/**
+ * Point in time by which a request has to be answered, carried in the Reactor {@code Context} under
+ * {@code Deadline.class}. Based on {@link System#nanoTime()} so wall clock adjustments do not move it.
+ */
+public final class Deadline {
+    private final long expiresAtNanos;
+    private final AtomicBoolean exceeded = new AtomicBoolean();
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    DeadlineExceededException exceeded() {
+        exceeded.set(true);
+        return new DeadlineExceededException();
+    }
+
+    // Set once any enforcement point gave up, even if the caller later mapped the error to something else
+    boolean wasExceeded() {
+        return exceeded.get();
+    }
+}
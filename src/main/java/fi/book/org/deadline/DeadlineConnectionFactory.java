@@ -0,0 +1,55 @@
+package fi.book.org.deadline;
+
+import org.reactivestreams.Publisher;
+
+import java.time.Duration;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sets the statement timeout of every acquired connection to what is left of the request deadline, so the
+ * database aborts a query the client no longer waits for and the connection goes back to the pool. Pooled
+ * connections keep their settings, so acquisitions without a deadline reset it to no timeout.
+ */
+public class DeadlineConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    // Drivers treat a zero timeout as "none", never hand them a deadline that rounds down to it
+    private static final Duration MIN_STATEMENT_TIMEOUT = Duration.ofMillis(1);
+
+    private final ConnectionFactory delegate;
+
+    public DeadlineConnectionFactory(ConnectionFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.deferContextual(context -> {
+            Duration timeout = Deadlines.current(context)
+                    .map(deadline -> max(deadline.remaining(), MIN_STATEMENT_TIMEOUT))
+                    .orElse(Duration.ZERO);
+            return Mono.from(delegate.create())
+                    .flatMap(connection -> Mono.from(connection.setStatementTimeout(timeout))
+                            .thenReturn(connection)
+                            .onErrorResume(e -> Mono.from(connection.close()).then(Mono.error(e))));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,24 @@
+package fi.book.org.deadline;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Wraps the (pooled) R2DBC {@link ConnectionFactory} so transactions, repositories and the
+ * {@code DatabaseClient} all pick up the request deadline.
+ */
+@Component
+@ConditionalOnProperty(name = "deadline.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineConnectionFactoryPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ConnectionFactory connectionFactory && !(bean instanceof DeadlineConnectionFactory)) {
+            return new DeadlineConnectionFactory(connectionFactory);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,93 @@
+package fi.book.org.deadline;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fi.book.org.exception.DeadlineExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Starts the clock for every request: the budget comes from the client header (capped), a matching route or the
+ * default, and travels down the pipeline in the Reactor {@code Context}. Runs ahead of the security chain so the
+ * user lookup counts against the budget too. Answers 504 when the deadline fired and counts it per endpoint.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "deadline.enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineFilter implements WebFilter {
+
+    static final String EXCEEDED_METRIC = "http.server.requests.deadline.exceeded";
+
+    private final DeadlineProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<PathPattern, Duration> routes;
+
+    public DeadlineFilter(DeadlineProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.routes = new LinkedHashMap<>();
+        properties.getRoutes().forEach(route ->
+                routes.put(PathPatternParser.defaultInstance.parse(route.getPattern()), route.getTimeout()));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Deadline deadline = Deadline.after(timeoutFor(exchange));
+        return chain.filter(exchange)
+                .onErrorResume(DeadlineExceededException.class, e -> {
+                    exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+                    return exchange.getResponse().setComplete();
+                })
+                .doFinally(signal -> {
+                    if (deadline.wasExceeded()) {
+                        meterRegistry.counter(EXCEEDED_METRIC, "method", exchange.getRequest().getMethod().name(),
+                                "uri", endpoint(exchange)).increment();
+                    }
+                })
+                .contextWrite(context -> context.put(Deadline.class, deadline));
+    }
+
+    private Duration timeoutFor(ServerWebExchange exchange) {
+        String requested = exchange.getRequest().getHeaders().getFirst(properties.getHeader());
+        if (requested != null) {
+            try {
+                Duration timeout = DurationStyle.detectAndParse(requested.trim());
+                if (!timeout.isNegative() && !timeout.isZero()) {
+                    return timeout.compareTo(properties.getMaxTimeout()) > 0 ? properties.getMaxTimeout() : timeout;
+                }
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring malformed {} header: {}", properties.getHeader(), requested);
+            }
+        }
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        return routes.entrySet().stream()
+                .filter(route -> route.getKey().matches(path))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(properties.getDefaultTimeout());
+    }
+
+    // Route template rather than the raw path, keeps the tag cardinality bounded
+    private static String endpoint(ServerWebExchange exchange) {
+        PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.getPatternString() : "UNKNOWN";
+    }
+}
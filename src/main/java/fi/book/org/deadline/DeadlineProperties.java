@@ -0,0 +1,28 @@
+package fi.book.org.deadline;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "deadline")
+public class DeadlineProperties {
+    private boolean enabled = true;
+    // Client supplied budget, e.g. "800ms", "2s" or plain milliseconds
+    private String header = "X-Request-Timeout";
+    private Duration defaultTimeout = Duration.ofSeconds(10);
+    // Upper bound for budgets asked for through the header
+    private Duration maxTimeout = Duration.ofSeconds(30);
+    // First matching path pattern wins, otherwise the default applies
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        private String pattern;
+        private Duration timeout;
+    }
+}
@@ -0,0 +1,49 @@
+package fi.book.org.deadline;
+
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+import io.r2dbc.spi.R2dbcTimeoutException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Applies the request {@link Deadline} from the subscriber context to a pipeline. The timeout cancels the
+ * upstream subscription; the statement timeout set by {@link DeadlineConnectionFactory} stops the query in the
+ * database. Pipelines subscribed without a deadline run unchanged.
+ */
+public final class Deadlines {
+
+    private Deadlines() {
+    }
+
+    public static Optional<Deadline> current(ContextView context) {
+        return context.getOrEmpty(Deadline.class);
+    }
+
+    public static <T> Mono<T> enforce(Mono<T> source) {
+        return Mono.deferContextual(context -> current(context)
+                .map(deadline -> deadline.isExpired()
+                        ? Mono.<T>error(deadline.exceeded())
+                        : source.timeout(deadline.remaining()).onErrorMap(Deadlines::isTimeout, e -> deadline.exceeded()))
+                .orElse(source));
+    }
+
+    public static <T> Flux<T> enforce(Flux<T> source) {
+        return Flux.deferContextual(context -> current(context)
+                .map(deadline -> deadline.isExpired()
+                        ? Flux.<T>error(deadline.exceeded())
+                        : source.timeout(expiry(deadline), item -> expiry(deadline)).onErrorMap(Deadlines::isTimeout, e -> deadline.exceeded()))
+                .orElse(source));
+    }
+
+    // Every next element only gets what is left of the budget, so the whole stream ends at the deadline
+    private static Mono<Long> expiry(Deadline deadline) {
+        return Mono.defer(() -> Mono.delay(deadline.remaining()));
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        return e instanceof TimeoutException || e instanceof R2dbcTimeoutException;
+    }
+}
@@ -0,0 +1,27 @@
+package fi.book.org.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchRequest {
+
+    public static final int MAX_ISBNS = 500;
+
+    @NotEmpty
+    @Size(max = MAX_ISBNS, message = "At most " + MAX_ISBNS + " ISBNs per batch")
+    private List<@NotNull UUID> isbns;
+
+    private boolean includeInventory;
+}
@@ -1,6 +1,7 @@
 package fi.book.org.dto;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 import jakarta.validation.constraints.DecimalMin;
@@ -12,7 +13,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookDto {
@@ -31,4 +32,9 @@ public class BookDto {
     private BigDecimal price;
 
     private Long bookstore_id;
+
+    private Long version;
+
+    // Only filled by the batch lookup when inventory is requested
+    private List<InventoryDto> inventory;
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package fi.book.org.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogEntryDto {
+
+    private UUID id;
+    private String title;
+    private String author;
+    private BigDecimal price;
+    private Long bookstoreId;
+    private Long version;
+    // Bookstore id to copies
+    private Map<Long, Integer> copiesByStore;
+    private int totalCopies;
+    // When the entry was last rebuilt; changes made after it are not in it yet
+    private LocalDateTime updatedAt;
+
+}
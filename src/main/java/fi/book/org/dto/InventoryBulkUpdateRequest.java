@@ -0,0 +1,24 @@
+package fi.book.org.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryBulkUpdateRequest {
+
+    public static final int MAX_UPDATES = 10_000;
+
+    @NotEmpty
+    @Size(max = MAX_UPDATES, message = "At most " + MAX_UPDATES + " updates per request")
+    private List<@Valid InventoryUpdateDto> updates;
+}
@@ -18,5 +18,6 @@ public class InventoryDto {
     private String author;
     private int copies;
     private Long bookstoreId;
+    private Long version;
 
 }
@@ -0,0 +1,26 @@
+package fi.book.org.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import fi.book.org.model.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovementDto {
+
+    private Long id;
+    private UUID isbn;
+    private Long bookstoreId;
+    private MovementType movementType;
+    private int quantity;
+    private String reference;
+    private LocalDateTime occurredAt;
+
+}
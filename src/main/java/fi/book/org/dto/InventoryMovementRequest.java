@@ -0,0 +1,55 @@
+package fi.book.org.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Objects;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryMovementRequest {
+
+    public enum Kind {
+        RECEIPT,
+        SALE,
+        ADJUSTMENT,
+        TRANSFER
+    }
+
+    @NotNull
+    private Kind type;
+
+    @NotNull
+    private Long bookstoreId;
+
+    // Transfers only: the receiving bookstore
+    private Long toBookstoreId;
+
+    // Copies received, sold or transferred; the signed correction for an adjustment
+    @NotNull
+    private Integer quantity;
+
+    @Size(max = 64)
+    private String reference;
+
+    @JsonIgnore
+    @AssertTrue(message = "quantity must be positive, or non-zero for an adjustment")
+    public boolean isQuantityValid() {
+        return quantity == null || type == null || (type == Kind.ADJUSTMENT ? quantity != 0 : quantity > 0);
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "a transfer needs a to_bookstore_id other than bookstore_id")
+    public boolean isTargetValid() {
+        return type != Kind.TRANSFER || (toBookstoreId != null && !Objects.equals(toBookstoreId, bookstoreId));
+    }
+}
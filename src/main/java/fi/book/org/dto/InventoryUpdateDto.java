@@ -0,0 +1,27 @@
+package fi.book.org.dto;
+
+import java.util.UUID;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryUpdateDto {
+
+    @NotNull
+    private UUID isbn;
+
+    @NotNull
+    private Long bookstoreId;
+
+    @NotNull
+    @Min(0)
+    private Integer copies;
+}
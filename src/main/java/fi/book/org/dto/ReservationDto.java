@@ -0,0 +1,25 @@
+package fi.book.org.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import fi.book.org.model.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDto {
+
+    private UUID id;
+    private UUID isbn;
+    private Long bookstoreId;
+    private int quantity;
+    private ReservationStatus status;
+    private LocalDateTime expiresAt;
+
+}
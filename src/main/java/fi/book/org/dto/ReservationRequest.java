@@ -0,0 +1,31 @@
+package fi.book.org.dto;
+
+import java.util.UUID;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequest {
+
+    @NotNull
+    private UUID isbn;
+
+    @NotNull
+    private Long bookstoreId;
+
+    @NotNull
+    @Positive
+    private Integer quantity;
+
+    // Hold time asked for, capped at reservation.max-ttl; reservation.ttl when not given
+    @Positive
+    private Long ttlSeconds;
+}
@@ -0,0 +1,22 @@
+package fi.book.org.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevelDto {
+
+    private UUID isbn;
+    private Long bookstoreId;
+    private long copies;
+    private LocalDateTime at;
+
+}
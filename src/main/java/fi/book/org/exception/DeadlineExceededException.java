@@ -0,0 +1,13 @@
+package fi.book.org.exception;
+
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+
+@ResponseStatus(GATEWAY_TIMEOUT)
+public class DeadlineExceededException extends ApplicationException {
+
+    public DeadlineExceededException() {
+        super(GATEWAY_TIMEOUT, "Request deadline exceeded");
+    }
+}
@@ -0,0 +1,12 @@
+package fi.book.org.exception;
+
+import java.util.UUID;
+
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+public class InsufficientStockException extends ApplicationException {
+
+    public InsufficientStockException(final UUID isbn, final Long bookstoreId, final int requested) {
+        super(CONFLICT, "Not enough copies of %s in bookstore %d to remove %d".formatted(isbn, bookstoreId, requested));
+    }
+}
@@ -0,0 +1,14 @@
+package fi.book.org.exception;
+
+import java.util.UUID;
+
+import fi.book.org.model.ReservationStatus;
+
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+public class ReservationClosedException extends ApplicationException {
+
+    public ReservationClosedException(final UUID id, final ReservationStatus status) {
+        super(CONFLICT, "Reservation %s is %s and no longer holds any copies".formatted(id, status));
+    }
+}
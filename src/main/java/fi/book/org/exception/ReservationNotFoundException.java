@@ -0,0 +1,12 @@
+package fi.book.org.exception;
+
+import java.util.UUID;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+public class ReservationNotFoundException extends ApplicationException {
+
+    public ReservationNotFoundException(final UUID id) {
+        super(NOT_FOUND, "No reservation found with ID: %s".formatted(id));
+    }
+}
@@ -0,0 +1,12 @@
+package fi.book.org.exception;
+
+import java.util.UUID;
+
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+public class StockHeldException extends ApplicationException {
+
+    public StockHeldException(final UUID isbn, final Long bookstoreId, final int copies) {
+        super(CONFLICT, "Cannot set %s in bookstore %d to %d copies, reservations hold more".formatted(isbn, bookstoreId, copies));
+    }
+}
@@ -0,0 +1,12 @@
+package fi.book.org.exception;
+
+import java.util.Collection;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+public class UnknownFieldException extends ApplicationException {
+
+    public UnknownFieldException(final Collection<String> unknown, final Collection<String> allowed) {
+        super(BAD_REQUEST, "Unknown fields %s, allowed fields are %s".formatted(unknown, allowed));
+    }
+}
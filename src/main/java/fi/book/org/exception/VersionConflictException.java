@@ -0,0 +1,14 @@
+package fi.book.org.exception;
+
+import static org.springframework.http.HttpStatus.CONFLICT;
+
+public class VersionConflictException extends ApplicationException {
+
+    public VersionConflictException(final String attribute, final String value) {
+        super(CONFLICT, "Stale version for %s: %s, reload and retry".formatted(attribute, value));
+    }
+
+    public VersionConflictException() {
+        super(CONFLICT, "Entity was modified concurrently, reload and retry");
+    }
+}
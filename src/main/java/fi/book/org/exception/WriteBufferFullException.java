@@ -0,0 +1,10 @@
+package fi.book.org.exception;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+public class WriteBufferFullException extends ApplicationException {
+
+    public WriteBufferFullException(int pending) {
+        super(SERVICE_UNAVAILABLE, "Inventory write buffer is full with %d pending writes, retry later".formatted(pending));
+    }
+}
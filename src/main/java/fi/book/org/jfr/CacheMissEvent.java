@@ -0,0 +1,25 @@
+package fi.book.org.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A {@code @Cacheable} lookup that went to the method, lasting until the loaded value was emitted.
+ */
+@Name("fi.book.org.CacheMiss")
+@Label("Cache Miss")
+@Category({"Book App", "Cache"})
+@Description("Cacheable call not answered from the cache, timed while the value loads")
+class CacheMissEvent extends Event {
+    @Label("Cache")
+    String cache;
+
+    @Label("Method")
+    String method;
+
+    @Label("Key")
+    String key;
+}
@@ -0,0 +1,66 @@
+package fi.book.org.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs inside the caching interceptor like {@code CacheMissProbeAspect}, so it only sees misses. The event covers
+ * the load, from subscription of the method's publisher to its termination.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CacheMissEventAspect {
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                CacheMissEvent event = start(joinPoint);
+                return mono.doFinally(signal -> event.commit());
+            });
+        } else if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                CacheMissEvent event = start(joinPoint);
+                return flux.doFinally(signal -> event.commit());
+            });
+        }
+        return result;
+    }
+
+    private static CacheMissEvent start(ProceedingJoinPoint joinPoint) {
+        CacheMissEvent event = new CacheMissEvent();
+        if (event.isEnabled()) {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            event.cache = cacheName(method);
+            event.method = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            event.key = Arrays.toString(joinPoint.getArgs());
+        }
+        event.begin();
+        return event;
+    }
+
+    private static String cacheName(Method method) {
+        Cacheable cacheable = AnnotatedElementUtils.findMergedAnnotation(method, Cacheable.class);
+        if (cacheable != null && cacheable.cacheNames().length > 0) {
+            return String.join(",", cacheable.cacheNames());
+        }
+        CacheConfig cacheConfig = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), CacheConfig.class);
+        return cacheConfig != null ? String.join(",", cacheConfig.cacheNames()) : "";
+    }
+}
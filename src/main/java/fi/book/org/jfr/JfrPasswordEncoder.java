@@ -0,0 +1,49 @@
+package fi.book.org.jfr;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Records a {@link PasswordCheckEvent} around every encode and match. The event thread shows whether the hashing
+ * ran on an event loop.
+ */
+public class JfrPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    public JfrPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordCheckEvent event = start("encode");
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordCheckEvent event = start("matches");
+        try {
+            event.matched = delegate.matches(rawPassword, encodedPassword);
+            return event.matched;
+        } finally {
+            event.commit();
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static PasswordCheckEvent start(String operation) {
+        PasswordCheckEvent event = new PasswordCheckEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+}
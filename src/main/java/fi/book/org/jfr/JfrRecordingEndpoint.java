@@ -0,0 +1,136 @@
+package fi.book.org.jfr;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@code /actuator/jfr}: one bounded JFR recording at a time, with the application events on top of the JDK
+ * settings profile. {@code POST} starts it (optional {@code duration}, capped), {@code DELETE} stops it early,
+ * {@code GET} shows its state and {@code GET /actuator/jfr/{id}} downloads it, as a snapshot while it still runs.
+ * Admin only, see SecurityConfig.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "jfr")
+public class JfrRecordingEndpoint {
+
+    private final JfrRecordingProperties properties;
+    private Recording recording;
+    private Path file;
+    private Path snapshot;
+
+    public JfrRecordingEndpoint(JfrRecordingProperties properties) {
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("id", recording.getId());
+        status.put("state", recording.getState().name());
+        status.put("startTime", recording.getStartTime());
+        status.put("duration", recording.getDuration());
+        status.put("size", recording.getSize());
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Duration duration)
+            throws IOException, ParseException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_CONFLICT);
+        }
+        close();
+        Duration requested = duration == null || duration.isNegative() || duration.isZero()
+                ? properties.getDefaultDuration()
+                : duration;
+        if (requested.compareTo(properties.getMaxDuration()) > 0) {
+            requested = properties.getMaxDuration();
+        }
+
+        Recording next = new Recording(Configuration.getConfiguration(properties.getSettings()));
+        next.setName("book-app");
+        next.setDuration(requested);
+        next.setMaxSize(properties.getMaxSize().toBytes());
+        next.setToDisk(true);
+        next.enable(CacheMissEvent.class);
+        next.enable(RepositoryCallEvent.class).withThreshold(properties.getRepositoryCallThreshold());
+        next.enable(JwtVerificationEvent.class);
+        next.enable(PasswordCheckEvent.class);
+        file = Files.createTempFile("book-app-", ".jfr");
+        next.setDestination(file);
+        next.start();
+        recording = next;
+        log.info("Started JFR recording {} for {}", recording.getId(), requested);
+        return new WebEndpointResponse<>(status());
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("Stopped JFR recording {}", recording.getId());
+        }
+        return status();
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download(@Selector long id) throws IOException {
+        if (recording == null || recording.getId() != id || recording.getState() == RecordingState.NEW) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            deleteSnapshot();
+            snapshot = Files.createTempFile("book-app-snapshot-", ".jfr");
+            recording.dump(snapshot);
+            return new WebEndpointResponse<>(new FileSystemResource(snapshot));
+        }
+        return new WebEndpointResponse<>(new FileSystemResource(file));
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        deleteSnapshot();
+        if (file != null) {
+            Files.deleteIfExists(file);
+            file = null;
+        }
+    }
+
+    private void deleteSnapshot() throws IOException {
+        if (snapshot != null) {
+            Files.deleteIfExists(snapshot);
+            snapshot = null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package fi.book.org.jfr;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "jfr-recording")
+public class JfrRecordingProperties {
+    // JDK settings the recording starts from, "default" is the continuous profile (< 1% overhead)
+    private String settings = "default";
+    // Used when the start request names no duration, and the cap for those that do
+    private Duration defaultDuration = Duration.ofMinutes(2);
+    private Duration maxDuration = Duration.ofMinutes(15);
+    private DataSize maxSize = DataSize.ofMegabytes(100);
+    // Repository calls faster than this are not recorded, they are most of them and rarely the interesting ones
+    private Duration repositoryCallThreshold = Duration.ofMillis(1);
+}
@@ -0,0 +1,30 @@
+package fi.book.org.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Signature check and parsing of one JWT.
+ */
+@Name("fi.book.org.JwtVerification")
+@Label("JWT Verification")
+@Category({"Book App", "Security"})
+@Description("Signature verification and claims parsing of a bearer token")
+public class JwtVerificationEvent extends Event {
+    @Label("Valid")
+    boolean valid;
+
+    @Label("Failure")
+    String failure;
+
+    public void succeeded() {
+        valid = true;
+    }
+
+    public void failed(Throwable e) {
+        failure = e.getClass().getSimpleName();
+    }
+}
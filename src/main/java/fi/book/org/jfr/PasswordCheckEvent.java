@@ -0,0 +1,22 @@
+package fi.book.org.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One password hash or hash comparison, BCrypt in this application.
+ */
+@Name("fi.book.org.PasswordCheck")
+@Label("Password Check")
+@Category({"Book App", "Security"})
+@Description("Password encoding or verification, CPU bound")
+class PasswordCheckEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Matched")
+    boolean matched;
+}
@@ -0,0 +1,28 @@
+package fi.book.org.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A repository call from subscription to termination.
+ */
+@Name("fi.book.org.RepositoryCall")
+@Label("Repository Call")
+@Category({"Book App", "Database"})
+@Description("Repository method, timed from subscription to termination")
+class RepositoryCallEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Arguments")
+    String arguments;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Elements")
+    long elements;
+}
@@ -0,0 +1,71 @@
+package fi.book.org.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fi.book.org.repository.RepositoryMethods;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records a {@link RepositoryCallEvent} per reactive repository call. Outside a recording the events are disabled
+ * and the advice costs one flag check per subscription.
+ */
+@Aspect
+@Component
+public class RepositoryCallEventAspect {
+
+    @Around("fi.book.org.repository.RepositoryMethods.call()")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                RepositoryCallEvent event = start(joinPoint);
+                return mono.doOnSuccess(value -> event.elements = value == null ? 0 : 1)
+                        .doFinally(signal -> commit(event, signal));
+            });
+        } else if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                RepositoryCallEvent event = start(joinPoint);
+                AtomicLong elements = new AtomicLong();
+                return flux.doOnNext(value -> elements.incrementAndGet())
+                        .doFinally(signal -> {
+                            event.elements = elements.get();
+                            commit(event, signal);
+                        });
+            });
+        }
+        return result;
+    }
+
+    private static RepositoryCallEvent start(ProceedingJoinPoint joinPoint) {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (event.isEnabled()) {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            event.method = RepositoryMethods.owner(joinPoint.getThis().getClass(), method).getSimpleName() + "." + method.getName();
+            event.arguments = Arrays.toString(joinPoint.getArgs());
+        }
+        event.begin();
+        return event;
+    }
+
+    private static void commit(RepositoryCallEvent event, SignalType signal) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = switch (signal) {
+                case ON_ERROR -> "error";
+                case CANCEL -> "cancelled";
+                default -> "success";
+            };
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package fi.book.org.ledger;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import fi.book.org.model.SnapshotCandidate;
+import fi.book.org.repository.InventoryMovementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Folds the movements of every inventory row with enough of them into the row's balance and snapshots it, so
+ * current-stock reads only add the few movements since the last fold and stock-at-time queries only sum the
+ * movements after the latest snapshot instead of the row's whole history.
+ *
+ * <p>A fold marks the movements it covers under the row lock instead of taking them up to an id or a time: a
+ * movement whose transaction commits after the fold keeps its lower id, stays unmarked and goes into the next one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.ledger.snapshots.enabled", havingValue = "true", matchIfMissing = true)
+public class InventorySnapshotter {
+    private final InventoryMovementRepository movementRepository;
+    private final LedgerProperties ledgerProperties;
+    private final TransactionalOperator transactionalOperator;
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.snapshots.interval-ms:60000}")
+    public void snapshot() {
+        try {
+            Long taken = snapshotAll().block();
+            if (taken != null && taken > 0) {
+                log.debug("Took {} inventory balance snapshots", taken);
+            }
+        } catch (RuntimeException e) {
+            // Snapshots are an optimization, balances stay correct without them; the next run retries
+            log.warn("Inventory snapshots failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public Mono<Long> snapshotAll() {
+        LedgerProperties.Snapshots snapshots = ledgerProperties.getSnapshots();
+        return snapshotBatch(snapshots)
+                .expand(found -> found == snapshots.getBatchSize() ? snapshotBatch(snapshots) : Mono.empty())
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> snapshotBatch(LedgerProperties.Snapshots snapshots) {
+        // One transaction per row: a failed row does not undo the folds before it, and row locks are held briefly
+        return movementRepository.findSnapshotCandidates(snapshots.getThreshold(), snapshots.getBatchSize())
+                .concatMap(this::fold)
+                .count();
+    }
+
+    private Mono<Integer> fold(SnapshotCandidate candidate) {
+        return movementRepository.openFold(candidate.isbn(), candidate.bookstoreId())
+                .filter(rows -> rows > 0)
+                .flatMap(opened -> movementRepository.markFolded(candidate.isbn(), candidate.bookstoreId()))
+                .flatMap(marked -> movementRepository.applyFolded(candidate.isbn(), candidate.bookstoreId()))
+                .flatMap(applied -> movementRepository.insertSnapshot(candidate.isbn(), candidate.bookstoreId()))
+                .as(transactionalOperator::transactional)
+                .defaultIfEmpty(0);
+    }
+}
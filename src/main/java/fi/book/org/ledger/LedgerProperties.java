@@ -0,0 +1,20 @@
+package fi.book.org.ledger;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.ledger")
+public class LedgerProperties {
+    private final Snapshots snapshots = new Snapshots();
+
+    @Data
+    public static class Snapshots {
+        private boolean enabled = true;
+        // A row is folded and snapshotted once this many movements accumulated since its last fold
+        private int threshold = 100;
+        // Rows folded per pass; a pass repeats while it comes back full
+        private int batchSize = 500;
+    }
+}
@@ -0,0 +1,19 @@
+package fi.book.org.logging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.api.Strategy;
+
+/**
+ * Replaces Logbook's default log-everything strategy when {@code request-logging.sampled} is on.
+ */
+@Configuration
+@ConditionalOnProperty(name = "request-logging.sampled", havingValue = "true")
+public class RequestLoggingConfig {
+
+    @Bean
+    public Strategy sampledBodyStrategy(RequestLoggingProperties properties) {
+        return new SampledBodyStrategy(properties.getBodyMinimumStatus(), properties.getBodySampleRate());
+    }
+}
@@ -0,0 +1,16 @@
+package fi.book.org.logging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "request-logging")
+public class RequestLoggingProperties {
+    // Off: Logbook logs every body (dev). On: bodies only for failures and a sample of the rest (prod profile)
+    private boolean sampled = false;
+    // Responses with at least this status are always logged with bodies
+    private int bodyMinimumStatus = 400;
+    // Share of the other exchanges logged with bodies, 0.0 - 1.0
+    private double bodySampleRate = 0.01;
+}
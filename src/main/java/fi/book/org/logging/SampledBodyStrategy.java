@@ -0,0 +1,48 @@
+package fi.book.org.logging;
+
+import org.zalando.logbook.api.Correlation;
+import org.zalando.logbook.api.HttpRequest;
+import org.zalando.logbook.api.HttpResponse;
+import org.zalando.logbook.api.Precorrelation;
+import org.zalando.logbook.api.Sink;
+import org.zalando.logbook.api.Strategy;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Logs one line per exchange, once the response is known. Bodies are only written for responses with at least
+ * the minimum status and for a random sample of the rest; everything else is logged without them, which is where
+ * most of the formatting and I/O cost of request logging goes.
+ */
+public class SampledBodyStrategy implements Strategy {
+
+    private final int minimumStatus;
+    private final double sampleRate;
+    private final DoubleSupplier random;
+
+    public SampledBodyStrategy(int minimumStatus, double sampleRate) {
+        this(minimumStatus, sampleRate, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    SampledBodyStrategy(int minimumStatus, double sampleRate, DoubleSupplier random) {
+        this.minimumStatus = minimumStatus;
+        this.sampleRate = sampleRate;
+        this.random = random;
+    }
+
+    @Override
+    public void write(Precorrelation precorrelation, HttpRequest request, Sink sink) {
+        // Request and response go out together in write(Correlation, ...)
+    }
+
+    @Override
+    public void write(Correlation correlation, HttpRequest request, HttpResponse response, Sink sink) throws IOException {
+        if (response.getStatus() >= minimumStatus || random.getAsDouble() < sampleRate) {
+            sink.writeBoth(correlation, request, response);
+        } else {
+            sink.writeBoth(correlation, request.withoutBody(), response.withoutBody());
+        }
+    }
+}
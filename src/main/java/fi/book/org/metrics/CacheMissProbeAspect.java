@@ -0,0 +1,42 @@
+package fi.book.org.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Innermost advice on {@code @Cacheable} methods, i.e. inside the caching interceptor: it only sees invocations
+ * that were not answered from the cache. Blocking methods mark the probe bound to the calling thread.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CacheMissProbeAspect {
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object markMiss(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono<?> mono) {
+            return Mono.deferContextual(context -> {
+                context.<CacheProbe>getOrEmpty(CacheProbe.class).ifPresent(CacheProbe::miss);
+                return mono;
+            });
+        } else if (result instanceof Flux<?> flux) {
+            return Flux.deferContextual(context -> {
+                context.<CacheProbe>getOrEmpty(CacheProbe.class).ifPresent(CacheProbe::miss);
+                return flux;
+            });
+        }
+        CacheProbe probe = CacheProbe.current();
+        if (probe != null) {
+            probe.miss();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package fi.book.org.metrics;
+
+/**
+ * Put into the subscriber context around a {@code @Cacheable} call. The caching interceptor only subscribes to
+ * the real method on a miss, so the method's publisher flipping this flag is what tells a miss from a hit.
+ * Advice running inside MethodMetricsAspect can read it from the context too. Blocking {@code @Cacheable} methods
+ * have no subscriber context, the probe is bound to the calling thread for the duration of the call instead.
+ */
+public final class CacheProbe {
+    private static final ThreadLocal<CacheProbe> CURRENT = new ThreadLocal<>();
+
+    private volatile boolean missed;
+
+    static CacheProbe bind(CacheProbe probe) {
+        CacheProbe previous = CURRENT.get();
+        CURRENT.set(probe);
+        return previous;
+    }
+
+    static void restore(CacheProbe previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    static CacheProbe current() {
+        return CURRENT.get();
+    }
+
+    void miss() {
+        missed = true;
+    }
+
+    public String result() {
+        return missed ? "miss" : "hit";
+    }
+}
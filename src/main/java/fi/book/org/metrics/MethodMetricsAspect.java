@@ -0,0 +1,110 @@
+package fi.book.org.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import fi.book.org.repository.RepositoryMethods;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times every public service method and repository call as {@value #METRIC}. Reactive results are timed from
+ * subscription to termination, which is when the work actually happens, not when the publisher is assembled.
+ * Runs outermost so cache hits and transaction handling are part of the measured time.
+ *
+ * <p>Tags: {@code layer} (service/repository), {@code class}, {@code method}, {@code outcome}
+ * (success/error/cancelled), {@code exception} and {@code cache} (hit/miss for {@code @Cacheable} methods, none
+ * otherwise). Percentile histograms are switched on in application.properties.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class MethodMetricsAspect {
+
+    static final String METRIC = "app.method";
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<CallSite, Meta> metas = new ConcurrentHashMap<>();
+
+    @Around("(execution(public * fi.book.org.services..*(..)) && !execution(* java.lang.Object.*(..))) "
+            + "|| fi.book.org.repository.RepositoryMethods.call()")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Meta meta = metas.computeIfAbsent(new CallSite(joinPoint.getThis().getClass(), method), MethodMetricsAspect::meta);
+        CacheProbe probe = meta.cacheable() ? new CacheProbe() : null;
+
+        long start = System.nanoTime();
+        CacheProbe previous = probe == null ? null : CacheProbe.bind(probe);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(meta, start, "error", e, probe);
+            throw e;
+        } finally {
+            if (probe != null) {
+                CacheProbe.restore(previous);
+            }
+        }
+
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono.doOnSuccess(value -> record(meta, subscribed, "success", null, probe))
+                        .doOnError(e -> record(meta, subscribed, "error", e, probe))
+                        .doOnCancel(() -> record(meta, subscribed, "cancelled", null, probe));
+            }).contextWrite(context -> probe == null ? context : context.put(CacheProbe.class, probe));
+        } else if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                long subscribed = System.nanoTime();
+                return flux.doOnComplete(() -> record(meta, subscribed, "success", null, probe))
+                        .doOnError(e -> record(meta, subscribed, "error", e, probe))
+                        .doOnCancel(() -> record(meta, subscribed, "cancelled", null, probe));
+            }).contextWrite(context -> probe == null ? context : context.put(CacheProbe.class, probe));
+        }
+        record(meta, start, "success", null, probe);
+        return result;
+    }
+
+    private void record(Meta meta, long startNanos, String outcome, Throwable error, CacheProbe probe) {
+        Timer.builder(METRIC)
+                .tag("layer", meta.layer())
+                .tag("class", meta.className())
+                .tag("method", meta.methodName())
+                .tag("outcome", outcome)
+                .tag("exception", error == null ? NONE : error.getClass().getSimpleName())
+                .tag("cache", probe == null ? NONE : probe.result())
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Meta meta(CallSite callSite) {
+        Class<?> owner = RepositoryMethods.owner(callSite.type(), callSite.method());
+        String layer = RepositoryMethods.isRepository(owner) ? "repository" : "service";
+        return new Meta(layer, owner.getSimpleName(), callSite.method().getName(),
+                AnnotatedElementUtils.hasAnnotation(callSite.method(), Cacheable.class));
+    }
+
+    private record CallSite(Class<?> type, Method method) {
+    }
+
+    private record Meta(String layer, String className, String methodName, boolean cacheable) {
+    }
+}
@@ -2,6 +2,7 @@ package fi.book.org.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
@@ -44,6 +45,9 @@ public class BookModel implements Persistable {
     @Column("bookstore_id")
     private Long bookstoreId;
 
+    @Version
+    private Long version;
+
     // A transient flag to determine whether this is a new entity
     @Builder.Default
     @Transient
@@ -0,0 +1,7 @@
+package fi.book.org.model;
+
+/**
+ * Copy count of one bookstore, as returned by the cross-store aggregation queries.
+ */
+public record BookstoreCopies(Long bookstoreId, Long copies) {
+}
@@ -0,0 +1,48 @@
+package fi.book.org.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("catalog_read_model")
+public class CatalogEntry {
+    @Id
+    @Column("isbn")
+    private UUID isbn;
+
+    private String title;
+
+    private String author;
+
+    private BigDecimal price;
+
+    @Column("bookstore_id")
+    private Long bookstoreId;
+
+    @Column("book_version")
+    private Long bookVersion;
+
+    // JSON object of bookstore id to copies
+    @Column("copies_by_store")
+    private String copiesByStore;
+
+    @Column("total_copies")
+    private int totalCopies;
+
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -2,6 +2,7 @@ package fi.book.org.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
@@ -33,6 +34,9 @@ public class Inventory implements Persistable {
     @Column("bookstore_id")
     private Long bookstoreId;
 
+    @Version
+    private Long version;
+
     @Builder.Default
     @Transient
     private boolean isNew = true;
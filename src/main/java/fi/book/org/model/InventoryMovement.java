@@ -0,0 +1,41 @@
+package fi.book.org.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("inventory_movements")
+public class InventoryMovement {
+    @Id
+    @Column("id")
+    private Long id;
+
+    private UUID isbn;
+
+    @Column("bookstore_id")
+    private Long bookstoreId;
+
+    @Column("movement_type")
+    private MovementType movementType;
+
+    // Signed change of the row's copies
+    private int quantity;
+
+    private String reference;
+
+    @Column("occurred_at")
+    private LocalDateTime occurredAt;
+}
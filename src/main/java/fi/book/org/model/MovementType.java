@@ -0,0 +1,13 @@
+package fi.book.org.model;
+
+/**
+ * Kind of an {@link InventoryMovement}. A transfer between bookstores is recorded as a {@link #TRANSFER_OUT} and a
+ * {@link #TRANSFER_IN} sharing the same reference.
+ */
+public enum MovementType {
+    RECEIPT,
+    SALE,
+    ADJUSTMENT,
+    TRANSFER_OUT,
+    TRANSFER_IN
+}
@@ -0,0 +1,44 @@
+package fi.book.org.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("outbox_events")
+public class OutboxEvent {
+    @Id
+    @Column("id")
+    private Long id;
+
+    @Column("aggregate_type")
+    private String aggregateType;
+
+    @Column("aggregate_id")
+    private String aggregateId;
+
+    @Column("bookstore_id")
+    private Long bookstoreId;
+
+    @Column("event_type")
+    private String eventType;
+
+    private String payload;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @Column("published_at")
+    private LocalDateTime publishedAt;
+}
@@ -0,0 +1,16 @@
+package fi.book.org.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum OutboxEventType {
+    BOOK_CREATED("book"),
+    BOOK_UPDATED("book"),
+    BOOK_DELETED("book"),
+    INVENTORY_UPDATED("inventory"),
+    INVENTORY_MOVED("inventory");
+
+    private final String aggregateType;
+}
@@ -0,0 +1,11 @@
+package fi.book.org.model;
+
+/**
+ * Lifecycle of a {@link StockReservation}. Only {@link #HELD} holds copies; every other status is final.
+ */
+public enum ReservationStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,9 @@
+package fi.book.org.model;
+
+import java.util.UUID;
+
+/**
+ * Copies of one inventory row held by reservations.
+ */
+public record ReservedCopies(UUID id, Long bookstoreId, int reserved) {
+}
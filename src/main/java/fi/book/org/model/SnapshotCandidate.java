@@ -0,0 +1,9 @@
+package fi.book.org.model;
+
+import java.util.UUID;
+
+/**
+ * Inventory row with enough unfolded movements to fold them into its balance and take a new snapshot.
+ */
+public record SnapshotCandidate(UUID isbn, Long bookstoreId) {
+}
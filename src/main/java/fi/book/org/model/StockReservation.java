@@ -0,0 +1,43 @@
+package fi.book.org.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table("stock_reservations")
+public class StockReservation {
+    @Id
+    @Column("id")
+    private UUID id;
+
+    private UUID isbn;
+
+    @Column("bookstore_id")
+    private Long bookstoreId;
+
+    private int quantity;
+
+    // Name of the user who reserved, the only one who may confirm or release
+    private String owner;
+
+    private ReservationStatus status;
+
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @Column("expires_at")
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,32 @@
+package fi.book.org.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import fi.book.org.model.OutboxEvent;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps relayed events in memory so tests can assert on what downstream consumers would receive.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.sinks.memory.enabled", havingValue = "true")
+public class InMemoryOutboxSink implements OutboxSink {
+    private final List<OutboxEvent> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Mono<Void> publish(List<OutboxEvent> batch) {
+        return Mono.fromRunnable(() -> events.addAll(batch));
+    }
+
+    public List<OutboxEvent> getEvents() {
+        return List.copyOf(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,26 @@
+package fi.book.org.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import fi.book.org.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes one line per event to the {@code outbox} logger, which logback routes to its own rolling file.
+ */
+@Slf4j(topic = "outbox")
+@Component
+@ConditionalOnProperty(name = "outbox.sinks.log.enabled", havingValue = "true", matchIfMissing = true)
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public Mono<Void> publish(List<OutboxEvent> events) {
+        return Mono.fromRunnable(() -> events.forEach(event -> log.info("{} {} {} {} {} {}",
+                event.getId(), event.getEventType(), event.getAggregateType(), event.getAggregateId(),
+                event.getBookstoreId(), event.getPayload())));
+    }
+}
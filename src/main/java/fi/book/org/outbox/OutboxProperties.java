@@ -0,0 +1,20 @@
+package fi.book.org.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+    private final Relay relay = new Relay();
+
+    @Data
+    public static class Relay {
+        private boolean enabled = true;
+        private int batchSize = 100;
+        private Duration retention = Duration.ofDays(7);
+    }
+}
@@ -0,0 +1,70 @@
+package fi.book.org.outbox;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import fi.book.org.model.OutboxEvent;
+import fi.book.org.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drains unpublished outbox events in id order and hands each batch to every registered {@link OutboxSink}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectProvider<OutboxSink> sinks;
+    private final OutboxProperties outboxProperties;
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:1000}")
+    public void relay() {
+        try {
+            Long relayed = drain().block();
+            if (relayed != null && relayed > 0) {
+                log.debug("Relayed {} outbox events", relayed);
+            }
+        } catch (RuntimeException e) {
+            // Nothing was marked published, the next run retries the same batch
+            log.warn("Outbox relay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.purge-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(outboxProperties.getRelay().getRetention());
+        outboxEventRepository.deletePublishedBefore(cutoff).block();
+    }
+
+    public Mono<Long> drain() {
+        int batchSize = outboxProperties.getRelay().getBatchSize();
+        // Keep pulling while batches come back full, so a backlog drains in one scheduled run
+        return drainBatch(batchSize)
+                .expand(relayed -> relayed == batchSize ? drainBatch(batchSize) : Mono.empty())
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> drainBatch(int batchSize) {
+        return outboxEventRepository.findPending(batchSize)
+                .collectList()
+                .flatMap(events -> events.isEmpty() ? Mono.just(0L) : publish(events));
+    }
+
+    private Mono<Long> publish(List<OutboxEvent> events) {
+        List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+        return Flux.fromStream(sinks.orderedStream())
+                .concatMap(sink -> sink.publish(events))
+                .then(outboxEventRepository.markPublished(ids))
+                .thenReturn((long) events.size());
+    }
+}
@@ -0,0 +1,15 @@
+package fi.book.org.outbox;
+
+import java.util.List;
+
+import fi.book.org.model.OutboxEvent;
+import reactor.core.publisher.Mono;
+
+/**
+ * Destination for relayed outbox events. A batch is marked published only after every sink completed,
+ * so implementations must tolerate seeing the same event again after a failed relay run.
+ */
+public interface OutboxSink {
+
+    Mono<Void> publish(List<OutboxEvent> events);
+}
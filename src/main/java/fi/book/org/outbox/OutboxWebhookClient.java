@@ -0,0 +1,17 @@
+package fi.book.org.outbox;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
+
+import fi.book.org.model.OutboxEvent;
+
+@FeignClient(name = "outboxWebhook", url = "${outbox.sinks.webhook.url}")
+public interface OutboxWebhookClient {
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    void publish(@RequestBody List<OutboxEvent> events);
+}
@@ -0,0 +1,53 @@
+package fi.book.org.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.util.List;
+
+import fi.book.org.model.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * POSTs each batch as a JSON array to {@code outbox.sinks.webhook.url}. Feign is blocking, so calls run on
+ * the bounded elastic scheduler.
+ */
+@RequiredArgsConstructor
+public class WebhookOutboxSink implements OutboxSink {
+    private final OutboxWebhookClient outboxWebhookClient;
+
+    @Override
+    public Mono<Void> publish(List<OutboxEvent> events) {
+        return Mono.fromRunnable(() -> outboxWebhookClient.publish(events))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "outbox.sinks.webhook.enabled", havingValue = "true")
+    @EnableFeignClients(clients = OutboxWebhookClient.class)
+    static class WebhookOutboxSinkConfig {
+
+        @Bean
+        WebhookOutboxSink webhookOutboxSink(OutboxWebhookClient outboxWebhookClient) {
+            return new WebhookOutboxSink(outboxWebhookClient);
+        }
+
+        // WebFlux does not register servlet message converters, which the Feign encoder relies on
+        @Bean
+        @ConditionalOnMissingBean
+        HttpMessageConverters feignHttpMessageConverters(ObjectProvider<ObjectMapper> objectMapper) {
+            return new HttpMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper.getObject()));
+        }
+    }
+}
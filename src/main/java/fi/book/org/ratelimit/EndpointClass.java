@@ -0,0 +1,34 @@
+package fi.book.org.ratelimit;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Groups endpoints by cost so a client gets separate budgets for cheap reads and for the LIKE searches that
+ * hold a pooled connection the longest.
+ */
+public enum EndpointClass {
+    AUTH,
+    SEARCH,
+    READ,
+    WRITE;
+
+    public static EndpointClass of(ServerHttpRequest request) {
+        String path = request.getPath().pathWithinApplication().value();
+        HttpMethod method = request.getMethod();
+        if (path.startsWith("/auth/")) {
+            return AUTH;
+        } else if (HttpMethod.GET.equals(method)) {
+            return isSearch(path) ? SEARCH : READ;
+        } else if (HttpMethod.POST.equals(method) && path.equals("/api/v1/books/batch")) {
+            return SEARCH;
+        }
+        return WRITE;
+    }
+
+    private static boolean isSearch(String path) {
+        return path.equals("/api/v1/books")
+                || path.startsWith("/api/v1/inventory/author/")
+                || path.startsWith("/api/v1/inventory/title/");
+    }
+}
@@ -0,0 +1,67 @@
+package fi.book.org.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limits requests per JWT subject, or per remote address without a token. Registered in the security chain right
+ * after authentication, so rejected requests never reach authorization, the controllers or the connection pool.
+ */
+@RequiredArgsConstructor
+public class RateLimitFilter implements WebFilter {
+
+    static final String ANONYMOUS = "anonymous";
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!rateLimiter.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        EndpointClass endpoint = EndpointClass.of(exchange.getRequest());
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(authentication -> rateLimiter.tryAcquire(authentication.getName(), roles(authentication), endpoint))
+                .switchIfEmpty(Mono.fromSupplier(() -> rateLimiter.tryAcquire(clientAddress(exchange), List.of(ANONYMOUS), endpoint)))
+                .flatMap(waitNanos -> waitNanos == 0 ? chain.filter(exchange) : reject(exchange.getResponse(), waitNanos));
+    }
+
+    private static List<String> roles(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(role -> (role.startsWith(ROLE_PREFIX) ? role.substring(ROLE_PREFIX.length()) : role).toLowerCase(Locale.ROOT))
+                .toList();
+    }
+
+    private static String clientAddress(ServerWebExchange exchange) {
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (address == null || address.getAddress() == null ? "unknown" : address.getAddress().getHostAddress());
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, long waitNanos) {
+        // Retry-After only carries whole seconds, round up so a client honouring it is not rejected again
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return response.setComplete();
+    }
+}
@@ -0,0 +1,28 @@
+package fi.book.org.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // Upper bound on tracked (client, endpoint class) buckets
+    private long maxClients = 100_000;
+    // Idle buckets are dropped after this; keep it above the time a bucket needs to refill completely
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    // Keyed by lower case role without the ROLE_ prefix ("anonymous" for requests without a token), then by
+    // endpoint class. Requests without a matching quota are not limited.
+    private Map<String, Map<EndpointClass, Quota>> quotas = new HashMap<>();
+
+    @Data
+    public static class Quota {
+        private int capacity = 1;
+        private double refillPerSecond = 1;
+    }
+}
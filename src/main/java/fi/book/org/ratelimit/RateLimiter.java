@@ -0,0 +1,69 @@
+package fi.book.org.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+import fi.book.org.ratelimit.RateLimitProperties.Quota;
+
+/**
+ * One token bucket per client and endpoint class. Buckets live in a size bounded Caffeine cache and are dropped
+ * once idle; by then they would have refilled anyway, so eviction never hands out extra tokens.
+ */
+@Component
+public class RateLimiter {
+    private final RateLimitProperties properties;
+    private final LongSupplier nanoClock;
+    private final Cache<BucketKey, TokenBucket> buckets;
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Takes a token for {@code client}. With several roles the most generous quota applies.
+     *
+     * @return 0 when the request may proceed, otherwise the nanoseconds until it may be retried
+     */
+    public long tryAcquire(String client, Collection<String> roles, EndpointClass endpoint) {
+        Quota quota = quotaFor(roles, endpoint);
+        if (quota == null) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        return buckets.get(new BucketKey(client, endpoint), key -> new TokenBucket(quota, now)).tryAcquire(now);
+    }
+
+    private Quota quotaFor(Collection<String> roles, EndpointClass endpoint) {
+        return roles.stream()
+                .map(role -> properties.getQuotas().getOrDefault(role, Map.of()).get(endpoint))
+                .filter(Objects::nonNull)
+                .max(Comparator.comparingDouble(Quota::getRefillPerSecond))
+                .orElse(null);
+    }
+
+    private record BucketKey(String client, EndpointClass endpoint) {
+    }
+}
@@ -1,9 +1,12 @@
 package fi.book.org.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.UUID;
 
 import fi.book.org.model.BookModel;
@@ -23,4 +26,25 @@ public interface BookRepository extends ReactiveCrudRepository<BookModel, UUID>
     Flux<BookModel> findByAuthorContainingIgnoreCaseAndTitleContainingIgnoreCase(String author, String title, Pageable pageable);
 
     Flux<BookModel> findByBookstoreId(Long bookstore_id, Pageable pageable);
+
+    // Single-statement updates: the affected-row count replaces the existence pre-read
+    @Modifying
+    @Query("""
+                UPDATE books
+                SET title = :title, author = :author, price = :price, bookstore_id = :bookstoreId, version = version + 1
+                WHERE id = :id
+            """)
+    Mono<Integer> updateBook(UUID id, String title, String author, BigDecimal price, Long bookstoreId);
+
+    @Modifying
+    @Query("""
+                UPDATE books
+                SET title = :title, author = :author, price = :price, bookstore_id = :bookstoreId, version = version + 1
+                WHERE id = :id AND version = :version
+            """)
+    Mono<Integer> updateBookIfVersion(UUID id, String title, String author, BigDecimal price, Long bookstoreId, Long version);
+
+    @Modifying
+    @Query("DELETE FROM books WHERE id = :id")
+    Mono<Integer> deleteBook(UUID id);
 }
@@ -1,9 +1,11 @@
 package fi.book.org.repository;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 
 import fi.book.org.model.Bookstore;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
@@ -12,4 +14,7 @@ public interface BookstoreRepository extends ReactiveCrudRepository<Bookstore, L
 
     Mono<Bookstore> findById(Long id);
 
+    @Query("SELECT id FROM bookstore")
+    Flux<Long> findAllIds();
+
 }
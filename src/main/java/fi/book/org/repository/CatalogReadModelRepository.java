@@ -0,0 +1,26 @@
+package fi.book.org.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import fi.book.org.model.CatalogEntry;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface CatalogReadModelRepository extends ReactiveCrudRepository<CatalogEntry, UUID> {
+
+    @Modifying
+    @Query("""
+                MERGE INTO catalog_read_model
+                    (isbn, title, author, price, bookstore_id, book_version, copies_by_store, total_copies, updated_at)
+                KEY (isbn)
+                VALUES (:isbn, :title, :author, :price, :bookstoreId, :bookVersion, :copiesByStore, :totalCopies, CURRENT_TIMESTAMP)
+            """)
+    Mono<Integer> upsert(UUID isbn, String title, String author, BigDecimal price, Long bookstoreId, Long bookVersion,
+                         String copiesByStore, int totalCopies);
+}
@@ -0,0 +1,26 @@
+package fi.book.org.repository;
+
+import java.util.List;
+
+import fi.book.org.dto.InventoryUpdateDto;
+import reactor.core.publisher.Mono;
+
+public interface InventoryBulkRepository {
+
+    /**
+     * Locks the row of every (isbn, bookstore) pair with one batched MERGE statement, creating the missing ones
+     * with nothing folded. The copies themselves are written as adjustments afterwards.
+     *
+     * @return number of affected rows
+     */
+    Mono<Integer> lockOrCreate(List<InventoryUpdateDto> updates);
+
+    /**
+     * Appends the adjustment that brings each row to its copies, one batched statement like
+     * {@link InventoryMovementRepository#appendAdjustment}. The rows must be locked; later tuples for the same
+     * (isbn, bookstore) win.
+     *
+     * @return number of appended movements
+     */
+    Mono<Integer> appendAdjustments(List<InventoryUpdateDto> updates);
+}
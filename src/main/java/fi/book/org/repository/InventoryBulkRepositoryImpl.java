@@ -0,0 +1,64 @@
+package fi.book.org.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.List;
+
+import fi.book.org.dto.InventoryUpdateDto;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+class InventoryBulkRepositoryImpl implements InventoryBulkRepository {
+
+    private static final String LOCK_OR_CREATE = """
+                MERGE INTO inventory AS target
+                USING (VALUES (CAST($1 AS VARCHAR(36)), CAST($2 AS BIGINT))) AS source (id, bookstore_id)
+                ON target.id = source.id AND target.bookstore_id = source.bookstore_id
+                WHEN MATCHED THEN UPDATE SET version = target.version
+                WHEN NOT MATCHED THEN INSERT (id, bookstore_id, copies) VALUES (source.id, source.bookstore_id, 0)
+            """;
+
+    private static final String APPEND_ADJUSTMENT = """
+                INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity)
+                SELECT id, bookstore_id, 'ADJUSTMENT', CAST($3 AS INTEGER) - copies
+                FROM inventory_stock
+                WHERE id = $1 AND bookstore_id = $2 AND copies <> $3
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Integer> lockOrCreate(List<InventoryUpdateDto> updates) {
+        return execute(LOCK_OR_CREATE, updates, false);
+    }
+
+    @Override
+    public Mono<Integer> appendAdjustments(List<InventoryUpdateDto> updates) {
+        return execute(APPEND_ADJUSTMENT, updates, true);
+    }
+
+    private Mono<Integer> execute(String sql, List<InventoryUpdateDto> updates, boolean withCopies) {
+        // Runs on the transaction-bound connection when called inside @Transactional
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    for (int i = 0; i < updates.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        InventoryUpdateDto update = updates.get(i);
+                        statement.bind(0, update.getIsbn().toString())
+                                .bind(1, update.getBookstoreId());
+                        if (withCopies) {
+                            statement.bind(2, update.getCopies());
+                        }
+                    }
+                    return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+                })
+                .reduce(0L, Long::sum)
+                .map(Long::intValue);
+    }
+}
@@ -0,0 +1,121 @@
+package fi.book.org.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import fi.book.org.model.InventoryMovement;
+import fi.book.org.model.SnapshotCandidate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The inventory ledger, the write model of the stock: movements are only ever appended, and the snapshotter folds
+ * them into {@code inventory.copies} and a balance snapshot now and then. A balance is the latest snapshot plus the
+ * movements after it; the current one is read through the {@code inventory_stock} view.
+ */
+@Repository
+public interface InventoryMovementRepository extends ReactiveCrudRepository<InventoryMovement, Long> {
+
+    @Query("""
+                SELECT * FROM inventory_movements
+                WHERE isbn = :isbn AND bookstore_id = :bookstoreId
+                ORDER BY id DESC LIMIT :limit
+            """)
+    Flux<InventoryMovement> findLatest(UUID isbn, Long bookstoreId, int limit);
+
+    // Snapshots are taken in seq order with as_of never going back, so the latest one at :at has the highest seq;
+    // a movement counts after it when folded into a later snapshot or not folded yet
+    @Query("""
+                SELECT COALESCE((SELECT s.balance FROM inventory_snapshots s
+                                 WHERE s.isbn = :isbn AND s.bookstore_id = :bookstoreId AND s.as_of <= :at
+                                 ORDER BY s.seq DESC LIMIT 1), 0)
+                     + COALESCE((SELECT SUM(m.quantity) FROM inventory_movements m
+                                 WHERE m.isbn = :isbn AND m.bookstore_id = :bookstoreId AND m.occurred_at <= :at
+                                   AND COALESCE(m.snapshot_seq, 9223372036854775807)
+                                       > COALESCE((SELECT MAX(s.seq) FROM inventory_snapshots s
+                                                   WHERE s.isbn = :isbn AND s.bookstore_id = :bookstoreId
+                                                     AND s.as_of <= :at), 0)), 0)
+            """)
+    Mono<Long> balanceAt(UUID isbn, Long bookstoreId, LocalDateTime at);
+
+    // Records an absolute copy count as the difference to the current stock, nothing when they already match; the
+    // caller holds the row lock
+    @Modifying
+    @Query("""
+                INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity)
+                SELECT id, bookstore_id, 'ADJUSTMENT', CAST(:copies AS INTEGER) - copies
+                FROM inventory_stock
+                WHERE id = :isbn AND bookstore_id = :bookstoreId AND copies <> :copies
+            """)
+    Mono<Integer> appendAdjustment(UUID isbn, Long bookstoreId, int copies);
+
+    // Relative change of every row of an ISBN in one statement; 0 when it has no row yet
+    @Modifying
+    @Query("""
+                INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity)
+                SELECT id, bookstore_id, :movementType, :quantity FROM inventory WHERE id = :isbn
+            """)
+    Mono<Integer> appendToAllRows(UUID isbn, String movementType, int quantity);
+
+    @Query("""
+                SELECT m.isbn, m.bookstore_id
+                FROM inventory_movements m
+                WHERE m.snapshot_seq IS NULL
+                  AND EXISTS (SELECT 1 FROM inventory i WHERE i.id = m.isbn AND i.bookstore_id = m.bookstore_id)
+                GROUP BY m.isbn, m.bookstore_id
+                HAVING COUNT(*) >= :threshold
+                LIMIT :limit
+            """)
+    Flux<SnapshotCandidate> findSnapshotCandidates(int threshold, int limit);
+
+    // Folding a row, in one transaction and in this order. Opening the next seq takes the row lock, so nothing
+    // appends under it meanwhile; movements still uncommitted are invisible to the marking and wait for the next fold.
+    @Modifying
+    @Query("""
+                UPDATE inventory SET snapshot_seq = snapshot_seq + 1
+                WHERE id = :isbn AND bookstore_id = :bookstoreId
+            """)
+    Mono<Integer> openFold(UUID isbn, Long bookstoreId);
+
+    @Modifying
+    @Query("""
+                UPDATE inventory_movements SET snapshot_seq = (SELECT i.snapshot_seq FROM inventory i
+                                                               WHERE i.id = :isbn AND i.bookstore_id = :bookstoreId)
+                WHERE isbn = :isbn AND bookstore_id = :bookstoreId AND snapshot_seq IS NULL
+            """)
+    Mono<Integer> markFolded(UUID isbn, Long bookstoreId);
+
+    // Moves the marked movements into the row; the version grows by as many, so readers see it unchanged
+    @Modifying
+    @Query("""
+                UPDATE inventory i
+                SET copies = i.copies + COALESCE((SELECT SUM(m.quantity) FROM inventory_movements m
+                                                  WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                                    AND m.snapshot_seq = i.snapshot_seq), 0),
+                    version = i.version + (SELECT COUNT(*) FROM inventory_movements m
+                                           WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                             AND m.snapshot_seq = i.snapshot_seq)
+                WHERE i.id = :isbn AND i.bookstore_id = :bookstoreId
+            """)
+    Mono<Integer> applyFolded(UUID isbn, Long bookstoreId);
+
+    // occurred_at is when a movement's transaction started, so a late commit can be older than the last snapshot
+    @Modifying
+    @Query("""
+                INSERT INTO inventory_snapshots (isbn, bookstore_id, seq, balance, as_of)
+                SELECT i.id, i.bookstore_id, i.snapshot_seq, i.copies,
+                       GREATEST(COALESCE((SELECT MAX(s.as_of) FROM inventory_snapshots s
+                                          WHERE s.isbn = i.id AND s.bookstore_id = i.bookstore_id), TIMESTAMP '1970-01-01 00:00:00'),
+                                COALESCE((SELECT MAX(m.occurred_at) FROM inventory_movements m
+                                          WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                            AND m.snapshot_seq = i.snapshot_seq), TIMESTAMP '1970-01-01 00:00:00'))
+                FROM inventory i
+                WHERE i.id = :isbn AND i.bookstore_id = :bookstoreId
+            """)
+    Mono<Integer> insertSnapshot(UUID isbn, Long bookstoreId);
+}
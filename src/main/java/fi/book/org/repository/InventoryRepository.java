@@ -1,18 +1,125 @@
 package fi.book.org.repository;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.UUID;
 
+import fi.book.org.model.BookstoreCopies;
 import fi.book.org.model.Inventory;
+import fi.book.org.model.ReservedCopies;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface InventoryRepository extends ReactiveCrudRepository<Inventory, UUID> {
+public interface InventoryRepository extends ReactiveCrudRepository<Inventory, UUID>, InventoryBulkRepository {
+    // Reads go through inventory_stock, the folded balance plus the movements not folded yet
+    @Query("SELECT id, bookstore_id, copies, version FROM inventory_stock WHERE id = :id")
     Flux<Inventory> findInventoriesById(UUID id);
 
-    Mono<Inventory> findByIdAndBookstoreId(UUID id, Long bookstore_id);
+    @Query("SELECT id, bookstore_id, copies, version FROM inventory_stock WHERE id IN (:ids)")
+    Flux<Inventory> findByIdIn(Collection<UUID> ids);
+
+    @Query("SELECT id, bookstore_id, copies, version FROM inventory_stock WHERE id = :id AND bookstore_id = :bookstoreId")
+    Mono<Inventory> findByIdAndBookstoreId(UUID id, Long bookstoreId);
+
+    Mono<Boolean> existsByIdAndBookstoreId(UUID id, Long bookstoreId);
+
+    // Absolute writes lock the row before appending their adjustment, which orders them against the removals that
+    // check the stock under the same lock. Keyed by the full (id, bookstore_id) primary key, 0 when there is no row.
+    @Modifying
+    @Query("""
+                UPDATE inventory SET version = version
+                WHERE id = :id AND bookstore_id = :bookstoreId
+            """)
+    Mono<Integer> lockRow(UUID id, Long bookstoreId);
+
+    // Same against the version readers see, the folded one plus a version per unfolded movement
+    @Modifying
+    @Query("""
+                UPDATE inventory i SET version = i.version
+                WHERE i.id = :id AND i.bookstore_id = :bookstoreId
+                  AND i.version + (SELECT COUNT(*) FROM inventory_movements m
+                                   WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                     AND m.snapshot_seq IS NULL) = :version
+            """)
+    Mono<Integer> lockRowIfVersion(UUID id, Long bookstoreId, Long version);
+
+    // Rows among the (id, bookstore) pairs with copies held by reservations, read under an absolute write's row locks
+    @Query("""
+                SELECT id, bookstore_id, reserved FROM inventory
+                WHERE id IN (:ids) AND bookstore_id IN (:bookstoreIds) AND reserved > 0
+            """)
+    Flux<ReservedCopies> findReserved(Collection<UUID> ids, Collection<Long> bookstoreIds);
+
+    // Row with nothing folded yet, its stock comes from the movements appended next
+    @Modifying
+    @Query("""
+                MERGE INTO inventory AS target
+                USING (VALUES (CAST(:id AS VARCHAR(36)), CAST(:bookstoreId AS BIGINT))) AS source (id, bookstore_id)
+                ON target.id = source.id AND target.bookstore_id = source.bookstore_id
+                WHEN NOT MATCHED THEN INSERT (id, bookstore_id, copies) VALUES (source.id, source.bookstore_id, 0)
+            """)
+    Mono<Integer> createIfMissing(UUID id, Long bookstoreId);
+
+    // Copies a removal may take, read under the row lock so concurrent removals cannot both pass; empty without a row
+    @Query("""
+                SELECT i.copies - i.reserved + COALESCE((SELECT SUM(m.quantity) FROM inventory_movements m
+                                                         WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                                           AND m.snapshot_seq IS NULL), 0)
+                FROM inventory i
+                WHERE i.id = :id AND i.bookstore_id = :bookstoreId
+                FOR UPDATE
+            """)
+    Mono<Integer> lockAvailable(UUID id, Long bookstoreId);
+
+    // Reservations: copies - reserved is what a hold may take, it never goes below zero through these statements
+    @Query("""
+                SELECT COALESCE((SELECT copies - reserved FROM inventory_stock
+                                 WHERE id = :id AND bookstore_id = :bookstoreId), 0)
+            """)
+    Mono<Integer> findAvailable(UUID id, Long bookstoreId);
+
+    @Modifying
+    @Query("""
+                UPDATE inventory i SET reserved = i.reserved + :quantity
+                WHERE i.id = :id AND i.bookstore_id = :bookstoreId
+                  AND i.copies - i.reserved + COALESCE((SELECT SUM(m.quantity) FROM inventory_movements m
+                                                        WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                                          AND m.snapshot_seq IS NULL), 0) >= :quantity
+            """)
+    Mono<Integer> reserve(UUID id, Long bookstoreId, int quantity);
+
+    @Modifying
+    @Query("""
+                UPDATE inventory SET reserved = reserved - :quantity
+                WHERE id = :id AND bookstore_id = :bookstoreId
+            """)
+    Mono<Integer> unreserve(UUID id, Long bookstoreId, int quantity);
+
+    // A confirmed hold leaves the shelf: the hold is dropped here, the sale movement appended with it takes the copies
+    @Modifying
+    @Query("""
+                UPDATE inventory i SET reserved = i.reserved - :quantity
+                WHERE i.id = :id AND i.bookstore_id = :bookstoreId
+                  AND i.copies + COALESCE((SELECT SUM(m.quantity) FROM inventory_movements m
+                                           WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                             AND m.snapshot_seq IS NULL), 0) >= :quantity
+            """)
+    Mono<Integer> sellReserved(UUID id, Long bookstoreId, int quantity);
+
+    // Cross-store aggregations, summed in the database
+    @Query("""
+                SELECT bookstore_id, SUM(copies) AS copies FROM inventory_stock
+                WHERE id IN (:ids)
+                GROUP BY bookstore_id
+            """)
+    Flux<BookstoreCopies> sumCopiesByBookstore(Collection<UUID> ids);
+
+    @Query("SELECT COALESCE(SUM(copies), 0) FROM inventory_stock")
+    Mono<Long> sumCopies();
 
 }
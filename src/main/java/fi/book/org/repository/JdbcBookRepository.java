@@ -0,0 +1,155 @@
+package fi.book.org.repository;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import fi.book.org.model.BookModel;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JDBC counterpart of {@link BookRepository} and the book reads of {@link ProjectionRepository} for the blocking
+ * execution mode. Same statements and filter precedence; an empty column list selects every column, columns left
+ * out of a projection are selected as NULL so one row mapper serves both.
+ */
+@Repository
+@Profile("blocking")
+@RequiredArgsConstructor
+public class JdbcBookRepository {
+
+    static final List<String> COLUMNS = List.of("id", "title", "author", "price", "bookstore_id", "version");
+
+    private final JdbcClient jdbcClient;
+
+    public Optional<BookModel> findById(UUID id, Collection<String> columns) {
+        return jdbcClient.sql("SELECT " + selectList(columns) + " FROM books WHERE id = :id")
+                .param("id", id.toString())
+                .query(JdbcBookRepository::toBook)
+                .optional();
+    }
+
+    public List<BookModel> findAllById(Collection<UUID> ids) {
+        return jdbcClient.sql("SELECT " + selectList(List.of()) + " FROM books WHERE id IN (:ids)")
+                .param("ids", ids.stream().map(UUID::toString).toList())
+                .query(JdbcBookRepository::toBook)
+                .list();
+    }
+
+    // Same precedence as BookService.getBooks: author/title filters win over the bookstore filter
+    public List<BookModel> findBooks(String author, String title, Long bookstoreId, Collection<String> columns,
+                                     Pageable pageable) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        List<String> conditions = new ArrayList<>();
+        if (StringUtils.isNotBlank(author)) {
+            conditions.add("UPPER(author) LIKE UPPER(:author)");
+            params.put("author", containing(author));
+        }
+        if (StringUtils.isNotBlank(title)) {
+            conditions.add("UPPER(title) LIKE UPPER(:title)");
+            params.put("title", containing(title));
+        }
+        if (conditions.isEmpty() && bookstoreId != null) {
+            conditions.add("bookstore_id = :bookstoreId");
+            params.put("bookstoreId", bookstoreId);
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        return jdbcClient.sql("SELECT " + selectList(columns) + " FROM books" + where + " LIMIT :limit OFFSET :offset")
+                .params(params)
+                .param("limit", pageable.getPageSize())
+                .param("offset", pageable.getOffset())
+                .query(JdbcBookRepository::toBook)
+                .list();
+    }
+
+    public boolean existsById(UUID id) {
+        return jdbcClient.sql("SELECT COUNT(*) FROM books WHERE id = :id")
+                .param("id", id.toString())
+                .query(Long.class)
+                .single() > 0;
+    }
+
+    public void insert(BookModel book) {
+        jdbcClient.sql("""
+                        INSERT INTO books (id, title, author, price, bookstore_id)
+                        VALUES (:id, :title, :author, :price, :bookstoreId)
+                        """)
+                .param("id", book.getId().toString())
+                .param("title", book.getTitle())
+                .param("author", book.getAuthor())
+                .param("price", book.getPrice())
+                .param("bookstoreId", book.getBookstoreId())
+                .update();
+    }
+
+    public int updateBook(UUID id, String title, String author, BigDecimal price, Long bookstoreId) {
+        return jdbcClient.sql("""
+                        UPDATE books
+                        SET title = :title, author = :author, price = :price, bookstore_id = :bookstoreId, version = version + 1
+                        WHERE id = :id
+                        """)
+                .param("id", id.toString())
+                .param("title", title)
+                .param("author", author)
+                .param("price", price)
+                .param("bookstoreId", bookstoreId)
+                .update();
+    }
+
+    public int updateBookIfVersion(UUID id, String title, String author, BigDecimal price, Long bookstoreId, Long version) {
+        return jdbcClient.sql("""
+                        UPDATE books
+                        SET title = :title, author = :author, price = :price, bookstore_id = :bookstoreId, version = version + 1
+                        WHERE id = :id AND version = :version
+                        """)
+                .param("id", id.toString())
+                .param("title", title)
+                .param("author", author)
+                .param("price", price)
+                .param("bookstoreId", bookstoreId)
+                .param("version", version)
+                .update();
+    }
+
+    public int deleteById(UUID id) {
+        return jdbcClient.sql("DELETE FROM books WHERE id = :id")
+                .param("id", id.toString())
+                .update();
+    }
+
+    private static String selectList(Collection<String> columns) {
+        // Names come from FieldProjection, which only lets the whitelisted fields through
+        return COLUMNS.stream()
+                .map(column -> columns.isEmpty() || columns.contains(column) ? column : "NULL AS " + column)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String containing(String value) {
+        return "%" + Escaper.DEFAULT.escape(value) + "%";
+    }
+
+    private static BookModel toBook(ResultSet rs, int row) throws SQLException {
+        return BookModel.builder()
+                .id(UUID.fromString(rs.getString("id")))
+                .title(rs.getString("title"))
+                .author(rs.getString("author"))
+                .price(rs.getBigDecimal("price"))
+                .bookstoreId(rs.getObject("bookstore_id", Long.class))
+                .version(rs.getObject("version", Long.class))
+                .build();
+    }
+}
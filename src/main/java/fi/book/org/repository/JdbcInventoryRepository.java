@@ -0,0 +1,236 @@
+package fi.book.org.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import fi.book.org.dto.InventoryUpdateDto;
+import fi.book.org.model.BookstoreCopies;
+import fi.book.org.model.Inventory;
+import fi.book.org.model.ReservedCopies;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * JDBC counterpart of {@link InventoryRepository}, the inventory reads of {@link ProjectionRepository} and the
+ * bookstore lookups for the blocking execution mode. Aggregations are single statements, like the ones
+ * {@link InventoryRepository} runs on the event loop.
+ */
+@Repository
+@Profile("blocking")
+@RequiredArgsConstructor
+public class JdbcInventoryRepository {
+
+    static final List<String> COLUMNS = List.of("id", "copies", "bookstore_id", "version");
+
+    private static final String LOCK_OR_CREATE = """
+                MERGE INTO inventory AS target
+                USING (VALUES (CAST(? AS VARCHAR(36)), CAST(? AS BIGINT))) AS source (id, bookstore_id)
+                ON target.id = source.id AND target.bookstore_id = source.bookstore_id
+                WHEN MATCHED THEN UPDATE SET version = target.version
+                WHEN NOT MATCHED THEN INSERT (id, bookstore_id, copies) VALUES (source.id, source.bookstore_id, 0)
+            """;
+
+    private static final String APPEND_ADJUSTMENT = """
+                INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity)
+                SELECT id, bookstore_id, 'ADJUSTMENT', CAST(? AS INTEGER) - copies
+                FROM inventory_stock
+                WHERE id = ? AND bookstore_id = ? AND copies <> ?
+            """;
+
+    private final JdbcClient jdbcClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Inventory> findById(UUID id, Collection<String> columns) {
+        // Names come from FieldProjection, which only lets the whitelisted fields through
+        String selectList = COLUMNS.stream()
+                .map(column -> columns.isEmpty() || columns.contains(column) ? column : "NULL AS " + column)
+                .collect(Collectors.joining(", "));
+        return jdbcClient.sql("SELECT " + selectList + " FROM inventory_stock WHERE id = :id")
+                .param("id", id.toString())
+                .query(JdbcInventoryRepository::toInventory)
+                .list();
+    }
+
+    public List<Inventory> findByIdIn(Collection<UUID> ids) {
+        return jdbcClient.sql("SELECT id, copies, bookstore_id, version FROM inventory_stock WHERE id IN (:ids)")
+                .param("ids", ids.stream().map(UUID::toString).toList())
+                .query(JdbcInventoryRepository::toInventory)
+                .list();
+    }
+
+    public boolean existsByIdAndBookstoreId(UUID id, Long bookstoreId) {
+        return jdbcClient.sql("SELECT COUNT(*) FROM inventory WHERE id = :id AND bookstore_id = :bookstoreId")
+                .param("id", id.toString())
+                .param("bookstoreId", bookstoreId)
+                .query(Long.class)
+                .single() > 0;
+    }
+
+    /**
+     * Same statement as {@link InventoryRepository#createIfMissing}.
+     */
+    public int createIfMissing(UUID id, Long bookstoreId) {
+        return jdbcClient.sql("""
+                        MERGE INTO inventory AS target
+                        USING (VALUES (CAST(:id AS VARCHAR(36)), CAST(:bookstoreId AS BIGINT))) AS source (id, bookstore_id)
+                        ON target.id = source.id AND target.bookstore_id = source.bookstore_id
+                        WHEN NOT MATCHED THEN INSERT (id, bookstore_id, copies) VALUES (source.id, source.bookstore_id, 0)
+                        """)
+                .param("id", id.toString())
+                .param("bookstoreId", bookstoreId)
+                .update();
+    }
+
+    /**
+     * Same statement as {@link InventoryRepository#findReserved}.
+     */
+    public List<ReservedCopies> findReserved(Collection<UUID> ids, Collection<Long> bookstoreIds) {
+        return jdbcClient.sql("""
+                        SELECT id, bookstore_id, reserved FROM inventory
+                        WHERE id IN (:ids) AND bookstore_id IN (:bookstoreIds) AND reserved > 0
+                        """)
+                .param("ids", ids.stream().map(UUID::toString).toList())
+                .param("bookstoreIds", bookstoreIds)
+                .query((rs, row) -> new ReservedCopies(UUID.fromString(rs.getString("id")), rs.getLong("bookstore_id"), rs.getInt("reserved")))
+                .list();
+    }
+
+    public int lockRow(UUID id, Long bookstoreId) {
+        return jdbcClient.sql("""
+                        UPDATE inventory SET version = version
+                        WHERE id = :id AND bookstore_id = :bookstoreId
+                        """)
+                .param("id", id.toString())
+                .param("bookstoreId", bookstoreId)
+                .update();
+    }
+
+    public int lockRowIfVersion(UUID id, Long bookstoreId, Long version) {
+        return jdbcClient.sql("""
+                        UPDATE inventory i SET version = i.version
+                        WHERE i.id = :id AND i.bookstore_id = :bookstoreId
+                          AND i.version + (SELECT COUNT(*) FROM inventory_movements m
+                                           WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                             AND m.snapshot_seq IS NULL) = :version
+                        """)
+                .param("id", id.toString())
+                .param("bookstoreId", bookstoreId)
+                .param("version", version)
+                .update();
+    }
+
+    /**
+     * One JDBC batch per call, see {@link InventoryBulkRepository#lockOrCreate}.
+     */
+    public int lockOrCreate(List<InventoryUpdateDto> updates) {
+        int[][] counts = jdbcTemplate.batchUpdate(LOCK_OR_CREATE, updates, updates.size(), (statement, update) -> {
+            statement.setString(1, update.getIsbn().toString());
+            statement.setLong(2, update.getBookstoreId());
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).sum();
+    }
+
+    /**
+     * One JDBC batch per call, see {@link InventoryBulkRepository#appendAdjustments}.
+     */
+    public int appendAdjustments(List<InventoryUpdateDto> updates) {
+        int[][] counts = jdbcTemplate.batchUpdate(APPEND_ADJUSTMENT, updates, updates.size(), (statement, update) -> {
+            statement.setInt(1, update.getCopies());
+            statement.setString(2, update.getIsbn().toString());
+            statement.setLong(3, update.getBookstoreId());
+            statement.setInt(4, update.getCopies());
+        });
+        return Arrays.stream(counts).flatMapToInt(Arrays::stream).sum();
+    }
+
+    /**
+     * Same statement as {@link InventoryMovementRepository#appendAdjustment}.
+     */
+    public int appendAdjustment(UUID id, Long bookstoreId, int copies) {
+        return jdbcClient.sql("""
+                        INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity)
+                        SELECT id, bookstore_id, 'ADJUSTMENT', CAST(:copies AS INTEGER) - copies
+                        FROM inventory_stock
+                        WHERE id = :isbn AND bookstore_id = :bookstoreId AND copies <> :copies
+                        """)
+                .param("isbn", id.toString())
+                .param("bookstoreId", bookstoreId)
+                .param("copies", copies)
+                .update();
+    }
+
+    /**
+     * Same statement as {@link InventoryMovementRepository#appendToAllRows}.
+     */
+    public int appendToAllRows(UUID isbn, String movementType, int quantity) {
+        return jdbcClient.sql("""
+                        INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity)
+                        SELECT id, bookstore_id, :movementType, :quantity FROM inventory WHERE id = :isbn
+                        """)
+                .param("isbn", isbn.toString())
+                .param("movementType", movementType)
+                .param("quantity", quantity)
+                .update();
+    }
+
+    public void appendMovement(UUID isbn, Long bookstoreId, String movementType, int quantity) {
+        jdbcClient.sql("""
+                        INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity)
+                        VALUES (:isbn, :bookstoreId, :movementType, :quantity)
+                        """)
+                .param("isbn", isbn.toString())
+                .param("bookstoreId", bookstoreId)
+                .param("movementType", movementType)
+                .param("quantity", quantity)
+                .update();
+    }
+
+    public List<BookstoreCopies> sumCopiesByBookstore(Collection<UUID> ids) {
+        return jdbcClient.sql("""
+                        SELECT bookstore_id, SUM(copies) AS copies FROM inventory_stock
+                        WHERE id IN (:ids)
+                        GROUP BY bookstore_id
+                        """)
+                .param("ids", ids.stream().map(UUID::toString).toList())
+                .query((rs, row) -> new BookstoreCopies(rs.getLong("bookstore_id"), rs.getLong("copies")))
+                .list();
+    }
+
+    public long sumCopies() {
+        return jdbcClient.sql("SELECT COALESCE(SUM(copies), 0) FROM inventory_stock")
+                .query(Long.class)
+                .single();
+    }
+
+    public Set<Long> findBookstoreIds() {
+        return new HashSet<>(jdbcClient.sql("SELECT id FROM bookstore").query(Long.class).list());
+    }
+
+    public boolean bookstoreExists(Long bookstoreId) {
+        return jdbcClient.sql("SELECT COUNT(*) FROM bookstore WHERE id = :id")
+                .param("id", bookstoreId)
+                .query(Long.class)
+                .single() > 0;
+    }
+
+    private static Inventory toInventory(ResultSet rs, int row) throws SQLException {
+        return Inventory.builder()
+                .id(UUID.fromString(rs.getString("id")))
+                .copies(rs.getInt("copies"))
+                .bookstoreId(rs.getObject("bookstore_id", Long.class))
+                .version(rs.getObject("version", Long.class))
+                .isNew(false)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package fi.book.org.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+
+import fi.book.org.model.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Outbox inserts for the blocking execution mode, the relay keeps reading the table through
+ * {@link OutboxEventRepository}.
+ */
+@Repository
+@Profile("blocking")
+@RequiredArgsConstructor
+public class JdbcOutboxEventRepository {
+
+    private final JdbcClient jdbcClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(OutboxEvent event) {
+        jdbcClient.sql("""
+                        INSERT INTO outbox_events (aggregate_type, aggregate_id, bookstore_id, event_type, payload)
+                        VALUES (:aggregateType, :aggregateId, :bookstoreId, :eventType, :payload)
+                        """)
+                .param("aggregateType", event.getAggregateType())
+                .param("aggregateId", event.getAggregateId())
+                .param("bookstoreId", event.getBookstoreId())
+                .param("eventType", event.getEventType())
+                .param("payload", event.getPayload())
+                .update();
+    }
+
+    /**
+     * One JDBC batch per call, see {@link OutboxBulkRepository#insertAll}.
+     */
+    public void insertAll(List<OutboxEvent> events) {
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO outbox_events (aggregate_type, aggregate_id, bookstore_id, event_type, payload)
+                        VALUES (?, ?, ?, ?, ?)
+                        """, events, events.size(), (statement, event) -> {
+            statement.setString(1, event.getAggregateType());
+            statement.setString(2, event.getAggregateId());
+            statement.setObject(3, event.getBookstoreId(), Types.BIGINT);
+            statement.setString(4, event.getEventType());
+            statement.setString(5, event.getPayload());
+        });
+    }
+
+    /**
+     * Same statement as {@link OutboxEventRepository#insertForInventoryRows}.
+     */
+    public int insertForInventoryRows(String aggregateType, UUID isbn, String eventType, String payload) {
+        return jdbcClient.sql("""
+                        INSERT INTO outbox_events (aggregate_type, aggregate_id, bookstore_id, event_type, payload)
+                        SELECT :aggregateType, id, bookstore_id, :eventType, :payload FROM inventory WHERE id = :isbn
+                        """)
+                .param("aggregateType", aggregateType)
+                .param("isbn", isbn.toString())
+                .param("eventType", eventType)
+                .param("payload", payload)
+                .update();
+    }
+}
@@ -0,0 +1,16 @@
+package fi.book.org.repository;
+
+import java.util.List;
+
+import fi.book.org.model.OutboxEvent;
+import reactor.core.publisher.Mono;
+
+public interface OutboxBulkRepository {
+
+    /**
+     * Inserts the events with one batched statement, in list order.
+     *
+     * @return number of inserted rows
+     */
+    Mono<Integer> insertAll(List<OutboxEvent> events);
+}
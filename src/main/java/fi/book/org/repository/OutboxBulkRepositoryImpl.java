@@ -0,0 +1,56 @@
+package fi.book.org.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.List;
+
+import fi.book.org.model.OutboxEvent;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+class OutboxBulkRepositoryImpl implements OutboxBulkRepository {
+
+    private static final String INSERT_EVENT = """
+                INSERT INTO outbox_events (aggregate_type, aggregate_id, bookstore_id, event_type, payload)
+                VALUES ($1, $2, $3, $4, $5)
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    @Override
+    public Mono<Integer> insertAll(List<OutboxEvent> events) {
+        if (events.isEmpty()) {
+            return Mono.just(0);
+        }
+        // Runs on the transaction-bound connection, so the events commit with the change they describe
+        return databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(INSERT_EVENT);
+                    for (int i = 0; i < events.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        OutboxEvent event = events.get(i);
+                        statement.bind(0, event.getAggregateType())
+                                .bind(1, event.getAggregateId())
+                                .bind(3, event.getEventType());
+                        if (event.getBookstoreId() == null) {
+                            statement.bindNull(2, Long.class);
+                        } else {
+                            statement.bind(2, event.getBookstoreId());
+                        }
+                        if (event.getPayload() == null) {
+                            statement.bindNull(4, String.class);
+                        } else {
+                            statement.bind(4, event.getPayload());
+                        }
+                    }
+                    return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+                })
+                .reduce(0L, Long::sum)
+                .map(Long::intValue);
+    }
+}
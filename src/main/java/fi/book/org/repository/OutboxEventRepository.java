@@ -0,0 +1,37 @@
+package fi.book.org.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+import fi.book.org.model.OutboxEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface OutboxEventRepository extends ReactiveCrudRepository<OutboxEvent, Long>, OutboxBulkRepository {
+
+    @Query("SELECT * FROM outbox_events WHERE published_at IS NULL ORDER BY id LIMIT :limit")
+    Flux<OutboxEvent> findPending(int limit);
+
+    @Modifying
+    @Query("UPDATE outbox_events SET published_at = CURRENT_TIMESTAMP WHERE id IN (:ids)")
+    Mono<Integer> markPublished(Collection<Long> ids);
+
+    // One event per inventory row of the ISBN, for changes applied to all of them at once
+    @Modifying
+    @Query("""
+                INSERT INTO outbox_events (aggregate_type, aggregate_id, bookstore_id, event_type, payload)
+                SELECT :aggregateType, id, bookstore_id, :eventType, :payload FROM inventory WHERE id = :isbn
+            """)
+    Mono<Integer> insertForInventoryRows(String aggregateType, UUID isbn, String eventType, String payload);
+
+    @Modifying
+    @Query("DELETE FROM outbox_events WHERE published_at < :cutoff")
+    Mono<Integer> deletePublishedBefore(LocalDateTime cutoff);
+}
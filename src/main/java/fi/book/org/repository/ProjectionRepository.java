@@ -0,0 +1,70 @@
+package fi.book.org.repository;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+import fi.book.org.model.BookModel;
+import fi.book.org.model.Inventory;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+
+/**
+ * Reads that only select the requested columns. Columns left out of the select list stay unset on the
+ * returned entities, the filters mirror the derived queries in {@link BookRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProjectionRepository {
+
+    private final R2dbcEntityTemplate template;
+
+    public Flux<BookModel> findBooks(String author, String title, Long bookstoreId,
+                                     Collection<String> columns, Pageable pageable) {
+        return template.select(BookModel.class)
+                .matching(Query.query(bookCriteria(author, title, bookstoreId)).columns(columns).with(pageable))
+                .all();
+    }
+
+    public Mono<BookModel> findBookById(UUID id, Collection<String> columns) {
+        return template.select(BookModel.class)
+                .matching(Query.query(where("id").is(id)).columns(columns))
+                .one();
+    }
+
+    public Flux<Inventory> findInventoriesById(UUID id, Collection<String> columns) {
+        // Current stock, as in InventoryRepository
+        return template.select(Inventory.class)
+                .from("inventory_stock")
+                .matching(Query.query(where("id").is(id)).columns(columns))
+                .all();
+    }
+
+    // Same precedence as BookService.getBooks: author/title filters win over the bookstore filter
+    private static Criteria bookCriteria(String author, String title, Long bookstoreId) {
+        if (StringUtils.isNotBlank(author) && StringUtils.isNotBlank(title)) {
+            return containing("author", author).and(containing("title", title));
+        } else if (StringUtils.isNotBlank(author)) {
+            return containing("author", author);
+        } else if (StringUtils.isNotBlank(title)) {
+            return containing("title", title);
+        } else if (bookstoreId != null) {
+            return where("bookstore_id").is(bookstoreId);
+        }
+        return Criteria.empty();
+    }
+
+    private static Criteria containing(String column, String value) {
+        return where(column).like("%" + Escaper.DEFAULT.escape(value) + "%").ignoreCase(true);
+    }
+}
@@ -0,0 +1,44 @@
+package fi.book.org.repository;
+
+import org.aspectj.lang.annotation.Pointcut;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The repository calls the cross-cutting aspects (metrics, tracing, query origins, JFR events) advise, and who
+ * owns them. Referenced by name, so every aspect matches the same methods.
+ */
+public final class RepositoryMethods {
+    private static final String PACKAGE = "fi.book.org.repository";
+
+    private static final Map<Class<?>, Optional<Class<?>>> REPOSITORY_INTERFACES = new ConcurrentHashMap<>();
+
+    private RepositoryMethods() {
+    }
+
+    /**
+     * Public methods of the repositories, including the Spring Data base methods they inherit.
+     */
+    @Pointcut("execution(public * fi.book.org.repository..*+.*(..)) && !execution(* java.lang.Object.*(..))")
+    public void call() {
+    }
+
+    /**
+     * The repository interface of {@code type}, or the class declaring {@code method} for anything else.
+     */
+    public static Class<?> owner(Class<?> type, Method method) {
+        // Repository proxies only tell their interface apart from the shared Spring Data base methods
+        return REPOSITORY_INTERFACES.computeIfAbsent(type, proxy -> Arrays.stream(proxy.getInterfaces())
+                        .filter(candidate -> candidate.getPackageName().startsWith(PACKAGE))
+                        .findFirst())
+                .orElse(method.getDeclaringClass());
+    }
+
+    public static boolean isRepository(Class<?> owner) {
+        return owner.getPackageName().startsWith(PACKAGE);
+    }
+}
@@ -0,0 +1,50 @@
+package fi.book.org.repository;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import fi.book.org.model.StockReservation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Checkout holds. Every status change is conditional on the hold still being {@code HELD}, so of a confirm, a
+ * release and the expiry sweep racing on one hold exactly one wins and the copies are returned or sold once.
+ */
+@Repository
+public interface StockReservationRepository extends ReactiveCrudRepository<StockReservation, UUID> {
+
+    @Modifying
+    @Query("""
+                INSERT INTO stock_reservations (id, isbn, bookstore_id, quantity, owner, status, expires_at)
+                VALUES (:id, :isbn, :bookstoreId, :quantity, :owner, 'HELD', :expiresAt)
+            """)
+    Mono<Integer> insertHeld(UUID id, UUID isbn, Long bookstoreId, int quantity, String owner, LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("""
+                UPDATE stock_reservations SET status = 'CONFIRMED'
+                WHERE id = :id AND status = 'HELD' AND expires_at > :now
+            """)
+    Mono<Integer> confirm(UUID id, LocalDateTime now);
+
+    // RELEASED or EXPIRED
+    @Modifying
+    @Query("""
+                UPDATE stock_reservations SET status = :status
+                WHERE id = :id AND status = 'HELD'
+            """)
+    Mono<Integer> close(UUID id, String status);
+
+    @Query("""
+                SELECT * FROM stock_reservations
+                WHERE status = 'HELD' AND expires_at <= :now
+                ORDER BY expires_at LIMIT :limit
+            """)
+    Flux<StockReservation> findExpired(LocalDateTime now, int limit);
+}
@@ -0,0 +1,34 @@
+package fi.book.org.reservation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import fi.book.org.services.StockReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Returns the copies of holds that were neither confirmed nor released before their deadline. Until the sweep
+ * reaches it, an expired hold still counts as reserved but can no longer be confirmed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reservation.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class ReservationExpirer {
+    private final StockReservationService reservationService;
+
+    @Scheduled(fixedDelayString = "${reservation.expiry.interval-ms:5000}")
+    public void expire() {
+        try {
+            Long expired = reservationService.expireDue().block();
+            if (expired != null && expired > 0) {
+                log.debug("Expired {} stock reservations", expired);
+            }
+        } catch (RuntimeException e) {
+            // The holds stay HELD and past their deadline, the next run picks them up again
+            log.warn("Stock reservation expiry failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package fi.book.org.reservation;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "reservation")
+public class ReservationProperties {
+    // How long an unconfirmed hold keeps its copies when the request does not ask for less
+    private Duration ttl = Duration.ofMinutes(10);
+    private Duration maxTtl = Duration.ofMinutes(30);
+    // Counter stripes per inventory row, 0 for one per available processor
+    private int stripes = 0;
+    private long maxCounters = 10_000;
+    // Counters are reloaded from the database this long after loading, which is how restocks reach them
+    private Duration counterRefresh = Duration.ofSeconds(2);
+    private final Expiry expiry = new Expiry();
+
+    public int stripeCount() {
+        return stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Data
+    public static class Expiry {
+        private boolean enabled = true;
+        // Holds expired per pass; a pass repeats while it comes back full
+        private int batchSize = 500;
+    }
+}
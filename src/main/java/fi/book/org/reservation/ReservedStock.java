@@ -0,0 +1,50 @@
+package fi.book.org.reservation;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.dto.InventoryUpdateDto;
+import fi.book.org.model.ReservedCopies;
+
+/**
+ * Absolute copy counts against the copies held by reservations: a write may not set a row below its holds, or
+ * their confirmation would sell copies that are gone. Checked with the rows locked by the write, so no hold can
+ * be taken between the check and the commit.
+ */
+public final class ReservedStock {
+
+    private ReservedStock() {
+    }
+
+    /**
+     * The last of {@code updates} for each row, in order of first appearance; the earlier ones never land.
+     */
+    public static List<InventoryUpdateDto> latestPerRow(Collection<InventoryUpdateDto> updates) {
+        Map<Map.Entry<UUID, Long>, InventoryUpdateDto> latest = new LinkedHashMap<>();
+        updates.forEach(update -> latest.put(Map.entry(update.getIsbn(), update.getBookstoreId()), update));
+        return List.copyOf(latest.values());
+    }
+
+    /**
+     * The {@code updates} that would set their row below the copies its reservations hold.
+     */
+    public static List<InventoryUpdateDto> below(Collection<InventoryUpdateDto> updates, Collection<ReservedCopies> reserved) {
+        Map<Map.Entry<UUID, Long>, Integer> held = new HashMap<>();
+        reserved.forEach(row -> held.put(Map.entry(row.id(), row.bookstoreId()), row.reserved()));
+        return updates.stream()
+                .filter(update -> update.getCopies() < held.getOrDefault(Map.entry(update.getIsbn(), update.getBookstoreId()), 0))
+                .toList();
+    }
+
+    public static List<UUID> isbns(Collection<InventoryUpdateDto> updates) {
+        return updates.stream().map(InventoryUpdateDto::getIsbn).distinct().toList();
+    }
+
+    public static List<Long> bookstoreIds(Collection<InventoryUpdateDto> updates) {
+        return updates.stream().map(InventoryUpdateDto::getBookstoreId).distinct().toList();
+    }
+}
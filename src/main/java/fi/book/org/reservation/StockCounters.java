@@ -0,0 +1,62 @@
+package fi.book.org.reservation;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import fi.book.org.repository.InventoryRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * One {@link StripedStock} per inventory row with reservations, loaded from {@code copies - reserved} on first
+ * use and reloaded every {@code reservation.counter-refresh}. The counters only gate which requests reach the
+ * database: a sold-out row is answered from memory, while the conditional update in the database keeps the final
+ * say, also against other instances and writes the counters do not see. Concurrent loads of one row share a query.
+ */
+@Component
+public class StockCounters {
+    private final InventoryRepository inventoryRepository;
+    private final int stripes;
+    private final AsyncCache<StockKey, StripedStock> counters;
+
+    public StockCounters(InventoryRepository inventoryRepository, ReservationProperties properties) {
+        this.inventoryRepository = inventoryRepository;
+        this.stripes = properties.stripeCount();
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxCounters())
+                .expireAfterWrite(properties.getCounterRefresh())
+                .buildAsync();
+    }
+
+    public Mono<StripedStock> counter(UUID isbn, Long bookstoreId) {
+        return Mono.fromFuture(() -> counters.get(new StockKey(isbn, bookstoreId), (key, executor) ->
+                inventoryRepository.findAvailable(isbn, bookstoreId)
+                        .map(available -> new StripedStock(stripes, Math.max(available, 0)))
+                        .toFuture()));
+    }
+
+    /**
+     * Returns released copies to the row's counter, when one is loaded; a counter loaded later reads them from
+     * the database.
+     */
+    public void release(UUID isbn, Long bookstoreId, int quantity) {
+        CompletableFuture<StripedStock> counter = counters.getIfPresent(new StockKey(isbn, bookstoreId));
+        if (counter != null && counter.isDone() && !counter.isCompletedExceptionally()) {
+            counter.join().release(quantity);
+        }
+    }
+
+    /**
+     * Drops the row's counter after the database refused what it admitted, or after an outcome it cannot know.
+     */
+    public void invalidate(UUID isbn, Long bookstoreId) {
+        counters.synchronous().invalidate(new StockKey(isbn, bookstoreId));
+    }
+
+    private record StockKey(UUID isbn, Long bookstoreId) {
+    }
+}
@@ -0,0 +1,98 @@
+package fi.book.org.reservation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Copies of one inventory row that can still be reserved, spread over stripes so concurrent buyers of the same
+ * book mostly compare-and-set different cache lines. A buyer takes from the stripe its thread maps to, then from
+ * the others; only when no single stripe covers the request are the stripes pooled, under a lock. No stripe ever
+ * goes below zero, so the counter admits at most the copies it started with plus the ones released since.
+ */
+public final class StripedStock {
+    // Stripes sit this many longs apart, so no two share a cache line; the first one is offset as well
+    private static final int SPACING = 16;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+    private final StampedLock pooling = new StampedLock();
+
+    public StripedStock(int stripes, long available) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("A stock counter needs at least one stripe, got " + stripes);
+        }
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray((stripes + 1) * SPACING);
+        spread(available);
+    }
+
+    public boolean tryAcquire(int quantity) {
+        int home = home();
+        for (int i = 0; i < stripes; i++) {
+            if (take(cell((home + i) % stripes), quantity)) {
+                return true;
+            }
+        }
+        return pool(quantity);
+    }
+
+    public void release(int quantity) {
+        cells.getAndAdd(cell(home()), quantity);
+    }
+
+    public long available() {
+        long available = 0;
+        for (int i = 0; i < stripes; i++) {
+            available += cells.get(cell(i));
+        }
+        return available;
+    }
+
+    private boolean take(int cell, int quantity) {
+        long current;
+        while ((current = cells.get(cell)) >= quantity) {
+            if (cells.compareAndSet(cell, current, current - quantity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean pool(int quantity) {
+        // Sold out is the common case here: answered from a lock-free read unless a pooling is moving copies around
+        long stamp = pooling.tryOptimisticRead();
+        if (available() < quantity && pooling.validate(stamp)) {
+            return false;
+        }
+        stamp = pooling.writeLock();
+        try {
+            long total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.getAndSet(cell(i), 0);
+            }
+            boolean taken = total >= quantity;
+            spread(taken ? total - quantity : total);
+            return taken;
+        } finally {
+            pooling.unlockWrite(stamp);
+        }
+    }
+
+    // Adds rather than sets, releases may land on stripes already drained by a running pooling
+    private void spread(long copies) {
+        long share = copies / stripes;
+        long remainder = copies % stripes;
+        for (int i = 0; i < stripes; i++) {
+            cells.getAndAdd(cell(i), share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private int home() {
+        long mixed = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return (int) Long.remainderUnsigned(mixed >>> 16, stripes);
+    }
+
+    private static int cell(int stripe) {
+        return (stripe + 1) * SPACING;
+    }
+}
@@ -0,0 +1,189 @@
+package fi.book.org.services;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import fi.book.org.api.ApiResponsePage;
+import fi.book.org.api.FieldProjection;
+import fi.book.org.dto.BookDto;
+import fi.book.org.dto.InventoryDto;
+import fi.book.org.exception.BookCreateException;
+import fi.book.org.exception.BookNotFoundException;
+import fi.book.org.exception.VersionConflictException;
+import fi.book.org.model.BookModel;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.repository.JdbcBookRepository;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import static fi.book.org.config.TransactionConfig.JDBC_TRANSACTION_MANAGER;
+import static fi.book.org.services.BookService.BATCH_QUERY_CHUNK_SIZE;
+
+/**
+ * {@link BookService} for the blocking execution mode, on JDBC and called from virtual threads. Cache names and
+ * keys are the reactive ones, so both hold the same {@link BookDto} entries.
+ */
+@Slf4j
+@Service
+@Profile("blocking")
+@RequiredArgsConstructor
+@CacheConfig(cacheNames = "bookCache")
+public class BlockingBookService {
+
+    private final JdbcBookRepository bookRepository;
+    private final BlockingInventoryService inventoryService;
+    private final BlockingOutboxService outboxService;
+    private final CacheManager cacheManager;
+
+    @Transactional(transactionManager = JDBC_TRANSACTION_MANAGER)
+    public UUID createBook(BookDto bookDto) {
+        BookModel bookModel = toBookModel(bookDto);
+        try {
+            bookRepository.insert(bookModel);
+            inventoryService.updateOrCreateInventory(bookModel);
+            outboxService.record(OutboxEventType.BOOK_CREATED, bookModel.getId(), bookModel.getBookstoreId(),
+                    toBookDto(bookModel));
+            return bookModel.getId();
+        } catch (RuntimeException e) {
+            log.error("Error creating book with ISBN {}: {}", bookDto.getId(), e.getMessage(), e);
+            throw new BookCreateException("ISBN", bookDto.getId().toString());
+        }
+    }
+
+    @Transactional(transactionManager = JDBC_TRANSACTION_MANAGER)
+    @CacheEvict(key = "{#id}")
+    public void deleteBookWithIsbn(@NonNull UUID id) {
+        try {
+            // Deleting an unknown book stays a no-op, and raises no event
+            if (bookRepository.deleteById(id) > 0) {
+                outboxService.record(OutboxEventType.BOOK_DELETED, id, null, null);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error deleting book with ISBN {}: {}", id, e.getMessage(), e);
+            throw new BookNotFoundException("ISBN", id.toString());
+        }
+    }
+
+    @Cacheable(key = "{#id}")
+    public BookDto getBookByIsbn(@NonNull UUID id) {
+        return bookRepository.findById(id, FieldProjection.ALL.fields())
+                .map(this::toBookDto)
+                .orElseThrow(() -> new BookNotFoundException("ISBN", id.toString()));
+    }
+
+    public BookDto getBookByIsbn(@NonNull UUID id, FieldProjection projection) {
+        return bookRepository.findById(id, projection.fields())
+                .map(this::toBookDto)
+                .orElseThrow(() -> new BookNotFoundException("ISBN", id.toString()));
+    }
+
+    /**
+     * Same contract as {@link BookService#getBooksByIsbns(List, boolean)}: cache hits first, misses loaded in
+     * chunks and cached, results in request order without the unknown ISBNs.
+     */
+    public List<BookDto> getBooksByIsbns(List<UUID> isbns, boolean includeInventory) {
+        List<UUID> distinctIsbns = isbns.stream().distinct().toList();
+        Cache bookCache = cacheManager.getCache("bookCache");
+        Map<UUID, BookDto> books = new HashMap<>();
+        for (UUID id : distinctIsbns) {
+            // Same key shape as @Cacheable(key = "{#id}") on getBookByIsbn
+            BookDto cached = bookCache.get(List.of(id), BookDto.class);
+            if (cached != null) {
+                books.put(id, cached);
+            }
+        }
+        List<UUID> misses = distinctIsbns.stream().filter(id -> !books.containsKey(id)).toList();
+        for (int from = 0; from < misses.size(); from += BATCH_QUERY_CHUNK_SIZE) {
+            List<UUID> chunk = misses.subList(from, Math.min(from + BATCH_QUERY_CHUNK_SIZE, misses.size()));
+            for (BookModel bookModel : bookRepository.findAllById(chunk)) {
+                BookDto book = toBookDto(bookModel);
+                bookCache.put(List.of(book.getId()), book);
+                books.put(book.getId(), book);
+            }
+        }
+        if (includeInventory && !books.isEmpty()) {
+            // Cached instances are shared, so inventory goes onto copies
+            Map<UUID, Collection<InventoryDto>> inventories =
+                    inventoryService.getCopiesByIsbns(List.copyOf(books.keySet()), BATCH_QUERY_CHUNK_SIZE);
+            books.replaceAll((id, book) -> book.toBuilder()
+                    .inventory(List.copyOf(inventories.getOrDefault(id, List.of())))
+                    .build());
+        }
+        return isbns.stream().map(books::get).filter(Objects::nonNull).toList();
+    }
+
+    @Cacheable(key = "{#author, #title, #bookstoreId}")
+    public ApiResponsePage<BookDto> getBooks(String author, String title, Long bookstoreId, Pageable pageable) {
+        return toBookPage(bookRepository.findBooks(author, title, bookstoreId, FieldProjection.ALL.fields(), pageable), pageable);
+    }
+
+    @Cacheable(key = "{#author, #title, #bookstoreId, #pageable, #projection}")
+    public ApiResponsePage<BookDto> getBooks(String author, String title, Long bookstoreId, Pageable pageable,
+                                             FieldProjection projection) {
+        return toBookPage(bookRepository.findBooks(author, title, bookstoreId, projection.fields(), pageable), pageable);
+    }
+
+    private ApiResponsePage<BookDto> toBookPage(List<BookModel> bookModels, Pageable pageable) {
+        List<BookDto> books = bookModels.stream().map(this::toBookDto).toList();
+        long totalBooks = books.size();
+        int totalPages = (int) Math.ceil((double) totalBooks / pageable.getPageSize());
+        return new ApiResponsePage<>(HttpStatus.OK.value(), HttpStatus.OK.getReasonPhrase(), books, totalBooks, totalPages, pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    @Transactional(transactionManager = JDBC_TRANSACTION_MANAGER)
+    @CacheEvict(allEntries = true)
+    public UUID updateBook(BookDto bookDto) {
+        BookModel bookModel = toBookModel(bookDto);
+        int rows = bookModel.getVersion() == null
+                ? bookRepository.updateBook(bookModel.getId(), bookModel.getTitle(), bookModel.getAuthor(),
+                bookModel.getPrice(), bookModel.getBookstoreId())
+                : bookRepository.updateBookIfVersion(bookModel.getId(), bookModel.getTitle(), bookModel.getAuthor(),
+                bookModel.getPrice(), bookModel.getBookstoreId(), bookModel.getVersion());
+        if (rows == 0) {
+            // Only reached when the update matched nothing, so the happy path stays a single statement
+            throw bookModel.getVersion() != null && bookRepository.existsById(bookModel.getId())
+                    ? new VersionConflictException("ISBN", bookModel.getId().toString())
+                    : new BookNotFoundException("ISBN", bookModel.getId().toString());
+        }
+        outboxService.record(OutboxEventType.BOOK_UPDATED, bookModel.getId(), bookModel.getBookstoreId(), bookDto);
+        return bookModel.getId();
+    }
+
+    private BookModel toBookModel(BookDto bookDto) {
+        return BookModel.builder()
+                .id(bookDto.getId())
+                .author(bookDto.getAuthor())
+                .title(bookDto.getTitle())
+                .price(bookDto.getPrice())
+                .bookstoreId(bookDto.getBookstore_id())
+                .version(bookDto.getVersion())
+                .build();
+    }
+
+    private BookDto toBookDto(BookModel bookModel) {
+        return BookDto.builder()
+                .id(bookModel.getId())
+                .author(bookModel.getAuthor())
+                .title(bookModel.getTitle())
+                .price(bookModel.getPrice())
+                .bookstore_id(bookModel.getBookstoreId())
+                .version(bookModel.getVersion())
+                .build();
+    }
+}
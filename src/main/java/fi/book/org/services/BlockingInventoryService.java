@@ -0,0 +1,206 @@
+package fi.book.org.services;
+
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import fi.book.org.api.FieldProjection;
+import fi.book.org.dto.InventoryDto;
+import fi.book.org.dto.InventoryGlobalDto;
+import fi.book.org.dto.InventoryUpdateDto;
+import fi.book.org.exception.BookstoreNotFoundException;
+import fi.book.org.exception.InventoryNotFoundException;
+import fi.book.org.exception.StockHeldException;
+import fi.book.org.exception.VersionConflictException;
+import fi.book.org.model.BookModel;
+import fi.book.org.model.Inventory;
+import fi.book.org.model.MovementType;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.repository.JdbcBookRepository;
+import fi.book.org.repository.JdbcInventoryRepository;
+import fi.book.org.reservation.ReservedStock;
+import lombok.RequiredArgsConstructor;
+
+import static fi.book.org.config.TransactionConfig.JDBC_TRANSACTION_MANAGER;
+import static fi.book.org.services.InventoryService.BULK_STATEMENT_BATCH_SIZE;
+
+/**
+ * {@link InventoryService} for the blocking execution mode, on JDBC and called from virtual threads. Cache names,
+ * keys and evictions are the reactive ones.
+ */
+@Service
+@Profile("blocking")
+@RequiredArgsConstructor
+@CacheConfig(cacheNames = "inventoryCache")
+public class BlockingInventoryService {
+    private final JdbcBookRepository bookRepository;
+    private final JdbcInventoryRepository inventoryRepository;
+    private final BlockingOutboxService outboxService;
+
+    private static final List<String> BOOK_ID_COLUMN = List.of("id");
+    private static final Map<String, Object> NEW_COPY = Map.of("movement", MovementType.RECEIPT, "quantity", 1);
+
+    @Cacheable(cacheNames = "copiesByAuthor", key = "{#author}")
+    public Map<String, Integer> getCopiesByAuthorBookstore(String author) {
+        return sumCopiesByBookstore(bookRepository.findBooks(author, null, null, BOOK_ID_COLUMN, Pageable.ofSize(20)));
+    }
+
+    @Cacheable(cacheNames = "copiesByTitle", key = "{#title}")
+    public Map<String, Integer> getCopiesByTitleBookstore(String title) {
+        return sumCopiesByBookstore(bookRepository.findBooks(null, title, null, BOOK_ID_COLUMN, Pageable.ofSize(20)));
+    }
+
+    private Map<String, Integer> sumCopiesByBookstore(List<BookModel> books) {
+        if (books.isEmpty()) {
+            return new HashMap<>();
+        }
+        return inventoryRepository.sumCopiesByBookstore(books.stream().map(BookModel::getId).toList()).stream()
+                .collect(Collectors.toMap(partial -> String.valueOf(partial.bookstoreId()),
+                        partial -> partial.copies().intValue()));
+    }
+
+    @Cacheable(cacheNames = "copiesByIsbn", key = "{#id}")
+    public List<InventoryDto> getCopiesByIsbn(UUID id) {
+        return loadCopies(id, FieldProjection.ALL.fields());
+    }
+
+    @Cacheable(cacheNames = "copiesByIsbn", key = "{#id, #projection}")
+    public List<InventoryDto> getCopiesByIsbn(UUID id, FieldProjection projection) {
+        return loadCopies(id, projection.fields());
+    }
+
+    private List<InventoryDto> loadCopies(UUID id, Collection<String> columns) {
+        List<InventoryDto> inventories = inventoryRepository.findById(id, columns).stream()
+                .map(this::toInventoryDto)
+                .toList();
+        if (inventories.isEmpty()) {
+            throw new InventoryNotFoundException("ISBN", id.toString());
+        }
+        return inventories;
+    }
+
+    public Map<UUID, Collection<InventoryDto>> getCopiesByIsbns(List<UUID> ids, int chunkSize) {
+        Map<UUID, Collection<InventoryDto>> inventories = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            for (Inventory inventory : inventoryRepository.findByIdIn(ids.subList(from, Math.min(from + chunkSize, ids.size())))) {
+                inventories.computeIfAbsent(inventory.getId(), id -> new ArrayList<>()).add(toInventoryDto(inventory));
+            }
+        }
+        return inventories;
+    }
+
+    @Transactional(transactionManager = JDBC_TRANSACTION_MANAGER)
+    @CacheEvict(cacheNames = {"copiesByIsbn", "copiesByTitle", "copiesByAuthor"}, allEntries = true)
+    public UUID updateInventory(UUID id, Integer copies, Long bookstoreId, Long version) {
+        if (version == null) {
+            // Unconditional write: nothing locked means there is no row yet for this bookstore
+            if (inventoryRepository.lockRow(id, bookstoreId) == 0) {
+                createNewInventory(id, bookstoreId);
+            }
+        } else if (inventoryRepository.lockRowIfVersion(id, bookstoreId, version) == 0) {
+            throw inventoryRepository.existsByIdAndBookstoreId(id, bookstoreId)
+                    ? new VersionConflictException("ISBN", id.toString())
+                    : new InventoryNotFoundException("ISBN", id.toString());
+        }
+        rejectBelowReserved(List.of(InventoryUpdateDto.builder().isbn(id).bookstoreId(bookstoreId).copies(copies).build()));
+        recordInventoryChange(id, bookstoreId, copies);
+        return id;
+    }
+
+    /**
+     * Same contract as {@link InventoryService#updateInventories(List)}: unknown bookstores reject the whole
+     * batch before anything is written.
+     */
+    @Transactional(transactionManager = JDBC_TRANSACTION_MANAGER)
+    @CacheEvict(cacheNames = {"copiesByIsbn", "copiesByTitle", "copiesByAuthor"}, allEntries = true)
+    public int updateInventories(List<InventoryUpdateDto> updates) {
+        Set<Long> bookstoreIds = inventoryRepository.findBookstoreIds();
+        Set<Long> unknown = updates.stream()
+                .map(InventoryUpdateDto::getBookstoreId)
+                .filter(bookstoreId -> !bookstoreIds.contains(bookstoreId))
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (!unknown.isEmpty()) {
+            throw new BookstoreNotFoundException("Bookstores with IDs " + unknown + " not found.");
+        }
+        int applied = 0;
+        for (int from = 0; from < updates.size(); from += BULK_STATEMENT_BATCH_SIZE) {
+            // Three JDBC batches per chunk: lock or create the rows, append their adjustments, record the events
+            List<InventoryUpdateDto> chunk = updates.subList(from, Math.min(from + BULK_STATEMENT_BATCH_SIZE, updates.size()));
+            applied += inventoryRepository.lockOrCreate(chunk);
+            inventoryRepository.appendAdjustments(chunk);
+            outboxService.recordInventoryUpdates(chunk);
+        }
+        rejectBelowReserved(updates);
+        return applied;
+    }
+
+    // The rows are locked by now, see ReservedStock
+    private void rejectBelowReserved(List<InventoryUpdateDto> updates) {
+        List<InventoryUpdateDto> latest = ReservedStock.latestPerRow(updates);
+        for (int from = 0; from < latest.size(); from += BULK_STATEMENT_BATCH_SIZE) {
+            List<InventoryUpdateDto> chunk = latest.subList(from, Math.min(from + BULK_STATEMENT_BATCH_SIZE, latest.size()));
+            List<InventoryUpdateDto> below = ReservedStock.below(chunk,
+                    inventoryRepository.findReserved(ReservedStock.isbns(chunk), ReservedStock.bookstoreIds(chunk)));
+            if (!below.isEmpty()) {
+                InventoryUpdateDto update = below.get(0);
+                throw new StockHeldException(update.getIsbn(), update.getBookstoreId(), update.getCopies());
+            }
+        }
+    }
+
+    public InventoryGlobalDto getTotalCopies() {
+        return InventoryGlobalDto.builder()
+                .total_copies(inventoryRepository.sumCopies())
+                .build();
+    }
+
+    /**
+     * Same contract as {@link InventoryService#updateOrCreateInventory(BookModel)}.
+     */
+    @Transactional(transactionManager = JDBC_TRANSACTION_MANAGER)
+    public void updateOrCreateInventory(BookModel bookModel) {
+        UUID id = bookModel.getId();
+        if (inventoryRepository.appendToAllRows(id, MovementType.RECEIPT.name(), 1) > 0) {
+            outboxService.recordForInventoryRows(OutboxEventType.INVENTORY_MOVED, id, NEW_COPY);
+            return;
+        }
+        inventoryRepository.createIfMissing(id, bookModel.getBookstoreId());
+        inventoryRepository.appendMovement(id, bookModel.getBookstoreId(), MovementType.RECEIPT.name(), 1);
+        outboxService.record(OutboxEventType.INVENTORY_MOVED, id, bookModel.getBookstoreId(), NEW_COPY);
+    }
+
+    private void createNewInventory(UUID id, Long bookstoreId) {
+        if (!inventoryRepository.bookstoreExists(bookstoreId)) {
+            throw new BookstoreNotFoundException("Bookstore with ID " + bookstoreId + " not found.");
+        }
+        inventoryRepository.createIfMissing(id, bookstoreId);
+    }
+
+    private void recordInventoryChange(UUID id, Long bookstoreId, Integer copies) {
+        outboxService.record(OutboxEventType.INVENTORY_UPDATED, id, bookstoreId, Map.of("copies", copies));
+        inventoryRepository.appendAdjustment(id, bookstoreId, copies);
+    }
+
+    private InventoryDto toInventoryDto(Inventory inventory) {
+        return InventoryDto.builder()
+                .id(inventory.getId())
+                .copies(inventory.getCopies())
+                .bookstoreId(inventory.getBookstoreId())
+                .version(inventory.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package fi.book.org.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.dto.InventoryUpdateDto;
+import fi.book.org.model.OutboxEvent;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.repository.JdbcOutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link OutboxService} for the blocking execution mode: same events, written on the caller's JDBC transaction.
+ */
+@Service
+@Profile("blocking")
+@RequiredArgsConstructor
+public class BlockingOutboxService {
+    private final OutboxService outboxService;
+    private final JdbcOutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public void record(OutboxEventType type, UUID aggregateId, Long bookstoreId, Object payload) {
+        try {
+            outboxEventRepository.insert(outboxService.toOutboxEvent(type, aggregateId, bookstoreId, payload));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same events as {@link OutboxService#recordInventoryUpdates}, as one JDBC batch.
+     */
+    public void recordInventoryUpdates(List<InventoryUpdateDto> updates) {
+        List<OutboxEvent> events = new ArrayList<>(updates.size());
+        try {
+            for (InventoryUpdateDto update : updates) {
+                events.add(outboxService.toOutboxEvent(OutboxEventType.INVENTORY_UPDATED, update.getIsbn(),
+                        update.getBookstoreId(), Map.of("copies", update.getCopies())));
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        outboxEventRepository.insertAll(events);
+    }
+
+    public void recordForInventoryRows(OutboxEventType type, UUID isbn, Object payload) {
+        try {
+            outboxEventRepository.insertForInventoryRows(type.getAggregateType(), isbn, type.name(), objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package fi.book.org.services;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import fi.book.org.api.ApiResponsePage;
+import fi.book.org.api.FieldProjection;
+import fi.book.org.deadline.Deadlines;
 import fi.book.org.dto.BookDto;
 import fi.book.org.exception.BookCreateException;
 import fi.book.org.exception.BookNotFoundException;
+import fi.book.org.exception.VersionConflictException;
 import fi.book.org.model.BookModel;
+import fi.book.org.model.OutboxEventType;
 import fi.book.org.repository.BookRepository;
+import fi.book.org.repository.ProjectionRepository;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,13 +44,26 @@ public class BookService {
 
     private final BookRepository bookRepository;
     private final InventoryService inventoryService;
+    private final OutboxService outboxService;
+    private final CacheManager cacheManager;
+    private final ProjectionRepository projectionRepository;
 
+    // Fields accepted by fields=, the ISBN is always selected
+    public static final Set<String> BOOK_FIELDS = Set.of("id", "title", "author", "price", "bookstore_id", "version");
+    public static final Set<String> BOOK_REQUIRED_FIELDS = Set.of("id");
 
+    // Upper bound for the ids bound into a single WHERE id IN (...) statement
+    static final int BATCH_QUERY_CHUNK_SIZE = 100;
+
+
+    @Transactional
     public Mono<UUID> createBook(BookDto bookDto) {
         BookModel bookModel = toBookModel(bookDto);
         bookModel.setNew(true);
         return bookRepository.save(bookModel)
                 .flatMap(savedBook -> inventoryService.updateOrCreateInventory(savedBook)
+                        .then(outboxService.record(OutboxEventType.BOOK_CREATED, savedBook.getId(),
+                                savedBook.getBookstoreId(), toBookDto(savedBook)))
                         .thenReturn(savedBook.getId()))
                 .onErrorResume(e -> {
                     log.error("Error creating book with ISBN {}: {}", bookDto.getId(), e.getMessage(), e);
@@ -44,9 +71,12 @@ public class BookService {
                 });
     }
 
+    @Transactional
     @CacheEvict(key = "{#id}")
     public Mono<Void> deleteBookWithIsbn(@NonNull UUID id) {
-        return bookRepository.deleteById(id)
+        // Deleting an unknown book stays a no-op, and raises no event
+        return bookRepository.deleteBook(id)
+                .flatMap(rows -> rows > 0 ? outboxService.record(OutboxEventType.BOOK_DELETED, id, null, null) : Mono.empty())
                 .onErrorResume(e -> {
                     log.error("Error deleting book with ISBN {}: {}", id, e.getMessage(), e);
                     return Mono.error(new BookNotFoundException("ISBN", id.toString()));
@@ -56,11 +86,67 @@ public class BookService {
 
     @Cacheable(key = "{#id}")
     public Mono<BookDto> getBookByIsbn(@NonNull UUID id) throws BookNotFoundException {
-        return bookRepository.findById(id)
+        return Deadlines.enforce(bookRepository.findById(id))
                 .map(this::toBookDto)
                 .switchIfEmpty(Mono.error(new BookNotFoundException("ISBN", id.toString())));
     }
 
+    /**
+     * Projected lookup: only the requested columns are selected, the rest stay unset on the returned book.
+     * Not cached, a primary key read of a few columns is cheaper than keeping a cache entry per field set.
+     */
+    public Mono<BookDto> getBookByIsbn(@NonNull UUID id, FieldProjection projection) {
+        return Deadlines.enforce(projectionRepository.findBookById(id, projection.fields()))
+                .map(this::toBookDto)
+                .switchIfEmpty(Mono.error(new BookNotFoundException("ISBN", id.toString())));
+    }
+
+    /**
+     * Looks up many books at once: hits come from {@code bookCache}, misses are loaded with chunked
+     * {@code WHERE id IN (...)} queries and cached. Results follow the request order, unknown ISBNs are skipped.
+     */
+    public Mono<List<BookDto>> getBooksByIsbns(List<UUID> isbns, boolean includeInventory) {
+        List<UUID> distinctIsbns = isbns.stream().distinct().toList();
+        Cache bookCache = cacheManager.getCache("bookCache");
+        return Deadlines.enforce(Flux.fromIterable(distinctIsbns)
+                .flatMap(id -> cachedBook(bookCache, id))
+                .collectMap(BookDto::getId)
+                .flatMap(hits -> loadMisses(bookCache, distinctIsbns, hits))
+                .flatMap(books -> includeInventory ? withInventory(books) : Mono.just(books))
+                .map(books -> isbns.stream().map(books::get).filter(Objects::nonNull).toList()));
+    }
+
+    private Mono<BookDto> cachedBook(Cache bookCache, UUID id) {
+        // Same key shape as @Cacheable(key = "{#id}") on getBookByIsbn
+        CompletableFuture<?> cached = bookCache.retrieve(List.of(id));
+        return cached == null ? Mono.empty() : Mono.fromFuture(cached).ofType(BookDto.class);
+    }
+
+    private Mono<Map<UUID, BookDto>> loadMisses(Cache bookCache, List<UUID> isbns, Map<UUID, BookDto> hits) {
+        List<UUID> misses = isbns.stream().filter(id -> !hits.containsKey(id)).toList();
+        if (misses.isEmpty()) {
+            return Mono.just(hits);
+        }
+        return Flux.fromIterable(misses)
+                .buffer(BATCH_QUERY_CHUNK_SIZE)
+                .concatMap(bookRepository::findAllById)
+                .map(this::toBookDto)
+                .doOnNext(book -> bookCache.put(List.of(book.getId()), book))
+                .collect(() -> new HashMap<>(hits), (books, book) -> books.put(book.getId(), book));
+    }
+
+    private Mono<Map<UUID, BookDto>> withInventory(Map<UUID, BookDto> books) {
+        // Cached instances are shared, so inventory goes onto copies
+        return inventoryService.getCopiesByIsbns(List.copyOf(books.keySet()), BATCH_QUERY_CHUNK_SIZE)
+                .map(inventories -> {
+                    Map<UUID, BookDto> joined = new HashMap<>();
+                    books.forEach((id, book) -> joined.put(id, book.toBuilder()
+                            .inventory(List.copyOf(inventories.getOrDefault(id, List.of())))
+                            .build()));
+                    return joined;
+                });
+    }
+
     @Cacheable(key = "{#author, #title, #bookstoreId}")
     public Mono<ApiResponsePage<BookDto>> getBooks(String author, String title, Long bookstoreId, Pageable pageable) {
         Flux<BookModel> booksFlux;
@@ -76,7 +162,22 @@ public class BookService {
         } else {
             booksFlux = bookRepository.findAllBy(pageable);
         }
-        return booksFlux.map(this::toBookDto)
+        return toBookPage(booksFlux, pageable);
+    }
+
+    /**
+     * Same filters as {@link #getBooks(String, String, Long, Pageable)}, but only the projected columns are read.
+     * Unselected columns map to null and are dropped from the payload by the non-empty inclusion rule.
+     */
+    @Cacheable(key = "{#author, #title, #bookstoreId, #pageable, #projection}")
+    public Mono<ApiResponsePage<BookDto>> getBooks(String author, String title, Long bookstoreId, Pageable pageable,
+                                                   FieldProjection projection) {
+        return toBookPage(projectionRepository.findBooks(author, title, bookstoreId, projection.fields(), pageable), pageable);
+    }
+
+    private Mono<ApiResponsePage<BookDto>> toBookPage(Flux<BookModel> booksFlux, Pageable pageable) {
+        return Deadlines.enforce(booksFlux)
+                .map(this::toBookDto)
                 .collectList()
                 .map(books -> {
                     long totalBooks = books.size();
@@ -85,15 +186,32 @@ public class BookService {
                 });
     }
 
+    @Transactional
     @CacheEvict(allEntries = true)
     public Mono<UUID> updateBook(BookDto bookDto) {
-        return bookRepository.findById(bookDto.getId())
-                .flatMap(existingBook -> {
-                    var bookModel = toBookModel(bookDto);
-                    bookModel.setNew(false);
-                    return bookRepository.save(bookModel).map(BookModel::getId);
-                })
-                .switchIfEmpty(Mono.error(new BookNotFoundException("ISBN", bookDto.getId().toString())));
+        BookModel bookModel = toBookModel(bookDto);
+        Mono<UUID> updated;
+        if (bookModel.getVersion() == null) {
+            updated = bookRepository.updateBook(bookModel.getId(), bookModel.getTitle(), bookModel.getAuthor(),
+                            bookModel.getPrice(), bookModel.getBookstoreId())
+                    .flatMap(rows -> rows > 0
+                            ? Mono.just(bookModel.getId())
+                            : Mono.error(new BookNotFoundException("ISBN", bookModel.getId().toString())));
+        } else {
+            updated = bookRepository.updateBookIfVersion(bookModel.getId(), bookModel.getTitle(), bookModel.getAuthor(),
+                            bookModel.getPrice(), bookModel.getBookstoreId(), bookModel.getVersion())
+                    .flatMap(rows -> rows > 0 ? Mono.just(bookModel.getId()) : bookMissingOrStale(bookModel.getId()));
+        }
+        return updated.flatMap(id -> outboxService.record(OutboxEventType.BOOK_UPDATED, id,
+                bookModel.getBookstoreId(), bookDto).thenReturn(id));
+    }
+
+    private Mono<UUID> bookMissingOrStale(UUID id) {
+        // Only reached when the conditional update matched nothing, so the happy path stays a single statement
+        return bookRepository.existsById(id)
+                .flatMap(exists -> Mono.error(exists
+                        ? new VersionConflictException("ISBN", id.toString())
+                        : new BookNotFoundException("ISBN", id.toString())));
     }
 
     public BookModel toBookModel(BookDto bookDto) {
@@ -103,6 +221,7 @@ public class BookService {
                 .title(bookDto.getTitle())
                 .price(bookDto.getPrice())
                 .bookstoreId(bookDto.getBookstore_id())
+                .version(bookDto.getVersion())
                 .build();
     }
 
@@ -113,6 +232,7 @@ public class BookService {
                 .title(bookModel.getTitle())
                 .price(bookModel.getPrice())
                 .bookstore_id(bookModel.getBookstoreId())
+                .version(bookModel.getVersion())
                 .build();
     }
 }
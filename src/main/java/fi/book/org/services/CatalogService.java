@@ -0,0 +1,91 @@
+package fi.book.org.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import fi.book.org.deadline.Deadlines;
+import fi.book.org.dto.CatalogEntryDto;
+import fi.book.org.exception.BookNotFoundException;
+import fi.book.org.model.BookModel;
+import fi.book.org.model.CatalogEntry;
+import fi.book.org.model.Inventory;
+import fi.book.org.repository.BookRepository;
+import fi.book.org.repository.CatalogReadModelRepository;
+import fi.book.org.repository.InventoryRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Query side of the catalog: a book with its stock per bookstore, read from {@code catalog_read_model} in one
+ * primary key lookup. Entries are rebuilt from the books and inventory tables by {@code CatalogProjector} after
+ * every change event, so they trail the write side by up to an outbox relay interval. A book without an entry yet
+ * (created before the read model existed, or within that interval) is built on first read.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogService {
+    private static final TypeReference<Map<Long, Integer>> COPIES_BY_STORE = new TypeReference<>() {
+    };
+
+    private final CatalogReadModelRepository catalogRepository;
+    private final BookRepository bookRepository;
+    private final InventoryRepository inventoryRepository;
+    private final ObjectMapper objectMapper;
+
+    public Mono<CatalogEntryDto> getCatalogEntry(UUID isbn) {
+        return Deadlines.enforce(catalogRepository.findById(isbn))
+                .switchIfEmpty(Mono.defer(() -> refresh(isbn).then(catalogRepository.findById(isbn))))
+                .map(this::toCatalogEntryDto)
+                .switchIfEmpty(Mono.error(new BookNotFoundException("ISBN", isbn.toString())));
+    }
+
+    /**
+     * Rebuilds the entry from the current book and inventory rows, or removes it once the book is gone. The result
+     * only depends on the source tables, so replayed or reordered events converge on the same entry.
+     */
+    public Mono<Void> refresh(UUID isbn) {
+        return bookRepository.findById(isbn)
+                .flatMap(book -> inventoryRepository.findInventoriesById(isbn)
+                        .collectList()
+                        .flatMap(rows -> upsert(book, rows)))
+                .switchIfEmpty(Mono.defer(() -> catalogRepository.deleteById(isbn).thenReturn(0)))
+                .then();
+    }
+
+    private Mono<Integer> upsert(BookModel book, List<Inventory> rows) {
+        Map<Long, Integer> copiesByStore = new TreeMap<>();
+        rows.forEach(row -> copiesByStore.merge(row.getBookstoreId(), row.getCopies(), Integer::sum));
+        int totalCopies = copiesByStore.values().stream().mapToInt(Integer::intValue).sum();
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(copiesByStore))
+                .flatMap(json -> catalogRepository.upsert(book.getId(), book.getTitle(), book.getAuthor(), book.getPrice(),
+                        book.getBookstoreId(), book.getVersion(), json, totalCopies));
+    }
+
+    private CatalogEntryDto toCatalogEntryDto(CatalogEntry entry) {
+        Map<Long, Integer> copiesByStore;
+        try {
+            copiesByStore = objectMapper.readValue(entry.getCopiesByStore(), COPIES_BY_STORE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable copies_by_store for " + entry.getIsbn(), e);
+        }
+        return CatalogEntryDto.builder()
+                .id(entry.getIsbn())
+                .title(entry.getTitle())
+                .author(entry.getAuthor())
+                .price(entry.getPrice())
+                .bookstoreId(entry.getBookstoreId())
+                .version(entry.getBookVersion())
+                .copiesByStore(copiesByStore)
+                .totalCopies(entry.getTotalCopies())
+                .updatedAt(entry.getUpdatedAt())
+                .build();
+    }
+}
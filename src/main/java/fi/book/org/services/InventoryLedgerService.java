@@ -0,0 +1,143 @@
+package fi.book.org.services;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.dto.InventoryMovementDto;
+import fi.book.org.dto.InventoryMovementRequest;
+import fi.book.org.dto.StockLevelDto;
+import fi.book.org.exception.BookstoreNotFoundException;
+import fi.book.org.exception.InsufficientStockException;
+import fi.book.org.model.InventoryMovement;
+import fi.book.org.model.MovementType;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.repository.BookstoreRepository;
+import fi.book.org.repository.InventoryMovementRepository;
+import fi.book.org.repository.InventoryRepository;
+import fi.book.org.writebehind.InventoryWriteBehind;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Receipts, sales, adjustments and transfers against the inventory ledger. Each movement is only appended to
+ * {@code inventory_movements}, which is the write model: current stock is the row's folded balance plus the
+ * movements not folded yet, read through {@code inventory_stock}, and a removal is refused when it would take the
+ * stock not held by reservations below zero. The ledger also gives the history and the balance at any earlier time.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryLedgerService {
+    private final InventoryMovementRepository movementRepository;
+    private final InventoryRepository inventoryRepository;
+    private final BookstoreRepository bookstoreRepository;
+    private final OutboxService outboxService;
+    private final InventoryWriteBehind writeBehind;
+
+    public static final int MAX_HISTORY = 500;
+
+    @Transactional
+    @CacheEvict(cacheNames = {"copiesByIsbn", "copiesByTitle", "copiesByAuthor"}, allEntries = true)
+    public Flux<InventoryMovementDto> recordMovement(UUID isbn, InventoryMovementRequest request) {
+        Flux<InventoryMovementDto> recorded = Flux.fromIterable(toMovements(isbn, request))
+                .concatMap(this::apply)
+                .map(this::toMovementDto);
+        // A buffered absolute write flushed later would overwrite this relative change
+        return writeBehind.isEnabled() ? writeBehind.flush().thenMany(recorded) : recorded;
+    }
+
+    public Flux<InventoryMovementDto> getMovements(UUID isbn, Long bookstoreId, int limit) {
+        return movementRepository.findLatest(isbn, bookstoreId, Math.min(limit, MAX_HISTORY))
+                .map(this::toMovementDto);
+    }
+
+    /**
+     * Copies of the row after every movement up to {@code at}, now when not given.
+     */
+    public Mono<StockLevelDto> getStockAt(UUID isbn, Long bookstoreId, LocalDateTime at) {
+        LocalDateTime asOf = at == null ? LocalDateTime.now() : at;
+        return movementRepository.balanceAt(isbn, bookstoreId, asOf)
+                .map(copies -> StockLevelDto.builder()
+                        .isbn(isbn)
+                        .bookstoreId(bookstoreId)
+                        .copies(copies)
+                        .at(asOf)
+                        .build());
+    }
+
+    private Mono<InventoryMovement> apply(InventoryMovement movement) {
+        return requireBookstore(movement.getBookstoreId())
+                .then(Mono.defer(() -> admit(movement)))
+                .then(Mono.defer(() -> movementRepository.save(movement)))
+                .flatMap(saved -> outboxService.record(OutboxEventType.INVENTORY_MOVED, saved.getIsbn(), saved.getBookstoreId(),
+                                Map.of("movement", saved.getMovementType(), "quantity", saved.getQuantity()))
+                        .thenReturn(saved));
+    }
+
+    private Mono<Void> admit(InventoryMovement movement) {
+        UUID isbn = movement.getIsbn();
+        Long bookstoreId = movement.getBookstoreId();
+        int quantity = movement.getQuantity();
+        if (quantity >= 0) {
+            // Additions only append, the row is written just once to create it
+            return inventoryRepository.createIfMissing(isbn, bookstoreId).then();
+        }
+        // Removals check the stock under the row lock, which orders them against each other and against absolute
+        // writes; a missing row has nothing to remove
+        return inventoryRepository.lockAvailable(isbn, bookstoreId)
+                .filter(available -> available + quantity >= 0)
+                .switchIfEmpty(Mono.error(new InsufficientStockException(isbn, bookstoreId, -quantity)))
+                .then();
+    }
+
+    private Mono<Void> requireBookstore(Long bookstoreId) {
+        return bookstoreRepository.existsById(bookstoreId)
+                .flatMap(exists -> exists
+                        ? Mono.<Void>empty()
+                        : Mono.error(new BookstoreNotFoundException("Bookstore with ID " + bookstoreId + " not found.")));
+    }
+
+    private static List<InventoryMovement> toMovements(UUID isbn, InventoryMovementRequest request) {
+        int quantity = request.getQuantity();
+        return switch (request.getType()) {
+            case RECEIPT -> List.of(movement(isbn, request.getBookstoreId(), MovementType.RECEIPT, quantity, request.getReference()));
+            case SALE -> List.of(movement(isbn, request.getBookstoreId(), MovementType.SALE, -quantity, request.getReference()));
+            case ADJUSTMENT -> List.of(movement(isbn, request.getBookstoreId(), MovementType.ADJUSTMENT, quantity, request.getReference()));
+            case TRANSFER -> {
+                // Both legs carry the same reference so the pair can be found again
+                String reference = request.getReference() != null ? request.getReference() : UUID.randomUUID().toString();
+                yield List.of(
+                        movement(isbn, request.getBookstoreId(), MovementType.TRANSFER_OUT, -quantity, reference),
+                        movement(isbn, request.getToBookstoreId(), MovementType.TRANSFER_IN, quantity, reference));
+            }
+        };
+    }
+
+    private static InventoryMovement movement(UUID isbn, Long bookstoreId, MovementType type, int quantity, String reference) {
+        return InventoryMovement.builder()
+                .isbn(isbn)
+                .bookstoreId(bookstoreId)
+                .movementType(type)
+                .quantity(quantity)
+                .reference(reference)
+                .build();
+    }
+
+    private InventoryMovementDto toMovementDto(InventoryMovement movement) {
+        return InventoryMovementDto.builder()
+                .id(movement.getId())
+                .isbn(movement.getIsbn())
+                .bookstoreId(movement.getBookstoreId())
+                .movementType(movement.getMovementType())
+                .quantity(movement.getQuantity())
+                .reference(movement.getReference())
+                .occurredAt(movement.getOccurredAt())
+                .build();
+    }
+}
@@ -5,20 +5,39 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
+import fi.book.org.api.FieldProjection;
+import fi.book.org.deadline.Deadlines;
 import fi.book.org.dto.InventoryDto;
 import fi.book.org.dto.InventoryGlobalDto;
+import fi.book.org.dto.InventoryUpdateDto;
 import fi.book.org.exception.BookstoreNotFoundException;
 import fi.book.org.exception.InventoryNotFoundException;
+import fi.book.org.exception.StockHeldException;
+import fi.book.org.exception.VersionConflictException;
 import fi.book.org.model.BookModel;
 import fi.book.org.model.Inventory;
+import fi.book.org.model.InventoryMovement;
+import fi.book.org.model.MovementType;
+import fi.book.org.model.OutboxEventType;
 import fi.book.org.repository.BookRepository;
 import fi.book.org.repository.BookstoreRepository;
+import fi.book.org.repository.InventoryMovementRepository;
 import fi.book.org.repository.InventoryRepository;
+import fi.book.org.repository.ProjectionRepository;
+import fi.book.org.reservation.ReservedStock;
+import fi.book.org.writebehind.InventoryWriteBehind;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,6 +49,20 @@ public class InventoryService {
     private final BookRepository bookRepository;
     private final InventoryRepository inventoryRepository;
     private final BookstoreRepository bookstoreRepository;
+    private final OutboxService outboxService;
+    private final ProjectionRepository projectionRepository;
+    private final InventoryWriteBehind writeBehind;
+    private final InventoryMovementRepository movementRepository;
+    private final TransactionalOperator transactionalOperator;
+
+    // Fields accepted by fields=; copies is a primitive and would read as 0 when left out, so it is always selected
+    public static final Set<String> INVENTORY_FIELDS = Set.of("id", "copies", "bookstore_id", "version");
+    public static final Set<String> INVENTORY_REQUIRED_FIELDS = Set.of("id", "copies");
+
+    private static final Map<String, Object> NEW_COPY = Map.of("movement", MovementType.RECEIPT, "quantity", 1);
+
+    // Rows bound into one batched statement
+    static final int BULK_STATEMENT_BATCH_SIZE = 500;
 
     @Cacheable(cacheNames = "copiesByAuthor", key = "{#author}")
     public Mono<Map<String, Integer>> getCopiesByAuthorBookstore(String author) {
@@ -44,44 +77,143 @@ public class InventoryService {
     }
 
     private Mono<Map<String, Integer>> getCopiesMapByBookStoreId(Flux<BookModel> books) {
-        return books.flatMap(book -> inventoryRepository.findInventoriesById(book.getId())
-                        .flatMap(inventory -> {
-                            Long bookstoreId = inventory.getBookstoreId();
-                            int copies = inventory.getCopies();
-                            Map<Long, Integer> map = new HashMap<>();
-                            map.put(bookstoreId, copies);
-                            return Mono.just(map);
-                        }))
-                .reduce(new HashMap<>(), (map1, map2) -> {
-                    map2.forEach((bookstoreId, copies) -> map1.merge(String.valueOf(bookstoreId), copies, Integer::sum));
-                    return map1;
-                });
+        return Deadlines.enforce(books.map(BookModel::getId)
+                .collectList()
+                .flatMap(this::sumCopiesByBookstore));
+    }
+
+    private Mono<Map<String, Integer>> sumCopiesByBookstore(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(new HashMap<>());
+        }
+        return inventoryRepository.sumCopiesByBookstore(ids)
+                .collectMap(partial -> String.valueOf(partial.bookstoreId()), partial -> partial.copies().intValue());
     }
 
     @Cacheable(cacheNames = "copiesByIsbn", key = "{#id}")
     public Flux<InventoryDto> getCopiesByIsbn(UUID id) {
-        return inventoryRepository.findInventoriesById(id)
-                .map(this::toInventoryDto)
+        return withBufferedWrites(id, Deadlines.enforce(inventoryRepository.findInventoriesById(id))
+                .map(this::toInventoryDto))
+                .switchIfEmpty(Mono.error(new InventoryNotFoundException("ISBN", id.toString())));
+    }
+
+    @Cacheable(cacheNames = "copiesByIsbn", key = "{#id, #projection}")
+    public Flux<InventoryDto> getCopiesByIsbn(UUID id, FieldProjection projection) {
+        return withBufferedWrites(id, Deadlines.enforce(projectionRepository.findInventoriesById(id, projection.fields()))
+                .map(this::toInventoryDto))
                 .switchIfEmpty(Mono.error(new InventoryNotFoundException("ISBN", id.toString())));
     }
 
+    private Flux<InventoryDto> withBufferedWrites(UUID id, Flux<InventoryDto> inventories) {
+        // Per-ISBN reads see buffered writes right away, the aggregations only once they are flushed
+        return writeBehind.isEnabled()
+                ? inventories.collectList().flatMapIterable(rows -> writeBehind.overlay(id, rows))
+                : inventories;
+    }
+
+    public Mono<Map<UUID, Collection<InventoryDto>>> getCopiesByIsbns(List<UUID> ids, int chunkSize) {
+        return Flux.fromIterable(ids)
+                .buffer(chunkSize)
+                .concatMap(inventoryRepository::findByIdIn)
+                .collectMultimap(Inventory::getId, this::toInventoryDto);
+    }
+
     @CacheEvict(cacheNames = {"copiesByIsbn", "copiesByTitle", "copiesByAuthor"}, allEntries = true)
     public Mono<UUID> updateInventory(UUID id, Integer copies, Long bookstore_id) {
-        return inventoryRepository.findByIdAndBookstoreId(id, bookstore_id)
-                .flatMap(inventory -> {
-                    inventory.setCopies(copies);
-                    inventory.setNew(false);
-                    inventory.setBookstoreId(bookstore_id);
-                    return inventoryRepository.save(inventory).map(Inventory::getId);
-                })
-                .switchIfEmpty(createNewInventory(id, copies, bookstore_id));
+        return updateInventory(id, copies, bookstore_id, null);
+    }
+
+    /**
+     * Not {@code @Transactional}: a buffered write never touches the database here, only a direct one opens a
+     * transaction, after the buffered writes it has to wait for were flushed. Fails with {@link StockHeldException}
+     * when reservations hold more than {@code copies}.
+     */
+    @CacheEvict(cacheNames = {"copiesByIsbn", "copiesByTitle", "copiesByAuthor"}, allEntries = true)
+    public Mono<UUID> updateInventory(UUID id, Integer copies, Long bookstore_id, Long version) {
+        if (version == null && writeBehind.isEnabled()) {
+            // Acknowledged once logged; the flush writes the row and records the change event
+            return writeBehind.write(id, bookstore_id, copies).thenReturn(id);
+        }
+        Mono<UUID> updated;
+        if (version == null) {
+            // Unconditional write: nothing locked means there is no row yet for this bookstore
+            updated = inventoryRepository.lockRow(id, bookstore_id)
+                    .flatMap(rows -> rows > 0 ? Mono.just(id) : createNewInventory(id, bookstore_id));
+        } else {
+            updated = inventoryRepository.lockRowIfVersion(id, bookstore_id, version)
+                    .flatMap(rows -> rows > 0 ? Mono.just(id) : inventoryMissingOrStale(id, bookstore_id));
+        }
+        InventoryUpdateDto update = InventoryUpdateDto.builder().isbn(id).bookstoreId(bookstore_id).copies(copies).build();
+        return afterBufferedWrites(updated
+                .flatMap(updatedId -> rejectBelowReserved(List.of(update))
+                        .then(Mono.defer(() -> recordInventoryChange(updatedId, bookstore_id, copies)))
+                        .thenReturn(updatedId))
+                .as(transactionalOperator::transactional));
+    }
+
+    // Direct writes wait for the buffered ones, so an older buffered value can never land on top of them
+    private <T> Mono<T> afterBufferedWrites(Mono<T> write) {
+        return writeBehind.isEnabled() ? writeBehind.flush().then(write) : write;
+    }
+
+    // The rows are locked by now, see ReservedStock
+    private Mono<Void> rejectBelowReserved(List<InventoryUpdateDto> updates) {
+        return Flux.fromIterable(ReservedStock.latestPerRow(updates))
+                .buffer(BULK_STATEMENT_BATCH_SIZE)
+                .concatMap(chunk -> inventoryRepository.findReserved(ReservedStock.isbns(chunk), ReservedStock.bookstoreIds(chunk))
+                        .collectList()
+                        .flatMapIterable(reserved -> ReservedStock.below(chunk, reserved)))
+                .next()
+                .flatMap(update -> Mono.error(new StockHeldException(update.getIsbn(), update.getBookstoreId(), update.getCopies())));
+    }
+
+    private Mono<Void> recordInventoryChange(UUID id, Long bookstoreId, Integer copies) {
+        // Absolute writes enter the ledger as the adjustment that brings the stock to the new count, under the row lock
+        return outboxService.record(OutboxEventType.INVENTORY_UPDATED, id, bookstoreId, Map.of("copies", copies))
+                .then(movementRepository.appendAdjustment(id, bookstoreId, copies))
+                .then();
+    }
+
+    /**
+     * Applies many copy updates in one transaction. Bookstore ids are checked once against the known set before
+     * anything is written; an unknown id rejects the whole batch. Later tuples for the same (isbn, bookstore) win.
+     * A row set below the copies its reservations hold rejects the whole batch too.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = {"copiesByIsbn", "copiesByTitle", "copiesByAuthor"}, allEntries = true)
+    public Mono<Integer> updateInventories(List<InventoryUpdateDto> updates) {
+        return afterBufferedWrites(bookstoreRepository.findAllIds()
+                .collect(Collectors.toSet())
+                .flatMap(bookstoreIds -> {
+                    Set<Long> unknown = updates.stream()
+                            .map(InventoryUpdateDto::getBookstoreId)
+                            .filter(bookstoreId -> !bookstoreIds.contains(bookstoreId))
+                            .collect(Collectors.toCollection(TreeSet::new));
+                    if (!unknown.isEmpty()) {
+                        return Mono.error(new BookstoreNotFoundException("Bookstores with IDs " + unknown + " not found."));
+                    }
+                    // Three batched statements per chunk: lock or create the rows, append their adjustments, record the events
+                    return Flux.fromIterable(updates)
+                            .buffer(BULK_STATEMENT_BATCH_SIZE)
+                            .concatMap(chunk -> inventoryRepository.lockOrCreate(chunk)
+                                    .flatMap(applied -> inventoryRepository.appendAdjustments(chunk)
+                                            .then(outboxService.recordInventoryUpdates(chunk))
+                                            .thenReturn(applied)))
+                            .reduce(0, Integer::sum)
+                            .flatMap(applied -> rejectBelowReserved(updates).thenReturn(applied));
+                }));
+    }
+
+    private Mono<UUID> inventoryMissingOrStale(UUID id, Long bookstoreId) {
+        return inventoryRepository.existsByIdAndBookstoreId(id, bookstoreId)
+                .flatMap(exists -> Mono.error(exists
+                        ? new VersionConflictException("ISBN", id.toString())
+                        : new InventoryNotFoundException("ISBN", id.toString())));
     }
 
 
     public Mono<InventoryGlobalDto> getTotalCopies() {
-        return inventoryRepository.findAll()
-                .map(Inventory::getCopies)
-                .reduce(0L, Long::sum)
+        return Deadlines.enforce(inventoryRepository.sumCopies())
                 .map(totalCopies -> InventoryGlobalDto.builder()
                         .total_copies(totalCopies)
                         .build());
@@ -92,40 +224,35 @@ public class InventoryService {
                 .id(inventory.getId())
                 .copies(inventory.getCopies())
                 .bookstoreId(inventory.getBookstoreId())
+                .version(inventory.getVersion())
                 .build();
     }
 
-    private Mono<UUID> createNewInventory(UUID id, Integer copies, Long bookstoreId) {
+    private Mono<UUID> createNewInventory(UUID id, Long bookstoreId) {
         return bookstoreRepository.existsById(bookstoreId)
-                .flatMap(exists -> {
-                    if (exists) {
-                        Inventory newInventory = new Inventory();
-                        newInventory.setId(id);
-                        newInventory.setCopies(copies);
-                        newInventory.setNew(true);
-                        newInventory.setBookstoreId(bookstoreId);
-                        return inventoryRepository.save(newInventory).map(Inventory::getId);
-                    } else {
-                        return Mono.error(new BookstoreNotFoundException("Bookstore with ID " + bookstoreId + " not found."));
-                    }
-                });
+                .flatMap(exists -> exists
+                        ? inventoryRepository.createIfMissing(id, bookstoreId).thenReturn(id)
+                        : Mono.error(new BookstoreNotFoundException("Bookstore with ID " + bookstoreId + " not found.")));
     }
 
+    /**
+     * One more copy of the book in every bookstore that stocks it, or a first copy in the book's bookstore. Either
+     * way the copy is appended as a receipt, never read and written back, so concurrent creations all count.
+     */
+    @Transactional
     public Mono<Void> updateOrCreateInventory(BookModel bookModel) {
-        return inventoryRepository.findInventoriesById(bookModel.getId())
-                .flatMap(existingInventory -> {
-                    existingInventory.setCopies(existingInventory.getCopies() + 1);
-                    existingInventory.setNew(false);
-                    return inventoryRepository.save(existingInventory);
-                })
-                .switchIfEmpty(Mono.defer(() -> {
-                    Inventory newInventory = Inventory.builder()
-                            .id(bookModel.getId())
-                            .copies(1)
-                            .bookstoreId(bookModel.getBookstoreId())
-                            .isNew(true).build();
-                    return inventoryRepository.save(newInventory);
-                }))
-                .then();
+        UUID id = bookModel.getId();
+        Long bookstoreId = bookModel.getBookstoreId();
+        return afterBufferedWrites(movementRepository.appendToAllRows(id, MovementType.RECEIPT.name(), 1)
+                .flatMap(rows -> rows > 0
+                        ? outboxService.recordForInventoryRows(OutboxEventType.INVENTORY_MOVED, id, NEW_COPY)
+                        : inventoryRepository.createIfMissing(id, bookstoreId)
+                                .then(movementRepository.save(InventoryMovement.builder()
+                                        .isbn(id)
+                                        .bookstoreId(bookstoreId)
+                                        .movementType(MovementType.RECEIPT)
+                                        .quantity(1)
+                                        .build()))
+                                .then(outboxService.record(OutboxEventType.INVENTORY_MOVED, id, bookstoreId, NEW_COPY))));
     }
 }
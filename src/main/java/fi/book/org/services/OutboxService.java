@@ -0,0 +1,71 @@
+package fi.book.org.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.dto.InventoryUpdateDto;
+import fi.book.org.model.OutboxEvent;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes change events to the outbox table. Callers invoke it inside their own transaction so the event
+ * commits or rolls back together with the mutation it describes.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public Mono<Void> record(OutboxEventType type, UUID aggregateId, Long bookstoreId, Object payload) {
+        return Mono.fromCallable(() -> toOutboxEvent(type, aggregateId, bookstoreId, payload))
+                .flatMap(outboxEventRepository::save)
+                .then();
+    }
+
+    /**
+     * Records an {@link OutboxEventType#INVENTORY_UPDATED} event per update, as one batched insert.
+     */
+    public Mono<Void> recordInventoryUpdates(List<InventoryUpdateDto> updates) {
+        return Mono.fromCallable(() -> {
+                    List<OutboxEvent> events = new ArrayList<>(updates.size());
+                    for (InventoryUpdateDto update : updates) {
+                        events.add(toOutboxEvent(OutboxEventType.INVENTORY_UPDATED, update.getIsbn(), update.getBookstoreId(),
+                                Map.of("copies", update.getCopies())));
+                    }
+                    return events;
+                })
+                .flatMap(outboxEventRepository::insertAll)
+                .then();
+    }
+
+    /**
+     * Records {@code type} once for every inventory row of {@code isbn}.
+     */
+    public Mono<Void> recordForInventoryRows(OutboxEventType type, UUID isbn, Object payload) {
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(payload))
+                .flatMap(json -> outboxEventRepository.insertForInventoryRows(type.getAggregateType(), isbn, type.name(), json))
+                .then();
+    }
+
+    OutboxEvent toOutboxEvent(OutboxEventType type, UUID aggregateId, Long bookstoreId, Object payload)
+            throws JsonProcessingException {
+        return OutboxEvent.builder()
+                .aggregateType(type.getAggregateType())
+                .aggregateId(aggregateId.toString())
+                .bookstoreId(bookstoreId)
+                .eventType(type.name())
+                .payload(payload == null ? null : objectMapper.writeValueAsString(payload))
+                .build();
+    }
+}
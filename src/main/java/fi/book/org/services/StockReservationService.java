@@ -0,0 +1,210 @@
+package fi.book.org.services;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.dto.ReservationDto;
+import fi.book.org.dto.ReservationRequest;
+import fi.book.org.exception.InsufficientStockException;
+import fi.book.org.exception.ReservationClosedException;
+import fi.book.org.exception.ReservationNotFoundException;
+import fi.book.org.model.InventoryMovement;
+import fi.book.org.model.MovementType;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.model.ReservationStatus;
+import fi.book.org.model.StockReservation;
+import fi.book.org.repository.InventoryMovementRepository;
+import fi.book.org.repository.InventoryRepository;
+import fi.book.org.repository.StockReservationRepository;
+import fi.book.org.reservation.ReservationProperties;
+import fi.book.org.reservation.StockCounters;
+import fi.book.org.reservation.StripedStock;
+import fi.book.org.writebehind.InventoryWriteBehind;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Checkout in two steps: a reservation holds copies of a row for a while, a confirmation sells them. A hold is
+ * first taken from the row's in-memory {@link StripedStock}, so buyers of a sold-out book never reach the
+ * database, and then from {@code inventory.reserved} with a conditional update, which is what keeps holds within
+ * the copies on hand. A confirmation records the sale in the ledger; a release or the expiry sweep returns the
+ * copies. Holds do not change the copies on hand and raise no change event, only the sale does.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+    private final StockReservationRepository reservationRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryMovementRepository movementRepository;
+    private final OutboxService outboxService;
+    private final StockCounters stockCounters;
+    private final ReservationProperties properties;
+    private final InventoryWriteBehind writeBehind;
+    private final TransactionalOperator transactionalOperator;
+
+    public Mono<ReservationDto> reserve(ReservationRequest request, String owner) {
+        UUID isbn = request.getIsbn();
+        Long bookstoreId = request.getBookstoreId();
+        int quantity = request.getQuantity();
+        return stockCounters.counter(isbn, bookstoreId)
+                .flatMap(stock -> {
+                    if (!stock.tryAcquire(quantity)) {
+                        return Mono.error(new InsufficientStockException(isbn, bookstoreId, quantity));
+                    }
+                    return hold(isbn, bookstoreId, quantity, owner, ttl(request))
+                            .doOnError(e -> {
+                                if (e instanceof InsufficientStockException) {
+                                    // The counter was ahead of the row, e.g. after a sale it did not see
+                                    stockCounters.invalidate(isbn, bookstoreId);
+                                } else {
+                                    stock.release(quantity);
+                                }
+                            })
+                            // The hold may or may not have committed
+                            .doOnCancel(() -> stockCounters.invalidate(isbn, bookstoreId));
+                });
+    }
+
+    public Mono<ReservationDto> getReservation(UUID id, String owner) {
+        return findOwned(id, owner).map(StockReservationService::toReservationDto);
+    }
+
+    @CacheEvict(cacheNames = {"copiesByIsbn", "copiesByTitle", "copiesByAuthor"}, allEntries = true)
+    public Mono<ReservationDto> confirm(UUID id, String owner) {
+        Mono<ReservationDto> confirmed = findOwned(id, owner)
+                .flatMap(reservation -> reservationRepository.confirm(id, LocalDateTime.now())
+                        .flatMap(rows -> rows > 0 ? sell(reservation) : closed(id))
+                        .as(transactionalOperator::transactional)
+                        .thenReturn(toReservationDto(reservation, ReservationStatus.CONFIRMED)));
+        // A buffered absolute write flushed later would overwrite the sale
+        return writeBehind.isEnabled() ? writeBehind.flush().then(confirmed) : confirmed;
+    }
+
+    public Mono<ReservationDto> release(UUID id, String owner) {
+        return findOwned(id, owner)
+                .flatMap(reservation -> close(reservation, ReservationStatus.RELEASED)
+                        .flatMap(released -> released
+                                ? Mono.just(toReservationDto(reservation, ReservationStatus.RELEASED))
+                                : closed(id)));
+    }
+
+    /**
+     * Expires every hold past its deadline, a batch at a time.
+     *
+     * @return the holds expired
+     */
+    public Mono<Long> expireDue() {
+        ReservationProperties.Expiry expiry = properties.getExpiry();
+        LocalDateTime now = LocalDateTime.now();
+        return expireBatch(now, expiry.getBatchSize())
+                .expand(found -> found == expiry.getBatchSize() ? expireBatch(now, expiry.getBatchSize()) : Mono.empty())
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> expireBatch(LocalDateTime now, int batchSize) {
+        // Holds released or confirmed since they were read are left alone by close and not counted
+        return reservationRepository.findExpired(now, batchSize)
+                .concatMap(reservation -> close(reservation, ReservationStatus.EXPIRED))
+                .filter(Boolean::booleanValue)
+                .count();
+    }
+
+    private Mono<ReservationDto> hold(UUID isbn, Long bookstoreId, int quantity, String owner, Duration ttl) {
+        UUID id = UUID.randomUUID();
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        return inventoryRepository.reserve(isbn, bookstoreId, quantity)
+                .flatMap(rows -> rows > 0
+                        ? reservationRepository.insertHeld(id, isbn, bookstoreId, quantity, owner, expiresAt)
+                        : Mono.error(new InsufficientStockException(isbn, bookstoreId, quantity)))
+                .as(transactionalOperator::transactional)
+                .thenReturn(ReservationDto.builder()
+                        .id(id)
+                        .isbn(isbn)
+                        .bookstoreId(bookstoreId)
+                        .quantity(quantity)
+                        .status(ReservationStatus.HELD)
+                        .expiresAt(expiresAt)
+                        .build());
+    }
+
+    private Mono<Void> sell(StockReservation reservation) {
+        UUID isbn = reservation.getIsbn();
+        Long bookstoreId = reservation.getBookstoreId();
+        int quantity = reservation.getQuantity();
+        InventoryMovement sale = InventoryMovement.builder()
+                .isbn(isbn)
+                .bookstoreId(bookstoreId)
+                .movementType(MovementType.SALE)
+                .quantity(-quantity)
+                .reference(reservation.getId().toString())
+                .build();
+        // Only fails when the copies on hand were cut below the hold since it was taken
+        return inventoryRepository.sellReserved(isbn, bookstoreId, quantity)
+                .flatMap(rows -> rows > 0
+                        ? movementRepository.save(sale)
+                        : Mono.error(new InsufficientStockException(isbn, bookstoreId, quantity)))
+                .flatMap(saved -> outboxService.record(OutboxEventType.INVENTORY_MOVED, isbn, bookstoreId,
+                        Map.of("movement", saved.getMovementType(), "quantity", saved.getQuantity(), "reference", saved.getReference())))
+                .then();
+    }
+
+    // True when this call moved the hold out of HELD and returned its copies
+    private Mono<Boolean> close(StockReservation reservation, ReservationStatus status) {
+        UUID isbn = reservation.getIsbn();
+        Long bookstoreId = reservation.getBookstoreId();
+        int quantity = reservation.getQuantity();
+        return reservationRepository.close(reservation.getId(), status.name())
+                .flatMap(rows -> rows > 0
+                        ? inventoryRepository.unreserve(isbn, bookstoreId, quantity).thenReturn(true)
+                        : Mono.just(false))
+                .as(transactionalOperator::transactional)
+                .doOnNext(closed -> {
+                    if (closed) {
+                        stockCounters.release(isbn, bookstoreId, quantity);
+                    }
+                });
+    }
+
+    private <T> Mono<T> closed(UUID id) {
+        // A hold still HELD here lost the race against its deadline
+        return reservationRepository.findById(id)
+                .flatMap(current -> Mono.error(new ReservationClosedException(id,
+                        current.getStatus() == ReservationStatus.HELD ? ReservationStatus.EXPIRED : current.getStatus())));
+    }
+
+    private Mono<StockReservation> findOwned(UUID id, String owner) {
+        // Someone else's reservation is reported as missing rather than forbidden
+        return reservationRepository.findById(id)
+                .filter(reservation -> reservation.getOwner().equals(owner))
+                .switchIfEmpty(Mono.error(new ReservationNotFoundException(id)));
+    }
+
+    private Duration ttl(ReservationRequest request) {
+        if (request.getTtlSeconds() == null) {
+            return properties.getTtl();
+        }
+        Duration requested = Duration.ofSeconds(request.getTtlSeconds());
+        return requested.compareTo(properties.getMaxTtl()) < 0 ? requested : properties.getMaxTtl();
+    }
+
+    private static ReservationDto toReservationDto(StockReservation reservation) {
+        return toReservationDto(reservation, reservation.getStatus());
+    }
+
+    private static ReservationDto toReservationDto(StockReservation reservation, ReservationStatus status) {
+        return ReservationDto.builder()
+                .id(reservation.getId())
+                .isbn(reservation.getIsbn())
+                .bookstoreId(reservation.getBookstoreId())
+                .quantity(reservation.getQuantity())
+                .status(status)
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+}
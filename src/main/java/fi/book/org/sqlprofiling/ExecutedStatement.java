@@ -0,0 +1,10 @@
+package fi.book.org.sqlprofiling;
+
+import java.time.Duration;
+
+/**
+ * One statement execution: its shape (see {@link SqlShape}), the repository method it came from, latency from
+ * execution to the last row consumed, and the rows returned or updated.
+ */
+public record ExecutedStatement(String shape, String origin, Duration duration, long rows, boolean success) {
+}
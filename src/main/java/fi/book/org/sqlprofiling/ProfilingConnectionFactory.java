@@ -0,0 +1,40 @@
+package fi.book.org.sqlprofiling;
+
+import org.reactivestreams.Publisher;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+/**
+ * Wraps acquired connections so every statement they run is profiled. Unlike r2dbc-proxy listeners, the wrapped
+ * statements execute inside the caller's Reactor {@code Context}, which is where the request's
+ * {@link QueryProfile} and the {@link QueryOrigin} live.
+ */
+public class ProfilingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private final ConnectionFactory delegate;
+    private final SqlProfiler profiler;
+
+    public ProfilingConnectionFactory(ConnectionFactory delegate, SqlProfiler profiler) {
+        this.delegate = delegate;
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.from(delegate.create()).map(connection -> new ProfilingConnection(connection, profiler));
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+}
@@ -0,0 +1,32 @@
+package fi.book.org.sqlprofiling;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Wraps the (pooled) R2DBC {@link ConnectionFactory} so repositories, the {@code R2dbcEntityTemplate} and the
+ * {@code DatabaseClient} are all profiled.
+ */
+@Component
+@ConditionalOnProperty(name = "sql-profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingConnectionFactoryPostProcessor implements BeanPostProcessor {
+
+    // Looked up lazily, a post processor must not pull its dependencies in before the context is ready
+    private final ObjectProvider<SqlProfiler> profiler;
+
+    public ProfilingConnectionFactoryPostProcessor(ObjectProvider<SqlProfiler> profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ConnectionFactory connectionFactory && !(bean instanceof ProfilingConnectionFactory)) {
+            return new ProfilingConnectionFactory(connectionFactory, profiler.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,58 @@
+package fi.book.org.sqlprofiling;
+
+import org.reactivestreams.Publisher;
+
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import reactor.core.publisher.Flux;
+
+/**
+ * Counts the rows mapped (or updated) from a result and finishes the execution when they have been consumed.
+ */
+class ProfilingResult implements Result {
+    private final Result delegate;
+    private final StatementExecution execution;
+
+    ProfilingResult(Result delegate, StatementExecution execution) {
+        this.delegate = delegate;
+        this.execution = execution;
+    }
+
+    @Override
+    public Publisher<Long> getRowsUpdated() {
+        return track(Flux.from(delegate.getRowsUpdated()).doOnNext(execution::addRows));
+    }
+
+    @Override
+    public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+        return track(Flux.<T>from(delegate.map(mappingFunction)).doOnNext(row -> execution.addRows(1)));
+    }
+
+    @Override
+    public <T> Publisher<T> map(Function<? super Readable, ? extends T> mappingFunction) {
+        return track(Flux.<T>from(delegate.map(mappingFunction)).doOnNext(row -> execution.addRows(1)));
+    }
+
+    @Override
+    public Result filter(Predicate<Segment> filter) {
+        return new ProfilingResult(delegate.filter(filter), execution);
+    }
+
+    @Override
+    public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+        return track(Flux.<T>from(delegate.flatMap(mappingFunction)));
+    }
+
+    // Cancelled consumers (findFirst, take) still ran the statement
+    private <T> Flux<T> track(Flux<T> rows) {
+        return rows.doOnComplete(() -> execution.finish(true))
+                .doOnCancel(() -> execution.finish(true))
+                .doOnError(e -> execution.finish(false));
+    }
+}
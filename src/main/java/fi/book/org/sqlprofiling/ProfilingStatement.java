@@ -0,0 +1,87 @@
+package fi.book.org.sqlprofiling;
+
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+
+/**
+ * Starts a {@link StatementExecution} when the statement runs, in the subscriber's {@code Context}, so the
+ * request's profile and the calling repository method are known.
+ */
+class ProfilingStatement implements Statement {
+    private final Statement delegate;
+    private final SqlProfiler profiler;
+    private final String sql;
+
+    ProfilingStatement(Statement delegate, SqlProfiler profiler, String sql) {
+        this.delegate = delegate;
+        this.profiler = profiler;
+        this.sql = sql;
+    }
+
+    @Override
+    public Statement add() {
+        delegate.add();
+        return this;
+    }
+
+    @Override
+    public Statement bind(int index, Object value) {
+        delegate.bind(index, value);
+        return this;
+    }
+
+    @Override
+    public Statement bind(String name, Object value) {
+        delegate.bind(name, value);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(int index, Class<?> type) {
+        delegate.bindNull(index, type);
+        return this;
+    }
+
+    @Override
+    public Statement bindNull(String name, Class<?> type) {
+        delegate.bindNull(name, type);
+        return this;
+    }
+
+    @Override
+    public Statement returnGeneratedValues(String... columns) {
+        delegate.returnGeneratedValues(columns);
+        return this;
+    }
+
+    @Override
+    public Statement fetchSize(int rows) {
+        delegate.fetchSize(rows);
+        return this;
+    }
+
+    @Override
+    public Publisher<? extends Result> execute() {
+        return Flux.deferContextual(context -> {
+            StatementExecution execution = profiler.start(context, sql);
+            AtomicBoolean hasResult = new AtomicBoolean();
+            return Flux.from(delegate.execute())
+                    .<Result>map(result -> {
+                        hasResult.set(true);
+                        return new ProfilingResult(result, execution);
+                    })
+                    .doOnComplete(() -> {
+                        // Nothing to consume, the statement is done
+                        if (!hasResult.get()) {
+                            execution.finish(true);
+                        }
+                    })
+                    .doOnError(e -> execution.finish(false));
+        });
+    }
+}
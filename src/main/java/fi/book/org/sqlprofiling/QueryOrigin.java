@@ -0,0 +1,9 @@
+package fi.book.org.sqlprofiling;
+
+/**
+ * Repository method a statement is executed for, carried in the Reactor {@code Context} under
+ * {@code QueryOrigin.class}.
+ */
+public record QueryOrigin(String method) {
+    static final String UNKNOWN = "unknown";
+}
@@ -0,0 +1,48 @@
+package fi.book.org.sqlprofiling;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fi.book.org.repository.RepositoryMethods;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Tags the statements a repository call runs with the repository method, through {@link QueryOrigin} in the
+ * Reactor {@code Context}. The innermost repository call wins.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "sql-profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryOriginAspect {
+
+    private final Map<Method, Map<Class<?>, QueryOrigin>> origins = new ConcurrentHashMap<>();
+
+    @Around("fi.book.org.repository.RepositoryMethods.call()")
+    public Object tag(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono<?> mono) {
+            QueryOrigin origin = origin(joinPoint);
+            return mono.contextWrite(context -> context.put(QueryOrigin.class, origin));
+        } else if (result instanceof Flux<?> flux) {
+            QueryOrigin origin = origin(joinPoint);
+            return flux.contextWrite(context -> context.put(QueryOrigin.class, origin));
+        }
+        return result;
+    }
+
+    private QueryOrigin origin(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return origins.computeIfAbsent(method, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(joinPoint.getThis().getClass(),
+                        type -> new QueryOrigin(RepositoryMethods.owner(type, method).getSimpleName() + "." + method.getName()));
+    }
+}
@@ -0,0 +1,52 @@
+package fi.book.org.sqlprofiling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Statements executed on behalf of one request, carried in the Reactor {@code Context} under
+ * {@code QueryProfile.class}. Statements of one request can run concurrently (flatMap, zip).
+ */
+public class QueryProfile {
+    private final Queue<ExecutedStatement> statements = new ConcurrentLinkedQueue<>();
+
+    void add(ExecutedStatement statement) {
+        statements.add(statement);
+    }
+
+    public List<ExecutedStatement> statements() {
+        return new ArrayList<>(statements);
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    /**
+     * Statement shapes executed more than {@code threshold} times, with their count.
+     */
+    public Map<String, Long> repeated(int threshold) {
+        return statements.stream()
+                .collect(Collectors.groupingBy(ExecutedStatement::shape, Collectors.counting()))
+                .entrySet().stream()
+                .filter(entry -> entry.getValue() > threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    /**
+     * Repository methods that ran the given shape, most frequent first.
+     */
+    public List<String> origins(String shape) {
+        return statements.stream()
+                .filter(statement -> statement.shape().equals(shape))
+                .collect(Collectors.groupingBy(ExecutedStatement::origin, Collectors.counting()))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
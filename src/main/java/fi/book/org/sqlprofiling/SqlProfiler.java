@@ -0,0 +1,34 @@
+package fi.book.org.sqlprofiling;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.util.context.ContextView;
+
+/**
+ * Receives every executed statement: adds it to the request's {@link QueryProfile}, if there is one, and logs a
+ * slow-query line above the threshold.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sql-profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlProfiler {
+
+    private final SqlProfilingProperties properties;
+
+    void record(ContextView context, ExecutedStatement statement) {
+        context.<QueryProfile>getOrEmpty(QueryProfile.class).ifPresent(profile -> profile.add(statement));
+        if (statement.duration().compareTo(properties.getSlowQueryThreshold()) >= 0) {
+            log.warn("Slow query: {} ms, {} rows, from {}: {}", statement.duration().toMillis(), statement.rows(),
+                    statement.origin(), statement.shape());
+        }
+    }
+
+    StatementExecution start(ContextView context, String sql) {
+        String origin = context.<QueryOrigin>getOrEmpty(QueryOrigin.class).map(QueryOrigin::method).orElse(QueryOrigin.UNKNOWN);
+        return new StatementExecution(this, context, SqlShape.of(sql), origin, System.nanoTime());
+    }
+}
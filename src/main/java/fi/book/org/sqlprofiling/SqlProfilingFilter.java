@@ -0,0 +1,79 @@
+package fi.book.org.sqlprofiling;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.Map;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Collects the statements of every request into a {@link QueryProfile}. When the request is done it publishes the
+ * statement count per endpoint and flags statement shapes repeated more often than the threshold, the usual
+ * sign of an N+1. With debug logging every statement of the request is listed.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "sql-profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlProfilingFilter implements WebFilter {
+
+    static final String QUERIES_METRIC = "http.server.requests.queries";
+    static final String REPEATED_METRIC = "http.server.requests.queries.repeated";
+
+    private final SqlProfilingProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public SqlProfilingFilter(SqlProfilingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        QueryProfile profile = new QueryProfile();
+        return chain.filter(exchange)
+                .doFinally(signal -> complete(exchange, profile))
+                .contextWrite(context -> context.put(QueryProfile.class, profile));
+    }
+
+    private void complete(ServerWebExchange exchange, QueryProfile profile) {
+        String method = exchange.getRequest().getMethod().name();
+        String uri = endpoint(exchange);
+        DistributionSummary.builder(QUERIES_METRIC)
+                .description("SQL statements executed per request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(profile.count());
+
+        Map<String, Long> repeated = profile.repeated(properties.getRepeatedStatementThreshold());
+        if (!repeated.isEmpty()) {
+            meterRegistry.counter(REPEATED_METRIC, "method", method, "uri", uri).increment();
+            repeated.forEach((shape, count) -> log.warn("Possible N+1: {} {} ran the same statement {} times, from {}: {}",
+                    method, exchange.getRequest().getPath(), count, profile.origins(shape), shape));
+        }
+        if (log.isDebugEnabled() && profile.count() > 0) {
+            StringBuilder lines = new StringBuilder();
+            profile.statements().forEach(statement -> lines.append(String.format("%n%6d ms %6d rows  %s  %s",
+                    statement.duration().toMillis(), statement.rows(), statement.origin(), statement.shape())));
+            log.debug("{} {} ran {} statements:{}", method, exchange.getRequest().getPath(), profile.count(), lines);
+        }
+    }
+
+    // Route template rather than the raw path, keeps the tag cardinality bounded
+    private static String endpoint(ServerWebExchange exchange) {
+        PathPattern pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.getPatternString() : "UNKNOWN";
+    }
+}
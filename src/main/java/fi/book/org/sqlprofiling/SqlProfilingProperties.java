@@ -0,0 +1,17 @@
+package fi.book.org.sqlprofiling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "sql-profiling")
+public class SqlProfilingProperties {
+    private boolean enabled = true;
+    // Statements at or above this latency get a slow-query log line
+    private Duration slowQueryThreshold = Duration.ofMillis(200);
+    // A request running the same statement shape more often than this is flagged as a likely N+1
+    private int repeatedStatementThreshold = 10;
+}
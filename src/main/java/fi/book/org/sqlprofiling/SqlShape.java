@@ -0,0 +1,26 @@
+package fi.book.org.sqlprofiling;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL to its shape so executions that only differ in literals, bind markers or IN list lengths
+ * count as the same statement.
+ */
+final class SqlShape {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern BIND_MARKER = Pattern.compile("(?:\\$\\d+|:\\w+|\\?)");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SqlShape() {
+    }
+
+    static String of(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = BIND_MARKER.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("IN (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").strip();
+    }
+}
@@ -0,0 +1,39 @@
+package fi.book.org.sqlprofiling;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import reactor.util.context.ContextView;
+
+/**
+ * Tracks one running statement until its rows have been consumed, then hands it to the {@link SqlProfiler} once.
+ */
+final class StatementExecution {
+    private final SqlProfiler profiler;
+    private final ContextView context;
+    private final String shape;
+    private final String origin;
+    private final long startNanos;
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    StatementExecution(SqlProfiler profiler, ContextView context, String shape, String origin, long startNanos) {
+        this.profiler = profiler;
+        this.context = context;
+        this.shape = shape;
+        this.origin = origin;
+        this.startNanos = startNanos;
+    }
+
+    void addRows(long count) {
+        rows.addAndGet(count);
+    }
+
+    void finish(boolean success) {
+        if (finished.compareAndSet(false, true)) {
+            profiler.record(context, new ExecutedStatement(shape, origin,
+                    Duration.ofNanos(System.nanoTime() - startNanos), rows.get(), success));
+        }
+    }
+}
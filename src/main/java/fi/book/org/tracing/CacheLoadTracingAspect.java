@@ -0,0 +1,62 @@
+package fi.book.org.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Inside the caching interceptor, so only cache misses get here: adds a {@code cache.load} span below the
+ * method's span. The cache lookup itself is the method span minus this one.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class CacheLoadTracingAspect {
+
+    private final ObservationRegistry observationRegistry;
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object observeLoad(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String methodName = joinPoint.getSignature().getName();
+        if (result instanceof Mono<?> mono) {
+            return Mono.deferContextual(context -> {
+                Observation observation = start(className, methodName, context);
+                return mono.doOnError(observation::error)
+                        .doFinally(signal -> observation.stop())
+                        .contextWrite(inner -> inner.put(ObservationThreadLocalAccessor.KEY, observation));
+            });
+        } else if (result instanceof Flux<?> flux) {
+            return Flux.deferContextual(context -> {
+                Observation observation = start(className, methodName, context);
+                return flux.doOnError(observation::error)
+                        .doFinally(signal -> observation.stop())
+                        .contextWrite(inner -> inner.put(ObservationThreadLocalAccessor.KEY, observation));
+            });
+        }
+        return result;
+    }
+
+    private Observation start(String className, String methodName, ContextView context) {
+        return Observation.createNotStarted(TracingAspect.OBSERVATION, observationRegistry)
+                .contextualName("cache.load " + className + "." + methodName)
+                .lowCardinalityKeyValue("layer", "cache")
+                .lowCardinalityKeyValue("class", className)
+                .lowCardinalityKeyValue("method", methodName)
+                .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+                .start();
+    }
+}
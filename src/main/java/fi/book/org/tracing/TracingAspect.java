@@ -0,0 +1,106 @@
+package fi.book.org.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fi.book.org.metrics.CacheProbe;
+import fi.book.org.repository.RepositoryMethods;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * One {@value #OBSERVATION} observation, i.e. one span, per reactive controller handler, service method and
+ * repository call, named {@code Class.method}. The parent comes from the subscriber {@code Context} (the HTTP
+ * server observation for handlers) and the observation goes back into it, so everything subscribed inside nests
+ * below, across thread hops. Runs inside MethodMetricsAspect and outside the caching interceptor: spans of
+ * {@code @Cacheable} methods carry {@code cache=hit|miss} and only have children on a miss.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class TracingAspect {
+
+    static final String OBSERVATION = "app.trace";
+
+    private final ObservationRegistry observationRegistry;
+    private final Map<Method, Map<Class<?>, Meta>> metas = new ConcurrentHashMap<>();
+
+    @Around("(within(fi.book.org.controller..*) && execution(public * *(..))) "
+            + "|| execution(public * fi.book.org.services..*(..)) "
+            + "|| fi.book.org.repository.RepositoryMethods.call()")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        Object result = joinPoint.proceed();
+        if (result instanceof Mono<?> mono) {
+            Meta meta = meta(joinPoint);
+            return Mono.deferContextual(context -> {
+                Observation observation = start(meta, context);
+                return mono.doOnError(observation::error)
+                        .doFinally(signal -> stop(observation, meta, context))
+                        .contextWrite(inner -> inner.put(ObservationThreadLocalAccessor.KEY, observation));
+            });
+        } else if (result instanceof Flux<?> flux) {
+            Meta meta = meta(joinPoint);
+            return Flux.deferContextual(context -> {
+                Observation observation = start(meta, context);
+                return flux.doOnError(observation::error)
+                        .doFinally(signal -> stop(observation, meta, context))
+                        .contextWrite(inner -> inner.put(ObservationThreadLocalAccessor.KEY, observation));
+            });
+        }
+        return result;
+    }
+
+    private Observation start(Meta meta, ContextView context) {
+        return Observation.createNotStarted(OBSERVATION, observationRegistry)
+                .contextualName(meta.spanName())
+                .lowCardinalityKeyValue("layer", meta.layer())
+                .lowCardinalityKeyValue("class", meta.className())
+                .lowCardinalityKeyValue("method", meta.methodName())
+                .parentObservation(context.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
+                .start();
+    }
+
+    private static void stop(Observation observation, Meta meta, ContextView context) {
+        if (meta.cacheable()) {
+            context.<CacheProbe>getOrEmpty(CacheProbe.class)
+                    .ifPresent(probe -> observation.lowCardinalityKeyValue("cache", probe.result()));
+        }
+        observation.stop();
+    }
+
+    private Meta meta(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return metas.computeIfAbsent(method, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(joinPoint.getThis().getClass(), type -> {
+                    Class<?> owner = RepositoryMethods.owner(type, method);
+                    String layer = RepositoryMethods.isRepository(owner) ? "repository"
+                            : owner.getPackageName().startsWith("fi.book.org.controller") ? "controller"
+                            : "service";
+                    return new Meta(layer, owner.getSimpleName(), method.getName(),
+                            AnnotatedElementUtils.hasAnnotation(method, Cacheable.class));
+                });
+    }
+
+    private record Meta(String layer, String className, String methodName, boolean cacheable) {
+        String spanName() {
+            return className + "." + methodName;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package fi.book.org.tracing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Local span exporters, picked with {@code tracing.exporter}. Spring Boot hands every {@code SpanExporter} bean
+ * to the OpenTelemetry batch span processor, so they combine with the OTLP one and any other exporter bean.
+ */
+@Configuration
+public class TracingExporterConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "memory")
+    public InMemorySpanExporter inMemorySpanExporter(TracingProperties properties) {
+        return new InMemorySpanExporter(properties.getMemoryCapacity());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "file")
+    public FileSpanExporter fileSpanExporter(TracingProperties properties) throws IOException {
+        return new FileSpanExporter(properties.getFile());
+    }
+}
@@ -0,0 +1,18 @@
+package fi.book.org.tracing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "tracing")
+public class TracingProperties {
+    // none, memory or file; OTLP export is on whenever management.otlp.tracing.endpoint is set
+    private String exporter = "none";
+    // JSON lines target of the file exporter
+    private Path file = Path.of("logs/spans.jsonl");
+    // Most recent spans kept by the in-memory exporter
+    private int memoryCapacity = 10_000;
+}
@@ -0,0 +1,227 @@
+package fi.book.org.writebehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-size, memory-mapped write-ahead log of buffered inventory writes. Not thread-safe, the owning
+ * {@link InventoryWriteBehind} serializes access.
+ *
+ * <p>Layout: a 16 byte header ({@code magic}, {@code version}, {@code checkpoint}) followed by 40 byte records
+ * ({@code sequence}, ISBN as two longs, {@code bookstoreId}, {@code copies}, CRC32C of the preceding 36 bytes).
+ * Writes to the mapping survive a crash of the process; {@code force} additionally syncs every append to disk so
+ * they survive a crash of the machine. Records at or below the checkpoint sequence are already in the database,
+ * their slots are free again: the records form a ring that the tail wraps around, so every checkpoint truncates the
+ * log up to it without rewriting anything. Sequences only grow, replay orders the records by them.
+ */
+class InventoryWal implements Closeable {
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 40;
+    private static final int MAGIC = 0x494E5657; // "INVW"
+    private static final int VERSION = 1;
+    private static final int CHECKPOINT_OFFSET = 8;
+
+    private final Path file;
+    private final int capacity;
+    private final int end;
+    private final boolean force;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long checkpoint;
+    private long lastSequence;
+
+    InventoryWal(Path file, int size, boolean force) {
+        this.file = file;
+        this.capacity = (size - HEADER_SIZE) / RECORD_SIZE;
+        this.end = HEADER_SIZE + capacity * RECORD_SIZE;
+        this.force = force;
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Write-behind log of " + size + " bytes holds no record");
+        }
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-behind log " + file, e);
+        }
+    }
+
+    /**
+     * Records not yet checkpointed, oldest first. Leaves the log positioned after the newest valid record.
+     */
+    List<PendingWrite> replay() {
+        List<PendingWrite> pending = new ArrayList<>();
+        int tail = HEADER_SIZE;
+        for (int slot = HEADER_SIZE; slot < end; slot += RECORD_SIZE) {
+            PendingWrite write = read(slot);
+            if (write == null) {
+                continue;
+            }
+            if (write.sequence() > lastSequence) {
+                lastSequence = write.sequence();
+                tail = slot + RECORD_SIZE;
+            }
+            if (write.sequence() > checkpoint) {
+                pending.add(write);
+            }
+        }
+        buffer.position(tail);
+        pending.sort(Comparator.comparingLong(PendingWrite::sequence));
+        return pending;
+    }
+
+    /**
+     * Whether the slot at the tail is free: never written, torn, or holding a checkpointed record.
+     */
+    boolean hasRoom() {
+        PendingWrite current = read(nextSlot());
+        return current == null || current.sequence() <= checkpoint;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    long checkpoint() {
+        return checkpoint;
+    }
+
+    PendingWrite append(UUID isbn, Long bookstoreId, int copies) {
+        PendingWrite write = new PendingWrite(isbn, bookstoreId, copies, lastSequence + 1);
+        buffer.position(nextSlot());
+        write(write);
+        lastSequence = write.sequence();
+        if (force) {
+            buffer.force();
+        }
+        return write;
+    }
+
+    /**
+     * Everything up to {@code sequence} is in the database.
+     */
+    void checkpoint(long sequence) {
+        checkpoint = sequence;
+        buffer.putLong(CHECKPOINT_OFFSET, sequence);
+        if (force) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Writes the given still-pending writes into a new file next to this log, for {@link #replaceWith}. Touches
+     * nothing of this log, so the owner can keep appending to it meanwhile.
+     */
+    Path writeCompacted(Collection<PendingWrite> live, long checkpoint) {
+        if (live.size() > capacity) {
+            throw new IllegalStateException("Write-behind log cannot hold " + live.size() + " pending writes");
+        }
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(compacted);
+            try (InventoryWal target = new InventoryWal(compacted, end, false)) {
+                target.checkpoint(checkpoint);
+                live.forEach(target::write);
+                target.buffer.force();
+            }
+            return compacted;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact write-behind log " + file, e);
+        }
+    }
+
+    /**
+     * Replaces this log with one from {@link #writeCompacted} holding {@code records} records, then appends the
+     * writes that came in while it was written. The file is swapped by an atomic move, so a crash leaves either the
+     * old or the new log intact.
+     */
+    void replaceWith(Path compacted, int records, Collection<PendingWrite> appendedSince) {
+        if (records + appendedSince.size() > capacity) {
+            throw new IllegalStateException("Write-behind log cannot hold " + (records + appendedSince.size()) + " pending writes");
+        }
+        try {
+            channel.close();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long current = checkpoint;
+            open(file);
+            checkpoint(current);
+            buffer.position(HEADER_SIZE + records * RECORD_SIZE);
+            appendedSince.forEach(this::write);
+            if (force) {
+                buffer.force();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact write-behind log " + file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void open(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(CHECKPOINT_OFFSET, 0);
+        } else if (buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Unsupported write-behind log version " + buffer.getInt(4) + " in " + path);
+        }
+        checkpoint = buffer.getLong(CHECKPOINT_OFFSET);
+        lastSequence = Math.max(lastSequence, checkpoint);
+        buffer.position(HEADER_SIZE);
+    }
+
+    private void write(PendingWrite write) {
+        int start = buffer.position();
+        buffer.putLong(write.sequence())
+                .putLong(write.isbn().getMostSignificantBits())
+                .putLong(write.isbn().getLeastSignificantBits())
+                .putLong(write.bookstoreId())
+                .putInt(write.copies())
+                .putInt(crc(start));
+    }
+
+    // The tail wraps to the first slot at the end of the file
+    private int nextSlot() {
+        return buffer.position() == end ? HEADER_SIZE : buffer.position();
+    }
+
+    // Null for a torn or never written record
+    private PendingWrite read(int start) {
+        long sequence = buffer.getLong(start);
+        UUID isbn = new UUID(buffer.getLong(start + 8), buffer.getLong(start + 16));
+        long bookstoreId = buffer.getLong(start + 24);
+        int copies = buffer.getInt(start + 32);
+        int crc = buffer.getInt(start + 36);
+        if (sequence <= 0 || crc != crc(start)) {
+            return null;
+        }
+        return new PendingWrite(isbn, bookstoreId, copies, sequence);
+    }
+
+    private int crc(int start) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start, RECORD_SIZE - Integer.BYTES));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,340 @@
+package fi.book.org.writebehind;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import fi.book.org.dto.InventoryDto;
+import fi.book.org.dto.InventoryUpdateDto;
+import fi.book.org.exception.BookstoreNotFoundException;
+import fi.book.org.exception.WriteBufferFullException;
+import fi.book.org.repository.BookstoreRepository;
+import fi.book.org.repository.InventoryRepository;
+import fi.book.org.reservation.ReservedStock;
+import fi.book.org.services.OutboxService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Optional write-behind for unconditional inventory updates ({@code inventory.write-behind.enabled}). A write is
+ * appended to the {@link InventoryWal}, kept in memory where reads by ISBN see it, and answered right away.
+ * A scheduled flush then applies everything buffered in one transaction, three batched statements per chunk of
+ * rows: lock or create the rows, append their adjustments to the ledger, record one change event per row. Repeated
+ * writes to the same row in between coalesce into the last one. A write below the copies held by reservations,
+ * which a direct write would be refused for, is dropped with a warning. The log is checkpointed after the commit,
+ * which frees its records for new writes, and replayed on startup, so a crash loses no acknowledged write. A write
+ * between a commit and its checkpoint is applied twice, which is harmless for absolute copy counts but repeats its
+ * event.
+ */
+@Slf4j
+@Component
+public class InventoryWriteBehind {
+    static final String PENDING_METRIC = "inventory.write_behind.pending";
+    // Aggregated over the table, so they only change once a flush lands
+    private static final List<String> AGGREGATE_CACHES = List.of("copiesByTitle", "copiesByAuthor");
+
+    private final WriteBehindProperties properties;
+    private final InventoryRepository inventoryRepository;
+    private final BookstoreRepository bookstoreRepository;
+    private final OutboxService outboxService;
+    private final CacheManager cacheManager;
+    private final TransactionalOperator flushTransaction;
+    private final Set<Long> knownBookstores = ConcurrentHashMap.newKeySet();
+    private final InventoryWal wal;
+    // Held across a whole compaction, which only takes this for its snapshot and the swap
+    private final Object compactionLock = new Object();
+
+    // Guarded by this: writes not yet handed to a flush, and the ones the running flush is applying, by ISBN and bookstore
+    private Map<UUID, Map<Long, PendingWrite>> pending = new HashMap<>();
+    private Map<UUID, Map<Long, PendingWrite>> flushing = Map.of();
+    private int pendingCount;
+    private Mono<Integer> lastFlush = Mono.just(0);
+
+    public InventoryWriteBehind(WriteBehindProperties properties, InventoryRepository inventoryRepository,
+                                BookstoreRepository bookstoreRepository, OutboxService outboxService,
+                                CacheManager cacheManager, ReactiveTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.inventoryRepository = inventoryRepository;
+        this.bookstoreRepository = bookstoreRepository;
+        this.outboxService = outboxService;
+        this.cacheManager = cacheManager;
+        // A flush triggered from inside a caller's transaction must still commit, and be checkpointed, on its own
+        this.flushTransaction = TransactionalOperator.create(transactionManager,
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        this.wal = properties.isEnabled()
+                ? new InventoryWal(properties.getWal(), (int) properties.getWalSize().toBytes(), properties.isForce())
+                : null;
+        if (wal != null) {
+            List<PendingWrite> replayed = wal.replay();
+            replayed.forEach(this::buffer);
+            if (!replayed.isEmpty()) {
+                log.warn("Replaying {} inventory writes from {} that were not flushed before shutdown",
+                        replayed.size(), properties.getWal());
+            }
+            Gauge.builder(PENDING_METRIC, this, InventoryWriteBehind::pendingCount)
+                    .description("Inventory writes acknowledged but not yet in the database")
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return wal != null;
+    }
+
+    /**
+     * Buffers {@code copies} for the row, creating it on flush when it does not exist yet.
+     */
+    public Mono<Void> write(UUID isbn, Long bookstoreId, int copies) {
+        return requireBookstore(bookstoreId).then(Mono.fromRunnable(() -> append(isbn, bookstoreId, copies)));
+    }
+
+    /**
+     * {@code rows} as stored for {@code isbn}, with the buffered writes applied on top.
+     */
+    public List<InventoryDto> overlay(UUID isbn, List<InventoryDto> rows) {
+        Map<Long, PendingWrite> writes = new HashMap<>();
+        synchronized (this) {
+            writes.putAll(flushing.getOrDefault(isbn, Map.of()));
+            writes.putAll(pending.getOrDefault(isbn, Map.of()));
+        }
+        if (writes.isEmpty()) {
+            return rows;
+        }
+        List<InventoryDto> merged = new ArrayList<>(rows.size() + writes.size());
+        for (InventoryDto row : rows) {
+            PendingWrite write = writes.remove(row.getBookstoreId());
+            merged.add(write == null ? row : InventoryDto.builder()
+                    .id(row.getId())
+                    .copies(write.copies())
+                    .bookstoreId(row.getBookstoreId())
+                    .version(row.getVersion())
+                    .build());
+        }
+        writes.values().forEach(write -> merged.add(InventoryDto.builder()
+                .id(isbn)
+                .copies(write.copies())
+                .bookstoreId(write.bookstoreId())
+                .build()));
+        return merged;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.write-behind.flush-interval-ms:200}")
+    public void scheduledFlush() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            Integer flushed = flush().block();
+            if (flushed != null && flushed > 0) {
+                log.debug("Flushed {} buffered inventory writes", flushed);
+            }
+        } catch (RuntimeException e) {
+            // The writes went back into the buffer and stay in the log, the next run retries them
+            log.warn("Inventory write-behind flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies everything buffered so far. Flushes run one at a time, each after the previous one finished, so
+     * callers about to write the inventory table directly can wait for this to keep the writes in order.
+     */
+    public synchronized Mono<Integer> flush() {
+        if (!isEnabled()) {
+            return Mono.just(0);
+        }
+        Mono<Integer> next = lastFlush.onErrorResume(e -> Mono.empty())
+                .then(Mono.defer(this::flushBuffered))
+                .cache();
+        lastFlush = next;
+        return next;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            flush().block(properties.getShutdownTimeout());
+        } catch (RuntimeException e) {
+            log.warn("Inventory writes left unflushed on shutdown, they are replayed on the next start: {}", e.getMessage());
+        }
+        synchronized (this) {
+            wal.close();
+        }
+    }
+
+    synchronized int pendingCount() {
+        return pendingCount + flushing.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private Mono<Void> requireBookstore(Long bookstoreId) {
+        // Bookstores are practically never deleted; checking each once keeps bursts off the bookstore table
+        if (knownBookstores.contains(bookstoreId)) {
+            return Mono.empty();
+        }
+        return bookstoreRepository.existsById(bookstoreId)
+                .flatMap(exists -> {
+                    if (!exists) {
+                        return Mono.error(new BookstoreNotFoundException("Bookstore with ID " + bookstoreId + " not found."));
+                    }
+                    knownBookstores.add(bookstoreId);
+                    return Mono.empty();
+                });
+    }
+
+    private void append(UUID isbn, Long bookstoreId, int copies) {
+        if (tryAppend(isbn, bookstoreId, copies)) {
+            return;
+        }
+        compact();
+        if (!tryAppend(isbn, bookstoreId, copies)) {
+            throw new WriteBufferFullException(pendingCount());
+        }
+    }
+
+    private synchronized boolean tryAppend(UUID isbn, Long bookstoreId, int copies) {
+        if (!wal.hasRoom()) {
+            return false;
+        }
+        buffer(wal.append(isbn, bookstoreId, copies));
+        return true;
+    }
+
+    // Rewrites the log to the writes still pending. Writers and flushes keep going while the new file is written.
+    private void compact() {
+        synchronized (compactionLock) {
+            List<PendingWrite> live;
+            long checkpoint;
+            synchronized (this) {
+                if (wal.hasRoom()) {
+                    // Compacted by the writer before us, or a flush freed records meanwhile
+                    return;
+                }
+                live = liveWrites();
+                checkpoint = wal.checkpoint();
+            }
+            if (live.size() >= wal.capacity()) {
+                throw new WriteBufferFullException(live.size());
+            }
+            long compactedUpTo = live.isEmpty() ? checkpoint : live.get(live.size() - 1).sequence();
+            Path compacted = wal.writeCompacted(live, checkpoint);
+            synchronized (this) {
+                List<PendingWrite> since = liveWrites().stream()
+                        .filter(write -> write.sequence() > compactedUpTo)
+                        .toList();
+                if (live.size() + since.size() >= wal.capacity()) {
+                    throw new WriteBufferFullException(live.size() + since.size());
+                }
+                wal.replaceWith(compacted, live.size(), since);
+            }
+            log.info("Compacted inventory write-behind log to {} pending writes", live.size());
+        }
+    }
+
+    // Guarded by this: the newest write per row, buffered or being flushed, oldest first
+    private List<PendingWrite> liveWrites() {
+        Map<PendingWrite.Key, PendingWrite> live = new HashMap<>();
+        flushing.values().forEach(writes -> writes.values().forEach(write -> live.put(write.key(), write)));
+        pending.values().forEach(writes -> writes.values().forEach(write -> live.merge(write.key(), write, InventoryWriteBehind::newer)));
+        return live.values().stream().sorted(Comparator.comparingLong(PendingWrite::sequence)).toList();
+    }
+
+    private synchronized void buffer(PendingWrite write) {
+        Map<Long, PendingWrite> writes = pending.computeIfAbsent(write.isbn(), isbn -> new HashMap<>());
+        PendingWrite current = writes.get(write.bookstoreId());
+        if (current == null) {
+            pendingCount++;
+        }
+        writes.put(write.bookstoreId(), current == null ? write : newer(current, write));
+    }
+
+    private Mono<Integer> flushBuffered() {
+        List<PendingWrite> batch = drain();
+        if (batch.isEmpty()) {
+            return Mono.just(0);
+        }
+        long upTo = batch.stream().mapToLong(PendingWrite::sequence).max().orElseThrow();
+        return Flux.fromIterable(batch)
+                .map(write -> InventoryUpdateDto.builder()
+                        .isbn(write.isbn())
+                        .bookstoreId(write.bookstoreId())
+                        .copies(write.copies())
+                        .build())
+                .buffer(properties.getBatchSize())
+                .concatMap(chunk -> inventoryRepository.lockOrCreate(chunk)
+                        .then(inventoryRepository.findReserved(ReservedStock.isbns(chunk), ReservedStock.bookstoreIds(chunk)).collectList())
+                        .flatMap(reserved -> apply(chunk, ReservedStock.below(chunk, reserved))))
+                .then()
+                .as(flushTransaction::transactional)
+                .doOnSuccess(ignored -> flushed(upTo))
+                .doOnError(e -> requeue(batch))
+                .thenReturn(batch.size());
+    }
+
+    private Mono<Void> apply(List<InventoryUpdateDto> chunk, List<InventoryUpdateDto> belowReserved) {
+        List<InventoryUpdateDto> applicable = chunk;
+        if (!belowReserved.isEmpty()) {
+            // Rejected with 409 when written directly; this write was acknowledged already, so it can only be dropped
+            belowReserved.forEach(update -> log.warn("Dropping buffered write of {} copies of {} in bookstore {}, reservations hold more",
+                    update.getCopies(), update.getIsbn(), update.getBookstoreId()));
+            applicable = chunk.stream().filter(update -> !belowReserved.contains(update)).toList();
+            if (applicable.isEmpty()) {
+                return Mono.empty();
+            }
+        }
+        return inventoryRepository.appendAdjustments(applicable)
+                .then(outboxService.recordInventoryUpdates(applicable));
+    }
+
+    private synchronized List<PendingWrite> drain() {
+        List<PendingWrite> batch = new ArrayList<>(pendingCount);
+        pending.values().forEach(writes -> batch.addAll(writes.values()));
+        flushing = pending;
+        pending = new HashMap<>();
+        pendingCount = 0;
+        return batch;
+    }
+
+    private synchronized void flushed(long upTo) {
+        flushing = Map.of();
+        // Frees the records of the flushed writes for new ones
+        wal.checkpoint(upTo);
+        AGGREGATE_CACHES.stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .forEach(Cache::clear);
+    }
+
+    private synchronized void requeue(List<PendingWrite> batch) {
+        flushing = Map.of();
+        // Writes that arrived during the failed flush are newer and stay
+        batch.forEach(this::buffer);
+    }
+
+    private static PendingWrite newer(PendingWrite current, PendingWrite candidate) {
+        return candidate.sequence() > current.sequence() ? candidate : current;
+    }
+}
@@ -0,0 +1,17 @@
+package fi.book.org.writebehind;
+
+import java.util.UUID;
+
+/**
+ * A buffered {@code copies} value for one inventory row. {@code sequence} orders writes across the log and the
+ * buffer: the higher one wins.
+ */
+record PendingWrite(UUID isbn, Long bookstoreId, int copies, long sequence) {
+
+    Key key() {
+        return new Key(isbn, bookstoreId);
+    }
+
+    record Key(UUID isbn, Long bookstoreId) {
+    }
+}
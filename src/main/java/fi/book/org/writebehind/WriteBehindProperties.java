@@ -0,0 +1,24 @@
+package fi.book.org.writebehind;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "inventory.write-behind")
+public class WriteBehindProperties {
+    private boolean enabled = false;
+    private Path wal = Path.of("db/inventory-write-behind.wal");
+    // Mapped up front; 1MB holds about 26 000 writes not yet flushed
+    private DataSize walSize = DataSize.ofMegabytes(16);
+    // fsync every append: survives power loss, not just a crashed process, at the cost of a disk flush per write
+    private boolean force = false;
+    // Upper bound for the rows bound into one batched statement during a flush
+    private int batchSize = 500;
+    // How long a flush may take on shutdown before the remaining writes are left to the next startup's replay
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,6 @@
+-- Optimistic locking: every row carries a version that is bumped by each update
+ALTER TABLE books
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE inventory
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- Transactional outbox: change events written in the same transaction as the mutation they describe
+CREATE TABLE outbox_events
+(
+    id             BIGINT PRIMARY KEY AUTO_INCREMENT,
+    aggregate_type VARCHAR(32) NOT NULL,
+    aggregate_id   VARCHAR(36) NOT NULL,
+    bookstore_id   BIGINT,
+    event_type     VARCHAR(32) NOT NULL,
+    payload        VARCHAR(1024),
+    created_at     TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at   TIMESTAMP
+);
+
+-- The relay only ever scans unpublished rows in id order
+CREATE INDEX idx_outbox_events_pending ON outbox_events (published_at, id);
@@ -0,0 +1,2 @@
+-- Partition-local access: every inventory query routed to a partition filters on bookstore_id first
+CREATE INDEX idx_inventory_bookstore_id ON inventory (bookstore_id, id);
@@ -0,0 +1,31 @@
+-- Append-only history of every stock change; quantity is signed (receipts add, sales and outgoing transfers subtract)
+CREATE TABLE inventory_movements
+(
+    id            BIGINT PRIMARY KEY AUTO_INCREMENT,
+    isbn          VARCHAR(36) NOT NULL,
+    bookstore_id  BIGINT      NOT NULL,
+    movement_type VARCHAR(16) NOT NULL,
+    quantity      INTEGER     NOT NULL,
+    reference     VARCHAR(64),
+    occurred_at   TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_inventory_movements_bookstore FOREIGN KEY (bookstore_id) REFERENCES bookstore (id)
+);
+
+-- Balances and history are always read for one (isbn, bookstore) row, newest movements last
+CREATE INDEX idx_inventory_movements_row ON inventory_movements (isbn, bookstore_id, id);
+
+-- Balance of a row after every movement up to last_movement_id; as_of is the time of that movement
+CREATE TABLE inventory_snapshots
+(
+    isbn             VARCHAR(36) NOT NULL,
+    bookstore_id     BIGINT      NOT NULL,
+    last_movement_id BIGINT      NOT NULL,
+    balance          INTEGER     NOT NULL,
+    as_of            TIMESTAMP   NOT NULL,
+    PRIMARY KEY (isbn, bookstore_id, last_movement_id)
+);
+
+-- Opening balances, so the ledger adds up to the copies already on hand
+INSERT INTO inventory_movements (isbn, bookstore_id, movement_type, quantity, reference)
+SELECT id, bookstore_id, 'ADJUSTMENT', copies, 'opening-balance'
+FROM inventory;
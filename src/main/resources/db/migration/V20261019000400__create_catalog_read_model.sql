@@ -0,0 +1,15 @@
+-- Denormalized book and stock rows for GET /api/v1/catalog/{isbn}, rebuilt from change events by CatalogProjector.
+-- copies_by_store is a JSON object of bookstore id to copies; every read is a primary key lookup.
+CREATE TABLE catalog_read_model
+(
+    isbn            VARCHAR(36)    NOT NULL,
+    title           VARCHAR(128)   NOT NULL,
+    author          VARCHAR(64)    NOT NULL,
+    price           DECIMAL(10, 2) NOT NULL,
+    bookstore_id    BIGINT,
+    book_version    BIGINT,
+    copies_by_store VARCHAR(4096)  NOT NULL,
+    total_copies    INTEGER        NOT NULL,
+    updated_at      TIMESTAMP      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (isbn)
+);
@@ -0,0 +1,22 @@
+-- Copies of the row held by unconfirmed reservations; copies - reserved is what can still be reserved or sold.
+-- Only ever changed relatively by the reservation statements, the Inventory entity does not map it.
+ALTER TABLE inventory ADD COLUMN reserved INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE inventory ADD CONSTRAINT chk_inventory_reserved CHECK (reserved >= 0);
+
+-- Checkout holds. HELD counts towards inventory.reserved until it is CONFIRMED (sold), RELEASED or EXPIRED.
+CREATE TABLE stock_reservations
+(
+    id           VARCHAR(36) NOT NULL,
+    isbn         VARCHAR(36) NOT NULL,
+    bookstore_id BIGINT      NOT NULL,
+    quantity     INTEGER     NOT NULL,
+    owner        VARCHAR(64) NOT NULL,
+    status       VARCHAR(16) NOT NULL,
+    created_at   TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at   TIMESTAMP   NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_stock_reservations_bookstore FOREIGN KEY (bookstore_id) REFERENCES bookstore (id)
+);
+
+-- The expiry sweep looks for holds past their deadline
+CREATE INDEX idx_stock_reservations_expiry ON stock_reservations (status, expires_at);
@@ -0,0 +1,44 @@
+-- The movements become the write model. inventory.copies is the balance folded up to the row's snapshot_seq; a
+-- movement carries the seq it was folded into, NULL until then. Changes only append movements, the snapshotter folds.
+ALTER TABLE inventory ADD COLUMN snapshot_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE inventory_movements ADD COLUMN snapshot_seq BIGINT;
+
+-- Every movement so far was also applied to its row, so the rows already hold the whole ledger
+UPDATE inventory SET snapshot_seq = 1;
+UPDATE inventory_movements SET snapshot_seq = 1;
+
+-- Unfolded movements of one row, summed on every read of it
+CREATE INDEX idx_inventory_movements_unfolded ON inventory_movements (isbn, bookstore_id, snapshot_seq);
+-- Rows with enough unfolded movements to fold, found without scanning the folded history
+CREATE INDEX idx_inventory_movements_fold ON inventory_movements (snapshot_seq, isbn, bookstore_id);
+
+-- Balance of a row once fold seq was taken; as_of is the latest movement time it covers
+DROP TABLE inventory_snapshots;
+CREATE TABLE inventory_snapshots
+(
+    isbn         VARCHAR(36) NOT NULL,
+    bookstore_id BIGINT      NOT NULL,
+    seq          BIGINT      NOT NULL,
+    balance      INTEGER     NOT NULL,
+    as_of        TIMESTAMP   NOT NULL,
+    PRIMARY KEY (isbn, bookstore_id, seq)
+);
+
+INSERT INTO inventory_snapshots (isbn, bookstore_id, seq, balance, as_of)
+SELECT i.id, i.bookstore_id, 1, i.copies,
+       COALESCE((SELECT MAX(m.occurred_at) FROM inventory_movements m
+                 WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id), CURRENT_TIMESTAMP)
+FROM inventory i;
+
+-- Current stock: the folded balance plus the committed movements not folded yet. Every unfolded movement also
+-- counts as one version, so the version changes with each change of the row without the row being written.
+CREATE VIEW inventory_stock AS
+SELECT i.id,
+       i.bookstore_id,
+       CAST(i.copies + COALESCE((SELECT SUM(m.quantity) FROM inventory_movements m
+                                 WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id
+                                   AND m.snapshot_seq IS NULL), 0) AS INTEGER) AS copies,
+       i.version + (SELECT COUNT(*) FROM inventory_movements m
+                    WHERE m.isbn = i.id AND m.bookstore_id = i.bookstore_id AND m.snapshot_seq IS NULL) AS version,
+       i.reserved
+FROM inventory i;
@@ -0,0 +1,157 @@
+package fi.book.org.allocation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import fi.book.org.BookApplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.PER_CLASS;
+
+/**
+ * Bytes allocated per request on the server threads for the hot endpoints, checked against the budgets in
+ * allocation-budgets.properties. Runs an embedded instance on an in-memory database and drives it sequentially
+ * with the JDK client, whose threads are not counted, so nothing but the request under test allocates on the
+ * measured threads. Steady state: warmed up, caches hot.
+ *
+ * <p>Only run by {@code ./gradlew allocationTest}; {@code -Pallocation.update} rewrites the budgets from the
+ * measured values plus {@value #HEADROOM_PERCENT}% headroom.
+ */
+@Tag("allocation")
+@TestInstance(PER_CLASS)
+class AllocationBudgetTest {
+
+    private static final String BUDGETS = "allocation-budgets.properties";
+    private static final int WARMUP_REQUESTS = 300;
+    private static final int MEASURED_REQUESTS = 500;
+    private static final int HEADROOM_PERCENT = 20;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AllocationMeter meter = new AllocationMeter();
+    private final Properties budgets = new Properties();
+    private final Properties measured = new Properties();
+    private ConfigurableApplicationContext application;
+    private String baseUrl;
+    private String token;
+    private JsonNode book;
+
+    @BeforeAll
+    void startApplication() throws IOException, InterruptedException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(BUDGETS)) {
+            budgets.load(in);
+        }
+        application = new SpringApplicationBuilder(BookApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.r2dbc.url=r2dbc:h2:mem:///allocation;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+                        "spring.datasource.url=jdbc:h2:mem:allocation;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+                        "spring.flyway.url=jdbc:h2:mem:allocation;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+                        "rate-limit.enabled=false",
+                        "outbox.sinks.log.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.zalando.logbook=OFF",
+                        "logging.level.org.springframework.r2dbc=WARN",
+                        "logging.level.org.springframework.security=WARN",
+                        "logging.level.org.flywaydb=WARN")
+                .run();
+        baseUrl = "http://localhost:" + ((ReactiveWebServerApplicationContext) application).getWebServer().getPort();
+        token = mapper.readTree(send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"user\",\"password\":\"user123\"}"))
+                        .build()))
+                .path("response").path("token").asText();
+        book = mapper.readTree(send(get("/api/v1/books?size=1"))).path("response").get(0);
+    }
+
+    @AfterAll
+    void stopApplication() throws IOException {
+        if (application != null) {
+            application.close();
+        }
+        String target = System.getProperty("allocation.budgets.file");
+        if (Boolean.getBoolean("allocation.update") && target != null) {
+            try (OutputStream out = Files.newOutputStream(Path.of(target))) {
+                measured.store(out, "Bytes allocated per request on server threads, "
+                        + HEADROOM_PERCENT + "% headroom included. Regenerate: ./gradlew allocationTest -Pallocation.update");
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"book.get", "book.search", "inventory.get", "inventory.search"})
+    void shouldStayWithinAllocationBudget(String endpoint) throws IOException, InterruptedException {
+        HttpRequest request = switch (endpoint) {
+            case "book.get" -> get("/api/v1/books/" + book.path("id").asText());
+            case "book.search" -> get("/api/v1/books?author=" + encode(book.path("author").asText()));
+            case "inventory.get" -> get("/api/v1/inventory/isbn/" + book.path("id").asText() + "/copies");
+            case "inventory.search" -> get("/api/v1/inventory/title/" + encode(book.path("title").asText()) + "/copies");
+            default -> throw new IllegalArgumentException(endpoint);
+        };
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            send(request);
+        }
+
+        Map<Long, Long> before = meter.snapshot();
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            send(request);
+        }
+        long perRequest = AllocationMeter.allocatedBetween(before, meter.snapshot()) / MEASURED_REQUESTS;
+
+        measured.setProperty(endpoint, String.valueOf(perRequest * (100 + HEADROOM_PERCENT) / 100));
+        if (!Boolean.getBoolean("allocation.update")) {
+            // Budgets only mean something measured on the machine that checks them, so a missing one reports instead of failing
+            if (budgets.getProperty(endpoint) == null) {
+                Assumptions.abort(String.format("No budget for %s in %s, measured %,d bytes per request. Record the budgets "
+                        + "with ./gradlew allocationTest -Pallocation.update and commit the file.", endpoint, BUDGETS, perRequest));
+            }
+            assertThat(perRequest).as("bytes allocated per %s request", endpoint)
+                    .isLessThanOrEqualTo(Long.parseLong(budgets.getProperty(endpoint)));
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json")
+                .build();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new UncheckedIOException(new IOException(request.uri() + " answered " + response.statusCode()));
+        }
+        return response.body();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,49 @@
+package fi.book.org.allocation;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bytes allocated by the threads that serve requests: Netty event loops, Reactor schedulers and the common pool
+ * (async Caffeine loads). Counted per thread with {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes},
+ * so threads started between two snapshots count in full. Allocations of threads that die in between are lost,
+ * keep measurements short.
+ */
+final class AllocationMeter {
+
+    private static final List<String> SERVER_THREAD_PREFIXES = List.of(
+            "reactor-http-", "parallel-", "boundedElastic-", "single-", "ForkJoinPool.commonPool-");
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    AllocationMeter() {
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("This JVM does not report per-thread allocations");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    Map<Long, Long> snapshot() {
+        long[] ids = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> SERVER_THREAD_PREFIXES.stream().anyMatch(thread.getName()::startsWith))
+                .mapToLong(Thread::threadId)
+                .toArray();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> snapshot = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (allocated[i] >= 0) {
+                snapshot.put(ids[i], allocated[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    static long allocatedBetween(Map<Long, Long> before, Map<Long, Long> after) {
+        return after.entrySet().stream()
+                .mapToLong(thread -> thread.getValue() - before.getOrDefault(thread.getKey(), 0L))
+                .sum();
+    }
+}
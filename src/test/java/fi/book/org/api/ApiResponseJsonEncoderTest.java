@@ -0,0 +1,71 @@
+package fi.book.org.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import fi.book.org.dto.BookDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApiResponseJsonEncoderTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .serializationInclusion(JsonInclude.Include.NON_EMPTY)
+            .modulesToInstall(new BlackbirdModule())
+            .build();
+
+    private final ApiResponseJsonEncoder encoder = new ApiResponseJsonEncoder(objectMapper);
+
+    @Test
+    void shouldEncodeEnvelopeLikeObjectMapper() throws Exception {
+        BookDto book = BookDto.builder()
+                .id(UUID.randomUUID())
+                .title("Spring Reactive")
+                .author("Josh Long")
+                .price(BigDecimal.valueOf(39.99))
+                .bookstore_id(1001L)
+                .build();
+        ApiResponse<BookDto> response = ApiResponse.ok(book);
+
+        assertThat(encode(response)).isEqualTo(objectMapper.writeValueAsString(response));
+        assertThat(encode(response)).contains("\"bookstore_id\":1001").doesNotContain("version");
+    }
+
+    @Test
+    void shouldEncodePageEnvelopeWithPaginationFields() throws Exception {
+        ApiResponsePage<String> page = ApiResponsePage.okWithPagination(List.of("a", "b"), 2, 1, 0, 20);
+
+        String json = encode(page);
+
+        assertThat(json).isEqualTo(objectMapper.writeValueAsString(page));
+        assertThat(json).contains("\"page_size\":20", "\"total_elements\":2");
+    }
+
+    @Test
+    void shouldDelegateNonEnvelopeValues() throws Exception {
+        List<String> values = List.of("a", "b");
+
+        assertThat(encode(values)).isEqualTo(objectMapper.writeValueAsString(values));
+    }
+
+    private String encode(Object value) {
+        DataBuffer buffer = encoder.encodeValue(value, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(value), MediaType.APPLICATION_JSON, null);
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
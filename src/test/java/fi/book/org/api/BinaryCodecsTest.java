@@ -0,0 +1,117 @@
+package fi.book.org.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import fi.book.org.api.proto.ApiResponseMessage;
+import fi.book.org.dto.BookDto;
+import fi.book.org.dto.InventoryDto;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryCodecsTest {
+
+    private final ObjectMapper jsonMapper = configure(Jackson2ObjectMapperBuilder.json());
+    private final ObjectMapper cborMapper = configure(Jackson2ObjectMapperBuilder.cbor());
+    private final ObjectMapper smileMapper = configure(Jackson2ObjectMapperBuilder.smile());
+
+    private final ApiResponsePage<BookDto> page = ApiResponsePage.okWithPagination(
+            IntStream.range(0, 20).mapToObj(BinaryCodecsTest::book).toList(), 20, 1, 0, 20);
+
+    @Test
+    void shouldEncodeBookPageSmallerThanJson() {
+        int json = size(new Jackson2JsonEncoder(jsonMapper).encodeValue(page, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(page), MediaType.APPLICATION_JSON, null));
+        int cbor = size(new ApiCborEncoder(cborMapper).encodeValue(page, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(page), MediaType.APPLICATION_CBOR, null));
+        int smile = size(new Jackson2SmileEncoder(smileMapper).encodeValue(page, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(page), ApiMediaTypes.APPLICATION_SMILE, null));
+        int protobuf = size(new ApiResponseProtobufEncoder().encodeValue(page, DefaultDataBufferFactory.sharedInstance,
+                ResolvableType.forInstance(page), MediaType.APPLICATION_PROTOBUF, null));
+
+        assertThat(cbor).isLessThan(json);
+        assertThat(smile).isLessThan(json);
+        assertThat(protobuf).isLessThan(cbor);
+    }
+
+    @Test
+    void shouldEncodeFluxOfEnvelopesAsCborArray() throws Exception {
+        UUID isbn = UUID.randomUUID();
+        Flux<ApiResponse<InventoryDto>> responses = Flux.just(
+                ApiResponse.ok(InventoryDto.builder().id(isbn).copies(10).bookstoreId(1001L).build()),
+                ApiResponse.ok(InventoryDto.builder().id(isbn).copies(33).bookstoreId(1002L).build()));
+
+        DataBuffer buffer = DataBufferUtils.join(new ApiCborEncoder(cborMapper).encode(responses,
+                DefaultDataBufferFactory.sharedInstance, ResolvableType.forClass(ApiResponse.class),
+                MediaType.APPLICATION_CBOR, null)).block();
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        JsonNode array = cborMapper.readTree(bytes);
+
+        assertThat(array.isArray()).isTrue();
+        assertThat(array.get(1).get("response").get("bookstore_id").asLong()).isEqualTo(1002L);
+    }
+
+    @Test
+    void shouldMapEnvelopeToProtobufMessage() {
+        ApiResponseMessage message = ApiResponseProtobufEncoder.toMessage(page);
+
+        assertThat(message.getStatusCode()).isEqualTo(200);
+        assertThat(message.getPage().getPageSize()).isEqualTo(20);
+        assertThat(message.getBooks().getBooksCount()).isEqualTo(20);
+        assertThat(message.getBooks().getBooks(0).getPrice()).isEqualTo("29.99");
+        assertThat(message.getBooks().getBooks(0).hasVersion()).isFalse();
+    }
+
+    @Test
+    void shouldDeclineProtobufForBodiesWithoutMessage() {
+        ApiResponseProtobufEncoder encoder = new ApiResponseProtobufEncoder();
+
+        assertThat(encoder.canEncode(ResolvableType.forClassWithGenerics(ApiResponse.class, InventoryDto.class),
+                MediaType.APPLICATION_PROTOBUF)).isTrue();
+        assertThat(encoder.canEncode(ResolvableType.forClassWithGenerics(ApiResponsePage.class, BookDto.class),
+                MediaType.APPLICATION_PROTOBUF)).isTrue();
+        assertThat(encoder.canEncode(ResolvableType.forClassWithGenerics(ApiResponse.class, Integer.class),
+                MediaType.APPLICATION_PROTOBUF)).isFalse();
+        assertThat(encoder.canEncode(ResolvableType.forClassWithGenerics(ApiResponse.class,
+                ResolvableType.forClassWithGenerics(List.class, InventoryDto.class)), MediaType.APPLICATION_PROTOBUF)).isFalse();
+    }
+
+    private static ObjectMapper configure(Jackson2ObjectMapperBuilder builder) {
+        return builder.propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .serializationInclusion(JsonInclude.Include.NON_EMPTY)
+                .build();
+    }
+
+    private static int size(DataBuffer buffer) {
+        return buffer.readableByteCount();
+    }
+
+    private static BookDto book(int index) {
+        return BookDto.builder()
+                .id(UUID.randomUUID())
+                .title("Title" + index)
+                .author("Author" + index)
+                .price(BigDecimal.valueOf(29.99))
+                .bookstore_id(1001L)
+                .build();
+    }
+}
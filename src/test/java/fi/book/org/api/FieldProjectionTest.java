@@ -0,0 +1,43 @@
+package fi.book.org.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import fi.book.org.exception.UnknownFieldException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldProjectionTest {
+
+    private static final Set<String> ALLOWED = Set.of("id", "title", "author", "price");
+    private static final Set<String> REQUIRED = Set.of("id");
+
+    @Test
+    void shouldSelectEverythingWhenNoFieldsGiven() {
+        assertThat(FieldProjection.parse(null, ALLOWED, REQUIRED).isAll()).isTrue();
+        assertThat(FieldProjection.parse(" ", ALLOWED, REQUIRED).isAll()).isTrue();
+    }
+
+    @Test
+    void shouldAlwaysIncludeRequiredFields() {
+
+        var projection = FieldProjection.parse("Title, ,title", ALLOWED, REQUIRED);
+
+
+        assertThat(projection.fields()).containsExactlyInAnyOrder("id", "title");
+    }
+
+    @Test
+    void shouldCollapseToAllWhenEveryFieldRequested() {
+        assertThat(FieldProjection.parse("title,author,price", ALLOWED, REQUIRED)).isEqualTo(FieldProjection.ALL);
+    }
+
+    @Test
+    void shouldRejectUnknownFields() {
+        assertThatThrownBy(() -> FieldProjection.parse("title,isbn", ALLOWED, REQUIRED))
+                .isInstanceOf(UnknownFieldException.class)
+                .hasMessageContaining("isbn");
+    }
+}
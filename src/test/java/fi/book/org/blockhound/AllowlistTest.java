@@ -0,0 +1,52 @@
+package fi.book.org.blockhound;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllowlistTest {
+
+    private final Allowlist allowlist = Allowlist.parse(List.of(
+            "# comment",
+            "",
+            "  org.h2.*  ",
+            "fi.book.org.controller.AuthController#login"));
+
+    @Test
+    void shouldSkipCommentsAndBlankLines() {
+        assertThat(allowlist.patterns()).containsExactly("org.h2.*", "fi.book.org.controller.AuthController#login");
+    }
+
+    @Test
+    void shouldTolerateStackWithMatchingPrefix() {
+        assertThat(allowlist.tolerates(stack("java.io.FileOutputStream", "org.h2.mvstore.FileStore"))).isTrue();
+    }
+
+    @Test
+    void shouldMatchMethodWhenGiven() {
+        assertThat(allowlist.tolerates(stack("fi.book.org.controller.AuthController"))).isFalse();
+        assertThat(allowlist.tolerates(new StackTraceElement[]{
+                new StackTraceElement("fi.book.org.controller.AuthController", "login", null, 1)})).isTrue();
+    }
+
+    @Test
+    void shouldReportUnknownStack() {
+        assertThat(allowlist.tolerates(stack("java.lang.Thread", "fi.book.org.services.BookService"))).isFalse();
+        assertThat(Allowlist.NONE.tolerates(stack("org.h2.Driver"))).isFalse();
+    }
+
+    @Test
+    void shouldLoadTestAllowlist() {
+        assertThat(Allowlist.load(BlockingCallDetector.ALLOWLIST).patterns()).contains("org.h2.*");
+    }
+
+    private static StackTraceElement[] stack(String... classNames) {
+        StackTraceElement[] stack = new StackTraceElement[classNames.length];
+        for (int i = 0; i < classNames.length; i++) {
+            stack[i] = new StackTraceElement(classNames[i], "run", null, 1);
+        }
+        return stack;
+    }
+}
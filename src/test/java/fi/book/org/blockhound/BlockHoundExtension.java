@@ -0,0 +1,40 @@
+package fi.book.org.blockhound;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.List;
+
+import reactor.blockhound.BlockingOperationError;
+
+/**
+ * Registered for every test class through the service loader, but only active in {@code ./gradlew blockhoundTest}
+ * (which sets {@value BlockingCallDetector#ENABLED_PROPERTY}). Fails a test when it made a blocking call on a
+ * non-blocking thread that is not in blockhound-allowlist.txt. Tests run sequentially there, so the violations
+ * recorded since the previous test belong to this one.
+ */
+public class BlockHoundExtension implements BeforeAllCallback, AfterEachCallback {
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        if (BlockingCallDetector.isEnabled()) {
+            BlockingCallDetector.install(BlockingCallDetector.Mode.RECORD);
+        }
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        if (!BlockingCallDetector.isEnabled()) {
+            return;
+        }
+        List<BlockingOperationError> violations = BlockingCallDetector.drainViolations();
+        if (violations.isEmpty()) {
+            return;
+        }
+        AssertionError failure = new AssertionError(violations.size() + " blocking call(s) on non-blocking threads in "
+                + context.getDisplayName() + ", first: " + violations.get(0).getMessage(), violations.get(0));
+        violations.stream().skip(1).forEach(failure::addSuppressed);
+        throw failure;
+    }
+}
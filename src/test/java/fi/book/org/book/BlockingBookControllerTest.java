@@ -0,0 +1,110 @@
+package fi.book.org.book;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import fi.book.org.api.ApiResponsePage;
+import fi.book.org.controller.BlockingBookController;
+import fi.book.org.dto.BookDto;
+import fi.book.org.exception.BookNotFoundException;
+import fi.book.org.exception.VersionConflictException;
+import fi.book.org.services.BlockingBookService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.CONFLICT;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+/**
+ * The blocking controller has to answer exactly like {@link fi.book.org.controller.BookController}.
+ */
+@ExtendWith(MockitoExtension.class)
+class BlockingBookControllerTest {
+
+    @Mock
+    private BlockingBookService bookService;
+
+    @InjectMocks
+    private BlockingBookController bookController;
+
+    private WebTestClient webTestClient;
+
+    private BookDto bookDto;
+    private UUID bookIsbn;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(bookController).build();
+
+        bookIsbn = UUID.randomUUID();
+        bookDto = BookDto.builder()
+                .id(bookIsbn)
+                .title("Reactive Spring")
+                .author("Josh Long")
+                .price(new BigDecimal("39.99"))
+                .bookstore_id(1001L)
+                .build();
+    }
+
+    @Test
+    void shouldGetBooksPage() {
+        when(bookService.getBooks(null, null, null, PageRequest.of(0, 20)))
+                .thenReturn(ApiResponsePage.okWithPagination(List.of(bookDto), 1, 1, 0, 20));
+
+        webTestClient.get()
+                .uri("/api/v1/books")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(200)
+                .jsonPath("$.response[0].title").isEqualTo("Reactive Spring");
+    }
+
+    @Test
+    void shouldGetBookByIsbn() {
+        when(bookService.getBookByIsbn(bookIsbn)).thenReturn(bookDto);
+
+        webTestClient.get()
+                .uri("/api/v1/books/{isbn}", bookIsbn)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.response.id").isEqualTo(bookIsbn.toString());
+    }
+
+    @Test
+    void shouldReturnNotFoundForNonExistingBook() {
+        when(bookService.getBookByIsbn(bookIsbn)).thenThrow(new BookNotFoundException("ISBN", bookIsbn.toString()));
+
+        webTestClient.get()
+                .uri("/api/v1/books/{isbn}", bookIsbn)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    void shouldReturnConflictWhenUpdatingStaleBook() {
+        when(bookService.updateBook(any())).thenThrow(new VersionConflictException("ISBN", bookIsbn.toString()));
+
+        webTestClient.put()
+                .uri("/api/v1/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(bookDto)
+                .exchange()
+                .expectStatus().isEqualTo(CONFLICT);
+    }
+}
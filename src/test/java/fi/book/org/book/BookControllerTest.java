@@ -1,5 +1,9 @@
 package fi.book.org.book;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,17 +12,27 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import fi.book.org.api.ApiResponse;
+import fi.book.org.api.ApiMediaTypes;
 import fi.book.org.api.ApiResponsePage;
+import fi.book.org.api.BinaryCodecs;
+import fi.book.org.api.FieldProjection;
+import fi.book.org.api.proto.ApiResponseMessage;
 import fi.book.org.controller.BookController;
+import fi.book.org.dto.BookBatchRequest;
 import fi.book.org.dto.BookDto;
 import fi.book.org.exception.BookNotFoundException;
+import fi.book.org.exception.VersionConflictException;
 import fi.book.org.services.BookService;
 import fi.book.org.services.InventoryService;
 import reactor.core.publisher.Mono;
@@ -26,9 +40,12 @@ import reactor.core.publisher.Mono;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.OK;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,12 +61,19 @@ class BookControllerTest {
 
     private WebTestClient webTestClient;
 
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor()
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE).build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.smile()
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE).build();
+
     private BookDto bookDto;
     private UUID bookIsbn;
 
     @BeforeEach
     void setUp() {
-        webTestClient = WebTestClient.bindToController(bookController).build();
+        webTestClient = WebTestClient.bindToController(bookController)
+                .httpMessageCodecs(configurer -> BinaryCodecs.configure(configurer, cborMapper, smileMapper))
+                .build();
 
         bookIsbn = UUID.randomUUID();
         bookDto = BookDto.builder()
@@ -80,6 +104,36 @@ class BookControllerTest {
         verify(bookService, times(1)).getBooks(null, null, null, PageRequest.of(0, 20));
     }
 
+    @Test
+    void shouldGetBooksWithProjectedFields() {
+        BookDto projected = BookDto.builder().id(bookIsbn).title("Reactive Spring").build();
+        FieldProjection projection = new FieldProjection(Set.of("id", "title"));
+        when(bookService.getBooks(null, null, null, PageRequest.of(0, 20), projection))
+                .thenReturn(Mono.just(ApiResponsePage.okWithPagination(List.of(projected), 1, 1, 0, 20)));
+
+        webTestClient.get()
+                .uri("/api/v1/books?fields=title")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.response[0].title").isEqualTo("Reactive Spring")
+                .jsonPath("$.response[0].author").doesNotExist();
+
+        verify(bookService, never()).getBooks(null, null, null, PageRequest.of(0, 20));
+    }
+
+    @Test
+    void shouldRejectUnknownProjectedField() {
+        webTestClient.get()
+                .uri("/api/v1/books/{isbn}?fields=title,secret", bookIsbn)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(bookService, never()).getBookByIsbn(any(), any());
+    }
+
     @Test
     void shouldCreateBook() {
         when(bookService.createBook(bookDto)).thenReturn(Mono.just(bookIsbn));
@@ -160,6 +214,20 @@ class BookControllerTest {
         verify(bookService, times(1)).updateBook(any(BookDto.class));
     }
 
+    @Test
+    void shouldReturnConflictWhenUpdatingStaleBook() {
+        when(bookService.updateBook(any()))
+                .thenReturn(Mono.error(new VersionConflictException("ISBN", bookIsbn.toString())));
+
+        webTestClient.put()
+                .uri("/api/v1/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(bookDto)
+                .exchange()
+                .expectStatus().isEqualTo(CONFLICT);
+        verify(bookService, times(1)).updateBook(any(BookDto.class));
+    }
+
     @Test
     void shouldGetBookByIsbn() {
         when(bookService.getBookByIsbn(bookIsbn)).thenReturn(Mono.just(bookDto));
@@ -221,4 +289,120 @@ class BookControllerTest {
 
         verify(bookService, times(1)).deleteBookWithIsbn(isbn);
     }
+
+    @Test
+    void shouldGetBooksByIsbns() {
+        UUID unknownIsbn = UUID.randomUUID();
+        when(bookService.getBooksByIsbns(List.of(bookIsbn, unknownIsbn), true)).thenReturn(Mono.just(List.of(bookDto)));
+
+        webTestClient.post()
+                .uri("/api/v1/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(BookBatchRequest.builder().isbns(List.of(bookIsbn, unknownIsbn)).includeInventory(true).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ApiResponse.class)
+                .value(response -> {
+                    assertEquals(OK.value(), response.getStatusCode());
+                    assertEquals(1, ((List<?>) response.getResponse()).size());
+                });
+
+        verify(bookService, times(1)).getBooksByIsbns(List.of(bookIsbn, unknownIsbn), true);
+    }
+
+    @Test
+    void shouldRejectEmptyIsbnBatch() {
+        webTestClient.post()
+                .uri("/api/v1/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookBatchRequest.builder().isbns(List.of()).build())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(bookService, never()).getBooksByIsbns(any(), anyBoolean());
+    }
+
+    @Test
+    void shouldGetBookByIsbnAsCbor() {
+        when(bookService.getBookByIsbn(bookIsbn)).thenReturn(Mono.just(bookDto));
+
+        webTestClient.get()
+                .uri("/api/v1/books/{isbn}", bookIsbn)
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .value(bytes -> {
+                    JsonNode response = readTree(cborMapper, bytes);
+                    assertEquals(OK.value(), response.get("status_code").asInt());
+                    assertEquals("Reactive Spring", response.get("response").get("title").asText());
+                    assertEquals(1001L, response.get("response").get("bookstore_id").asLong());
+                });
+    }
+
+    @Test
+    void shouldGetBooksAsSmile() {
+        when(bookService.getBooks(null, null, null, PageRequest.of(0, 20)))
+                .thenReturn(Mono.just(ApiResponsePage.okWithPagination(List.of(bookDto), 1, 1, 0, 20)));
+
+        webTestClient.get()
+                .uri("/api/v1/books")
+                .accept(ApiMediaTypes.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .value(bytes -> {
+                    JsonNode response = readTree(smileMapper, bytes);
+                    assertEquals(20, response.get("page_size").asInt());
+                    assertEquals(bookIsbn.toString(), response.get("response").get(0).get("id").asText());
+                });
+    }
+
+    @Test
+    void shouldGetBookByIsbnAsProtobuf() {
+        when(bookService.getBookByIsbn(bookIsbn)).thenReturn(Mono.just(bookDto));
+
+        webTestClient.get()
+                .uri("/api/v1/books/{isbn}", bookIsbn)
+                .accept(MediaType.APPLICATION_PROTOBUF)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .value(bytes -> {
+                    ApiResponseMessage response = parseProtobuf(bytes);
+                    assertEquals(OK.value(), response.getStatusCode());
+                    assertEquals(bookIsbn.toString(), response.getBook().getId());
+                    assertEquals("49.99", response.getBook().getPrice());
+                });
+    }
+
+    @Test
+    void shouldDefaultToJsonWhenAnyMediaTypeIsAccepted() {
+        when(bookService.getBookByIsbn(bookIsbn)).thenReturn(Mono.just(bookDto));
+
+        webTestClient.get()
+                .uri("/api/v1/books/{isbn}", bookIsbn)
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private static JsonNode readTree(ObjectMapper mapper, byte[] bytes) {
+        try {
+            return mapper.readTree(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ApiResponseMessage parseProtobuf(byte[] bytes) {
+        try {
+            return ApiResponseMessage.parseFrom(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
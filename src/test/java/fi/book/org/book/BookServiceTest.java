@@ -6,26 +6,37 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import fi.book.org.api.ApiResponsePage;
+import fi.book.org.api.FieldProjection;
 import fi.book.org.dto.BookDto;
+import fi.book.org.dto.InventoryDto;
 import fi.book.org.exception.BookCreateException;
 import fi.book.org.exception.BookNotFoundException;
+import fi.book.org.exception.VersionConflictException;
 import fi.book.org.model.BookModel;
 import fi.book.org.model.Bookstore;
 import fi.book.org.model.Inventory;
+import fi.book.org.model.OutboxEventType;
 import fi.book.org.repository.BookRepository;
 import fi.book.org.repository.InventoryRepository;
+import fi.book.org.repository.ProjectionRepository;
 import fi.book.org.services.BookService;
 import fi.book.org.services.InventoryService;
+import fi.book.org.services.OutboxService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -37,8 +48,13 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -55,6 +71,14 @@ class BookServiceTest {
     private BookService bookService;
     @Mock
     private InventoryService inventoryService;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private Cache bookCache;
+    @Mock
+    private ProjectionRepository projectionRepository;
 
     private UUID bookIsbn;
     private BookModel bookModel;
@@ -69,7 +93,7 @@ class BookServiceTest {
         inventory.setId(bookIsbn);
         inventory.setCopies(10);
 
-        bookModel = new BookModel(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), 100L, true);
+        bookModel = new BookModel(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), 100L, 0L, true);
         bookStore = new Bookstore(100L, "Address1", "123456789", "bookstore1@example.com", List.of(bookModel), inventory);
 
         bookDto = BookDto.builder()
@@ -186,16 +210,30 @@ class BookServiceTest {
     void shouldCreateBookWithInventoryPresent() {
         when(bookRepository.save(any(BookModel.class))).thenReturn(Mono.just(bookModel));
         when(inventoryService.updateOrCreateInventory(any(BookModel.class))).thenReturn(Mono.empty());
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
         Mono<UUID> result = bookService.createBook(bookDto);
 
         assertEquals(bookIsbn, result.block());
         verify(bookRepository, times(1)).save(any(BookModel.class));
+        verify(outboxService).record(eq(OutboxEventType.BOOK_CREATED), eq(bookIsbn), eq(100L), any());
+    }
+
+    @Test
+    void shouldFailCreateBookWhenOutboxWriteFails() {
+        when(bookRepository.save(any(BookModel.class))).thenReturn(Mono.just(bookModel));
+        when(inventoryService.updateOrCreateInventory(any(BookModel.class))).thenReturn(Mono.empty());
+        when(outboxService.record(any(), any(), any(), any()))
+                .thenReturn(Mono.error(new RuntimeException("Simulated outbox error")));
+
+        StepVerifier.create(bookService.createBook(bookDto))
+                .expectError(BookCreateException.class)
+                .verify();
     }
 
     @Test
     void shouldHandleExceptionWhenCreatingBook() {
         UUID bookIsbn = UUID.randomUUID();
-        BookDto bookDto = new BookDto(bookIsbn, "Reactive Spring", "Josh Long", BigDecimal.valueOf(49.99), 1001L);
+        BookDto bookDto = new BookDto(bookIsbn, "Reactive Spring", "Josh Long", BigDecimal.valueOf(49.99), 1001L, null, null);
 
         when(bookRepository.save(any(BookModel.class)))
                 .thenReturn(Mono.error(new RuntimeException("Simulated database error")));
@@ -211,13 +249,98 @@ class BookServiceTest {
 
     @Test
     void shouldUpdateBook() {
-        when(bookRepository.findById(bookIsbn)).thenReturn(Mono.just(bookModel));
-        when(bookRepository.save(any(BookModel.class))).thenReturn(Mono.just(bookModel));
+        when(bookRepository.updateBook(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), null))
+                .thenReturn(Mono.just(1));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
 
         Mono<UUID> result = bookService.updateBook(bookDto);
 
         assertEquals(bookIsbn, result.block());
-        verify(bookRepository, times(1)).save(any(BookModel.class));
+        verify(bookRepository, never()).findById(bookIsbn);
+        verify(bookRepository, never()).save(any(BookModel.class));
+        verify(outboxService).record(OutboxEventType.BOOK_UPDATED, bookIsbn, null, bookDto);
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenUpdatingMissingBook() {
+        when(bookRepository.updateBook(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), null))
+                .thenReturn(Mono.just(0));
+
+        StepVerifier.create(bookService.updateBook(bookDto))
+                .expectError(BookNotFoundException.class)
+                .verify();
+
+        verify(outboxService, never()).record(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldUpdateBookWithMatchingVersion() {
+        bookDto.setVersion(3L);
+        when(bookRepository.updateBookIfVersion(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), null, 3L))
+                .thenReturn(Mono.just(1));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(bookService.updateBook(bookDto))
+                .expectNext(bookIsbn)
+                .verifyComplete();
+
+        verify(bookRepository, never()).existsById(bookIsbn);
+    }
+
+    @Test
+    void shouldReturnConflictWhenUpdatingStaleBook() {
+        bookDto.setVersion(3L);
+        when(bookRepository.updateBookIfVersion(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), null, 3L))
+                .thenReturn(Mono.just(0));
+        when(bookRepository.existsById(bookIsbn)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(bookService.updateBook(bookDto))
+                .expectErrorSatisfies(throwable -> {
+                    assertInstanceOf(VersionConflictException.class, throwable);
+                    assertEquals(HttpStatus.CONFLICT, ((VersionConflictException) throwable).getStatusCode());
+                })
+                .verify();
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenUpdatingMissingVersionedBook() {
+        bookDto.setVersion(3L);
+        when(bookRepository.updateBookIfVersion(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), null, 3L))
+                .thenReturn(Mono.just(0));
+        when(bookRepository.existsById(bookIsbn)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(bookService.updateBook(bookDto))
+                .expectError(BookNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldGetProjectedBooks() {
+        Pageable pageable = PageRequest.of(0, 10);
+        FieldProjection projection = FieldProjection.parse("title", BookService.BOOK_FIELDS, BookService.BOOK_REQUIRED_FIELDS);
+        BookModel projected = BookModel.builder().id(bookIsbn).title("Spring Reactive").build();
+        when(projectionRepository.findBooks("Josh", null, null, projection.fields(), pageable))
+                .thenReturn(Flux.just(projected));
+
+        StepVerifier.create(bookService.getBooks("Josh", null, null, pageable, projection))
+                .assertNext(page -> {
+                    BookDto book = page.getResponse().get(0);
+                    assertEquals("Spring Reactive", book.getTitle());
+                    assertNull(book.getAuthor());
+                    assertNull(book.getPrice());
+                })
+                .verifyComplete();
+        verify(bookRepository, never()).findByAuthorContainingIgnoreCase(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void shouldReturnNotFoundForProjectedMissingBook() {
+        FieldProjection projection = FieldProjection.parse("title", BookService.BOOK_FIELDS, BookService.BOOK_REQUIRED_FIELDS);
+        when(projectionRepository.findBookById(bookIsbn, projection.fields())).thenReturn(Mono.empty());
+
+        StepVerifier.create(bookService.getBookByIsbn(bookIsbn, projection))
+                .expectError(BookNotFoundException.class)
+                .verify();
     }
 
     @Test
@@ -233,19 +356,31 @@ class BookServiceTest {
 
     @Test
     void shouldDeleteBookByIsbn() {
-        when(bookRepository.deleteById(bookIsbn)).thenReturn(Mono.empty());
+        when(bookRepository.deleteBook(bookIsbn)).thenReturn(Mono.just(1));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
 
         Mono<Void> result = bookService.deleteBookWithIsbn(bookIsbn);
 
         assertNull(result.block());
-        verify(bookRepository, times(1)).deleteById(bookIsbn);
+        verify(bookRepository, times(1)).deleteBook(bookIsbn);
+        verify(outboxService).record(OutboxEventType.BOOK_DELETED, bookIsbn, null, null);
+    }
+
+    @Test
+    void shouldNotRecordDeletionOfUnknownBook() {
+        when(bookRepository.deleteBook(bookIsbn)).thenReturn(Mono.just(0));
+
+        StepVerifier.create(bookService.deleteBookWithIsbn(bookIsbn))
+                .verifyComplete();
+
+        verify(outboxService, never()).record(any(), any(), any(), any());
     }
 
     @Test
     void shouldHandleExceptionWhenDeletingBook() {
         UUID bookIsbn = UUID.randomUUID();
 
-        when(bookRepository.deleteById(bookIsbn))
+        when(bookRepository.deleteBook(bookIsbn))
                 .thenReturn(Mono.error(new RuntimeException("Simulated delete error")));
 
         StepVerifier.create(bookService.deleteBookWithIsbn(bookIsbn))
@@ -273,4 +408,56 @@ class BookServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldGetBooksByIsbnsFromCacheAndDatabaseInRequestOrder() {
+        UUID cachedIsbn = UUID.randomUUID();
+        UUID missingIsbn = UUID.randomUUID();
+        BookDto cachedBook = BookDto.builder().id(cachedIsbn).title("Cached").build();
+        when(cacheManager.getCache("bookCache")).thenReturn(bookCache);
+        doReturn(CompletableFuture.completedFuture(cachedBook)).when(bookCache).retrieve(List.of(cachedIsbn));
+        doReturn(null).when(bookCache).retrieve(List.of(bookIsbn));
+        doReturn(null).when(bookCache).retrieve(List.of(missingIsbn));
+        when(bookRepository.findAllById(List.of(bookIsbn, missingIsbn))).thenReturn(Flux.just(bookModel));
+
+        StepVerifier.create(bookService.getBooksByIsbns(List.of(bookIsbn, missingIsbn, cachedIsbn, bookIsbn), false))
+                .expectNextMatches(books -> books.size() == 3
+                        && books.get(0).getId().equals(bookIsbn)
+                        && books.get(1) == cachedBook
+                        && books.get(2).getId().equals(bookIsbn))
+                .verifyComplete();
+
+        verify(bookRepository, never()).findById(any(UUID.class));
+        verify(bookCache).put(eq(List.of(bookIsbn)), any(BookDto.class));
+        verify(inventoryService, never()).getCopiesByIsbns(anyList(), anyInt());
+    }
+
+    @Test
+    void shouldSkipDatabaseWhenAllBooksAreCached() {
+        BookDto cachedBook = BookDto.builder().id(bookIsbn).title("Cached").build();
+        when(cacheManager.getCache("bookCache")).thenReturn(bookCache);
+        doReturn(CompletableFuture.completedFuture(cachedBook)).when(bookCache).retrieve(List.of(bookIsbn));
+
+        StepVerifier.create(bookService.getBooksByIsbns(List.of(bookIsbn), false))
+                .expectNext(List.of(cachedBook))
+                .verifyComplete();
+
+        verify(bookRepository, never()).findAllById(anyList());
+    }
+
+    @Test
+    void shouldJoinInventoryWithoutMutatingCachedBooks() {
+        BookDto cachedBook = BookDto.builder().id(bookIsbn).title("Cached").build();
+        InventoryDto inventoryDto = InventoryDto.builder().id(bookIsbn).copies(3).bookstoreId(1001L).build();
+        when(cacheManager.getCache("bookCache")).thenReturn(bookCache);
+        doReturn(CompletableFuture.completedFuture(cachedBook)).when(bookCache).retrieve(List.of(bookIsbn));
+        when(inventoryService.getCopiesByIsbns(List.of(bookIsbn), 100))
+                .thenReturn(Mono.just(Map.<UUID, Collection<InventoryDto>>of(bookIsbn, List.of(inventoryDto))));
+
+        StepVerifier.create(bookService.getBooksByIsbns(List.of(bookIsbn), true))
+                .expectNextMatches(books -> books.get(0).getInventory().equals(List.of(inventoryDto)))
+                .verifyComplete();
+
+        assertNull(cachedBook.getInventory());
+    }
+
 }
@@ -0,0 +1,82 @@
+package fi.book.org.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import fi.book.org.model.OutboxEvent;
+import fi.book.org.services.CatalogService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogProjectorTest {
+
+    @Mock
+    private CatalogService catalogService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogProjector catalogProjector;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogProjector = new CatalogProjector(catalogService, meterRegistry);
+    }
+
+    @Test
+    void shouldRefreshEachIsbnOncePerBatch() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(catalogService.refresh(any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(catalogProjector.publish(List.of(
+                        event("book", first), event("inventory", first), event("inventory", second), event("inventory", first))))
+                .verifyComplete();
+
+        verify(catalogService, times(1)).refresh(first);
+        verify(catalogService, times(1)).refresh(second);
+        assertEquals(4, meterRegistry.get(CatalogProjector.LAG_METRIC).timer().count());
+    }
+
+    @Test
+    void shouldFailBatchWhenRefreshFails() {
+        when(catalogService.refresh(any())).thenReturn(Mono.error(new RuntimeException("Simulated database error")));
+
+        StepVerifier.create(catalogProjector.publish(List.of(event("book", UUID.randomUUID()))))
+                .expectError(RuntimeException.class)
+                .verify();
+
+        assertEquals(0, meterRegistry.get(CatalogProjector.LAG_METRIC).timer().count());
+    }
+
+    @Test
+    void shouldIgnoreOtherAggregates() {
+        StepVerifier.create(catalogProjector.publish(List.of(event("user", UUID.randomUUID()))))
+                .verifyComplete();
+
+        verify(catalogService, never()).refresh(any());
+    }
+
+    private static OutboxEvent event(String aggregateType, UUID isbn) {
+        return OutboxEvent.builder()
+                .aggregateType(aggregateType)
+                .aggregateId(isbn.toString())
+                .createdAt(LocalDateTime.now().minusSeconds(1))
+                .build();
+    }
+}
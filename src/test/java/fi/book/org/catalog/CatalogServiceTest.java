@@ -0,0 +1,114 @@
+package fi.book.org.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.exception.BookNotFoundException;
+import fi.book.org.model.BookModel;
+import fi.book.org.model.CatalogEntry;
+import fi.book.org.model.Inventory;
+import fi.book.org.repository.BookRepository;
+import fi.book.org.repository.CatalogReadModelRepository;
+import fi.book.org.repository.InventoryRepository;
+import fi.book.org.services.CatalogService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogServiceTest {
+
+    @Mock
+    private CatalogReadModelRepository catalogRepository;
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    private CatalogService catalogService;
+    private UUID isbn;
+    private BookModel book;
+
+    @BeforeEach
+    void setUp() {
+        catalogService = new CatalogService(catalogRepository, bookRepository, inventoryRepository, new ObjectMapper());
+        isbn = UUID.randomUUID();
+        book = BookModel.builder()
+                .id(isbn)
+                .title("Title1")
+                .author("Author1")
+                .price(new BigDecimal("15.50"))
+                .bookstoreId(1001L)
+                .version(3L)
+                .build();
+    }
+
+    @Test
+    void shouldServeEntryFromReadModel() {
+        when(catalogRepository.findById(isbn)).thenReturn(Mono.just(entry("{\"1001\":4,\"1002\":6}", 10)));
+
+        StepVerifier.create(catalogService.getCatalogEntry(isbn))
+                .expectNextMatches(dto -> dto.getCopiesByStore().equals(Map.of(1001L, 4, 1002L, 6))
+                        && dto.getTotalCopies() == 10 && dto.getTitle().equals("Title1") && dto.getVersion() == 3L)
+                .verifyComplete();
+
+        verify(bookRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void shouldBuildMissingEntryOnFirstRead() {
+        when(catalogRepository.findById(isbn))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(entry("{\"1001\":4,\"1002\":6}", 10)));
+        when(bookRepository.findById(isbn)).thenReturn(Mono.just(book));
+        when(inventoryRepository.findInventoriesById(isbn)).thenReturn(Flux.just(
+                Inventory.builder().id(isbn).bookstoreId(1002L).copies(6).build(),
+                Inventory.builder().id(isbn).bookstoreId(1001L).copies(4).build()));
+        when(catalogRepository.upsert(isbn, "Title1", "Author1", new BigDecimal("15.50"), 1001L, 3L,
+                "{\"1001\":4,\"1002\":6}", 10)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(catalogService.getCatalogEntry(isbn))
+                .expectNextMatches(dto -> dto.getTotalCopies() == 10)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRemoveEntryOnceBookIsGone() {
+        when(catalogRepository.findById(isbn)).thenReturn(Mono.empty());
+        when(bookRepository.findById(isbn)).thenReturn(Mono.empty());
+        when(catalogRepository.deleteById(isbn)).thenReturn(Mono.empty());
+
+        StepVerifier.create(catalogService.getCatalogEntry(isbn))
+                .expectError(BookNotFoundException.class)
+                .verify();
+
+        verify(catalogRepository).deleteById(isbn);
+    }
+
+    private CatalogEntry entry(String copiesByStore, int totalCopies) {
+        return CatalogEntry.builder()
+                .isbn(isbn)
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .price(book.getPrice())
+                .bookstoreId(book.getBookstoreId())
+                .bookVersion(book.getVersion())
+                .copiesByStore(copiesByStore)
+                .totalCopies(totalCopies)
+                .build();
+    }
+}
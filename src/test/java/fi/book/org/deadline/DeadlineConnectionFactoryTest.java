@@ -0,0 +1,54 @@
+package fi.book.org.deadline;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class DeadlineConnectionFactoryTest {
+
+    private final ConnectionFactory delegate = mock(ConnectionFactory.class);
+    private final Connection connection = mock(Connection.class);
+    private final DeadlineConnectionFactory connectionFactory = new DeadlineConnectionFactory(delegate);
+
+    @Test
+    void shouldSetStatementTimeoutToRemainingBudget() {
+        givenConnection();
+
+        StepVerifier.create(Mono.from(connectionFactory.create())
+                        .contextWrite(context -> context.put(Deadline.class, Deadline.after(Duration.ofSeconds(2)))))
+                .expectNext(connection)
+                .verifyComplete();
+
+        ArgumentCaptor<Duration> timeout = ArgumentCaptor.forClass(Duration.class);
+        verify(connection).setStatementTimeout(timeout.capture());
+        assertThat(timeout.getValue()).isBetween(Duration.ofMillis(1500), Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldResetStatementTimeoutWithoutDeadline() {
+        givenConnection();
+
+        StepVerifier.create(connectionFactory.create())
+                .expectNext(connection)
+                .verifyComplete();
+
+        verify(connection).setStatementTimeout(Duration.ZERO);
+    }
+
+    private void givenConnection() {
+        doReturn(Mono.just(connection)).when(delegate).create();
+        doReturn(Mono.empty()).when(connection).setStatementTimeout(any());
+    }
+}
@@ -0,0 +1,80 @@
+package fi.book.org.deadline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DeadlineFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        DeadlineProperties.Route search = new DeadlineProperties.Route();
+        search.setPattern("/api/v1/books");
+        search.setTimeout(Duration.ofSeconds(2));
+        DeadlineProperties properties = new DeadlineProperties();
+        properties.setMaxTimeout(Duration.ofSeconds(5));
+        properties.setRoutes(List.of(search));
+        filter = new DeadlineFilter(properties, meterRegistry);
+    }
+
+    @Test
+    void shouldUseRouteTimeout() {
+        Duration remaining = remainingSeenBy(MockServerHttpRequest.get("/api/v1/books"));
+
+        assertThat(remaining).isBetween(Duration.ofMillis(1500), Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldCapClientHeaderAtMaxTimeout() {
+        Duration remaining = remainingSeenBy(MockServerHttpRequest.get("/api/v1/books").header("X-Request-Timeout", "1m"));
+
+        assertThat(remaining).isBetween(Duration.ofMillis(4500), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldFallBackToDefaultForMalformedHeader() {
+        Duration remaining = remainingSeenBy(MockServerHttpRequest.get("/api/v1/inventory/copies").header("X-Request-Timeout", "soon"));
+
+        assertThat(remaining).isBetween(Duration.ofSeconds(9), Duration.ofSeconds(10));
+    }
+
+    @Test
+    void shouldAnswerGatewayTimeoutAndCountIt() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/v1/books").header("X-Request-Timeout", "20ms"));
+        WebFilterChain chain = ignored -> Deadlines.enforce(Mono.never()).then();
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(meterRegistry.counter(DeadlineFilter.EXCEEDED_METRIC, "method", "GET", "uri", "UNKNOWN").count())
+                .isEqualTo(1);
+    }
+
+    private Duration remainingSeenBy(MockServerHttpRequest.BaseBuilder<?> request) {
+        AtomicReference<Duration> remaining = new AtomicReference<>();
+        WebFilterChain chain = ignored -> Mono.deferContextual(context -> {
+            remaining.set(Deadlines.current(context).orElseThrow().remaining());
+            return Mono.empty();
+        });
+
+        StepVerifier.create(filter.filter(MockServerWebExchange.from(request), chain)).verifyComplete();
+        return remaining.get();
+    }
+}
@@ -0,0 +1,72 @@
+package fi.book.org.deadline;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import fi.book.org.exception.DeadlineExceededException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlinesTest {
+
+    @Test
+    void shouldPassThroughWithoutDeadline() {
+        StepVerifier.create(Deadlines.enforce(Mono.just("book")))
+                .expectNext("book")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldFailSlowPipelineOnceDeadlinePasses() {
+        Deadline deadline = Deadline.after(Duration.ofMillis(50));
+
+        StepVerifier.create(Deadlines.enforce(Mono.never())
+                        .contextWrite(context -> context.put(Deadline.class, deadline)))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(deadline.wasExceeded()).isTrue();
+    }
+
+    @Test
+    void shouldEndSlowStreamAtDeadlineThoughEachElementIsInTime() {
+        Deadline deadline = Deadline.after(Duration.ofMillis(200));
+        // Ten rows 50ms apart: each gap is well within the budget, the whole stream is not
+        Flux<Long> slowRows = Flux.interval(Duration.ofMillis(50)).take(10);
+
+        StepVerifier.create(Deadlines.enforce(slowRows)
+                        .contextWrite(context -> context.put(Deadline.class, deadline)))
+                .thenConsumeWhile(row -> true)
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(deadline.wasExceeded()).isTrue();
+    }
+
+    @Test
+    void shouldNotSubscribeWhenDeadlineAlreadyPassed() {
+        Deadline deadline = Deadline.after(Duration.ZERO);
+        Flux<String> source = Flux.defer(() -> Flux.error(new AssertionError("should not be subscribed")));
+
+        StepVerifier.create(Deadlines.enforce(source)
+                        .contextWrite(context -> context.put(Deadline.class, deadline)))
+                .expectError(DeadlineExceededException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldLeaveFastPipelineAlone() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+
+        StepVerifier.create(Deadlines.enforce(Flux.just(1, 2, 3))
+                        .contextWrite(context -> context.put(Deadline.class, deadline)))
+                .expectNext(1, 2, 3)
+                .verifyComplete();
+
+        assertThat(deadline.wasExceeded()).isFalse();
+    }
+}
@@ -7,21 +7,27 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import fi.book.org.api.ApiResponse;
 import fi.book.org.controller.InventoryController;
+import fi.book.org.dto.InventoryBulkUpdateRequest;
 import fi.book.org.dto.InventoryDto;
 import fi.book.org.dto.InventoryGlobalDto;
+import fi.book.org.dto.InventoryUpdateDto;
 import fi.book.org.exception.BookstoreNotFoundException;
 import fi.book.org.exception.InventoryNotFoundException;
+import fi.book.org.exception.StockHeldException;
+import fi.book.org.exception.VersionConflictException;
 import fi.book.org.services.InventoryService;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.CONFLICT;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
@@ -37,7 +43,7 @@ public class InventoryControllerTest {
     @Test
     void testGetInventoryCopiesByIsbn() {
         UUID isbn = UUID.randomUUID();
-        InventoryDto inventoryDto = new InventoryDto(isbn, "Title", "Author", 10, 1001L);
+        InventoryDto inventoryDto = new InventoryDto(isbn, "Title", "Author", 10, 1001L, 0L);
         when(inventoryService.getCopiesByIsbn(isbn))
                 .thenReturn(Flux.just(inventoryDto));
 
@@ -97,10 +103,10 @@ public class InventoryControllerTest {
         int copies = 10;
         Long bookstoreId = 1001L;
         ApiResponse<UUID> expectedResponse = ApiResponse.ok(isbn);
-        when(inventoryService.updateInventory(isbn, copies, bookstoreId))
+        when(inventoryService.updateInventory(isbn, copies, bookstoreId, null))
                 .thenReturn(Mono.just(isbn));
 
-        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId);
+        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId, null);
 
         StepVerifier.create(response)
                 .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == 200
@@ -178,10 +184,10 @@ public class InventoryControllerTest {
         UUID isbn = UUID.randomUUID();
         int copies = 10;
         Long bookstoreId = 1001L;
-        when(inventoryService.updateInventory(isbn, copies, bookstoreId))
+        when(inventoryService.updateInventory(isbn, copies, bookstoreId, null))
                 .thenReturn(Mono.error(new BookstoreNotFoundException("Bookstore not found")));
 
-        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId);
+        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId, null);
 
         StepVerifier.create(response)
                 .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == NOT_FOUND.value())
@@ -194,10 +200,10 @@ public class InventoryControllerTest {
         UUID isbn = UUID.randomUUID();
         int copies = 10;
         Long bookstoreId = 1001L;
-        when(inventoryService.updateInventory(isbn, copies, bookstoreId))
+        when(inventoryService.updateInventory(isbn, copies, bookstoreId, null))
                 .thenReturn(Mono.error(new InventoryNotFoundException("ISBN", isbn.toString())));
 
-        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId);
+        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId, null);
 
         StepVerifier.create(response)
                 .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == NOT_FOUND.value())
@@ -205,15 +211,47 @@ public class InventoryControllerTest {
                 .verify();
     }
 
+    @Test
+    void testUpdateInventoriesCopiesByIsbn_VersionConflict() {
+        UUID isbn = UUID.randomUUID();
+        int copies = 10;
+        Long bookstoreId = 1001L;
+        when(inventoryService.updateInventory(isbn, copies, bookstoreId, 2L))
+                .thenReturn(Mono.error(new VersionConflictException("ISBN", isbn.toString())));
+
+        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId, 2L);
+
+        StepVerifier.create(response)
+                .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == CONFLICT.value())
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testUpdateInventoriesCopiesByIsbn_StockHeld() {
+        UUID isbn = UUID.randomUUID();
+        int copies = 1;
+        Long bookstoreId = 1001L;
+        when(inventoryService.updateInventory(isbn, copies, bookstoreId, null))
+                .thenReturn(Mono.error(new StockHeldException(isbn, bookstoreId, copies)));
+
+        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId, null);
+
+        StepVerifier.create(response)
+                .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == CONFLICT.value())
+                .expectComplete()
+                .verify();
+    }
+
     @Test
     void testUpdateInventoriesCopiesByIsbn_InternalServerError() {
         UUID isbn = UUID.randomUUID();
         int copies = 10;
         Long bookstoreId = 1001L;
-        when(inventoryService.updateInventory(isbn, copies, bookstoreId))
+        when(inventoryService.updateInventory(isbn, copies, bookstoreId, null))
                 .thenReturn(Mono.error(new RuntimeException("Internal server error")));
 
-        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId);
+        Mono<ApiResponse<UUID>> response = inventoryController.updateInventoriesCopiesByIsbn(isbn, copies, bookstoreId, null);
 
         StepVerifier.create(response)
                 .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == INTERNAL_SERVER_ERROR.value())
@@ -221,5 +259,45 @@ public class InventoryControllerTest {
                 .verify();
     }
 
+    @Test
+    void testUpdateInventoriesCopiesInBulk() {
+        List<InventoryUpdateDto> updates = List.of(new InventoryUpdateDto(UUID.randomUUID(), 1001L, 10));
+        when(inventoryService.updateInventories(updates)).thenReturn(Mono.just(1));
+
+        Mono<ApiResponse<Integer>> response = inventoryController.updateInventoriesCopies(new InventoryBulkUpdateRequest(updates));
 
+        StepVerifier.create(response)
+                .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == 200 && apiResponse.getResponse() == 1)
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testUpdateInventoriesCopiesInBulk_BookstoreNotFound() {
+        List<InventoryUpdateDto> updates = List.of(new InventoryUpdateDto(UUID.randomUUID(), 9999L, 10));
+        when(inventoryService.updateInventories(updates))
+                .thenReturn(Mono.error(new BookstoreNotFoundException("Bookstores with IDs [9999] not found.")));
+
+        Mono<ApiResponse<Integer>> response = inventoryController.updateInventoriesCopies(new InventoryBulkUpdateRequest(updates));
+
+        StepVerifier.create(response)
+                .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == NOT_FOUND.value())
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void testUpdateInventoriesCopiesInBulk_StockHeld() {
+        UUID isbn = UUID.randomUUID();
+        List<InventoryUpdateDto> updates = List.of(new InventoryUpdateDto(isbn, 1001L, 1));
+        when(inventoryService.updateInventories(updates))
+                .thenReturn(Mono.error(new StockHeldException(isbn, 1001L, 1)));
+
+        Mono<ApiResponse<Integer>> response = inventoryController.updateInventoriesCopies(new InventoryBulkUpdateRequest(updates));
+
+        StepVerifier.create(response)
+                .expectNextMatches(apiResponse -> apiResponse.getStatusCode() == CONFLICT.value())
+                .expectComplete()
+                .verify();
+    }
 }
@@ -0,0 +1,174 @@
+package fi.book.org.inventory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.dto.InventoryMovementRequest;
+import fi.book.org.exception.BookstoreNotFoundException;
+import fi.book.org.exception.InsufficientStockException;
+import fi.book.org.model.InventoryMovement;
+import fi.book.org.model.MovementType;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.repository.BookstoreRepository;
+import fi.book.org.repository.InventoryMovementRepository;
+import fi.book.org.repository.InventoryRepository;
+import fi.book.org.services.InventoryLedgerService;
+import fi.book.org.services.OutboxService;
+import fi.book.org.writebehind.InventoryWriteBehind;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerServiceTest {
+
+    @Mock
+    private InventoryMovementRepository movementRepository;
+    @Mock
+    private InventoryRepository inventoryRepository;
+    @Mock
+    private BookstoreRepository bookstoreRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private InventoryWriteBehind writeBehind;
+
+    @InjectMocks
+    private InventoryLedgerService inventoryLedgerService;
+
+    private UUID isbn;
+
+    @BeforeEach
+    void setUp() {
+        isbn = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldAppendReceiptWithoutLockingRow() {
+        when(bookstoreRepository.existsById(1001L)).thenReturn(Mono.just(true));
+        when(inventoryRepository.createIfMissing(isbn, 1001L)).thenReturn(Mono.just(0));
+        when(movementRepository.save(any(InventoryMovement.class))).thenAnswer(invocation -> {
+            InventoryMovement movement = invocation.getArgument(0);
+            movement.setId(7L);
+            return Mono.just(movement);
+        });
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(inventoryLedgerService.recordMovement(isbn, request(InventoryMovementRequest.Kind.RECEIPT, 5)))
+                .expectNextMatches(movement -> movement.getId() == 7L
+                        && movement.getMovementType() == MovementType.RECEIPT && movement.getQuantity() == 5)
+                .verifyComplete();
+
+        verify(outboxService).record(OutboxEventType.INVENTORY_MOVED, isbn, 1001L,
+                Map.of("movement", MovementType.RECEIPT, "quantity", 5));
+        verify(inventoryRepository, never()).lockAvailable(any(), any());
+    }
+
+    @Test
+    void shouldRecordTransferAsTwoLegsWithSharedReference() {
+        InventoryMovementRequest request = request(InventoryMovementRequest.Kind.TRANSFER, 3);
+        request.setToBookstoreId(1002L);
+        when(bookstoreRepository.existsById(any())).thenReturn(Mono.just(true));
+        when(inventoryRepository.lockAvailable(isbn, 1001L)).thenReturn(Mono.just(3));
+        when(inventoryRepository.createIfMissing(isbn, 1002L)).thenReturn(Mono.just(1));
+        when(movementRepository.save(any(InventoryMovement.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(inventoryLedgerService.recordMovement(isbn, request))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        ArgumentCaptor<InventoryMovement> saved = ArgumentCaptor.forClass(InventoryMovement.class);
+        verify(movementRepository, times(2)).save(saved.capture());
+        List<InventoryMovement> legs = saved.getAllValues();
+        assertEquals(List.of(MovementType.TRANSFER_OUT, MovementType.TRANSFER_IN), legs.stream().map(InventoryMovement::getMovementType).toList());
+        assertEquals(List.of(-3, 3), legs.stream().map(InventoryMovement::getQuantity).toList());
+        assertEquals(List.of(1001L, 1002L), legs.stream().map(InventoryMovement::getBookstoreId).toList());
+        assertEquals(legs.get(0).getReference(), legs.get(1).getReference());
+        verify(inventoryRepository).lockAvailable(isbn, 1001L);
+        verify(inventoryRepository).createIfMissing(isbn, 1002L);
+    }
+
+    @Test
+    void shouldRejectSaleBeyondCopiesOnHand() {
+        when(bookstoreRepository.existsById(1001L)).thenReturn(Mono.just(true));
+        when(inventoryRepository.lockAvailable(isbn, 1001L)).thenReturn(Mono.just(3));
+
+        StepVerifier.create(inventoryLedgerService.recordMovement(isbn, request(InventoryMovementRequest.Kind.SALE, 4)))
+                .expectError(InsufficientStockException.class)
+                .verify();
+
+        verify(movementRepository, never()).save(any(InventoryMovement.class));
+        verify(outboxService, never()).record(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectSaleFromMissingRow() {
+        when(bookstoreRepository.existsById(1001L)).thenReturn(Mono.just(true));
+        when(inventoryRepository.lockAvailable(isbn, 1001L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(inventoryLedgerService.recordMovement(isbn, request(InventoryMovementRequest.Kind.SALE, 1)))
+                .expectError(InsufficientStockException.class)
+                .verify();
+
+        verify(movementRepository, never()).save(any(InventoryMovement.class));
+    }
+
+    @Test
+    void shouldRejectUnknownBookstore() {
+        when(bookstoreRepository.existsById(1001L)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(inventoryLedgerService.recordMovement(isbn, request(InventoryMovementRequest.Kind.ADJUSTMENT, -2)))
+                .expectError(BookstoreNotFoundException.class)
+                .verify();
+
+        verify(inventoryRepository, never()).lockAvailable(any(), any());
+    }
+
+    @Test
+    void shouldFlushBufferedWritesFirst() {
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.flush()).thenReturn(Mono.just(0));
+        when(bookstoreRepository.existsById(1001L)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(inventoryLedgerService.recordMovement(isbn, request(InventoryMovementRequest.Kind.RECEIPT, 1)))
+                .expectError(BookstoreNotFoundException.class)
+                .verify();
+
+        verify(writeBehind).flush();
+    }
+
+    @Test
+    void shouldReturnStockAtGivenTime() {
+        LocalDateTime at = LocalDateTime.of(2026, 1, 31, 18, 0);
+        when(movementRepository.balanceAt(isbn, 1001L, at)).thenReturn(Mono.just(12L));
+
+        StepVerifier.create(inventoryLedgerService.getStockAt(isbn, 1001L, at))
+                .expectNextMatches(stock -> stock.getCopies() == 12 && stock.getAt().equals(at) && stock.getIsbn().equals(isbn))
+                .verifyComplete();
+    }
+
+    private static InventoryMovementRequest request(InventoryMovementRequest.Kind type, int quantity) {
+        return InventoryMovementRequest.builder()
+                .type(type)
+                .bookstoreId(1001L)
+                .quantity(quantity)
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -15,15 +16,26 @@ import java.util.UUID;
 import fi.book.org.dto.BookDto;
 import fi.book.org.dto.InventoryDto;
 import fi.book.org.dto.InventoryGlobalDto;
+import fi.book.org.dto.InventoryUpdateDto;
 import fi.book.org.exception.BookstoreNotFoundException;
 import fi.book.org.exception.InventoryNotFoundException;
+import fi.book.org.exception.StockHeldException;
+import fi.book.org.exception.VersionConflictException;
 import fi.book.org.model.BookModel;
+import fi.book.org.model.BookstoreCopies;
 import fi.book.org.model.Bookstore;
 import fi.book.org.model.Inventory;
+import fi.book.org.model.InventoryMovement;
+import fi.book.org.model.MovementType;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.model.ReservedCopies;
 import fi.book.org.repository.BookRepository;
 import fi.book.org.repository.BookstoreRepository;
+import fi.book.org.repository.InventoryMovementRepository;
 import fi.book.org.repository.InventoryRepository;
 import fi.book.org.services.InventoryService;
+import fi.book.org.services.OutboxService;
+import fi.book.org.writebehind.InventoryWriteBehind;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -31,8 +43,11 @@ import reactor.test.StepVerifier;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -49,6 +64,14 @@ class InventoryServiceTest {
     private BookRepository bookRepository;
     @Mock
     private BookstoreRepository bookstoreRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private InventoryWriteBehind writeBehind;
+    @Mock
+    private InventoryMovementRepository movementRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
     private UUID isbn;
     private Inventory inventory;
     private UUID bookIsbn;
@@ -65,17 +88,18 @@ class InventoryServiceTest {
         inventory.setBookstoreId(100L);
 
         bookIsbn = UUID.randomUUID();
-        bookModel = new BookModel(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), 100L, true);
+        bookModel = new BookModel(bookIsbn, "Spring Reactive", "Josh Long", BigDecimal.valueOf(39.99), 100L, 0L, true);
         bookStore = new Bookstore(100L, "Address1", "123456789", "bookstore1@example.com", List.of(bookModel), inventory);
         inventory.setBookstoreId(bookStore.getId());
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(inventoryRepository.findReserved(any(), any())).thenReturn(Flux.empty());
     }
 
     @Test
     void shouldReturnCopiesByAuthor() {
-
         when(bookRepository.findByAuthorContainingIgnoreCase(eq("John Doe"), any())).thenReturn(Flux.just(bookModel));
-        when(inventoryRepository.findInventoriesById(eq(bookModel.getId()))).thenReturn(Flux.just(inventory));
-
+        when(inventoryRepository.sumCopiesByBookstore(List.of(bookModel.getId())))
+                .thenReturn(Flux.just(new BookstoreCopies(100L, 10L)));
 
         Mono<Map<String, Integer>> result = inventoryService.getCopiesByAuthorBookstore("John Doe");
 
@@ -84,13 +108,14 @@ class InventoryServiceTest {
                         && map.containsValue(inventory.getCopies()))
                 .verifyComplete();
 
+        verify(inventoryRepository, never()).findInventoriesById(any());
     }
 
     @Test
     void shouldReturnCopiesByTitle() {
         when(bookRepository.findByTitleContainingIgnoreCase(eq("The Great Gatsby"), any())).thenReturn(Flux.just(bookModel));
-        when(inventoryRepository.findInventoriesById(eq(bookModel.getId()))).thenReturn(Flux.just(inventory));
-
+        when(inventoryRepository.sumCopiesByBookstore(List.of(bookModel.getId())))
+                .thenReturn(Flux.just(new BookstoreCopies(100L, 10L)));
 
         Mono<Map<String, Integer>> result = inventoryService.getCopiesByTitleBookstore("The Great Gatsby");
 
@@ -101,6 +126,27 @@ class InventoryServiceTest {
 
     }
 
+    @Test
+    void shouldMergeCopiesFromAllBookstores() {
+        when(bookRepository.findByAuthorContainingIgnoreCase(eq("John Doe"), any())).thenReturn(Flux.just(bookModel));
+        when(inventoryRepository.sumCopiesByBookstore(List.of(bookModel.getId())))
+                .thenReturn(Flux.just(new BookstoreCopies(1001L, 10L), new BookstoreCopies(1002L, 33L)));
+
+        StepVerifier.create(inventoryService.getCopiesByAuthorBookstore("John Doe"))
+                .expectNext(Map.of("1001", 10, "1002", 33))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldReturnEmptyCopiesWhenNoBooksMatch() {
+        when(bookRepository.findByTitleContainingIgnoreCase(eq("Unknown"), any())).thenReturn(Flux.empty());
+
+        StepVerifier.create(inventoryService.getCopiesByTitleBookstore("Unknown"))
+                .expectNextMatches(Map::isEmpty)
+                .verifyComplete();
+
+        verify(inventoryRepository, never()).sumCopiesByBookstore(any());
+    }
 
     @Test
     void shouldReturnInventoryForExistingIsbn() {
@@ -130,13 +176,9 @@ class InventoryServiceTest {
 
     @Test
     void shouldUpdateInventorySuccessfully() {
-        when(inventoryRepository.findByIdAndBookstoreId(isbn, bookStore.getId())).thenReturn(Mono.just(inventory));
-        when(bookstoreRepository.existsById(bookStore.getId())).thenReturn(Mono.just(true));
-        Inventory updatedInventory = new Inventory();
-        updatedInventory.setId(isbn);
-        updatedInventory.setCopies(20);
-        updatedInventory.setBookstoreId(bookStore.getId());
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(Mono.just(updatedInventory));
+        when(inventoryRepository.lockRow(isbn, bookStore.getId())).thenReturn(Mono.just(1));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(movementRepository.appendAdjustment(any(), any(), anyInt())).thenReturn(Mono.just(1));
 
         Mono<UUID> result = inventoryService.updateInventory(isbn, 20, bookStore.getId());
 
@@ -144,20 +186,20 @@ class InventoryServiceTest {
                 .expectNext(isbn)
                 .verifyComplete();
 
-        verify(inventoryRepository, times(1)).findByIdAndBookstoreId(isbn, bookStore.getId());
-        verify(inventoryRepository, times(1)).save(any(Inventory.class));
+        verify(inventoryRepository, times(1)).lockRow(isbn, bookStore.getId());
+        verify(inventoryRepository, never()).findByIdAndBookstoreId(any(), any());
+        verify(inventoryRepository, never()).save(any(Inventory.class));
+        verify(outboxService).record(OutboxEventType.INVENTORY_UPDATED, isbn, bookStore.getId(), Map.of("copies", 20));
+        verify(movementRepository).appendAdjustment(isbn, bookStore.getId(), 20);
     }
 
     @Test
     void shouldUpdateInventoryCreateNewSuccessfully() {
-        when(inventoryRepository.findByIdAndBookstoreId(isbn, bookStore.getId())).thenReturn(Mono.empty());
+        when(inventoryRepository.lockRow(isbn, bookStore.getId())).thenReturn(Mono.just(0));
         when(bookstoreRepository.existsById(bookStore.getId())).thenReturn(Mono.just(true));
-        Inventory updatedInventory = new Inventory();
-        updatedInventory.setId(isbn);
-        updatedInventory.setCopies(20);
-        updatedInventory.setBookstoreId(bookStore.getId());
-
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(Mono.just(updatedInventory));
+        when(inventoryRepository.createIfMissing(isbn, bookStore.getId())).thenReturn(Mono.just(1));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(movementRepository.appendAdjustment(any(), any(), anyInt())).thenReturn(Mono.just(1));
 
         Mono<UUID> result = inventoryService.updateInventory(isbn, 20, bookStore.getId());
 
@@ -165,13 +207,14 @@ class InventoryServiceTest {
                 .expectNext(isbn)
                 .verifyComplete();
 
-        verify(inventoryRepository, times(1)).findByIdAndBookstoreId(isbn, bookStore.getId());
-        verify(inventoryRepository, times(1)).save(any(Inventory.class));
+        verify(inventoryRepository, times(1)).lockRow(isbn, bookStore.getId());
+        verify(inventoryRepository, times(1)).createIfMissing(isbn, bookStore.getId());
+        verify(movementRepository).appendAdjustment(isbn, bookStore.getId(), 20);
     }
 
     @Test
     void shouldReturnErrorWhenUpdatingNonExistingInventory() {
-        when(inventoryRepository.findByIdAndBookstoreId(isbn, 1L)).thenReturn(Mono.empty());
+        when(inventoryRepository.lockRow(isbn, 1L)).thenReturn(Mono.just(0));
         when(bookstoreRepository.existsById(1L)).thenReturn(Mono.just(false));
 
         Mono<UUID> result = inventoryService.updateInventory(isbn, 20, 1L);
@@ -183,14 +226,92 @@ class InventoryServiceTest {
                 })
                 .verify();
 
-        verify(inventoryRepository, times(1)).findByIdAndBookstoreId(isbn, 1L);
+        verify(inventoryRepository, times(1)).lockRow(isbn, 1L);
         verify(bookstoreRepository, times(1)).existsById(1L);
     }
 
+    @Test
+    void shouldUpdateInventoryWithMatchingVersion() {
+        when(inventoryRepository.lockRowIfVersion(isbn, bookStore.getId(), 4L)).thenReturn(Mono.just(1));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(movementRepository.appendAdjustment(any(), any(), anyInt())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(inventoryService.updateInventory(isbn, 20, bookStore.getId(), 4L))
+                .expectNext(isbn)
+                .verifyComplete();
+
+        verify(inventoryRepository, never()).existsByIdAndBookstoreId(any(), any());
+    }
+
+    @Test
+    void shouldReturnConflictWhenUpdatingStaleInventory() {
+        when(inventoryRepository.lockRowIfVersion(isbn, bookStore.getId(), 4L)).thenReturn(Mono.just(0));
+        when(inventoryRepository.existsByIdAndBookstoreId(isbn, bookStore.getId())).thenReturn(Mono.just(true));
+
+        StepVerifier.create(inventoryService.updateInventory(isbn, 20, bookStore.getId(), 4L))
+                .expectError(VersionConflictException.class)
+                .verify();
+
+        verify(outboxService, never()).record(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenUpdatingMissingVersionedInventory() {
+        when(inventoryRepository.lockRowIfVersion(isbn, bookStore.getId(), 4L)).thenReturn(Mono.just(0));
+        when(inventoryRepository.existsByIdAndBookstoreId(isbn, bookStore.getId())).thenReturn(Mono.just(false));
+
+        StepVerifier.create(inventoryService.updateInventory(isbn, 20, bookStore.getId(), 4L))
+                .expectError(InventoryNotFoundException.class)
+                .verify();
+
+        verify(bookstoreRepository, never()).existsById(any());
+    }
+
+    @Test
+    void shouldBufferUnversionedUpdateWhenWriteBehindEnabled() {
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.write(isbn, bookStore.getId(), 20)).thenReturn(Mono.empty());
+
+        StepVerifier.create(inventoryService.updateInventory(isbn, 20, bookStore.getId()))
+                .expectNext(isbn)
+                .verifyComplete();
+
+        verify(inventoryRepository, never()).lockRow(any(), any());
+        verify(outboxService, never()).record(any(), any(), any(), any());
+        verify(transactionalOperator, never()).transactional(any(Mono.class));
+    }
+
+    @Test
+    void shouldFlushBufferedWritesBeforeVersionedUpdate() {
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.flush()).thenReturn(Mono.just(3));
+        when(inventoryRepository.lockRowIfVersion(isbn, bookStore.getId(), 4L)).thenReturn(Mono.just(1));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+        when(movementRepository.appendAdjustment(any(), any(), anyInt())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(inventoryService.updateInventory(isbn, 20, bookStore.getId(), 4L))
+                .expectNext(isbn)
+                .verifyComplete();
+
+        verify(writeBehind).flush();
+    }
+
+    @Test
+    void shouldOverlayBufferedWritesOnCopiesByIsbn() {
+        InventoryDto buffered = InventoryDto.builder().id(isbn).copies(3).bookstoreId(bookStore.getId()).build();
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(inventoryRepository.findInventoriesById(isbn)).thenReturn(Flux.just(inventory));
+        when(writeBehind.overlay(eq(isbn), any())).thenReturn(List.of(buffered));
+
+        StepVerifier.create(inventoryService.getCopiesByIsbn(isbn))
+                .expectNextMatches(dto -> dto.getCopies() == 3)
+                .verifyComplete();
+    }
+
 
     @Test
     void shouldReturnTotalCopies() {
-        when(inventoryRepository.findAll()).thenReturn(Flux.just(inventory));
+        when(inventoryRepository.sumCopies()).thenReturn(Mono.just(10L));
 
         Mono<InventoryGlobalDto> result = inventoryService.getTotalCopies();
 
@@ -198,57 +319,124 @@ class InventoryServiceTest {
                 .expectNextMatches(dto -> dto.getTotal_copies().equals(10L))
                 .verifyComplete();
 
-        verify(inventoryRepository, times(1)).findAll();
+        verify(inventoryRepository, never()).findAll();
     }
 
     @Test
-    void shouldUpdateOrCreateInventory() {
-        UUID bookId = UUID.randomUUID();
-        Long bookstoreId = 1001L;
-        BookModel bookModel = new BookModel();
-        bookModel.setId(bookId);
-        bookModel.setBookstoreId(bookstoreId);
+    void shouldAddCopyToExistingRowsWithoutReadingThem() {
+        when(movementRepository.appendToAllRows(bookIsbn, "RECEIPT", 1)).thenReturn(Mono.just(2));
+        when(outboxService.recordForInventoryRows(any(), any(), any())).thenReturn(Mono.empty());
 
-        Inventory existingInventory = Inventory.builder()
-                .id(bookId)
-                .copies(5)
-                .bookstoreId(bookstoreId)
-                .isNew(false)
-                .build();
+        StepVerifier.create(inventoryService.updateOrCreateInventory(bookModel))
+                .verifyComplete();
 
-        Inventory newInventory = Inventory.builder()
-                .id(bookId)
-                .copies(1)
-                .bookstoreId(bookstoreId)
-                .isNew(true)
-                .build();
+        verify(outboxService).recordForInventoryRows(OutboxEventType.INVENTORY_MOVED, bookIsbn,
+                Map.of("movement", MovementType.RECEIPT, "quantity", 1));
+        verify(inventoryRepository, never()).findInventoriesById(any());
+        verify(inventoryRepository, never()).createIfMissing(any(), any());
+    }
 
-        // Scenario 1: Inventory exists and needs to be updated
-        when(inventoryRepository.findInventoriesById(bookId))
-                .thenReturn(Flux.just(existingInventory));
-        when(inventoryRepository.save(any(Inventory.class)))
-                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    @Test
+    void shouldCreateRowWithFirstCopyWhenBookHasNone() {
+        when(movementRepository.appendToAllRows(bookIsbn, "RECEIPT", 1)).thenReturn(Mono.just(0));
+        when(inventoryRepository.createIfMissing(bookIsbn, bookModel.getBookstoreId())).thenReturn(Mono.just(1));
+        when(movementRepository.save(any(InventoryMovement.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
 
         StepVerifier.create(inventoryService.updateOrCreateInventory(bookModel))
-                .expectSubscription()
                 .verifyComplete();
 
-        verify(inventoryRepository).findInventoriesById(bookId);
-        verify(inventoryRepository).save(argThat(inventory ->
-                inventory.getCopies() == 6 && !inventory.isNew()));
+        verify(movementRepository).save(argThat(movement -> movement.getMovementType() == MovementType.RECEIPT
+                && movement.getQuantity() == 1 && movement.getBookstoreId().equals(bookModel.getBookstoreId())));
+        verify(outboxService).record(OutboxEventType.INVENTORY_MOVED, bookIsbn, bookModel.getBookstoreId(),
+                Map.of("movement", MovementType.RECEIPT, "quantity", 1));
+        verify(movementRepository, never()).appendAdjustment(any(), any(), anyInt());
+    }
 
-        when(inventoryRepository.findInventoriesById(bookId))
-                .thenReturn(Flux.empty());
-        when(inventoryRepository.save(any(Inventory.class)))
-                .thenReturn(Mono.just(newInventory));
+    @Test
+    void shouldGroupCopiesByIsbnInChunks() {
+        UUID otherIsbn = UUID.randomUUID();
+        Inventory otherStore = Inventory.builder().id(isbn).copies(4).bookstoreId(1002L).build();
+        Inventory otherBook = Inventory.builder().id(otherIsbn).copies(7).bookstoreId(100L).build();
+        when(inventoryRepository.findByIdIn(List.of(isbn))).thenReturn(Flux.just(inventory, otherStore));
+        when(inventoryRepository.findByIdIn(List.of(otherIsbn))).thenReturn(Flux.just(otherBook));
+
+        StepVerifier.create(inventoryService.getCopiesByIsbns(List.of(isbn, otherIsbn), 1))
+                .expectNextMatches(copies -> copies.get(isbn).size() == 2 && copies.get(otherIsbn).size() == 1)
+                .verifyComplete();
+    }
 
+    @Test
+    void shouldRejectUpdateBelowReservedCopies() {
+        when(inventoryRepository.lockRow(isbn, bookStore.getId())).thenReturn(Mono.just(1));
+        when(inventoryRepository.findReserved(List.of(isbn), List.of(bookStore.getId())))
+                .thenReturn(Flux.just(new ReservedCopies(isbn, bookStore.getId(), 3)));
 
-        StepVerifier.create(inventoryService.updateOrCreateInventory(bookModel))
-                .expectSubscription()
+        StepVerifier.create(inventoryService.updateInventory(isbn, 2, bookStore.getId()))
+                .expectError(StockHeldException.class)
+                .verify();
+
+        verify(movementRepository, never()).appendAdjustment(any(), any(), anyInt());
+        verify(outboxService, never()).record(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectBulkUpdateWhoseLastWriteIsBelowReservedCopies() {
+        UUID otherIsbn = UUID.randomUUID();
+        List<InventoryUpdateDto> updates = List.of(
+                new InventoryUpdateDto(isbn, 1001L, 1),
+                new InventoryUpdateDto(isbn, 1001L, 5),
+                new InventoryUpdateDto(otherIsbn, 1002L, 2));
+        when(bookstoreRepository.findAllIds()).thenReturn(Flux.just(1001L, 1002L));
+        when(inventoryRepository.lockOrCreate(updates)).thenReturn(Mono.just(2));
+        when(inventoryRepository.appendAdjustments(updates)).thenReturn(Mono.just(2));
+        when(outboxService.recordInventoryUpdates(updates)).thenReturn(Mono.empty());
+        when(inventoryRepository.findReserved(List.of(isbn, otherIsbn), List.of(1001L, 1002L)))
+                .thenReturn(Flux.just(new ReservedCopies(isbn, 1001L, 3), new ReservedCopies(otherIsbn, 1002L, 4)));
+
+        // The first write to isbn would be below its holds, but the last one wins
+        StepVerifier.create(inventoryService.updateInventories(updates))
+                .expectErrorMatches(e -> e instanceof StockHeldException && e.getMessage().contains(otherIsbn.toString()))
+                .verify();
+    }
+
+    @Test
+    void shouldBulkUpdateInventoriesInBatchedStatements() {
+        UUID otherIsbn = UUID.randomUUID();
+        List<InventoryUpdateDto> updates = List.of(
+                new InventoryUpdateDto(isbn, 1001L, 5),
+                new InventoryUpdateDto(otherIsbn, 1002L, 8));
+        when(bookstoreRepository.findAllIds()).thenReturn(Flux.just(1001L, 1002L));
+        when(inventoryRepository.lockOrCreate(updates)).thenReturn(Mono.just(2));
+        when(inventoryRepository.appendAdjustments(updates)).thenReturn(Mono.just(2));
+        when(outboxService.recordInventoryUpdates(updates)).thenReturn(Mono.empty());
+
+        StepVerifier.create(inventoryService.updateInventories(updates))
+                .expectNext(2)
                 .verifyComplete();
 
-        verify(inventoryRepository, times(2)).findInventoriesById(bookId); // Once for update, once for create
-        verify(inventoryRepository, times(2)).save(any(Inventory.class)); // Once for each scenario
+        verify(bookstoreRepository, never()).existsById(any(Long.class));
+        verify(inventoryRepository, never()).findByIdAndBookstoreId(any(), any());
+        verify(outboxService, never()).record(any(), any(), any(), any());
+        verify(movementRepository, never()).appendAdjustment(any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldRejectBulkUpdateWithUnknownBookstore() {
+        List<InventoryUpdateDto> updates = List.of(
+                new InventoryUpdateDto(isbn, 1001L, 5),
+                new InventoryUpdateDto(isbn, 9999L, 8));
+        when(bookstoreRepository.findAllIds()).thenReturn(Flux.just(1001L, 1002L));
+
+        StepVerifier.create(inventoryService.updateInventories(updates))
+                .expectErrorSatisfies(throwable -> {
+                    assertTrue(throwable instanceof BookstoreNotFoundException);
+                    assertEquals("Bookstores with IDs [9999] not found.", ((BookstoreNotFoundException) throwable).getBody().getDetail());
+                })
+                .verify();
+
+        verify(inventoryRepository, never()).lockOrCreate(any());
+        verify(outboxService, never()).record(any(), any(), any(), any());
     }
 
 }
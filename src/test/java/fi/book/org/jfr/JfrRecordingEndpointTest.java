@@ -0,0 +1,62 @@
+package fi.book.org.jfr;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JfrRecordingEndpointTest {
+
+    private final JfrRecordingEndpoint endpoint = new JfrRecordingEndpoint(new JfrRecordingProperties());
+
+    @AfterEach
+    void tearDown() throws IOException {
+        endpoint.close();
+    }
+
+    @Test
+    void shouldCapDurationAndRefuseSecondRecording() throws IOException, ParseException {
+        WebEndpointResponse<Map<String, Object>> started = endpoint.start(Duration.ofHours(1));
+
+        assertThat(started.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(started.getBody()).containsEntry("state", "RUNNING").containsEntry("duration", Duration.ofMinutes(15));
+        assertThat(endpoint.start(null).getStatus()).isEqualTo(WebEndpointResponse.STATUS_CONFLICT);
+    }
+
+    @Test
+    void shouldRecordApplicationEvents() throws IOException, ParseException {
+        long id = (long) endpoint.start(Duration.ofMinutes(1)).getBody().get("id");
+        @SuppressWarnings("deprecation")
+        JfrPasswordEncoder passwordEncoder = new JfrPasswordEncoder(NoOpPasswordEncoder.getInstance());
+        passwordEncoder.matches("secret", "secret");
+
+        assertThat(endpoint.stop()).containsEntry("state", "STOPPED");
+        Resource recording = endpoint.download(id).getBody();
+
+        RecordedEvent event = RecordingFile.readAllEvents(recording.getFile().toPath()).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("fi.book.org.PasswordCheck"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(event.getString("operation")).isEqualTo("matches");
+        assertThat(event.getBoolean("matched")).isTrue();
+    }
+
+    @Test
+    void shouldDownloadSnapshotWhileRunningAndRejectUnknownIds() throws IOException, ParseException {
+        long id = (long) endpoint.start(null).getBody().get("id");
+
+        assertThat(endpoint.download(id).getBody().contentLength()).isPositive();
+        assertThat(endpoint.download(id + 1).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+}
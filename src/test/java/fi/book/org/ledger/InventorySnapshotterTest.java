@@ -0,0 +1,92 @@
+package fi.book.org.ledger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.util.UUID;
+
+import fi.book.org.model.SnapshotCandidate;
+import fi.book.org.repository.InventoryMovementRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventorySnapshotterTest {
+
+    @Mock
+    private InventoryMovementRepository movementRepository;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private InventorySnapshotter snapshotter;
+
+    @BeforeEach
+    void setUp() {
+        LedgerProperties ledgerProperties = new LedgerProperties();
+        ledgerProperties.getSnapshots().setBatchSize(2);
+        snapshotter = new InventorySnapshotter(movementRepository, ledgerProperties, transactionalOperator);
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void shouldFoldCandidatesUntilBatchComesBackShort() {
+        SnapshotCandidate first = candidate();
+        SnapshotCandidate second = candidate();
+        SnapshotCandidate third = candidate();
+        when(movementRepository.findSnapshotCandidates(eq(100), eq(2)))
+                .thenReturn(Flux.just(first, second))
+                .thenReturn(Flux.just(third));
+        givenFoldSucceeds();
+
+        StepVerifier.create(snapshotter.snapshotAll())
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(movementRepository, times(2)).findSnapshotCandidates(anyInt(), anyInt());
+        InOrder fold = inOrder(movementRepository);
+        fold.verify(movementRepository).openFold(third.isbn(), third.bookstoreId());
+        fold.verify(movementRepository).markFolded(third.isbn(), third.bookstoreId());
+        fold.verify(movementRepository).applyFolded(third.isbn(), third.bookstoreId());
+        fold.verify(movementRepository).insertSnapshot(third.isbn(), third.bookstoreId());
+    }
+
+    @Test
+    void shouldSkipRowDeletedSinceItWasFound() {
+        SnapshotCandidate gone = candidate();
+        when(movementRepository.findSnapshotCandidates(anyInt(), anyInt())).thenReturn(Flux.just(gone));
+        when(movementRepository.openFold(gone.isbn(), gone.bookstoreId())).thenReturn(Mono.just(0));
+
+        StepVerifier.create(snapshotter.snapshotAll())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(movementRepository, never()).markFolded(any(), any());
+        verify(movementRepository, never()).insertSnapshot(any(), any());
+    }
+
+    private void givenFoldSucceeds() {
+        when(movementRepository.openFold(any(), any())).thenReturn(Mono.just(1));
+        when(movementRepository.markFolded(any(), any())).thenReturn(Mono.just(100));
+        when(movementRepository.applyFolded(any(), any())).thenReturn(Mono.just(1));
+        when(movementRepository.insertSnapshot(any(), any())).thenReturn(Mono.just(1));
+    }
+
+    private static SnapshotCandidate candidate() {
+        return new SnapshotCandidate(UUID.randomUUID(), 1001L);
+    }
+}
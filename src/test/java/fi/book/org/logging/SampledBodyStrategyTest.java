@@ -0,0 +1,56 @@
+package fi.book.org.logging;
+
+import org.junit.jupiter.api.Test;
+import org.zalando.logbook.api.Correlation;
+import org.zalando.logbook.api.HttpRequest;
+import org.zalando.logbook.api.HttpResponse;
+import org.zalando.logbook.api.Sink;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SampledBodyStrategyTest {
+
+    private final Correlation correlation = mock(Correlation.class);
+    private final HttpRequest request = mock(HttpRequest.class);
+    private final HttpRequest requestWithoutBody = mock(HttpRequest.class);
+    private final HttpResponse response = mock(HttpResponse.class);
+    private final HttpResponse responseWithoutBody = mock(HttpResponse.class);
+    private final Sink sink = mock(Sink.class);
+
+    @Test
+    void shouldLogBodiesOfFailedExchanges() throws IOException {
+        givenStatus(500);
+
+        new SampledBodyStrategy(400, 0.0, () -> 0.5).write(correlation, request, response, sink);
+
+        verify(sink).writeBoth(correlation, request, response);
+    }
+
+    @Test
+    void shouldLogBodiesOfSampledExchanges() throws IOException {
+        givenStatus(200);
+
+        new SampledBodyStrategy(400, 0.1, () -> 0.05).write(correlation, request, response, sink);
+
+        verify(sink).writeBoth(correlation, request, response);
+    }
+
+    @Test
+    void shouldDropBodiesOfOtherExchanges() throws IOException {
+        givenStatus(200);
+
+        new SampledBodyStrategy(400, 0.1, () -> 0.5).write(correlation, request, response, sink);
+
+        verify(sink).writeBoth(correlation, requestWithoutBody, responseWithoutBody);
+    }
+
+    private void givenStatus(int status) throws IOException {
+        doReturn(status).when(response).getStatus();
+        doReturn(requestWithoutBody).when(request).withoutBody();
+        doReturn(responseWithoutBody).when(response).withoutBody();
+    }
+}
@@ -0,0 +1,116 @@
+package fi.book.org.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.annotation.Cacheable;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class MethodMetricsAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MethodMetricsAspect aspect = new MethodMetricsAspect(meterRegistry);
+    private final CacheMissProbeAspect cacheMissProbe = new CacheMissProbeAspect();
+
+    @Test
+    void shouldTimeMonoOnTermination() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint("find", Mono.just("book"));
+
+        Mono<?> result = (Mono<?>) aspect.time(joinPoint);
+        assertThat(meterRegistry.find(MethodMetricsAspect.METRIC).timers()).isEmpty();
+
+        StepVerifier.create(result).expectNext("book").verifyComplete();
+        Timer timer = timer("find", "success");
+        assertThat(timer.count()).isOne();
+        assertThat(timer.getId().getTag("layer")).isEqualTo("service");
+        assertThat(timer.getId().getTag("class")).isEqualTo("FakeService");
+        assertThat(timer.getId().getTag("cache")).isEqualTo("none");
+    }
+
+    @Test
+    void shouldTagFluxErrorsWithException() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint("list", Flux.error(new IllegalStateException("boom")));
+
+        StepVerifier.create((Flux<?>) aspect.time(joinPoint)).verifyError(IllegalStateException.class);
+
+        assertThat(timer("list", "error").getId().getTag("exception")).isEqualTo("IllegalStateException");
+    }
+
+    @Test
+    void shouldTagCacheHitWhenMethodIsNotSubscribed() throws Throwable {
+        ProceedingJoinPoint joinPoint = joinPoint("cached", Mono.just("from-cache"));
+
+        StepVerifier.create((Mono<?>) aspect.time(joinPoint)).expectNext("from-cache").verifyComplete();
+
+        assertThat(timer("cached", "success").getId().getTag("cache")).isEqualTo("hit");
+    }
+
+    @Test
+    void shouldTagCacheMissWhenMethodIsSubscribed() throws Throwable {
+        ProceedingJoinPoint inner = joinPoint("cached", Mono.just("loaded"));
+        ProceedingJoinPoint outer = joinPoint("cached", cacheMissProbe.markMiss(inner));
+
+        StepVerifier.create((Mono<?>) aspect.time(outer)).expectNext("loaded").verifyComplete();
+
+        assertThat(timer("cached", "success").getId().getTag("cache")).isEqualTo("miss");
+    }
+
+    @Test
+    void shouldTagBlockingCacheHitAndMiss() throws Throwable {
+        assertThat(aspect.time(joinPoint("cachedBlocking", "from-cache"))).isEqualTo("from-cache");
+        assertThat(timer("cachedBlocking", "success").getId().getTag("cache")).isEqualTo("hit");
+        meterRegistry.clear();
+
+        ProceedingJoinPoint inner = joinPoint("cachedBlocking", "loaded");
+        ProceedingJoinPoint outer = joinPoint("cachedBlocking", null);
+        doAnswer(invocation -> cacheMissProbe.markMiss(inner)).when(outer).proceed();
+
+        assertThat(aspect.time(outer)).isEqualTo("loaded");
+        assertThat(timer("cachedBlocking", "success").getId().getTag("cache")).isEqualTo("miss");
+        assertThat(CacheProbe.current()).isNull();
+    }
+
+    private Timer timer(String method, String outcome) {
+        return meterRegistry.get(MethodMetricsAspect.METRIC).tag("method", method).tag("outcome", outcome).timer();
+    }
+
+    private static ProceedingJoinPoint joinPoint(String method, Object result) throws Throwable {
+        MethodSignature signature = mock(MethodSignature.class);
+        doReturn(FakeService.class.getMethod(method)).when(signature).getMethod();
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        doReturn(signature).when(joinPoint).getSignature();
+        doReturn(new FakeService()).when(joinPoint).getThis();
+        doReturn(result).when(joinPoint).proceed();
+        return joinPoint;
+    }
+
+    public static class FakeService {
+        public Mono<String> find() {
+            return Mono.empty();
+        }
+
+        public Flux<String> list() {
+            return Flux.empty();
+        }
+
+        @Cacheable("fake")
+        public Mono<String> cached() {
+            return Mono.empty();
+        }
+
+        @Cacheable("fake")
+        public String cachedBlocking() {
+            return null;
+        }
+    }
+}
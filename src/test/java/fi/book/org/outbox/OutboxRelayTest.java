@@ -0,0 +1,92 @@
+package fi.book.org.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import fi.book.org.model.OutboxEvent;
+import fi.book.org.repository.OutboxEventRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+    @Mock
+    private ObjectProvider<OutboxSink> sinks;
+
+    private InMemoryOutboxSink inMemoryOutboxSink;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        OutboxProperties outboxProperties = new OutboxProperties();
+        outboxProperties.getRelay().setBatchSize(2);
+        inMemoryOutboxSink = new InMemoryOutboxSink();
+        outboxRelay = new OutboxRelay(outboxEventRepository, sinks, outboxProperties);
+    }
+
+    @Test
+    void shouldDrainPendingEventsInBatches() {
+        OutboxEvent first = OutboxEvent.builder().id(1L).eventType("BOOK_CREATED").build();
+        OutboxEvent second = OutboxEvent.builder().id(2L).eventType("INVENTORY_UPDATED").build();
+        OutboxEvent third = OutboxEvent.builder().id(3L).eventType("BOOK_DELETED").build();
+        when(sinks.orderedStream()).thenAnswer(invocation -> Stream.of(inMemoryOutboxSink));
+        when(outboxEventRepository.findPending(2))
+                .thenReturn(Flux.just(first, second))
+                .thenReturn(Flux.just(third));
+        when(outboxEventRepository.markPublished(any())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(outboxRelay.drain())
+                .expectNext(3L)
+                .verifyComplete();
+
+        assertEquals(List.of(first, second, third), inMemoryOutboxSink.getEvents());
+        verify(outboxEventRepository).markPublished(List.of(1L, 2L));
+        verify(outboxEventRepository).markPublished(List.of(3L));
+    }
+
+    @Test
+    void shouldNotMarkPublishedWhenSinkFails() {
+        OutboxSink failingSink = events -> Mono.error(new RuntimeException("Simulated sink error"));
+        when(sinks.orderedStream()).thenAnswer(invocation -> Stream.of(failingSink));
+        when(outboxEventRepository.findPending(2)).thenReturn(Flux.just(OutboxEvent.builder().id(1L).build()));
+
+        StepVerifier.create(outboxRelay.drain())
+                .expectError(RuntimeException.class)
+                .verify();
+
+        verify(outboxEventRepository, never()).markPublished(any());
+    }
+
+    @Test
+    void shouldDoNothingWhenOutboxIsEmpty() {
+        when(outboxEventRepository.findPending(anyInt())).thenReturn(Flux.empty());
+
+        StepVerifier.create(outboxRelay.drain())
+                .expectNext(0L)
+                .verifyComplete();
+
+        assertTrue(inMemoryOutboxSink.getEvents().isEmpty());
+        verify(outboxEventRepository, times(1)).findPending(2);
+        verify(outboxEventRepository, never()).markPublished(any());
+    }
+}
@@ -0,0 +1,82 @@
+package fi.book.org.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.model.OutboxEvent;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.repository.OutboxEventRepository;
+import fi.book.org.services.OutboxService;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new OutboxService(outboxEventRepository, new ObjectMapper());
+    }
+
+    @Test
+    void shouldRecordCompactEvent() {
+        UUID isbn = UUID.randomUUID();
+        when(outboxEventRepository.save(any(OutboxEvent.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(outboxService.record(OutboxEventType.INVENTORY_UPDATED, isbn, 100L, Map.of("copies", 5)))
+                .verifyComplete();
+
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        OutboxEvent event = captor.getValue();
+        assertEquals("inventory", event.getAggregateType());
+        assertEquals(isbn.toString(), event.getAggregateId());
+        assertEquals(100L, event.getBookstoreId());
+        assertEquals("INVENTORY_UPDATED", event.getEventType());
+        assertEquals("{\"copies\":5}", event.getPayload());
+    }
+
+    @Test
+    void shouldRecordEventWithoutPayload() {
+        UUID isbn = UUID.randomUUID();
+        when(outboxEventRepository.save(any(OutboxEvent.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(outboxService.record(OutboxEventType.BOOK_DELETED, isbn, null, null))
+                .verifyComplete();
+
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        assertEquals("book", captor.getValue().getAggregateType());
+        assertNull(captor.getValue().getPayload());
+    }
+
+    @Test
+    void shouldPropagateSaveFailure() {
+        when(outboxEventRepository.save(any(OutboxEvent.class)))
+                .thenReturn(Mono.error(new RuntimeException("Simulated database error")));
+
+        StepVerifier.create(outboxService.record(OutboxEventType.BOOK_DELETED, UUID.randomUUID(), null, null))
+                .expectError(RuntimeException.class)
+                .verify();
+    }
+}
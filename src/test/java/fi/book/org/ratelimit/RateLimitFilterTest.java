@@ -0,0 +1,74 @@
+package fi.book.org.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.WebFilterChain;
+
+import java.util.List;
+import java.util.Map;
+
+import fi.book.org.ratelimit.RateLimitProperties.Quota;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+    private WebFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        Quota quota = new Quota();
+        quota.setCapacity(1);
+        quota.setRefillPerSecond(0.5);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setQuotas(Map.of("user", Map.of(EndpointClass.SEARCH, quota)));
+        filter = new RateLimitFilter(new RateLimiter(properties));
+        chain = mock(WebFilterChain.class);
+        when(chain.filter(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void shouldRejectWithRetryAfterWhenQuotaIsSpent() {
+        var authentication = new UsernamePasswordAuthenticationToken("alice", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books"));
+        MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books"));
+
+        StepVerifier.create(filter.filter(first, chain)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)))
+                .verifyComplete();
+        StepVerifier.create(filter.filter(second, chain)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)))
+                .verifyComplete();
+
+        assertThat(first.getResponse().getStatusCode()).isNull();
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        verify(chain, times(1)).filter(any());
+    }
+
+    @Test
+    void shouldPassRequestsWithoutQuota() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/books"));
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        verify(chain, times(2)).filter(exchange);
+    }
+}
@@ -0,0 +1,80 @@
+package fi.book.org.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fi.book.org.ratelimit.RateLimitProperties.Quota;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setQuotas(Map.of(
+                "user", Map.of(EndpointClass.SEARCH, quota(2, 1)),
+                "admin", Map.of(EndpointClass.SEARCH, quota(5, 10))));
+        rateLimiter = new RateLimiter(properties, clock::get);
+    }
+
+    @Test
+    void shouldRejectOnceBurstIsSpent() {
+        assertThat(rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH)).isZero();
+        assertThat(rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH)).isZero();
+
+        long wait = rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH);
+
+        assertThat(wait).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void shouldRefillOverTime() {
+        rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH);
+        rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH)).isZero();
+        assertThat(rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH)).isPositive();
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsPerClientAndEndpointClass() {
+        rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH);
+        rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.SEARCH);
+
+        assertThat(rateLimiter.tryAcquire("bob", List.of("user"), EndpointClass.SEARCH)).isZero();
+        assertThat(rateLimiter.tryAcquire("alice", List.of("user"), EndpointClass.READ)).isZero();
+    }
+
+    @Test
+    void shouldApplyMostGenerousRoleQuota() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("root", List.of("user", "admin"), EndpointClass.SEARCH)).isZero();
+        }
+        assertThat(rateLimiter.tryAcquire("root", List.of("user", "admin"), EndpointClass.SEARCH)).isPositive();
+    }
+
+    @Test
+    void shouldNotLimitWithoutQuota() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(rateLimiter.tryAcquire("guest", List.of("anonymous"), EndpointClass.SEARCH)).isZero();
+        }
+    }
+
+    private static Quota quota(int capacity, double refillPerSecond) {
+        Quota quota = new Quota();
+        quota.setCapacity(capacity);
+        quota.setRefillPerSecond(refillPerSecond);
+        return quota;
+    }
+}
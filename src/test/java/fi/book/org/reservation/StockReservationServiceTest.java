@@ -0,0 +1,245 @@
+package fi.book.org.reservation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import fi.book.org.dto.ReservationRequest;
+import fi.book.org.exception.InsufficientStockException;
+import fi.book.org.exception.ReservationClosedException;
+import fi.book.org.exception.ReservationNotFoundException;
+import fi.book.org.model.InventoryMovement;
+import fi.book.org.model.MovementType;
+import fi.book.org.model.OutboxEventType;
+import fi.book.org.model.ReservationStatus;
+import fi.book.org.model.StockReservation;
+import fi.book.org.repository.InventoryMovementRepository;
+import fi.book.org.repository.InventoryRepository;
+import fi.book.org.repository.StockReservationRepository;
+import fi.book.org.services.OutboxService;
+import fi.book.org.services.StockReservationService;
+import fi.book.org.writebehind.InventoryWriteBehind;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    private static final Long BOOKSTORE_ID = 1001L;
+
+    @Mock
+    private StockReservationRepository reservationRepository;
+    @Mock
+    private InventoryRepository inventoryRepository;
+    @Mock
+    private InventoryMovementRepository movementRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private StockCounters stockCounters;
+    @Spy
+    private ReservationProperties properties = new ReservationProperties();
+    @Mock
+    private InventoryWriteBehind writeBehind;
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @InjectMocks
+    private StockReservationService reservationService;
+
+    private UUID isbn;
+
+    @BeforeEach
+    void setUp() {
+        isbn = UUID.randomUUID();
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void shouldHoldCopiesAdmittedByCounterAndDatabase() {
+        StripedStock stock = new StripedStock(4, 5);
+        when(stockCounters.counter(isbn, BOOKSTORE_ID)).thenReturn(Mono.just(stock));
+        when(inventoryRepository.reserve(isbn, BOOKSTORE_ID, 2)).thenReturn(Mono.just(1));
+        when(reservationRepository.insertHeld(any(), eq(isbn), eq(BOOKSTORE_ID), eq(2), eq("alice"), any())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(reservationService.reserve(request(2, null), "alice"))
+                .assertNext(reservation -> {
+                    assertEquals(ReservationStatus.HELD, reservation.getStatus());
+                    assertEquals(2, reservation.getQuantity());
+                })
+                .verifyComplete();
+
+        assertEquals(3, stock.available());
+    }
+
+    @Test
+    void shouldRejectSoldOutBookWithoutDatabase() {
+        when(stockCounters.counter(isbn, BOOKSTORE_ID)).thenReturn(Mono.just(new StripedStock(4, 1)));
+
+        StepVerifier.create(reservationService.reserve(request(2, null), "alice"))
+                .expectError(InsufficientStockException.class)
+                .verify();
+
+        verify(inventoryRepository, never()).reserve(any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldInvalidateCounterWhenDatabaseRefusesHold() {
+        when(stockCounters.counter(isbn, BOOKSTORE_ID)).thenReturn(Mono.just(new StripedStock(4, 5)));
+        when(inventoryRepository.reserve(isbn, BOOKSTORE_ID, 1)).thenReturn(Mono.just(0));
+
+        StepVerifier.create(reservationService.reserve(request(1, null), "alice"))
+                .expectError(InsufficientStockException.class)
+                .verify();
+
+        verify(stockCounters).invalidate(isbn, BOOKSTORE_ID);
+        verify(reservationRepository, never()).insertHeld(any(), any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void shouldReturnCopiesToCounterWhenHoldFails() {
+        StripedStock stock = new StripedStock(4, 5);
+        when(stockCounters.counter(isbn, BOOKSTORE_ID)).thenReturn(Mono.just(stock));
+        when(inventoryRepository.reserve(isbn, BOOKSTORE_ID, 1)).thenReturn(Mono.error(new IllegalStateException("connection lost")));
+
+        StepVerifier.create(reservationService.reserve(request(1, null), "alice"))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(5, stock.available());
+    }
+
+    @Test
+    void shouldCapRequestedHoldTime() {
+        when(stockCounters.counter(isbn, BOOKSTORE_ID)).thenReturn(Mono.just(new StripedStock(1, 1)));
+        when(inventoryRepository.reserve(isbn, BOOKSTORE_ID, 1)).thenReturn(Mono.just(1));
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(reservationRepository.insertHeld(any(), any(), any(), anyInt(), any(), expiresAt.capture())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(reservationService.reserve(request(1, 86_400L), "alice"))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertTrue(expiresAt.getValue().isBefore(LocalDateTime.now().plus(properties.getMaxTtl()).plusSeconds(1)));
+    }
+
+    @Test
+    void shouldRecordSaleOnConfirm() {
+        StockReservation reservation = reservation(ReservationStatus.HELD, "alice");
+        when(reservationRepository.findById(reservation.getId())).thenReturn(Mono.just(reservation));
+        when(reservationRepository.confirm(eq(reservation.getId()), any())).thenReturn(Mono.just(1));
+        when(inventoryRepository.sellReserved(isbn, BOOKSTORE_ID, 2)).thenReturn(Mono.just(1));
+        when(movementRepository.save(any(InventoryMovement.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(outboxService.record(any(), any(), any(), any())).thenReturn(Mono.empty());
+
+        StepVerifier.create(reservationService.confirm(reservation.getId(), "alice"))
+                .assertNext(confirmed -> assertEquals(ReservationStatus.CONFIRMED, confirmed.getStatus()))
+                .verifyComplete();
+
+        ArgumentCaptor<InventoryMovement> sale = ArgumentCaptor.forClass(InventoryMovement.class);
+        verify(movementRepository).save(sale.capture());
+        assertEquals(MovementType.SALE, sale.getValue().getMovementType());
+        assertEquals(-2, sale.getValue().getQuantity());
+        assertEquals(reservation.getId().toString(), sale.getValue().getReference());
+        verify(outboxService).record(eq(OutboxEventType.INVENTORY_MOVED), eq(isbn), eq(BOOKSTORE_ID), any(Map.class));
+    }
+
+    @Test
+    void shouldRefuseToConfirmExpiredHold() {
+        StockReservation reservation = reservation(ReservationStatus.HELD, "alice");
+        when(reservationRepository.findById(reservation.getId())).thenReturn(Mono.just(reservation));
+        when(reservationRepository.confirm(eq(reservation.getId()), any())).thenReturn(Mono.just(0));
+
+        StepVerifier.create(reservationService.confirm(reservation.getId(), "alice"))
+                .expectErrorMatches(e -> e instanceof ReservationClosedException && e.getMessage().contains("EXPIRED"))
+                .verify();
+
+        verify(inventoryRepository, never()).sellReserved(any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldHideOtherUsersReservations() {
+        StockReservation reservation = reservation(ReservationStatus.HELD, "alice");
+        when(reservationRepository.findById(reservation.getId())).thenReturn(Mono.just(reservation));
+
+        StepVerifier.create(reservationService.release(reservation.getId(), "mallory"))
+                .expectError(ReservationNotFoundException.class)
+                .verify();
+
+        verify(reservationRepository, never()).close(any(), anyString());
+    }
+
+    @Test
+    void shouldReturnCopiesOnRelease() {
+        StockReservation reservation = reservation(ReservationStatus.HELD, "alice");
+        when(reservationRepository.findById(reservation.getId())).thenReturn(Mono.just(reservation));
+        when(reservationRepository.close(reservation.getId(), "RELEASED")).thenReturn(Mono.just(1));
+        when(inventoryRepository.unreserve(isbn, BOOKSTORE_ID, 2)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(reservationService.release(reservation.getId(), "alice"))
+                .assertNext(released -> assertEquals(ReservationStatus.RELEASED, released.getStatus()))
+                .verifyComplete();
+
+        verify(stockCounters).release(isbn, BOOKSTORE_ID, 2);
+    }
+
+    @Test
+    void shouldExpireOnlyHoldsStillHeld() {
+        StockReservation expired = reservation(ReservationStatus.HELD, "alice");
+        StockReservation confirmedMeanwhile = reservation(ReservationStatus.HELD, "bob");
+        when(reservationRepository.findExpired(any(), anyInt())).thenReturn(Flux.fromIterable(List.of(expired, confirmedMeanwhile)));
+        when(reservationRepository.close(expired.getId(), "EXPIRED")).thenReturn(Mono.just(1));
+        when(reservationRepository.close(confirmedMeanwhile.getId(), "EXPIRED")).thenReturn(Mono.just(0));
+        when(inventoryRepository.unreserve(isbn, BOOKSTORE_ID, 2)).thenReturn(Mono.just(1));
+
+        StepVerifier.create(reservationService.expireDue())
+                .expectNext(1L)
+                .verifyComplete();
+
+        verify(stockCounters).release(isbn, BOOKSTORE_ID, 2);
+    }
+
+    private ReservationRequest request(int quantity, Long ttlSeconds) {
+        return ReservationRequest.builder()
+                .isbn(isbn)
+                .bookstoreId(BOOKSTORE_ID)
+                .quantity(quantity)
+                .ttlSeconds(ttlSeconds)
+                .build();
+    }
+
+    private StockReservation reservation(ReservationStatus status, String owner) {
+        return StockReservation.builder()
+                .id(UUID.randomUUID())
+                .isbn(isbn)
+                .bookstoreId(BOOKSTORE_ID)
+                .quantity(2)
+                .owner(owner)
+                .status(status)
+                .expiresAt(LocalDateTime.now().plusMinutes(10))
+                .build();
+    }
+}
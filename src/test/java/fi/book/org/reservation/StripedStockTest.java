@@ -0,0 +1,111 @@
+package fi.book.org.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StripedStockTest {
+
+    private static final int BUYERS = 500;
+
+    @Test
+    void shouldAdmitUpToAvailableCopies() {
+        StripedStock stock = new StripedStock(4, 3);
+
+        assertThat(stock.tryAcquire(1)).isTrue();
+        assertThat(stock.tryAcquire(1)).isTrue();
+        assertThat(stock.tryAcquire(1)).isTrue();
+        assertThat(stock.tryAcquire(1)).isFalse();
+        assertThat(stock.available()).isZero();
+    }
+
+    @Test
+    void shouldPoolStripesForLargerRequests() {
+        // 10 copies over 4 stripes is at most 3 per stripe
+        StripedStock stock = new StripedStock(4, 10);
+
+        assertThat(stock.tryAcquire(7)).isTrue();
+        assertThat(stock.available()).isEqualTo(3);
+        assertThat(stock.tryAcquire(4)).isFalse();
+        assertThat(stock.available()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldReadmitReleasedCopies() {
+        StripedStock stock = new StripedStock(8, 1);
+        assertThat(stock.tryAcquire(1)).isTrue();
+
+        stock.release(1);
+
+        assertThat(stock.tryAcquire(1)).isTrue();
+    }
+
+    @Test
+    void shouldRejectCounterWithoutStripes() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedStock(0, 1));
+    }
+
+    @Test
+    void shouldNeverAdmitMoreThanAvailableUnderContention() throws Exception {
+        StripedStock stock = new StripedStock(8, 100);
+        AtomicInteger admitted = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 10; i++) {
+                if (stock.tryAcquire(1 + i % 3)) {
+                    admitted.addAndGet(1 + i % 3);
+                }
+            }
+        });
+
+        assertThat(admitted.get()).isLessThanOrEqualTo(100);
+        assertThat(admitted.get() + stock.available()).isEqualTo(100);
+    }
+
+    @Test
+    void shouldKeepCopiesBalancedWhenBuyersReleaseConcurrently() throws Exception {
+        StripedStock stock = new StripedStock(8, 50);
+        AtomicInteger held = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 100; i++) {
+                if (stock.tryAcquire(2)) {
+                    held.addAndGet(2);
+                    if (i % 2 == 0) {
+                        held.addAndGet(-2);
+                        stock.release(2);
+                    }
+                }
+            }
+        });
+
+        assertThat(held.get() + stock.available()).isEqualTo(50);
+    }
+
+    private static void runConcurrently(Runnable buyer) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> buyers = new ArrayList<>(BUYERS);
+        try (ExecutorService executor = Executors.newFixedThreadPool(64)) {
+            for (int i = 0; i < BUYERS; i++) {
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    buyer.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : buyers) {
+                future.get();
+            }
+        }
+    }
+}
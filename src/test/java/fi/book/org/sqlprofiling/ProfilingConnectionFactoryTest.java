@@ -0,0 +1,86 @@
+package fi.book.org.sqlprofiling;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.function.BiFunction;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class ProfilingConnectionFactoryTest {
+
+    private final ConnectionFactory delegate = mock(ConnectionFactory.class);
+    private final Connection connection = mock(Connection.class);
+    private final Statement statement = mock(Statement.class);
+    private final Result result = mock(Result.class);
+    private final ProfilingConnectionFactory connectionFactory =
+            new ProfilingConnectionFactory(delegate, new SqlProfiler(new SqlProfilingProperties()));
+
+    @Test
+    void shouldRecordStatementWithOriginAndRows() {
+        givenRows("a", "b");
+        QueryProfile profile = new QueryProfile();
+
+        StepVerifier.create(query("SELECT * FROM book WHERE id = $1")
+                        .contextWrite(context -> context.put(QueryProfile.class, profile)
+                                .put(QueryOrigin.class, new QueryOrigin("BookRepository.findById"))))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        assertThat(profile.statements()).singleElement().satisfies(executed -> {
+            assertThat(executed.shape()).isEqualTo("SELECT * FROM book WHERE id = ?");
+            assertThat(executed.origin()).isEqualTo("BookRepository.findById");
+            assertThat(executed.rows()).isEqualTo(2);
+            assertThat(executed.success()).isTrue();
+            assertThat(executed.duration()).isLessThan(Duration.ofSeconds(5));
+        });
+    }
+
+    @Test
+    void shouldFlagRepeatedShapes() {
+        givenRows("a");
+        QueryProfile profile = new QueryProfile();
+
+        StepVerifier.create(Flux.range(1, 3)
+                        .concatMap(i -> query("SELECT * FROM inventory WHERE book_id = $1"))
+                        .contextWrite(context -> context.put(QueryProfile.class, profile)))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertThat(profile.repeated(2)).containsEntry("SELECT * FROM inventory WHERE book_id = ?", 3L);
+        assertThat(profile.repeated(3)).isEmpty();
+        assertThat(profile.origins("SELECT * FROM inventory WHERE book_id = ?")).containsExactly(QueryOrigin.UNKNOWN);
+    }
+
+    @Test
+    void shouldPassThroughOutsideRequests() {
+        givenRows("a");
+
+        StepVerifier.create(query("SELECT 1")).expectNext("a").verifyComplete();
+    }
+
+    private Flux<Object> query(String sql) {
+        return Mono.from(connectionFactory.create())
+                .flatMapMany(acquired -> Flux.from(acquired.createStatement(sql).bind(0, 1).execute()))
+                .flatMap(executed -> executed.map((row, metadata) -> row));
+    }
+
+    private void givenRows(Object... rows) {
+        doReturn(Mono.just(connection)).when(delegate).create();
+        doReturn(statement).when(connection).createStatement(anyString());
+        doReturn(Mono.just(result)).when(statement).execute();
+        doReturn(Flux.just(rows)).when(result).map(any(BiFunction.class));
+    }
+}
@@ -0,0 +1,49 @@
+package fi.book.org.sqlprofiling;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import java.time.Duration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlProfilingFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SqlProfilingFilter filter = new SqlProfilingFilter(new SqlProfilingProperties(), meterRegistry);
+
+    @Test
+    void shouldCountStatementsPerRequest() {
+        run(3);
+
+        assertThat(meterRegistry.get(SqlProfilingFilter.QUERIES_METRIC).summary().totalAmount()).isEqualTo(3);
+        assertThat(meterRegistry.find(SqlProfilingFilter.REPEATED_METRIC).counter()).isNull();
+    }
+
+    @Test
+    void shouldFlagRequestRepeatingStatementAboveThreshold() {
+        run(11);
+
+        assertThat(meterRegistry.get(SqlProfilingFilter.REPEATED_METRIC).tag("method", "GET").counter().count()).isOne();
+    }
+
+    private void run(int statements) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/inventory/copies"));
+        WebFilterChain chain = ignored -> Mono.deferContextual(context -> {
+            QueryProfile profile = context.get(QueryProfile.class);
+            for (int i = 0; i < statements; i++) {
+                profile.add(new ExecutedStatement("SELECT * FROM inventory WHERE book_id = ?",
+                        "InventoryRepository.findInventoriesById", Duration.ofMillis(1), 1, true));
+            }
+            return Mono.empty();
+        });
+
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+    }
+}
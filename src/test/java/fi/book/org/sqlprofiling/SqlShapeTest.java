@@ -0,0 +1,26 @@
+package fi.book.org.sqlprofiling;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlShapeTest {
+
+    @Test
+    void shouldReplaceBindMarkersAndLiterals() {
+        assertThat(SqlShape.of("SELECT * FROM book WHERE id = $1 AND title = 'It''s' LIMIT 20"))
+                .isEqualTo("SELECT * FROM book WHERE id = ? AND title = ? LIMIT ?");
+    }
+
+    @Test
+    void shouldCollapseInListsOfAnyLength() {
+        assertThat(SqlShape.of("SELECT * FROM inventory WHERE book_id IN ($1, $2,\n $3)"))
+                .isEqualTo(SqlShape.of("SELECT * FROM inventory WHERE book_id IN (:id)"))
+                .isEqualTo("SELECT * FROM inventory WHERE book_id IN (?)");
+    }
+
+    @Test
+    void shouldKeepIdentifiersWithDigits() {
+        assertThat(SqlShape.of("SELECT c1 FROM inventory_p0")).isEqualTo("SELECT c1 FROM inventory_p0");
+    }
+}
@@ -0,0 +1,63 @@
+package fi.book.org.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class FileSpanExporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldAppendOneJsonLinePerSpan() throws IOException {
+        Path file = directory.resolve("spans/spans.jsonl");
+        FileSpanExporter exporter = new FileSpanExporter(file);
+
+        assertThat(exporter.export(List.of(span("BookService.getBooks"), span("BookRepository.findAllBy"))).isSuccess()).isTrue();
+        exporter.shutdown();
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0))
+                .contains("\"name\":\"BookService.getBooks\"")
+                .contains("\"duration_micros\":1500")
+                .contains("\"layer\":\"service\"");
+    }
+
+    @Test
+    void shouldKeepMostRecentSpansInMemory() {
+        InMemorySpanExporter exporter = new InMemorySpanExporter(2);
+
+        exporter.export(List.of(span("a"), span("b"), span("c")));
+
+        assertThat(exporter.spans()).extracting(SpanData::getName).containsExactly("b", "c");
+    }
+
+    private static SpanData span(String name) {
+        SpanData span = mock(SpanData.class);
+        doReturn(name).when(span).getName();
+        doReturn("4bf92f3577b34da6a3ce929d0e0e4736").when(span).getTraceId();
+        doReturn("00f067aa0ba902b7").when(span).getSpanId();
+        doReturn("0000000000000000").when(span).getParentSpanId();
+        doReturn(SpanKind.INTERNAL).when(span).getKind();
+        doReturn(1_000_000L).when(span).getStartEpochNanos();
+        doReturn(2_500_000L).when(span).getEndEpochNanos();
+        doReturn(StatusData.ok()).when(span).getStatus();
+        doReturn(Attributes.builder().put("layer", "service").build()).when(span).getAttributes();
+        return span;
+    }
+}
@@ -0,0 +1,102 @@
+package fi.book.org.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import fi.book.org.model.BookModel;
+import fi.book.org.repository.BookRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class TracingAspectTest {
+
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+    private final Queue<Observation.Context> stopped = new ConcurrentLinkedQueue<>();
+    private final TracingAspect aspect = new TracingAspect(observationRegistry);
+
+    @BeforeEach
+    void setUp() {
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+    }
+
+    @Test
+    void shouldNestRepositorySpanUnderServiceSpanAcrossThreads() throws Throwable {
+        Object repository = Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{BookRepository.class},
+                (proxy, method, args) -> null);
+        ProceedingJoinPoint repositoryCall = joinPoint(repository, BookRepository.class.getMethod("findById", UUID.class),
+                Mono.just(new BookModel()).publishOn(Schedulers.parallel()));
+        ProceedingJoinPoint serviceCall = joinPoint(new FakeService(), FakeService.class.getMethod("find"),
+                aspect.observe(repositoryCall));
+
+        StepVerifier.create((Mono<?>) aspect.observe(serviceCall)).expectNextCount(1).verifyComplete();
+
+        assertThat(stopped).extracting(Observation.Context::getContextualName)
+                .containsExactlyInAnyOrder("BookRepository.findById", "FakeService.find");
+        Observation.Context repositorySpan = span("BookRepository.findById");
+        assertThat(repositorySpan.getLowCardinalityKeyValue("layer").getValue()).isEqualTo("repository");
+        assertThat(repositorySpan.getParentObservation().getContextView().getContextualName()).isEqualTo("FakeService.find");
+        assertThat(span("FakeService.find").getParentObservation()).isNull();
+    }
+
+    @Test
+    void shouldRecordErrors() throws Throwable {
+        ProceedingJoinPoint serviceCall = joinPoint(new FakeService(), FakeService.class.getMethod("list"),
+                Flux.error(new IllegalStateException("boom")));
+
+        StepVerifier.create((Flux<?>) aspect.observe(serviceCall)).verifyError(IllegalStateException.class);
+
+        assertThat(stopped).singleElement()
+                .satisfies(span -> assertThat(span.getError()).isInstanceOf(IllegalStateException.class));
+    }
+
+    private Observation.Context span(String name) {
+        return stopped.stream().filter(span -> name.equals(span.getContextualName())).findFirst().orElseThrow();
+    }
+
+    private static ProceedingJoinPoint joinPoint(Object target, Method method, Object result) throws Throwable {
+        MethodSignature signature = mock(MethodSignature.class);
+        doReturn(method).when(signature).getMethod();
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        doReturn(signature).when(joinPoint).getSignature();
+        doReturn(target).when(joinPoint).getThis();
+        doReturn(result).when(joinPoint).proceed();
+        return joinPoint;
+    }
+
+    public static class FakeService {
+        public Mono<BookModel> find() {
+            return Mono.empty();
+        }
+
+        public Flux<BookModel> list() {
+            return Flux.empty();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package fi.book.org.writebehind;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InventoryWalTest {
+
+    private static final int SIZE = InventoryWal.HEADER_SIZE + 4 * InventoryWal.RECORD_SIZE;
+
+    @TempDir
+    private Path dir;
+
+    private final UUID isbn = UUID.randomUUID();
+
+    @Test
+    void shouldReplayRecordsAfterCheckpoint() throws IOException {
+        Path file = dir.resolve("inventory.wal");
+        try (InventoryWal wal = new InventoryWal(file, SIZE, false)) {
+            wal.append(isbn, 1L, 5);
+            wal.append(isbn, 2L, 7);
+            wal.checkpoint(1);
+        }
+
+        try (InventoryWal wal = new InventoryWal(file, SIZE, false)) {
+            assertEquals(List.of(new PendingWrite(isbn, 2L, 7, 2)), wal.replay());
+            assertEquals(3, wal.append(isbn, 1L, 6).sequence());
+        }
+    }
+
+    @Test
+    void shouldSkipTornRecordOnReplay() throws IOException {
+        Path file = dir.resolve("inventory.wal");
+        try (InventoryWal wal = new InventoryWal(file, SIZE, false)) {
+            wal.append(isbn, 1L, 5);
+            wal.append(isbn, 2L, 7);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[InventoryWal.HEADER_SIZE + InventoryWal.RECORD_SIZE + 33] ^= 1;
+        Files.write(file, bytes);
+
+        try (InventoryWal wal = new InventoryWal(file, SIZE, false)) {
+            assertEquals(List.of(new PendingWrite(isbn, 1L, 5, 1)), wal.replay());
+            // The torn record is overwritten by the next append
+            assertEquals(2, wal.append(isbn, 2L, 8).sequence());
+        }
+    }
+
+    @Test
+    void shouldReuseCheckpointedRecords() throws IOException {
+        Path file = dir.resolve("inventory.wal");
+        try (InventoryWal wal = new InventoryWal(file, SIZE, false)) {
+            wal.append(isbn, 1L, 5);
+            wal.append(isbn, 2L, 7);
+            wal.append(isbn, 3L, 9);
+            wal.append(isbn, 4L, 2);
+            assertFalse(wal.hasRoom());
+
+            wal.checkpoint(2);
+
+            assertTrue(wal.hasRoom());
+            wal.append(isbn, 1L, 4);
+            wal.append(isbn, 2L, 6);
+            assertFalse(wal.hasRoom());
+        }
+
+        try (InventoryWal wal = new InventoryWal(file, SIZE, false)) {
+            assertEquals(List.of(3L, 4L, 5L, 6L), wal.replay().stream().map(PendingWrite::sequence).toList());
+            assertFalse(wal.hasRoom());
+        }
+    }
+
+    @Test
+    void shouldCompactToLiveRecords() throws IOException {
+        Path file = dir.resolve("inventory.wal");
+        try (InventoryWal wal = new InventoryWal(file, SIZE, false)) {
+            wal.append(isbn, 1L, 5);
+            wal.append(isbn, 1L, 6);
+            wal.append(isbn, 2L, 7);
+            PendingWrite latest = wal.append(isbn, 1L, 8);
+            assertFalse(wal.hasRoom());
+
+            Path compacted = wal.writeCompacted(List.of(new PendingWrite(isbn, 2L, 7, 3), latest), wal.checkpoint());
+            wal.checkpoint(3);
+            wal.replaceWith(compacted, 2, List.of());
+
+            assertTrue(wal.hasRoom());
+            assertEquals(5, wal.append(isbn, 3L, 1).sequence());
+        }
+
+        try (InventoryWal wal = new InventoryWal(file, SIZE, false)) {
+            // The checkpoint taken while the compacted log was written is kept
+            assertEquals(List.of(4L, 5L), wal.replay().stream().map(PendingWrite::sequence).toList());
+        }
+        assertFalse(Files.exists(dir.resolve("inventory.wal.compact")));
+    }
+}
@@ -0,0 +1,201 @@
+package fi.book.org.writebehind;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import fi.book.org.dto.InventoryDto;
+import fi.book.org.dto.InventoryUpdateDto;
+import fi.book.org.exception.BookstoreNotFoundException;
+import fi.book.org.model.ReservedCopies;
+import fi.book.org.repository.BookstoreRepository;
+import fi.book.org.repository.InventoryRepository;
+import fi.book.org.services.OutboxService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryWriteBehindTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+    @Mock
+    private BookstoreRepository bookstoreRepository;
+    @Mock
+    private OutboxService outboxService;
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    @TempDir
+    private Path dir;
+
+    private final UUID isbn = UUID.randomUUID();
+    private WriteBehindProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setWal(dir.resolve("inventory.wal"));
+    }
+
+    @Test
+    void shouldFlushCoalescedWritesInOneTransaction() {
+        InventoryWriteBehind writeBehind = writeBehind();
+        givenTransaction();
+        when(bookstoreRepository.existsById(any())).thenReturn(Mono.just(true));
+        when(inventoryRepository.lockOrCreate(any())).thenReturn(Mono.just(2));
+        when(inventoryRepository.findReserved(any(), any())).thenReturn(Flux.empty());
+        when(inventoryRepository.appendAdjustments(any())).thenReturn(Mono.just(1));
+        when(outboxService.recordInventoryUpdates(any())).thenReturn(Mono.empty());
+
+        writeBehind.write(isbn, 1L, 5).block();
+        writeBehind.write(isbn, 1L, 7).block();
+        writeBehind.write(isbn, 2L, 3).block();
+        assertEquals(2, writeBehind.pendingCount());
+
+        StepVerifier.create(writeBehind.flush())
+                .expectNext(2)
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryUpdateDto>> merged = ArgumentCaptor.forClass(List.class);
+        verify(inventoryRepository).lockOrCreate(merged.capture());
+        assertEquals(Map.of(1L, 7, 2L, 3), merged.getValue().stream()
+                .collect(Collectors.toMap(InventoryUpdateDto::getBookstoreId, InventoryUpdateDto::getCopies)));
+        verify(inventoryRepository).appendAdjustments(merged.getValue());
+        verify(outboxService).recordInventoryUpdates(merged.getValue());
+        verify(bookstoreRepository, times(2)).existsById(any());
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Test
+    void shouldDropBufferedWriteBelowReservedCopies() {
+        InventoryWriteBehind writeBehind = writeBehind();
+        givenTransaction();
+        when(bookstoreRepository.existsById(any())).thenReturn(Mono.just(true));
+        when(inventoryRepository.lockOrCreate(any())).thenReturn(Mono.just(2));
+        when(inventoryRepository.findReserved(any(), any())).thenReturn(Flux.just(new ReservedCopies(isbn, 1L, 3)));
+        when(inventoryRepository.appendAdjustments(any())).thenReturn(Mono.just(1));
+        when(outboxService.recordInventoryUpdates(any())).thenReturn(Mono.empty());
+
+        writeBehind.write(isbn, 1L, 2).block();
+        writeBehind.write(isbn, 2L, 3).block();
+
+        StepVerifier.create(writeBehind.flush())
+                .expectNext(2)
+                .verifyComplete();
+
+        List<InventoryUpdateDto> applied = List.of(new InventoryUpdateDto(isbn, 2L, 3));
+        verify(inventoryRepository).appendAdjustments(applied);
+        verify(outboxService).recordInventoryUpdates(applied);
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Test
+    void shouldOverlayBufferedWritesOnStoredRows() {
+        InventoryWriteBehind writeBehind = writeBehind();
+        when(bookstoreRepository.existsById(any())).thenReturn(Mono.just(true));
+        writeBehind.write(isbn, 1L, 7).block();
+        writeBehind.write(isbn, 2L, 3).block();
+
+        List<InventoryDto> rows = writeBehind.overlay(isbn, List.of(
+                InventoryDto.builder().id(isbn).copies(5).bookstoreId(1L).version(2L).build()));
+
+        assertEquals(List.of(
+                InventoryDto.builder().id(isbn).copies(7).bookstoreId(1L).version(2L).build(),
+                InventoryDto.builder().id(isbn).copies(3).bookstoreId(2L).build()), rows);
+        assertEquals(List.of(), writeBehind.overlay(UUID.randomUUID(), List.of()));
+    }
+
+    @Test
+    void shouldKeepWritesWhenFlushFails() {
+        InventoryWriteBehind writeBehind = writeBehind();
+        givenTransaction();
+        when(transactionManager.rollback(any())).thenReturn(Mono.empty());
+        when(bookstoreRepository.existsById(1L)).thenReturn(Mono.just(true));
+        when(inventoryRepository.lockOrCreate(any()))
+                .thenReturn(Mono.error(new RuntimeException("Simulated database error")))
+                .thenReturn(Mono.just(1));
+        when(inventoryRepository.findReserved(any(), any())).thenReturn(Flux.empty());
+        when(inventoryRepository.appendAdjustments(any())).thenReturn(Mono.just(1));
+        when(outboxService.recordInventoryUpdates(any())).thenReturn(Mono.empty());
+        writeBehind.write(isbn, 1L, 7).block();
+
+        StepVerifier.create(writeBehind.flush())
+                .expectError(RuntimeException.class)
+                .verify();
+        assertEquals(1, writeBehind.pendingCount());
+
+        StepVerifier.create(writeBehind.flush())
+                .expectNext(1)
+                .verifyComplete();
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Test
+    void shouldReplayUnflushedWritesOnStartup() {
+        when(bookstoreRepository.existsById(1L)).thenReturn(Mono.just(true));
+        writeBehind().write(isbn, 1L, 7).block();
+
+        InventoryWriteBehind restarted = writeBehind();
+
+        assertEquals(1, restarted.pendingCount());
+        assertEquals(7, restarted.overlay(isbn, List.of()).get(0).getCopies());
+    }
+
+    @Test
+    void shouldRejectUnknownBookstore() {
+        InventoryWriteBehind writeBehind = writeBehind();
+        when(bookstoreRepository.existsById(9L)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(writeBehind.write(isbn, 9L, 1))
+                .expectError(BookstoreNotFoundException.class)
+                .verify();
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Test
+    void shouldStayOutOfTheWayWhenDisabled() {
+        properties.setEnabled(false);
+        InventoryWriteBehind writeBehind = writeBehind();
+
+        StepVerifier.create(writeBehind.flush())
+                .expectNext(0)
+                .verifyComplete();
+        verify(transactionManager, never()).getReactiveTransaction(any());
+    }
+
+    private InventoryWriteBehind writeBehind() {
+        return new InventoryWriteBehind(properties, inventoryRepository, bookstoreRepository, outboxService,
+                new ConcurrentMapCacheManager(), transactionManager, new SimpleMeterRegistry());
+    }
+
+    private void givenTransaction() {
+        when(transactionManager.getReactiveTransaction(any())).thenReturn(Mono.just(mock(ReactiveTransaction.class)));
+        when(transactionManager.commit(any())).thenReturn(Mono.empty());
+    }
+}